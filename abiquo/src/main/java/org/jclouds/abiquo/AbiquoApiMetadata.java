@@ -18,7 +18,10 @@ package org.jclouds.abiquo;
 
 import static org.jclouds.Constants.PROPERTY_MAX_REDIRECTS;
 import static org.jclouds.abiquo.config.AbiquoProperties.ASYNC_TASK_MONITOR_DELAY;
+import static org.jclouds.abiquo.config.AbiquoProperties.ASYNC_TASK_MONITOR_MAX_DELAY;
 import static org.jclouds.abiquo.config.AbiquoProperties.CREDENTIAL_TYPE;
+import static org.jclouds.abiquo.config.AbiquoProperties.EVENT_STREAM_CAPACITY;
+import static org.jclouds.abiquo.config.AbiquoProperties.PAGINATION_PREFETCH_PAGES;
 
 import java.net.URI;
 import java.util.Properties;
@@ -57,6 +60,11 @@ public class AbiquoApiMetadata extends BaseHttpApiMetadata<AbiquoApi> {
       properties.setProperty(PROPERTY_MAX_REDIRECTS, "0");
       // The default polling delay between AsyncTask monitor requests
       properties.setProperty(ASYNC_TASK_MONITOR_DELAY, "5000");
+      properties.setProperty(ASYNC_TASK_MONITOR_MAX_DELAY, "15000");
+      // Pages fetched ahead when iterating paginated collections
+      properties.setProperty(PAGINATION_PREFETCH_PAGES, "4");
+      // Events held by an event stream until they are taken
+      properties.setProperty(EVENT_STREAM_CAPACITY, "1000");
       // By default the provided credential is not a token
       properties.setProperty(CREDENTIAL_TYPE, "password");
       return properties;
@@ -18,9 +18,6 @@ package org.jclouds.abiquo.compute.strategy;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.collect.Iterables.concat;
-import static com.google.common.collect.Iterables.contains;
-import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.find;
 import static com.google.common.collect.Iterables.get;
 import static com.google.common.collect.Iterables.isEmpty;
@@ -94,7 +91,9 @@ public class AbiquoComputeServiceAdapter
 
    private final MonitoringService monitoringService;
 
-   private final FindCompatibleVirtualDatacenters compatibleVirtualDatacenters;
+   private final TemplateCompatibilityMatrix compatibilityMatrix;
+
+   private final VirtualMachineIndex virtualMachines;
 
    private final Supplier<Map<Integer, Datacenter>> regionMap;
 
@@ -103,13 +102,14 @@ public class AbiquoComputeServiceAdapter
    @Inject
    public AbiquoComputeServiceAdapter(final ApiContext<AbiquoApi> context, final AdministrationService adminService,
          final CloudService cloudService, final MonitoringService monitoringService,
-         final FindCompatibleVirtualDatacenters compatibleVirtualDatacenters,
+         final TemplateCompatibilityMatrix compatibilityMatrix, final VirtualMachineIndex virtualMachines,
          @Memoized final Supplier<Map<Integer, Datacenter>> regionMap, Timeouts timeouts) {
       this.context = checkNotNull(context, "context");
       this.adminService = checkNotNull(adminService, "adminService");
       this.cloudService = checkNotNull(cloudService, "cloudService");
       this.monitoringService = checkNotNull(monitoringService, "monitoringService");
-      this.compatibleVirtualDatacenters = checkNotNull(compatibleVirtualDatacenters, "compatibleVirtualDatacenters");
+      this.compatibilityMatrix = checkNotNull(compatibilityMatrix, "compatibilityMatrix");
+      this.virtualMachines = checkNotNull(virtualMachines, "virtualMachines");
       this.regionMap = checkNotNull(regionMap, "regionMap");
       this.timeouts = checkNotNull(timeouts, "timeouts");
    }
@@ -161,21 +161,7 @@ public class AbiquoComputeServiceAdapter
       // hardware profiles are scoped to a zone (a virtual datacenter in the
       // region, with a concrete virtualization technology)
 
-      return concat(transform(listImages(),
-            new Function<VirtualMachineTemplate, Iterable<VirtualMachineTemplateInVirtualDatacenter>>() {
-               @Override
-               public Iterable<VirtualMachineTemplateInVirtualDatacenter> apply(final VirtualMachineTemplate template) {
-                  Iterable<VirtualDatacenter> compatibleZones = compatibleVirtualDatacenters.execute(template);
-
-                  return transform(compatibleZones,
-                        new Function<VirtualDatacenter, VirtualMachineTemplateInVirtualDatacenter>() {
-                           @Override
-                           public VirtualMachineTemplateInVirtualDatacenter apply(final VirtualDatacenter vdc) {
-                              return new VirtualMachineTemplateInVirtualDatacenter(template, vdc);
-                           }
-                        });
-               }
-            }));
+      return compatibilityMatrix.get();
    }
 
    @Override
@@ -201,7 +187,7 @@ public class AbiquoComputeServiceAdapter
 
    @Override
    public VirtualMachine getNode(final String id) {
-      return find(cloudService.listVirtualMachines(), vmId(id), null);
+      return virtualMachines.get(Integer.valueOf(id));
    }
 
    @Override
@@ -211,6 +197,7 @@ public class AbiquoComputeServiceAdapter
       vm.undeploy(true);
       monitor.awaitCompletionUndeploy(timeouts.nodeTerminated, TimeUnit.MILLISECONDS, vm);
       vm.delete();
+      virtualMachines.remove(vm.getId());
    }
 
    @Override
@@ -239,18 +226,17 @@ public class AbiquoComputeServiceAdapter
 
    @Override
    public Iterable<VirtualMachine> listNodes() {
-      return cloudService.listVirtualMachines();
+      return virtualMachines.list();
    }
 
    @Override
    public Iterable<VirtualMachine> listNodesByIds(final Iterable<String> ids) {
-      return filter(listNodes(), new Predicate<VirtualMachine>() {
-
+      return virtualMachines.get(transform(ids, new Function<String, Integer>() {
          @Override
-         public boolean apply(VirtualMachine machine) {
-            return contains(ids, Integer.toString(machine.getId()));
+         public Integer apply(final String id) {
+            return Integer.valueOf(id);
          }
-      });
+      }));
    }
 
    /**
@@ -315,15 +301,6 @@ public class AbiquoComputeServiceAdapter
       }
    }
 
-   private static Predicate<VirtualMachine> vmId(final String id) {
-      return new Predicate<VirtualMachine>() {
-         @Override
-         public boolean apply(final VirtualMachine input) {
-            return Integer.valueOf(id).equals(input.getId());
-         }
-      };
-   }
-
    private static int totalCores(final Hardware hardware) {
       double cores = 0;
       for (Processor processor : hardware.getProcessors()) {
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.abiquo.compute.strategy;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.Constants.PROPERTY_SESSION_INTERVAL;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.abiquo.domain.cloud.Conversion;
+import org.jclouds.abiquo.domain.cloud.VirtualDatacenter;
+import org.jclouds.abiquo.domain.cloud.VirtualMachineTemplate;
+import org.jclouds.abiquo.domain.cloud.VirtualMachineTemplateInVirtualDatacenter;
+import org.jclouds.abiquo.domain.event.Event;
+import org.jclouds.abiquo.features.services.AdministrationService;
+import org.jclouds.abiquo.features.services.CloudService;
+import org.jclouds.abiquo.monitor.events.CompletedEvent;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.logging.Logger;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Keeps the virtual datacenters where each template of the current enterprise
+ * can be deployed, which are the hardware profiles of the compute service.
+ * <p>
+ * The virtual datacenters are listed once per build, and the templates are
+ * checked concurrently against that list. The result is kept for the session
+ * interval, and dropped earlier when a conversion completes, or when the event
+ * stream reports a change in a virtual datacenter. Templates added or removed
+ * outside a conversion are picked up when the result expires.
+ */
+@Singleton
+public class TemplateCompatibilityMatrix {
+   /** The prefix of the actions performed on virtual datacenters. */
+   private static final String VIRTUAL_DATACENTER_EVENTS = "VDC_";
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final AdministrationService adminService;
+
+   private final CloudService cloudService;
+
+   private final FilterCompatibleVirtualDatacenters compatibleVirtualDatacenters;
+
+   private final ListeningExecutorService userExecutor;
+
+   private final long ttlNanos;
+
+   private volatile Snapshot snapshot;
+
+   private volatile long buildCount;
+
+   private volatile long lastBuildMillis;
+
+   @Inject
+   public TemplateCompatibilityMatrix(final AdministrationService adminService, final CloudService cloudService,
+         final FilterCompatibleVirtualDatacenters compatibleVirtualDatacenters,
+         @Named(PROPERTY_USER_THREADS) final ListeningExecutorService userExecutor,
+         @Named(PROPERTY_SESSION_INTERVAL) final long seconds, final EventBus eventBus) {
+      this.adminService = checkNotNull(adminService, "adminService");
+      this.cloudService = checkNotNull(cloudService, "cloudService");
+      this.compatibleVirtualDatacenters = checkNotNull(compatibleVirtualDatacenters, "compatibleVirtualDatacenters");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+      this.ttlNanos = TimeUnit.SECONDS.toNanos(seconds);
+      checkNotNull(eventBus, "eventBus").register(this);
+   }
+
+   private static class Snapshot {
+      private final List<VirtualMachineTemplateInVirtualDatacenter> profiles;
+
+      private final long expiresAt;
+
+      private Snapshot(final List<VirtualMachineTemplateInVirtualDatacenter> profiles, final long expiresAt) {
+         this.profiles = profiles;
+         this.expiresAt = expiresAt;
+      }
+   }
+
+   /**
+    * Returns each template with each virtual datacenter where it can be
+    * deployed, building the matrix if it has expired.
+    */
+   public List<VirtualMachineTemplateInVirtualDatacenter> get() {
+      Snapshot current = snapshot;
+      if (current == null || System.nanoTime() - current.expiresAt > 0) {
+         current = rebuild(current);
+      }
+      return current.profiles;
+   }
+
+   /**
+    * Drops the matrix, so it is built again when it is next needed.
+    */
+   public void invalidate() {
+      snapshot = null;
+   }
+
+   /**
+    * Templates get new compatible virtual datacenters when a conversion
+    * completes.
+    */
+   @Subscribe
+   public void onCompleted(final CompletedEvent<?> event) {
+      if (event.getTarget() instanceof Conversion) {
+         logger.debug(">> conversion completed, invalidating the template compatibility matrix");
+         invalidate();
+      }
+   }
+
+   /**
+    * Virtual datacenters that are created, modified or deleted change the
+    * hardware profiles. Those events are only received while the event stream
+    * is open.
+    */
+   @Subscribe
+   public void onEvent(final Event event) {
+      String action = event.getActionPerformed();
+      if (action != null && action.startsWith(VIRTUAL_DATACENTER_EVENTS)) {
+         logger.debug(">> %s event received, invalidating the template compatibility matrix", action);
+         invalidate();
+      }
+   }
+
+   /**
+    * @return the number of times the matrix has been built
+    */
+   public long getBuildCount() {
+      return buildCount;
+   }
+
+   /**
+    * @return the time, in milliseconds, the last build took
+    */
+   public long getLastBuildMillis() {
+      return lastBuildMillis;
+   }
+
+   private synchronized Snapshot rebuild(final Snapshot expired) {
+      // Another thread may have built it while this one was waiting
+      Snapshot current = snapshot;
+      if (current != null && current != expired && System.nanoTime() - current.expiresAt <= 0) {
+         return current;
+      }
+
+      Stopwatch watch = Stopwatch.createStarted();
+      final List<VirtualDatacenter> vdcs = ImmutableList.copyOf(cloudService.listVirtualDatacenters());
+      List<ListenableFuture<List<VirtualMachineTemplateInVirtualDatacenter>>> rows = Lists.newArrayList();
+      for (final VirtualMachineTemplate template : adminService.getCurrentEnterprise().listTemplates()) {
+         rows.add(userExecutor.submit(new Callable<List<VirtualMachineTemplateInVirtualDatacenter>>() {
+            @Override
+            public List<VirtualMachineTemplateInVirtualDatacenter> call() {
+               ImmutableList.Builder<VirtualMachineTemplateInVirtualDatacenter> row = ImmutableList.builder();
+               for (VirtualDatacenter vdc : compatibleVirtualDatacenters.execute(template, vdcs)) {
+                  row.add(new VirtualMachineTemplateInVirtualDatacenter(template, vdc));
+               }
+               return row.build();
+            }
+         }));
+      }
+
+      List<VirtualMachineTemplateInVirtualDatacenter> profiles;
+      try {
+         profiles = ImmutableList.copyOf(Iterables.concat(Futures.allAsList(rows).get()));
+      } catch (InterruptedException ex) {
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(ex);
+      } catch (ExecutionException ex) {
+         throw Throwables.propagate(ex.getCause());
+      }
+
+      lastBuildMillis = watch.elapsed(TimeUnit.MILLISECONDS);
+      buildCount++;
+      logger.debug(">> built the compatibility of %s templates with %s virtual datacenters in %sms", rows.size(),
+            vdcs.size(), lastBuildMillis);
+
+      current = new Snapshot(profiles, System.nanoTime() + ttlNanos);
+      snapshot = current;
+      return current;
+   }
+}
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.abiquo.compute.strategy;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.abiquo.domain.DomainWrapper.wrap;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.abiquo.AbiquoApi;
+import org.jclouds.abiquo.domain.cloud.VirtualMachine;
+import org.jclouds.abiquo.features.services.CloudService;
+import org.jclouds.abiquo.reference.rest.ParentLinkName;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.functions.ParseXMLWithJAXB;
+import org.jclouds.logging.Logger;
+import org.jclouds.rest.ApiContext;
+
+import com.abiquo.model.rest.RESTLink;
+import com.abiquo.server.core.cloud.VirtualApplianceDto;
+import com.abiquo.server.core.cloud.VirtualMachineWithNodeExtendedDto;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.inject.TypeLiteral;
+
+/**
+ * Remembers the virtual machines seen in the listings, so a single virtual
+ * machine can be fetched with one request to its own link instead of listing
+ * all of them.
+ * <p>
+ * Virtual machines do not move between virtual appliances, so the links are
+ * kept until the virtual machine is not found. Their appliances are fetched
+ * through the parent link of the first virtual machine refreshed in them.
+ * Unknown ids are resolved with a full listing, that refreshes the whole index.
+ */
+@Singleton
+public class VirtualMachineIndex {
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final ApiContext<AbiquoApi> context;
+
+   private final CloudService cloudService;
+
+   private final ConcurrentMap<Integer, VirtualMachineWithNodeExtendedDto> byId = Maps.newConcurrentMap();
+
+   private final ConcurrentMap<String, VirtualApplianceDto> appliances = Maps.newConcurrentMap();
+
+   @Inject
+   public VirtualMachineIndex(final ApiContext<AbiquoApi> context, final CloudService cloudService) {
+      this.context = checkNotNull(context, "context");
+      this.cloudService = checkNotNull(cloudService, "cloudService");
+   }
+
+   /**
+    * Lists all the virtual machines, and indexes them while they are iterated.
+    */
+   public Iterable<VirtualMachine> list() {
+      Iterable<VirtualMachine> vms = cloudService.listVirtualMachines();
+      return FluentIterable.from(vms).transform(new Function<VirtualMachine, VirtualMachine>() {
+         @Override
+         public VirtualMachine apply(final VirtualMachine input) {
+            // The virtual machine is fetched through the link of its appliance
+            if (input.unwrap().searchLink(ParentLinkName.VIRTUAL_APPLIANCE) != null) {
+               byId.put(input.getId(), input.unwrap());
+            }
+            return input;
+         }
+      });
+   }
+
+   /**
+    * Gets a virtual machine by its id.
+    * 
+    * @return The virtual machine, or <code>null</code> if it does not exist.
+    */
+   public VirtualMachine get(final Integer id) {
+      checkNotNull(id, "id");
+      if (byId.containsKey(id)) {
+         return refresh(id);
+      }
+      logger.debug(">> virtual machine %s is not indexed, listing all virtual machines", id);
+      return FluentIterable.from(list()).firstMatch(idIn(ImmutableSet.of(id))).orNull();
+   }
+
+   /**
+    * Gets the virtual machines with the given ids.
+    * <p>
+    * If all of them are indexed, they are fetched one by one. Otherwise, all
+    * the virtual machines are listed once.
+    */
+   public Iterable<VirtualMachine> get(final Iterable<Integer> ids) {
+      Set<Integer> wanted = ImmutableSet.copyOf(ids);
+      if (!byId.keySet().containsAll(wanted)) {
+         return ImmutableList.copyOf(FluentIterable.from(list()).filter(idIn(wanted)));
+      }
+
+      ImmutableList.Builder<VirtualMachine> vms = ImmutableList.builder();
+      for (Integer id : wanted) {
+         VirtualMachine vm = refresh(id);
+         if (vm != null) {
+            vms.add(vm);
+         }
+      }
+      return vms.build();
+   }
+
+   /**
+    * Forgets a virtual machine, after it has been deleted.
+    */
+   public void remove(final Integer id) {
+      byId.remove(id);
+   }
+
+   /**
+    * Fetches an indexed virtual machine through its own link.
+    * 
+    * @return The up to date virtual machine, or <code>null</code> if it is not
+    *         indexed or no longer exists.
+    */
+   private VirtualMachine refresh(final Integer id) {
+      VirtualMachineWithNodeExtendedDto indexed = byId.get(id);
+      if (indexed == null) {
+         return null;
+      }
+      RESTLink link = indexed.searchLink(ParentLinkName.VIRTUAL_APPLIANCE);
+      VirtualApplianceDto appliance = appliances.get(link.getHref());
+      if (appliance == null) {
+         appliance = getVirtualAppliance(link);
+      }
+      // The api returns null when the appliance or the virtual machine is not
+      // found
+      VirtualMachineWithNodeExtendedDto dto = appliance == null ? null : context.getApi().getCloudApi()
+            .getVirtualMachine(appliance, id);
+      if (dto == null) {
+         logger.debug(">> virtual machine %s no longer exists", id);
+         byId.remove(id, indexed);
+         return null;
+      }
+      appliances.put(link.getHref(), appliance);
+      byId.put(id, dto);
+      return wrap(context, VirtualMachine.class, dto);
+   }
+
+   /**
+    * Fetches a virtual appliance through the given parent link.
+    * 
+    * @return The virtual appliance, or <code>null</code> if it no longer
+    *         exists.
+    */
+   @VisibleForTesting
+   VirtualApplianceDto getVirtualAppliance(final RESTLink link) {
+      HttpResponse response = context.getApi().get(link);
+      if (response == null) {
+         return null;
+      }
+      ParseXMLWithJAXB<VirtualApplianceDto> parser = new ParseXMLWithJAXB<VirtualApplianceDto>(context.utils().xml(),
+            TypeLiteral.get(VirtualApplianceDto.class));
+      return parser.apply(response);
+   }
+
+   private static Predicate<VirtualMachine> idIn(final Set<Integer> ids) {
+      return new Predicate<VirtualMachine>() {
+         @Override
+         public boolean apply(final VirtualMachine input) {
+            return ids.contains(input.getId());
+         }
+      };
+   }
+}
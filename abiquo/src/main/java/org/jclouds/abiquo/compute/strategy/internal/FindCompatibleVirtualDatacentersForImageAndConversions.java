@@ -21,11 +21,15 @@ import static com.google.common.collect.Iterables.filter;
 import static org.jclouds.abiquo.domain.DomainWrapper.wrap;
 import static org.jclouds.abiquo.predicates.VirtualDatacenterPredicates.compatibleWithTemplateOrConversions;
 
+import java.util.List;
+
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.jclouds.abiquo.AbiquoApi;
+import org.jclouds.abiquo.compute.strategy.FilterCompatibleVirtualDatacenters;
 import org.jclouds.abiquo.compute.strategy.FindCompatibleVirtualDatacenters;
+import org.jclouds.abiquo.domain.cloud.Conversion;
 import org.jclouds.abiquo.domain.cloud.VirtualDatacenter;
 import org.jclouds.abiquo.domain.cloud.VirtualMachineTemplate;
 import org.jclouds.abiquo.domain.infrastructure.Datacenter;
@@ -35,16 +39,20 @@ import org.jclouds.abiquo.reference.rest.ParentLinkName;
 import org.jclouds.rest.ApiContext;
 
 import com.abiquo.server.core.infrastructure.DatacenterDto;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
 
 /**
- * Default implementation for the {@link FindCompatibleVirtualDatacenters}
- * strategy.
+ * Default implementation for the {@link FindCompatibleVirtualDatacenters} and
+ * {@link FilterCompatibleVirtualDatacenters} strategies.
  * <p>
  * This strategy assumes that the datacenter will have different hypervisor
  * technologies, and images will have conversions to each of them.
  */
 @Singleton
-public class FindCompatibleVirtualDatacentersForImageAndConversions implements FindCompatibleVirtualDatacenters {
+public class FindCompatibleVirtualDatacentersForImageAndConversions implements FindCompatibleVirtualDatacenters,
+      FilterCompatibleVirtualDatacenters {
    private final ApiContext<AbiquoApi> context;
 
    private final CloudService cloudService;
@@ -58,6 +66,12 @@ public class FindCompatibleVirtualDatacentersForImageAndConversions implements F
 
    @Override
    public Iterable<VirtualDatacenter> execute(final VirtualMachineTemplate template) {
+      return execute(template, cloudService.listVirtualDatacenters());
+   }
+
+   @Override
+   public Iterable<VirtualDatacenter> execute(final VirtualMachineTemplate template,
+         final Iterable<VirtualDatacenter> candidates) {
       // Build the transport object with the available information to avoid
       // making an unnecessary call to the target API (we only need the id of
       // the datacenter, and it is present in the link).
@@ -65,10 +79,19 @@ public class FindCompatibleVirtualDatacentersForImageAndConversions implements F
       datacenterDto.setId(template.unwrap().getIdFromLink(ParentLinkName.DATACENTER_REPOSITORY));
       Datacenter datacenter = wrap(context, Datacenter.class, datacenterDto);
 
-      Iterable<VirtualDatacenter> vdcs = filter(cloudService.listVirtualDatacenters(),
-            VirtualDatacenterPredicates.datacenter(datacenter));
+      List<VirtualDatacenter> vdcs = ImmutableList.copyOf(filter(candidates,
+            VirtualDatacenterPredicates.datacenter(datacenter)));
+
+      // The conversions of the template are listed at most once, and only if
+      // a virtual datacenter is not compatible with the base disk format
+      Supplier<List<Conversion>> conversions = Suppliers.memoize(new Supplier<List<Conversion>>() {
+         @Override
+         public List<Conversion> get() {
+            return ImmutableList.copyOf(template.listConversions());
+         }
+      });
 
-      return filter(vdcs, compatibleWithTemplateOrConversions(template));
+      return ImmutableList.copyOf(filter(vdcs, compatibleWithTemplateOrConversions(template, conversions)));
    }
 
 }
@@ -24,6 +24,7 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.jclouds.abiquo.AbiquoApi;
+import org.jclouds.abiquo.compute.strategy.FilterCompatibleVirtualDatacenters;
 import org.jclouds.abiquo.compute.strategy.FindCompatibleVirtualDatacenters;
 import org.jclouds.abiquo.domain.cloud.VirtualDatacenter;
 import org.jclouds.abiquo.domain.cloud.VirtualMachineTemplate;
@@ -38,8 +39,9 @@ import com.abiquo.server.core.infrastructure.DatacenterDto;
 import com.google.common.base.Predicate;
 
 /**
- * Implementation for the {@link FindCompatibleVirtualDatacenters} strategy to
- * be used in homogeneous datacenters.
+ * Implementation for the {@link FindCompatibleVirtualDatacenters} and
+ * {@link FilterCompatibleVirtualDatacenters} strategies to be used in
+ * homogeneous datacenters.
  * <p>
  * For providers that only have one hypervisor technology in the physical
  * datacenter and use compatible images, there is no need to check if the images
@@ -48,7 +50,8 @@ import com.google.common.base.Predicate;
  * This strategy will only consider the base disk format of the image.
  */
 @Singleton
-public class FindCompatibleVirtualDatacentersForImageBaseFormat implements FindCompatibleVirtualDatacenters {
+public class FindCompatibleVirtualDatacentersForImageBaseFormat implements FindCompatibleVirtualDatacenters,
+      FilterCompatibleVirtualDatacenters {
    private final ApiContext<AbiquoApi> context;
 
    private final CloudService cloudService;
@@ -62,6 +65,12 @@ public class FindCompatibleVirtualDatacentersForImageBaseFormat implements FindC
 
    @Override
    public Iterable<VirtualDatacenter> execute(final VirtualMachineTemplate template) {
+      return execute(template, cloudService.listVirtualDatacenters());
+   }
+
+   @Override
+   public Iterable<VirtualDatacenter> execute(final VirtualMachineTemplate template,
+         final Iterable<VirtualDatacenter> candidates) {
       // Build the transport object with the available information to avoid
       // making an unnecessary call to the target API (we only need the id of
       // the datacenter, and it is present in the link).
@@ -69,8 +78,7 @@ public class FindCompatibleVirtualDatacentersForImageBaseFormat implements FindC
       datacenterDto.setId(template.unwrap().getIdFromLink(ParentLinkName.DATACENTER_REPOSITORY));
       Datacenter datacenter = wrap(context, Datacenter.class, datacenterDto);
 
-      Iterable<VirtualDatacenter> vdcs = filter(cloudService.listVirtualDatacenters(),
-            VirtualDatacenterPredicates.datacenter(datacenter));
+      Iterable<VirtualDatacenter> vdcs = filter(candidates, VirtualDatacenterPredicates.datacenter(datacenter));
 
       return filter(vdcs, new Predicate<VirtualDatacenter>() {
          @Override
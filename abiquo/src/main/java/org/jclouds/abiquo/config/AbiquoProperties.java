@@ -36,6 +36,34 @@ public interface AbiquoProperties {
     */
    public static final String ASYNC_TASK_MONITOR_DELAY = "abiquo.monitor-delay";
 
+   /**
+    * The maximum delay (in ms) between two checks of an object monitored by
+    * the <code>MonitoringService<code>. Objects that stay unchanged are
+    * checked less and less often, up to this delay. The monitoring service
+    * never waits more than three times the {@link #ASYNC_TASK_MONITOR_DELAY}.
+    * <p>
+    * Default value: 15000 ms
+    */
+   public static final String ASYNC_TASK_MONITOR_MAX_DELAY = "abiquo.monitor-max-delay";
+
+   /**
+    * The maximum number of pages fetched concurrently, ahead of the one being
+    * read, when iterating all the pages of a paginated collection. Zero
+    * disables prefetching, and pages are fetched one at a time.
+    * <p>
+    * Default value: 4
+    */
+   public static final String PAGINATION_PREFETCH_PAGES = "abiquo.pagination-prefetch-pages";
+
+   /**
+    * The maximum number of events an event stream holds until they are taken.
+    * When it is full, the stream stops fetching events until there is room
+    * again.
+    * <p>
+    * Default value: 1000
+    */
+   public static final String EVENT_STREAM_CAPACITY = "abiquo.event-stream-capacity";
+
    /**
     * The name of the Abiquo logger.
     */
@@ -18,12 +18,16 @@ package org.jclouds.abiquo.domain;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.abiquo.config.AbiquoProperties.PAGINATION_PREFETCH_PAGES;
 import static org.jclouds.collect.PagedIterables.advance;
 import static org.jclouds.collect.PagedIterables.onlyPage;
 
 import java.util.Iterator;
 import java.util.List;
 
+import javax.inject.Named;
+
 import org.jclouds.abiquo.AbiquoApi;
 import org.jclouds.collect.IterableWithMarker;
 import org.jclouds.collect.PagedIterable;
@@ -33,6 +37,8 @@ import com.abiquo.model.rest.RESTLink;
 import com.abiquo.model.transport.WrapperDto;
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.inject.Inject;
 
 /**
  * This class represents a collection that is paginated.
@@ -79,7 +85,8 @@ public class PaginatedCollection<T, W extends WrapperDto<T>> extends IterableWit
     * {@link PagedIterable}.
     * <p>
     * The PagedIterable will fetch the next pages based on the <code>next</code>
-    * link of the current object.
+    * link of the current object. When the function is injected, the next pages
+    * are fetched concurrently on the user executor.
     * <p>
     * Subclasses may overwrite this one, to provide a concrete type for the
     * parser parameter, so this function can be injected in the different api
@@ -91,6 +98,16 @@ public class PaginatedCollection<T, W extends WrapperDto<T>> extends IterableWit
       protected final AbiquoApi api;
       protected final ParseXMLWithJAXB<W> parser;
 
+      /** The executor used to fetch the next pages concurrently, if any. */
+      @Inject(optional = true)
+      @Named(PROPERTY_USER_THREADS)
+      protected ListeningExecutorService userExecutor;
+
+      /** The maximum number of pages fetched ahead of the one being read. */
+      @Inject(optional = true)
+      @Named(PAGINATION_PREFETCH_PAGES)
+      protected int prefetchPages;
+
       public ToPagedIterable(AbiquoApi api, ParseXMLWithJAXB<W> parser) {
          this.api = checkNotNull(api, "api must not be null");
          this.parser = checkNotNull(parser, "parser must not be null");
@@ -98,7 +115,11 @@ public class PaginatedCollection<T, W extends WrapperDto<T>> extends IterableWit
 
       @Override
       public PagedIterable<T> apply(final PaginatedCollection<T, W> input) {
-         return input.nextMarker().isPresent() ? advance(input, nextPage(input)) : onlyPage(input);
+         if (!input.nextMarker().isPresent()) {
+            return onlyPage(input);
+         }
+         return userExecutor != null && prefetchPages > 0 ? new PrefetchingPagedIterable<T, W>(input,
+               nextPage(input), userExecutor, prefetchPages) : advance(input, nextPage(input));
       }
 
       protected Function<Object, IterableWithMarker<T>> nextPage(final PaginatedCollection<T, W> input) {
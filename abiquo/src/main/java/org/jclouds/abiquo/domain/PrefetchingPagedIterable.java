@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.abiquo.domain;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Iterables.getFirst;
+import static org.jclouds.collect.PagedIterables.advance;
+import static org.jclouds.http.utils.Queries.encodeQueryLine;
+import static org.jclouds.http.utils.Queries.queryParser;
+
+import java.net.URI;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.jclouds.collect.IterableWithMarker;
+import org.jclouds.collect.PagedIterable;
+
+import com.abiquo.model.rest.RESTLink;
+import com.abiquo.model.transport.WrapperDto;
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Queues;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * A {@link PagedIterable} that fetches the pages of a
+ * {@link PaginatedCollection} concurrently.
+ * <p>
+ * The links to all the pages are computed from the total size and the
+ * <code>startwith</code> and <code>limit</code> parameters of the
+ * <code>next</code> link of the first page. Up to a given number of pages are
+ * fetched ahead of the one being read, and pages are returned in order. When
+ * the iteration stops early, only the pages already requested are fetched.
+ * <p>
+ * Collections whose links do not carry these parameters are fetched one page
+ * at a time, following the <code>next</code> links.
+ */
+public class PrefetchingPagedIterable<T, W extends WrapperDto<T>> extends PagedIterable<T> {
+   private final PaginatedCollection<T, W> first;
+
+   private final Function<Object, IterableWithMarker<T>> nextPage;
+
+   private final ListeningExecutorService executor;
+
+   private final int maxPagesAhead;
+
+   public PrefetchingPagedIterable(final PaginatedCollection<T, W> first,
+         final Function<Object, IterableWithMarker<T>> nextPage, final ListeningExecutorService executor,
+         final int maxPagesAhead) {
+      checkArgument(maxPagesAhead > 0, "maxPagesAhead must be greater than zero");
+      this.first = checkNotNull(first, "first");
+      this.nextPage = checkNotNull(nextPage, "nextPage");
+      this.executor = checkNotNull(executor, "executor");
+      this.maxPagesAhead = maxPagesAhead;
+   }
+
+   @Override
+   public Iterator<IterableWithMarker<T>> iterator() {
+      Optional<List<RESTLink>> links = remainingPages();
+      return links.isPresent() ? new PrefetchingIterator(links.get()) : advance(first, nextPage).iterator();
+   }
+
+   /**
+    * Computes the links to all the pages after the first one, if the
+    * <code>next</code> link has the needed query parameters.
+    */
+   private Optional<List<RESTLink>> remainingPages() {
+      Optional<Object> marker = first.nextMarker();
+      Integer totalSize = first.getTotalSize();
+      if (!marker.isPresent() || !(marker.get() instanceof RESTLink) || totalSize == null) {
+         return Optional.absent();
+      }
+
+      RESTLink next = RESTLink.class.cast(marker.get());
+      int queryStart = next.getHref().indexOf('?');
+      if (queryStart < 0) {
+         return Optional.absent();
+      }
+      Multimap<String, String> params = queryParser().apply(URI.create(next.getHref()).getRawQuery());
+      String limit = getFirst(params.get("limit"), null);
+      String startwith = getFirst(params.removeAll("startwith"), null);
+      if (limit == null || startwith == null || Integer.parseInt(limit) <= 0) {
+         return Optional.absent();
+      }
+
+      String base = next.getHref().substring(0, queryStart + 1);
+      ImmutableList.Builder<RESTLink> links = ImmutableList.builder();
+      for (int start = Integer.parseInt(startwith); start < totalSize; start += Integer.parseInt(limit)) {
+         params.replaceValues("startwith", ImmutableList.of(String.valueOf(start)));
+         links.add(new RESTLink(next.getRel(), base + encodeQueryLine(params)));
+      }
+      return Optional.<List<RESTLink>> of(links.build());
+   }
+
+   private class PrefetchingIterator extends AbstractIterator<IterableWithMarker<T>> {
+      private final Iterator<RESTLink> links;
+
+      private final Deque<ListenableFuture<IterableWithMarker<T>>> pagesAhead = Queues.newArrayDeque();
+
+      private boolean firstReturned;
+
+      private PrefetchingIterator(final List<RESTLink> links) {
+         this.links = links.iterator();
+      }
+
+      @Override
+      protected IterableWithMarker<T> computeNext() {
+         if (!firstReturned) {
+            firstReturned = true;
+            fillWindow();
+            return first;
+         }
+         ListenableFuture<IterableWithMarker<T>> page = pagesAhead.poll();
+         if (page == null) {
+            return endOfData();
+         }
+         fillWindow();
+         try {
+            return Futures.getUnchecked(page);
+         } catch (UncheckedExecutionException ex) {
+            // Fail as if the page had been fetched in the calling thread
+            throw Throwables.propagate(ex.getCause());
+         }
+      }
+
+      private void fillWindow() {
+         while (pagesAhead.size() < maxPagesAhead && links.hasNext()) {
+            final RESTLink link = links.next();
+            pagesAhead.add(executor.submit(new Callable<IterableWithMarker<T>>() {
+               @Override
+               public IterableWithMarker<T> call() {
+                  return nextPage.apply(link);
+               }
+            }));
+         }
+      }
+   }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.abiquo.domain.event;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A continuous stream of the {@link Event}s logged by the Abiquo platform.
+ * <p>
+ * The stream remembers the most recent event it has fetched, and only asks for
+ * newer ones. Fetched events are held until they are taken, and no more events
+ * are fetched while the stream is full.
+ */
+public interface EventStream extends Closeable {
+   /**
+    * Takes the next event, waiting until one is available.
+    */
+   Event take() throws InterruptedException;
+
+   /**
+    * Takes the next event, waiting up to the given time until one is
+    * available.
+    * 
+    * @return The next event, or <code>null</code> if none arrived in time.
+    */
+   Event poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+   /**
+    * Moves the available events to the given collection, without waiting.
+    * 
+    * @return The number of events moved.
+    */
+   int drainTo(Collection<? super Event> events, int maxEvents);
+
+   /**
+    * Returns the timestamp of the most recent event fetched by the stream.
+    */
+   Date getHighWaterMark();
+
+   /**
+    * Stops fetching events. The events already held can still be taken.
+    */
+   @Override
+   void close();
+}
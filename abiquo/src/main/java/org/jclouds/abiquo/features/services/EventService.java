@@ -16,7 +16,10 @@
  */
 package org.jclouds.abiquo.features.services;
 
+import java.util.Date;
+
 import org.jclouds.abiquo.domain.event.Event;
+import org.jclouds.abiquo.domain.event.EventStream;
 import org.jclouds.abiquo.domain.event.options.EventOptions;
 import org.jclouds.abiquo.internal.BaseEventService;
 
@@ -36,4 +39,17 @@ public interface EventService {
     * Get the list of all events using filters as query params.
     */
    Iterable<Event> listEvents(EventOptions options);
+
+   /**
+    * Get a stream of the events logged after the last one.
+    * <p>
+    * The stream starts at the timestamp the platform gave to its last event,
+    * regardless of the local clock.
+    */
+   EventStream streamEvents();
+
+   /**
+    * Get a stream of the events logged since the given date.
+    */
+   EventStream streamEvents(Date since);
 }
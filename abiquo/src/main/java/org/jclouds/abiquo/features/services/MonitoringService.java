@@ -16,6 +16,7 @@
  */
 package org.jclouds.abiquo.features.services;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.jclouds.abiquo.internal.BaseMonitoringService;
@@ -24,9 +25,11 @@ import org.jclouds.abiquo.monitor.ConversionMonitor;
 import org.jclouds.abiquo.monitor.MonitorStatus;
 import org.jclouds.abiquo.monitor.VirtualApplianceMonitor;
 import org.jclouds.abiquo.monitor.VirtualMachineMonitor;
+import org.jclouds.abiquo.monitor.events.MonitorEvent;
 import org.jclouds.abiquo.monitor.handlers.AbstractEventHandler;
 
 import com.google.common.base.Function;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.inject.ImplementedBy;
 
 /**
@@ -91,6 +94,38 @@ public interface MonitoringService {
    <T> void monitor(final Long maxWait, final TimeUnit timeUnit,
          final Function<T, MonitorStatus> completeCondition, final T... objects);
 
+   /**
+    * Monitor the given objects using the given complete condition.
+    * 
+    * @param completeCondition
+    *           The function that will be used to decide if the asynchronous
+    *           operations have finished.
+    * @param objects
+    *           The objects to monitor.
+    * @return The futures holding the final event of each object, in the order
+    *         of the given objects.
+    */
+   <T> List<ListenableFuture<MonitorEvent<T>>> track(final Function<T, MonitorStatus> completeCondition,
+         final T... objects);
+
+   /**
+    * Monitor the given objects using the given complete condition.
+    * 
+    * @param maxWait
+    *           The maximum time to wait.
+    * @param timeUnit
+    *           The time unit for the maxWait parameter.
+    * @param completeCondition
+    *           The function that will be used to decide if the asynchronous
+    *           operations have finished.
+    * @param objects
+    *           The objects to monitor.
+    * @return The futures holding the final event of each object, in the order
+    *         of the given objects.
+    */
+   <T> List<ListenableFuture<MonitorEvent<T>>> track(final Long maxWait, final TimeUnit timeUnit,
+         final Function<T, MonitorStatus> completeCondition, final T... objects);
+
    /*************** Handler registration methods ***************/
 
    /**
@@ -17,34 +17,76 @@
 package org.jclouds.abiquo.internal;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.Constants.PROPERTY_SCHEDULER_THREADS;
+import static org.jclouds.abiquo.config.AbiquoProperties.ASYNC_TASK_MONITOR_DELAY;
+import static org.jclouds.abiquo.config.AbiquoProperties.ASYNC_TASK_MONITOR_MAX_DELAY;
+import static org.jclouds.abiquo.config.AbiquoProperties.EVENT_STREAM_CAPACITY;
 import static org.jclouds.abiquo.domain.DomainWrapper.wrap;
 
+import java.util.Date;
+import java.util.concurrent.ScheduledExecutorService;
+
+import javax.annotation.Resource;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.jclouds.abiquo.AbiquoApi;
+import org.jclouds.abiquo.config.AbiquoProperties;
 import org.jclouds.abiquo.domain.PaginatedCollection;
 import org.jclouds.abiquo.domain.event.Event;
+import org.jclouds.abiquo.domain.event.EventStream;
 import org.jclouds.abiquo.domain.event.options.EventOptions;
 import org.jclouds.abiquo.features.services.EventService;
 import org.jclouds.collect.PagedIterable;
+import org.jclouds.logging.Logger;
 import org.jclouds.rest.ApiContext;
 
 import com.abiquo.server.core.event.EventDto;
 import com.abiquo.server.core.event.EventsDto;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Iterables;
+import com.google.common.eventbus.EventBus;
 
 /**
  * Provides high level Abiquo event operations.
  */
 @Singleton
 public class BaseEventService implements EventService {
+   @Resource
+   @Named(AbiquoProperties.ABIQUO_LOGGER)
+   private Logger logger = Logger.NULL;
+
    @VisibleForTesting
    protected ApiContext<AbiquoApi> context;
 
+   @VisibleForTesting
+   protected ScheduledExecutorService scheduler;
+
+   @VisibleForTesting
+   protected Long pollingDelay;
+
+   @VisibleForTesting
+   protected Long maxDelay;
+
+   @VisibleForTesting
+   protected Integer capacity;
+
+   @VisibleForTesting
+   protected EventBus eventBus;
+
    @Inject
-   protected BaseEventService(final ApiContext<AbiquoApi> context) {
+   protected BaseEventService(final ApiContext<AbiquoApi> context,
+         @Named(PROPERTY_SCHEDULER_THREADS) final ScheduledExecutorService scheduler,
+         @Named(ASYNC_TASK_MONITOR_DELAY) final Long pollingDelay,
+         @Named(ASYNC_TASK_MONITOR_MAX_DELAY) final Long maxDelay, @Named(EVENT_STREAM_CAPACITY) final Integer capacity,
+         final EventBus eventBus) {
       this.context = checkNotNull(context, "context");
+      this.scheduler = checkNotNull(scheduler, "scheduler");
+      this.pollingDelay = checkNotNull(pollingDelay, "pollingDelay");
+      this.maxDelay = checkNotNull(maxDelay, "maxDelay");
+      this.capacity = checkNotNull(capacity, "capacity");
+      this.eventBus = checkNotNull(eventBus, "eventBus");
    }
 
    @Override
@@ -58,4 +100,26 @@ public class BaseEventService implements EventService {
       PaginatedCollection<EventDto, EventsDto> result = context.getApi().getEventApi().listEvents(options);
       return wrap(context, Event.class, result.toPagedIterable().concat());
    }
+
+   @Override
+   public EventStream streamEvents() {
+      // The window starts at the last logged event, as timestamped by the
+      // platform, so the local clock does not make events be missed or
+      // repeated
+      EventOptions options = EventOptions.builder().orderBy("timestamp").asc(false).limit(1).build();
+      EventDto last = Iterables.getFirst(context.getApi().getEventApi().listEvents(options), null);
+      if (last == null || last.getTimestamp() == null) {
+         return streamEvents(new Date(0L));
+      }
+      return newStream(last.getTimestamp()).skip(last.getId()).start();
+   }
+
+   @Override
+   public EventStream streamEvents(final Date since) {
+      return newStream(since).start();
+   }
+
+   private PollingEventStream newStream(final Date since) {
+      return new PollingEventStream(context, scheduler, pollingDelay, maxDelay, capacity, eventBus, since, logger);
+   }
 }
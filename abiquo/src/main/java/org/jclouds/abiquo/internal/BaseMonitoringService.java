@@ -20,7 +20,8 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static org.jclouds.Constants.PROPERTY_SCHEDULER_THREADS;
 import static org.jclouds.abiquo.config.AbiquoProperties.ASYNC_TASK_MONITOR_DELAY;
 
-import java.util.concurrent.Future;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -35,9 +36,7 @@ import org.jclouds.abiquo.monitor.ConversionMonitor;
 import org.jclouds.abiquo.monitor.MonitorStatus;
 import org.jclouds.abiquo.monitor.VirtualApplianceMonitor;
 import org.jclouds.abiquo.monitor.VirtualMachineMonitor;
-import org.jclouds.abiquo.monitor.events.CompletedEvent;
-import org.jclouds.abiquo.monitor.events.FailedEvent;
-import org.jclouds.abiquo.monitor.events.TimeoutEvent;
+import org.jclouds.abiquo.monitor.events.MonitorEvent;
 import org.jclouds.abiquo.monitor.handlers.AbstractEventHandler;
 import org.jclouds.abiquo.monitor.handlers.BlockingEventHandler;
 import org.jclouds.logging.Logger;
@@ -45,7 +44,12 @@ import org.jclouds.rest.ApiContext;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
 import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.Inject;
 
 /**
@@ -72,17 +76,33 @@ public class BaseMonitoringService implements MonitoringService {
    @VisibleForTesting
    protected EventBus eventBus;
 
+   /** The poller shared by all the monitored objects. */
+   @VisibleForTesting
+   protected MonitoringPoller poller;
+
    @Resource
    private Logger logger = Logger.NULL;
 
    @Inject
    public BaseMonitoringService(final ApiContext<AbiquoApi> context,
          @Named(PROPERTY_SCHEDULER_THREADS) final ScheduledExecutorService scheduler,
-         @Named(ASYNC_TASK_MONITOR_DELAY) final Long pollingDelay, final EventBus eventBus) {
+         @Named(ASYNC_TASK_MONITOR_DELAY) final Long pollingDelay, final EventBus eventBus,
+         final MonitoringPoller poller) {
       this.context = checkNotNull(context, "context");
       this.scheduler = checkNotNull(scheduler, "scheduler");
       this.pollingDelay = checkNotNull(pollingDelay, "pollingDelay");
       this.eventBus = checkNotNull(eventBus, "eventBus");
+      this.poller = checkNotNull(poller, "poller");
+   }
+
+   /**
+    * Creates a monitoring service with its own poller, that publishes the
+    * events from the polling thread.
+    */
+   public BaseMonitoringService(final ApiContext<AbiquoApi> context, final ScheduledExecutorService scheduler,
+         final Long pollingDelay, final EventBus eventBus) {
+      this(context, scheduler, pollingDelay, eventBus, new MonitoringPoller(context, scheduler,
+            MoreExecutors.newDirectExecutorService(), pollingDelay, pollingDelay, eventBus));
    }
 
    /*************** Generic monitoring methods ***************/
@@ -98,13 +118,14 @@ public class BaseMonitoringService implements MonitoringService {
       checkNotNull(completeCondition, "completeCondition");
 
       if (objects != null && objects.length > 0) {
-         BlockingEventHandler<T> blockingHandler = new BlockingEventHandler<T>(logger, objects);
-         register(blockingHandler);
-
-         monitor(maxWait, timeUnit, completeCondition, objects);
-         blockingHandler.lock();
-
-         unregister(blockingHandler);
+         try {
+            Futures.successfulAsList(track(maxWait, timeUnit, completeCondition, objects)).get();
+         } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw Throwables.propagate(ex);
+         } catch (ExecutionException ex) {
+            throw Throwables.propagate(ex.getCause());
+         }
       }
    }
 
@@ -116,17 +137,27 @@ public class BaseMonitoringService implements MonitoringService {
    @Override
    public <T> void monitor(final Long maxWait, final TimeUnit timeUnit,
          final Function<T, MonitorStatus> completeCondition, final T... objects) {
+      track(maxWait, timeUnit, completeCondition, objects);
+   }
+
+   @Override
+   public <T> List<ListenableFuture<MonitorEvent<T>>> track(final Function<T, MonitorStatus> completeCondition,
+         final T... objects) {
+      return track(null, null, completeCondition, objects);
+   }
+
+   @Override
+   public <T> List<ListenableFuture<MonitorEvent<T>>> track(final Long maxWait, final TimeUnit timeUnit,
+         final Function<T, MonitorStatus> completeCondition, final T... objects) {
       checkNotNull(completeCondition, "completeCondition");
       if (maxWait != null) {
          checkNotNull(timeUnit, "timeUnit");
       }
 
-      if (objects != null && objects.length > 0) {
-         for (T object : objects) {
-            AsyncMonitor<T> monitor = new AsyncMonitor<T>(object, completeCondition);
-            monitor.startMonitoring(maxWait, timeUnit);
-         }
+      if (objects == null || objects.length == 0) {
+         return ImmutableList.of();
       }
+      return poller.monitor(maxWait, timeUnit, completeCondition, objects);
    }
 
    @Override
@@ -163,132 +194,4 @@ public class BaseMonitoringService implements MonitoringService {
    public ConversionMonitor getConversionMonitor() {
       return checkNotNull(context.utils().injector().getInstance(ConversionMonitor.class), "conversionMonitor");
    }
-
-   /**
-    * Performs the periodical monitoring tasks.
-    * 
-    * @param <T>
-    *           The type of the object being monitored.
-    */
-   @VisibleForTesting
-   class AsyncMonitor<T> implements Runnable {
-      /** The object being monitored. */
-      private T monitoredObject;
-
-      /** The function used to monitor the target object. */
-      private Function<T, MonitorStatus> completeCondition;
-
-      /**
-       * The future representing the monitoring job. Needed to be able to cancel
-       * it when monitor finishes.
-       */
-      private Future<?> future;
-
-      /** The timeout for this monitor. */
-      private Long timeout;
-
-      public AsyncMonitor(final T monitoredObject, final Function<T, MonitorStatus> completeCondition) {
-         super();
-         this.monitoredObject = checkNotNull(monitoredObject, "monitoredObject");
-         this.completeCondition = checkNotNull(completeCondition, "completeCondition");
-      }
-
-      /**
-       * Starts the monitoring job with the given timeout.
-       * 
-       * @param maxWait
-       *           The timeout.
-       * @param timeUnit
-       *           The timeunit used in the maxWait parameter.
-       */
-      public void startMonitoring(final Long maxWait, TimeUnit timeUnit) {
-         if (maxWait != null) {
-            checkNotNull(timeUnit, "timeUnit must not be null when using timeouts");
-         }
-         future = scheduler.scheduleWithFixedDelay(this, 0L, pollingDelay, TimeUnit.MILLISECONDS);
-         timeout = maxWait == null ? null : System.currentTimeMillis() + timeUnit.toMillis(maxWait);
-         logger.debug("started monitor job for %s with %s timeout", monitoredObject,
-               timeout == null ? "no" : String.valueOf(timeout));
-      }
-
-      /**
-       * Stops the monitoring job, if running.
-       */
-      public void stopMonitoring() {
-         logger.debug("stopping monitor job for %s", monitoredObject);
-
-         try {
-            if (future != null && !future.isCancelled() && !future.isDone()) {
-               // Do not force future cancel. Let it finish gracefully
-               logger.debug("cancelling future");
-               future.cancel(false);
-            }
-         } catch (Exception ex) {
-            logger.warn(ex, "failed to stop monitor job for %s", monitoredObject);
-         }
-      }
-
-      /**
-       * Checks if the monitor has timed out.
-       */
-      public boolean isTimeout() {
-         return timeout != null && timeout < System.currentTimeMillis();
-      }
-
-      @Override
-      public void run() {
-         // Do not use Thread.interrupted() since it will clear the interrupted
-         // flag
-         // and subsequent calls to it may not return the appropriate value
-         if (Thread.currentThread().isInterrupted()) {
-            // If the thread as already been interrupted, just stop monitoring
-            // the task and
-            // return
-            stopMonitoring();
-            return;
-         }
-
-         MonitorStatus status = completeCondition.apply(monitoredObject);
-         logger.debug("monitored object %s status %s", monitoredObject, status.name());
-
-         switch (status) {
-            case DONE:
-               stopMonitoring();
-               logger.debug("publishing COMPLETED event");
-               eventBus.post(new CompletedEvent<T>(monitoredObject));
-               break;
-            case FAILED:
-               stopMonitoring();
-               logger.debug("publishing FAILED event");
-               eventBus.post(new FailedEvent<T>(monitoredObject));
-               break;
-            case CONTINUE:
-            default:
-               if (isTimeout()) {
-                  logger.warn("monitor for object %s timed out. Shutting down monitor.", monitoredObject);
-                  stopMonitoring();
-                  logger.debug("publishing TIMEOUT event");
-                  eventBus.post(new TimeoutEvent<T>(monitoredObject));
-               }
-               break;
-         }
-      }
-
-      public T getMonitoredObject() {
-         return monitoredObject;
-      }
-
-      public Function<T, MonitorStatus> getCompleteCondition() {
-         return completeCondition;
-      }
-
-      public Future<?> getFuture() {
-         return future;
-      }
-
-      public Long getTimeout() {
-         return timeout;
-      }
-   }
-
 }
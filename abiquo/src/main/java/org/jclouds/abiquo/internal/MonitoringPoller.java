@@ -0,0 +1,456 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.abiquo.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.Constants.PROPERTY_SCHEDULER_THREADS;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.abiquo.config.AbiquoProperties.ASYNC_TASK_MONITOR_DELAY;
+import static org.jclouds.abiquo.config.AbiquoProperties.ASYNC_TASK_MONITOR_MAX_DELAY;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.abiquo.AbiquoApi;
+import org.jclouds.abiquo.domain.cloud.VirtualMachine;
+import org.jclouds.abiquo.domain.event.Event;
+import org.jclouds.abiquo.monitor.MonitorStatus;
+import org.jclouds.abiquo.monitor.VirtualMachineStatusFunction;
+import org.jclouds.abiquo.monitor.events.CompletedEvent;
+import org.jclouds.abiquo.monitor.events.FailedEvent;
+import org.jclouds.abiquo.monitor.events.MonitorEvent;
+import org.jclouds.abiquo.monitor.events.TimeoutEvent;
+import org.jclouds.abiquo.reference.rest.ParentLinkName;
+import org.jclouds.logging.Logger;
+import org.jclouds.rest.ApiContext;
+
+import com.abiquo.model.rest.RESTLink;
+import com.abiquo.server.core.cloud.VirtualApplianceDto;
+import com.abiquo.server.core.cloud.VirtualMachineState;
+import com.abiquo.server.core.cloud.VirtualMachineWithNodeExtendedDto;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Polls all the objects monitored by the <code>MonitoringService</code> from
+ * a single scheduled job.
+ * <p>
+ * On each poll, the objects that are due are grouped by their complete
+ * condition. The states of the virtual machines monitored with a
+ * {@link VirtualMachineStatusFunction} are refreshed with one listing of each
+ * of their virtual appliances, instead of one request per virtual machine. Objects that stay unchanged are
+ * checked less and less often, up to the configured maximum delay, and never
+ * less often than every {@value #MAX_DELAY_FACTOR} polling delays.
+ * <p>
+ * Monitoring events are posted from the user executor, so slow event handlers
+ * do not delay the next poll. The future of each object is completed once the
+ * event handlers have run. An object whose check fails
+ * {@value #MAX_CONSECUTIVE_ERRORS} times in a row is considered failed.
+ * <p>
+ * When an event stream is open, the virtual machines the fetched events refer
+ * to are checked on the next poll, regardless of their backoff.
+ */
+@Singleton
+public class MonitoringPoller {
+   /** The maximum delay between two checks, in polling delays. */
+   @VisibleForTesting
+   static final int MAX_DELAY_FACTOR = 3;
+
+   /** The number of checks in a row that may fail before an object fails. */
+   @VisibleForTesting
+   static final int MAX_CONSECUTIVE_ERRORS = 3;
+
+   @Resource
+   private Logger logger = Logger.NULL;
+
+   private final ApiContext<AbiquoApi> context;
+
+   private final ScheduledExecutorService scheduler;
+
+   private final ListeningExecutorService userExecutor;
+
+   private final long pollingDelay;
+
+   private final long maxDelay;
+
+   private final EventBus eventBus;
+
+   private final Queue<MonitoredObject<?>> monitored = new ConcurrentLinkedQueue<MonitoredObject<?>>();
+
+   /** The virtual appliances of the monitored virtual machines, by href. */
+   private final ConcurrentMap<String, VirtualApplianceDto> appliances = Maps.newConcurrentMap();
+
+   private ScheduledFuture<?> poller;
+
+   @Inject
+   public MonitoringPoller(final ApiContext<AbiquoApi> context,
+         @Named(PROPERTY_SCHEDULER_THREADS) final ScheduledExecutorService scheduler,
+         @Named(PROPERTY_USER_THREADS) final ListeningExecutorService userExecutor,
+         @Named(ASYNC_TASK_MONITOR_DELAY) final Long pollingDelay,
+         @Named(ASYNC_TASK_MONITOR_MAX_DELAY) final Long maxDelay, final EventBus eventBus) {
+      this.context = checkNotNull(context, "context");
+      this.scheduler = checkNotNull(scheduler, "scheduler");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+      this.pollingDelay = checkNotNull(pollingDelay, "pollingDelay");
+      this.maxDelay = Math.max(this.pollingDelay,
+            Math.min(checkNotNull(maxDelay, "maxDelay"), MAX_DELAY_FACTOR * this.pollingDelay));
+      this.eventBus = checkNotNull(eventBus, "eventBus");
+      eventBus.register(this);
+   }
+
+   /**
+    * Starts monitoring the given objects.
+    * <p>
+    * The returned futures are completed once the final event of their object
+    * has been handled by the event bus. Cancelling a future stops monitoring
+    * its object.
+    * 
+    * @param maxWait
+    *           The maximum time to wait, or <code>null</code> to wait forever.
+    * @param timeUnit
+    *           The time unit of the maxWait parameter.
+    * @param completeCondition
+    *           The function that tells the status of each object.
+    * @param objects
+    *           The objects to monitor.
+    * @return The futures holding the final event of each object, in the order
+    *         of the given objects.
+    */
+   public <T> List<ListenableFuture<MonitorEvent<T>>> monitor(final Long maxWait, final TimeUnit timeUnit,
+         final Function<T, MonitorStatus> completeCondition, final T... objects) {
+      checkNotNull(completeCondition, "completeCondition");
+      if (maxWait != null) {
+         checkNotNull(timeUnit, "timeUnit must not be null when using timeouts");
+      }
+
+      long now = System.currentTimeMillis();
+      Long deadline = maxWait == null ? null : now + timeUnit.toMillis(maxWait);
+      ImmutableList.Builder<ListenableFuture<MonitorEvent<T>>> futures = ImmutableList.builder();
+      for (T object : objects) {
+         MonitoredObject<T> monitoredObject = new MonitoredObject<T>(object, completeCondition, deadline, now,
+               pollingDelay);
+         monitored.add(monitoredObject);
+         futures.add(monitoredObject.future);
+         logger.debug("started monitoring %s with %s timeout", object, deadline == null ? "no" : deadline);
+      }
+      startPolling();
+      return futures.build();
+   }
+
+   /**
+    * Checks the monitored virtual machine with the given id on the next poll,
+    * and resets its backoff.
+    */
+   public void expedite(final Integer virtualMachineId) {
+      checkNotNull(virtualMachineId, "virtualMachineId");
+      for (MonitoredObject<?> object : monitored) {
+         if (object.object instanceof VirtualMachine
+               && virtualMachineId.equals(((VirtualMachine) object.object).getId())) {
+            logger.debug("expediting the check of %s", object.object);
+            object.expedited.set(true);
+         }
+      }
+   }
+
+   /**
+    * Something happened to the virtual machine the event refers to, so its
+    * state may have changed.
+    */
+   @Subscribe
+   public void onEvent(final Event event) {
+      if (event.getIdVirtualMachine() != null) {
+         expedite(event.getIdVirtualMachine());
+      }
+   }
+
+   /**
+    * Returns the number of objects being monitored.
+    */
+   public int size() {
+      return monitored.size();
+   }
+
+   /**
+    * Checks all the monitored objects that are due, and publishes the events
+    * of those that have finished.
+    */
+   @VisibleForTesting
+   void poll() {
+      long now = System.currentTimeMillis();
+      ListMultimap<Function<?, MonitorStatus>, MonitoredObject<?>> due = ArrayListMultimap.create();
+      for (MonitoredObject<?> object : monitored) {
+         if (object.future.isCancelled()) {
+            monitored.remove(object);
+         } else if (object.expedited.getAndSet(false)) {
+            object.delay = pollingDelay;
+            due.put(object.completeCondition, object);
+         } else if (object.nextCheck <= now) {
+            due.put(object.completeCondition, object);
+         }
+      }
+
+      for (Map.Entry<Function<?, MonitorStatus>, Collection<MonitoredObject<?>>> group : due.asMap().entrySet()) {
+         if (group.getKey() instanceof VirtualMachineStatusFunction && group.getValue().size() > 1) {
+            checkVirtualMachines((VirtualMachineStatusFunction) group.getKey(), group.getValue());
+         } else {
+            for (MonitoredObject<?> object : group.getValue()) {
+               update(object, check(object));
+            }
+         }
+      }
+
+      if (monitored.isEmpty()) {
+         stopPollingIfIdle();
+      }
+   }
+
+   /**
+    * Refreshes the states of the given virtual machines with one listing per
+    * virtual appliance, instead of one request per virtual machine. The ones
+    * that are not listed are checked one by one.
+    */
+   private void checkVirtualMachines(final VirtualMachineStatusFunction completeCondition,
+         final Collection<MonitoredObject<?>> objects) {
+      Map<String, Map<Integer, MonitoredObject<?>>> byAppliance = Maps.newHashMap();
+      for (MonitoredObject<?> object : objects) {
+         VirtualMachineWithNodeExtendedDto target = ((VirtualMachine) object.object).unwrap();
+         RESTLink appliance = target.searchLink(ParentLinkName.VIRTUAL_APPLIANCE);
+         if (target.getId() == null || appliance == null) {
+            update(object, check(object));
+         } else {
+            Map<Integer, MonitoredObject<?>> pending = byAppliance.get(appliance.getHref());
+            if (pending == null) {
+               pending = Maps.newHashMap();
+               byAppliance.put(appliance.getHref(), pending);
+            }
+            pending.put(target.getId(), object);
+         }
+      }
+
+      for (Map.Entry<String, Map<Integer, MonitoredObject<?>>> appliance : byAppliance.entrySet()) {
+         Map<Integer, MonitoredObject<?>> pending = appliance.getValue();
+         if (pending.size() > 1) {
+            refreshStates(completeCondition, appliance.getKey(), pending);
+         }
+         // Virtual machines that are not listed, such as the ones being removed
+         for (MonitoredObject<?> object : pending.values()) {
+            update(object, check(object));
+         }
+      }
+   }
+
+   /**
+    * Updates the given virtual machines with the states listed in their
+    * virtual appliance, and removes them from the pending ones.
+    */
+   private void refreshStates(final VirtualMachineStatusFunction completeCondition, final String applianceHref,
+         final Map<Integer, MonitoredObject<?>> pending) {
+      try {
+         VirtualApplianceDto appliance = applianceOf(applianceHref, pending.values().iterator().next());
+         for (VirtualMachineWithNodeExtendedDto dto : context.getApi().getCloudApi().listVirtualMachines(appliance)
+               .concat()) {
+            VirtualMachineState state = dto.getState();
+            MonitoredObject<?> object = state == null ? null : pending.remove(dto.getId());
+            if (object != null) {
+               VirtualMachineWithNodeExtendedDto target = ((VirtualMachine) object.object).unwrap();
+               target.setState(state);
+               target.setIdState(state.id());
+               update(object, completeCondition.statusOf(state));
+            }
+            if (pending.isEmpty()) {
+               break;
+            }
+         }
+      } catch (RuntimeException ex) {
+         appliances.remove(applianceHref);
+         logger.warn(ex, "could not list the virtual machines of %s, checking them one by one", applianceHref);
+      }
+   }
+
+   /**
+    * Gets the virtual appliance through the parent link of one of its virtual
+    * machines, the first time it is listed.
+    */
+   private VirtualApplianceDto applianceOf(final String applianceHref, final MonitoredObject<?> object) {
+      VirtualApplianceDto appliance = appliances.get(applianceHref);
+      if (appliance == null) {
+         appliance = ((VirtualMachine) object.object).getVirtualAppliance().unwrap();
+         appliances.put(applianceHref, appliance);
+      }
+      return appliance;
+   }
+
+   /**
+    * Checks the object with its complete condition. A failing check is retried
+    * on the next poll, until it has failed too many times in a row.
+    */
+   private <T> MonitorStatus check(final MonitoredObject<T> object) {
+      try {
+         MonitorStatus status = object.completeCondition.apply(object.object);
+         object.errors = 0;
+         return status;
+      } catch (RuntimeException ex) {
+         if (++object.errors >= MAX_CONSECUTIVE_ERRORS) {
+            logger.error(ex, "could not check %s %s times in a row, failing its monitor", object.object,
+                  object.errors);
+            return MonitorStatus.FAILED;
+         }
+         logger.warn(ex, "could not check %s, retrying on the next poll", object.object);
+         return MonitorStatus.CONTINUE;
+      }
+   }
+
+   private <T> void update(final MonitoredObject<T> object, final MonitorStatus status) {
+      logger.debug("monitored object %s status %s", object.object, status.name());
+      switch (status) {
+         case DONE:
+            finish(object, new CompletedEvent<T>(object.object));
+            break;
+         case FAILED:
+            finish(object, new FailedEvent<T>(object.object));
+            break;
+         case CONTINUE:
+         default:
+            if (object.isTimeout()) {
+               logger.warn("monitor for object %s timed out. Shutting down monitor.", object.object);
+               finish(object, new TimeoutEvent<T>(object.object));
+            } else {
+               object.backoff(maxDelay);
+            }
+            break;
+      }
+   }
+
+   private <T> void finish(final MonitoredObject<T> object, final MonitorEvent<T> event) {
+      if (monitored.remove(object)) {
+         logger.debug("publishing %s event for %s", event.getType(), object.object);
+         userExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+               // The future completes after the handlers, so waiting for it
+               // also waits for them
+               try {
+                  eventBus.post(event);
+               } finally {
+                  object.future.set(event);
+               }
+            }
+         });
+      }
+   }
+
+   /**
+    * The scheduled job that polls the monitored objects.
+    */
+   private class PollingJob implements Runnable {
+      @Override
+      public void run() {
+         try {
+            poll();
+         } catch (RuntimeException ex) {
+            // Keep the job scheduled; the failed checks are retried on the
+            // next poll
+            logger.error(ex, "error polling the monitored objects");
+         }
+      }
+   }
+
+   /**
+    * An object being monitored, and the time of its next check.
+    */
+   private static class MonitoredObject<T> {
+      private final T object;
+
+      private final Function<T, MonitorStatus> completeCondition;
+
+      private final Long deadline;
+
+      private final SettableFuture<MonitorEvent<T>> future = SettableFuture.create();
+
+      /**
+       * Set by the event handlers, and taken by the poll, that is the only one
+       * writing the time of the next check and the delay.
+       */
+      private final AtomicBoolean expedited = new AtomicBoolean();
+
+      private volatile long nextCheck;
+
+      private volatile long delay;
+
+      /** The number of checks in a row that failed; only read by the poll. */
+      private int errors;
+
+      private MonitoredObject(final T object, final Function<T, MonitorStatus> completeCondition,
+            final Long deadline, final long nextCheck, final long delay) {
+         this.object = checkNotNull(object, "object");
+         this.completeCondition = completeCondition;
+         this.deadline = deadline;
+         this.nextCheck = nextCheck;
+         this.delay = delay;
+      }
+
+      private boolean isTimeout() {
+         return deadline != null && deadline < System.currentTimeMillis();
+      }
+
+      /**
+       * Delays the next check of an unchanged object a bit more than the
+       * previous one.
+       */
+      private void backoff(final long maxDelay) {
+         long now = System.currentTimeMillis();
+         nextCheck = deadline == null ? now + delay : Math.min(now + delay, deadline);
+         delay = Math.min(maxDelay, delay + delay / 2);
+      }
+   }
+
+   private synchronized void startPolling() {
+      if (poller == null) {
+         poller = scheduler.scheduleWithFixedDelay(new PollingJob(), 0L, pollingDelay, TimeUnit.MILLISECONDS);
+      }
+   }
+
+   private synchronized void stopPollingIfIdle() {
+      if (poller != null && monitored.isEmpty()) {
+         poller.cancel(false);
+         poller = null;
+         appliances.clear();
+      }
+   }
+}
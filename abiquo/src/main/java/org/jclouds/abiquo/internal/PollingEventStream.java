@@ -0,0 +1,299 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.abiquo.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.abiquo.domain.DomainWrapper.wrap;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.abiquo.AbiquoApi;
+import org.jclouds.abiquo.domain.event.Event;
+import org.jclouds.abiquo.domain.event.EventStream;
+import org.jclouds.abiquo.domain.event.options.EventOptions;
+import org.jclouds.collect.IterableWithMarker;
+import org.jclouds.logging.Logger;
+import org.jclouds.rest.ApiContext;
+
+import com.abiquo.server.core.event.EventDto;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.eventbus.EventBus;
+
+/**
+ * An {@link EventStream} that polls the event log of the Abiquo platform.
+ * <p>
+ * Each poll only lists the events logged since the high-water mark, and the
+ * events already fetched at that same timestamp are skipped. Each poll reads
+ * the pages of events until they hold about as many events as the stream can
+ * take. When no new events are found, the delay until the next poll grows up
+ * to the maximum delay. While the consumer has not taken the fetched events,
+ * the stream does not fetch more.
+ * <p>
+ * Each fetched event is also posted to the event bus, so the
+ * <code>MonitoringService</code> can check the virtual machines it refers to
+ * right away.
+ */
+public class PollingEventStream implements EventStream {
+   private static final Comparator<EventDto> BY_TIMESTAMP_AND_ID = new Comparator<EventDto>() {
+      @Override
+      public int compare(final EventDto left, final EventDto right) {
+         int result = left.getTimestamp().compareTo(right.getTimestamp());
+         if (result == 0 && left.getId() != null && right.getId() != null) {
+            result = left.getId().compareTo(right.getId());
+         }
+         return result;
+      }
+   };
+
+   private final ApiContext<AbiquoApi> context;
+
+   private final Logger logger;
+
+   private final ScheduledExecutorService scheduler;
+
+   private final long pollingDelay;
+
+   private final long maxDelay;
+
+   private final EventBus eventBus;
+
+   private final BlockingQueue<Event> events;
+
+   private final int capacity;
+
+   /** Events fetched while the stream was full, at most a batch of them. */
+   private final Queue<Event> pending = Lists.newLinkedList();
+
+   /** The ids of the fetched events logged at the high-water mark. */
+   private final Set<Integer> idsAtHighWaterMark = Sets.newHashSet();
+
+   private volatile Date highWaterMark;
+
+   private volatile boolean closed;
+
+   private long delay;
+
+   private ScheduledFuture<?> next;
+
+   public PollingEventStream(final ApiContext<AbiquoApi> context, final ScheduledExecutorService scheduler,
+         final long pollingDelay, final long maxDelay, final int capacity, final EventBus eventBus,
+         final Date since, final Logger logger) {
+      checkArgument(capacity > 0, "capacity must be greater than zero");
+      this.context = checkNotNull(context, "context");
+      this.scheduler = checkNotNull(scheduler, "scheduler");
+      this.pollingDelay = pollingDelay;
+      this.maxDelay = Math.max(pollingDelay, maxDelay);
+      this.eventBus = checkNotNull(eventBus, "eventBus");
+      this.events = new ArrayBlockingQueue<Event>(capacity);
+      this.capacity = capacity;
+      this.highWaterMark = checkNotNull(since, "since");
+      this.delay = pollingDelay;
+      this.logger = checkNotNull(logger, "logger");
+   }
+
+   /**
+    * Skips the event with the given id, logged at the high-water mark, that
+    * has already been seen.
+    */
+   synchronized PollingEventStream skip(final Integer id) {
+      idsAtHighWaterMark.add(id);
+      return this;
+   }
+
+   /**
+    * Schedules the first poll of the stream.
+    */
+   public synchronized PollingEventStream start() {
+      if (!closed && next == null) {
+         schedule(0L);
+      }
+      return this;
+   }
+
+   @Override
+   public Event take() throws InterruptedException {
+      return events.take();
+   }
+
+   @Override
+   public Event poll(final long timeout, final TimeUnit unit) throws InterruptedException {
+      return events.poll(timeout, unit);
+   }
+
+   @Override
+   public int drainTo(final Collection<? super Event> events, final int maxEvents) {
+      return this.events.drainTo(events, maxEvents);
+   }
+
+   @Override
+   public Date getHighWaterMark() {
+      return highWaterMark;
+   }
+
+   @Override
+   public synchronized void close() {
+      closed = true;
+      pending.clear();
+      if (next != null) {
+         next.cancel(false);
+         next = null;
+      }
+   }
+
+   /**
+    * Hands the pending events to the consumer and, if they all fit, fetches
+    * the events logged since the high-water mark.
+    * <p>
+    * The pages of events are read one after the other, oldest first, until
+    * they hold as many new events as the stream can take. The rest are fetched
+    * once the consumer has taken these. The events are listed without holding
+    * the lock of the stream, so closing it does not wait for the platform.
+    * <p>
+    * The stream is fetched by a single thread at a time.
+    * 
+    * @return <code>true</code> if there were events to hand over.
+    */
+   @VisibleForTesting
+   boolean fetch() {
+      synchronized (this) {
+         if (closed) {
+            return false;
+         }
+         if (!offerPending()) {
+            logger.trace("event stream is full, not fetching events");
+            return true;
+         }
+      }
+
+      List<EventDto> fresh = Lists.newArrayList();
+      EventOptions options = EventOptions.builder().dateFrom(highWaterMark).orderBy("timestamp").asc(true)
+            .limit(capacity).build();
+      Iterator<IterableWithMarker<EventDto>> pages = context.getApi().getEventApi().listEvents(options)
+            .toPagedIterable().iterator();
+      while (fresh.size() < capacity && pages.hasNext()) {
+         for (EventDto dto : pages.next()) {
+            if (isNew(dto)) {
+               fresh.add(dto);
+            }
+         }
+      }
+      if (fresh.isEmpty()) {
+         return false;
+      }
+
+      Collections.sort(fresh, BY_TIMESTAMP_AND_ID);
+      List<Event> fetched = Lists.newArrayListWithCapacity(fresh.size());
+      synchronized (this) {
+         if (closed) {
+            return false;
+         }
+         for (EventDto dto : fresh) {
+            if (dto.getTimestamp().after(highWaterMark)) {
+               highWaterMark = dto.getTimestamp();
+               idsAtHighWaterMark.clear();
+            }
+            idsAtHighWaterMark.add(dto.getId());
+
+            Event event = wrap(context, Event.class, dto);
+            pending.add(event);
+            fetched.add(event);
+         }
+         offerPending();
+      }
+      logger.debug("fetched %s events, high-water mark is %s", fresh.size(), highWaterMark);
+
+      for (Event event : fetched) {
+         eventBus.post(event);
+      }
+      return true;
+   }
+
+   private boolean isNew(final EventDto dto) {
+      if (dto.getTimestamp() == null) {
+         // Events can not be ordered without a timestamp
+         return false;
+      }
+      return dto.getTimestamp().after(highWaterMark)
+            || (dto.getTimestamp().equals(highWaterMark) && !idsAtHighWaterMark.contains(dto.getId()));
+   }
+
+   /**
+    * @return <code>true</code> if all the pending events have been handed
+    *         over.
+    */
+   private boolean offerPending() {
+      while (!pending.isEmpty() && events.offer(pending.peek())) {
+         pending.remove();
+      }
+      return pending.isEmpty();
+   }
+
+   private synchronized void schedule(final long millis) {
+      if (closed) {
+         return;
+      }
+      next = scheduler.schedule(new Runnable() {
+         @Override
+         public void run() {
+            long nextPoll;
+            try {
+               nextPoll = nextDelay(fetch());
+            } catch (RuntimeException ex) {
+               // Keep polling, the platform may be temporarily unavailable
+               logger.warn(ex, "could not fetch the events since %s", highWaterMark);
+               nextPoll = nextDelay(false);
+            }
+            schedule(nextPoll);
+         }
+      }, millis, TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * Polls again soon while there are events, and less and less often while
+    * the event log stays unchanged.
+    */
+   private synchronized long nextDelay(final boolean active) {
+      if (active) {
+         delay = pollingDelay;
+         return delay;
+      }
+      long current = delay;
+      delay = Math.min(maxDelay, delay + delay / 2);
+      return current;
+   }
+
+   @Override
+   public String toString() {
+      return "PollingEventStream(highWaterMark=" + highWaterMark + ", events=" + events.size() + ", pending="
+            + pending.size() + ")";
+   }
+}
@@ -16,12 +16,15 @@
  */
 package org.jclouds.abiquo.monitor;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.jclouds.abiquo.domain.task.AsyncTask;
 import org.jclouds.abiquo.features.services.MonitoringService;
+import org.jclouds.abiquo.monitor.events.MonitorEvent;
 import org.jclouds.abiquo.monitor.internal.BaseAsyncTaskMonitor;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.inject.ImplementedBy;
 
 /**
@@ -70,4 +73,31 @@ public interface AsyncTaskMonitor extends MonitoringService {
     *           The {@link AsyncTask}s to monitor.
     */
    void monitor(final Long maxWait, final TimeUnit timeUnit, final AsyncTask<?, ?>... tasks);
+
+   /**
+    * Monitor the given {@link AsyncTask}s and return a future for each one, that
+    * completes when it finishes.
+    * 
+    * @param tasks
+    *           The {@link AsyncTask}s to monitor.
+    * @return The futures holding the final event of each task, in the order
+    *         of the given tasks.
+    */
+   List<ListenableFuture<MonitorEvent<AsyncTask<?, ?>>>> track(final AsyncTask<?, ?>... tasks);
+
+   /**
+    * Monitor the given {@link AsyncTask}s and return a future for each one, that
+    * completes when it finishes.
+    * 
+    * @param maxWait
+    *           The maximum time to wait.
+    * @param timeUnit
+    *           The time unit for the maxWait parameter.
+    * @param tasks
+    *           The {@link AsyncTask}s to monitor.
+    * @return The futures holding the final event of each task, in the order
+    *         of the given tasks.
+    */
+   List<ListenableFuture<MonitorEvent<AsyncTask<?, ?>>>> track(final Long maxWait, final TimeUnit timeUnit,
+         final AsyncTask<?, ?>... tasks);
 }
@@ -16,12 +16,15 @@
  */
 package org.jclouds.abiquo.monitor;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.jclouds.abiquo.domain.cloud.Conversion;
 import org.jclouds.abiquo.features.services.MonitoringService;
+import org.jclouds.abiquo.monitor.events.MonitorEvent;
 import org.jclouds.abiquo.monitor.internal.BaseConversionMonitor;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.inject.ImplementedBy;
 
 /**
@@ -70,4 +73,31 @@ public interface ConversionMonitor extends MonitoringService {
     *           The {@link Conversion}s to monitor.
     */
    void monitor(final Long maxWait, final TimeUnit timeUnit, final Conversion... conversions);
+
+   /**
+    * Monitor the given {@link Conversion}s and return a future for each one, that
+    * completes when it finishes.
+    * 
+    * @param conversions
+    *           The {@link Conversion}s to monitor.
+    * @return The futures holding the final event of each conversion, in the order
+    *         of the given conversions.
+    */
+   List<ListenableFuture<MonitorEvent<Conversion>>> track(final Conversion... conversions);
+
+   /**
+    * Monitor the given {@link Conversion}s and return a future for each one, that
+    * completes when it finishes.
+    * 
+    * @param maxWait
+    *           The maximum time to wait.
+    * @param timeUnit
+    *           The time unit for the maxWait parameter.
+    * @param conversions
+    *           The {@link Conversion}s to monitor.
+    * @return The futures holding the final event of each conversion, in the order
+    *         of the given conversions.
+    */
+   List<ListenableFuture<MonitorEvent<Conversion>>> track(final Long maxWait, final TimeUnit timeUnit,
+         final Conversion... conversions);
 }
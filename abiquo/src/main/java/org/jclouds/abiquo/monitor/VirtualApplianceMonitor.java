@@ -16,12 +16,15 @@
  */
 package org.jclouds.abiquo.monitor;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.jclouds.abiquo.domain.cloud.VirtualAppliance;
 import org.jclouds.abiquo.features.services.MonitoringService;
+import org.jclouds.abiquo.monitor.events.MonitorEvent;
 import org.jclouds.abiquo.monitor.internal.BaseVirtualApplianceMonitor;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.inject.ImplementedBy;
 
 /**
@@ -118,4 +121,58 @@ public interface VirtualApplianceMonitor extends MonitoringService {
     *           The {@link VirtualAppliance}s to monitor.
     */
    void monitorUndeploy(final Long maxWait, final TimeUnit timeUnit, final VirtualAppliance... vapps);
+
+   /**
+    * Monitor the given {@link VirtualAppliance}s and return a future for each one,
+    * that completes when its deploy finishes.
+    * 
+    * @param vapps
+    *           The {@link VirtualAppliance}s to monitor.
+    * @return The futures holding the final event of each virtual appliance, in the order
+    *         of the given vapps.
+    */
+   List<ListenableFuture<MonitorEvent<VirtualAppliance>>> trackDeploy(final VirtualAppliance... vapps);
+
+   /**
+    * Monitor the given {@link VirtualAppliance}s and return a future for each one,
+    * that completes when its deploy finishes.
+    * 
+    * @param maxWait
+    *           The maximum time to wait.
+    * @param timeUnit
+    *           The time unit for the maxWait parameter.
+    * @param vapps
+    *           The {@link VirtualAppliance}s to monitor.
+    * @return The futures holding the final event of each virtual appliance, in the order
+    *         of the given vapps.
+    */
+   List<ListenableFuture<MonitorEvent<VirtualAppliance>>> trackDeploy(final Long maxWait, final TimeUnit timeUnit,
+         final VirtualAppliance... vapps);
+
+   /**
+    * Monitor the given {@link VirtualAppliance}s and return a future for each one,
+    * that completes when its undeploy finishes.
+    * 
+    * @param vapps
+    *           The {@link VirtualAppliance}s to monitor.
+    * @return The futures holding the final event of each virtual appliance, in the order
+    *         of the given vapps.
+    */
+   List<ListenableFuture<MonitorEvent<VirtualAppliance>>> trackUndeploy(final VirtualAppliance... vapps);
+
+   /**
+    * Monitor the given {@link VirtualAppliance}s and return a future for each one,
+    * that completes when its undeploy finishes.
+    * 
+    * @param maxWait
+    *           The maximum time to wait.
+    * @param timeUnit
+    *           The time unit for the maxWait parameter.
+    * @param vapps
+    *           The {@link VirtualAppliance}s to monitor.
+    * @return The futures holding the final event of each virtual appliance, in the order
+    *         of the given vapps.
+    */
+   List<ListenableFuture<MonitorEvent<VirtualAppliance>>> trackUndeploy(final Long maxWait, final TimeUnit timeUnit,
+         final VirtualAppliance... vapps);
 }
@@ -16,13 +16,16 @@
  */
 package org.jclouds.abiquo.monitor;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.jclouds.abiquo.domain.cloud.VirtualMachine;
 import org.jclouds.abiquo.features.services.MonitoringService;
+import org.jclouds.abiquo.monitor.events.MonitorEvent;
 import org.jclouds.abiquo.monitor.internal.BaseVirtualMachineMonitor;
 
 import com.abiquo.server.core.cloud.VirtualMachineState;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.inject.ImplementedBy;
 
 /**
@@ -166,4 +169,90 @@ public interface VirtualMachineMonitor extends MonitoringService {
     */
    void monitorState(final Long maxWait, final TimeUnit timeUnit, VirtualMachineState state,
          final VirtualMachine... vms);
+
+   /**
+    * Monitor the given {@link VirtualMachine}s and return a future for each one,
+    * that completes when its deploy finishes.
+    * 
+    * @param vms
+    *           The {@link VirtualMachine}s to monitor.
+    * @return The futures holding the final event of each virtual machine, in the order
+    *         of the given vms.
+    */
+   List<ListenableFuture<MonitorEvent<VirtualMachine>>> trackDeploy(final VirtualMachine... vms);
+
+   /**
+    * Monitor the given {@link VirtualMachine}s and return a future for each one,
+    * that completes when its deploy finishes.
+    * 
+    * @param maxWait
+    *           The maximum time to wait.
+    * @param timeUnit
+    *           The time unit for the maxWait parameter.
+    * @param vms
+    *           The {@link VirtualMachine}s to monitor.
+    * @return The futures holding the final event of each virtual machine, in the order
+    *         of the given vms.
+    */
+   List<ListenableFuture<MonitorEvent<VirtualMachine>>> trackDeploy(final Long maxWait, final TimeUnit timeUnit,
+         final VirtualMachine... vms);
+
+   /**
+    * Monitor the given {@link VirtualMachine}s and return a future for each one,
+    * that completes when its undeploy finishes.
+    * 
+    * @param vms
+    *           The {@link VirtualMachine}s to monitor.
+    * @return The futures holding the final event of each virtual machine, in the order
+    *         of the given vms.
+    */
+   List<ListenableFuture<MonitorEvent<VirtualMachine>>> trackUndeploy(final VirtualMachine... vms);
+
+   /**
+    * Monitor the given {@link VirtualMachine}s and return a future for each one,
+    * that completes when its undeploy finishes.
+    * 
+    * @param maxWait
+    *           The maximum time to wait.
+    * @param timeUnit
+    *           The time unit for the maxWait parameter.
+    * @param vms
+    *           The {@link VirtualMachine}s to monitor.
+    * @return The futures holding the final event of each virtual machine, in the order
+    *         of the given vms.
+    */
+   List<ListenableFuture<MonitorEvent<VirtualMachine>>> trackUndeploy(final Long maxWait, final TimeUnit timeUnit,
+         final VirtualMachine... vms);
+
+   /**
+    * Monitor the given {@link VirtualMachine}s and return a future for each one,
+    * that completes when it is in the given state.
+    * 
+    * @param state
+    *           The state to wait for.
+    * @param vms
+    *           The {@link VirtualMachine}s to monitor.
+    * @return The futures holding the final event of each virtual machine, in the order
+    *         of the given vms.
+    */
+   List<ListenableFuture<MonitorEvent<VirtualMachine>>> trackState(final VirtualMachineState state,
+         final VirtualMachine... vms);
+
+   /**
+    * Monitor the given {@link VirtualMachine}s and return a future for each one,
+    * that completes when it is in the given state.
+    * 
+    * @param maxWait
+    *           The maximum time to wait.
+    * @param timeUnit
+    *           The time unit for the maxWait parameter.
+    * @param state
+    *           The state to wait for.
+    * @param vms
+    *           The {@link VirtualMachine}s to monitor.
+    * @return The futures holding the final event of each virtual machine, in the order
+    *         of the given vms.
+    */
+   List<ListenableFuture<MonitorEvent<VirtualMachine>>> trackState(final Long maxWait, final TimeUnit timeUnit,
+         final VirtualMachineState state, final VirtualMachine... vms);
 }
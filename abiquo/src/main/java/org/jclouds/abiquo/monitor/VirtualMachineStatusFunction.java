@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.abiquo.monitor;
+
+import org.jclouds.abiquo.domain.cloud.VirtualMachine;
+
+import com.abiquo.server.core.cloud.VirtualMachineState;
+import com.google.common.base.Function;
+
+/**
+ * A function that tells the status of a monitored {@link VirtualMachine}
+ * from its state alone.
+ * <p>
+ * The states of many virtual machines monitored with such a function can be
+ * refreshed by listing their virtual appliance, instead of one request per
+ * virtual machine.
+ */
+public interface VirtualMachineStatusFunction extends Function<VirtualMachine, MonitorStatus> {
+   /**
+    * Tells the status of a virtual machine in the given state.
+    */
+   MonitorStatus statusOf(VirtualMachineState state);
+}
@@ -22,17 +22,17 @@ import javax.annotation.Resource;
 
 import org.jclouds.abiquo.domain.cloud.VirtualMachine;
 import org.jclouds.abiquo.monitor.MonitorStatus;
+import org.jclouds.abiquo.monitor.VirtualMachineStatusFunction;
 import org.jclouds.logging.Logger;
 
 import com.abiquo.server.core.cloud.VirtualMachineState;
-import com.google.common.base.Function;
 
 /**
  * This class takes care of monitoring the state of a {@link VirtualMachine}.
  * 
  * @see MonitoringService
  */
-public class VirtualMachineStateMonitor implements Function<VirtualMachine, MonitorStatus> {
+public class VirtualMachineStateMonitor implements VirtualMachineStatusFunction {
    @Resource
    private Logger logger = Logger.NULL;
 
@@ -48,8 +48,7 @@ public class VirtualMachineStateMonitor implements Function<VirtualMachine, Moni
       checkNotNull(virtualMachine, "virtualMachine");
 
       try {
-         VirtualMachineState state = virtualMachine.getState();
-         return state == expectedState ? MonitorStatus.DONE : MonitorStatus.CONTINUE;
+         return statusOf(virtualMachine.getState());
       } catch (Exception ex) {
          logger.warn(ex, "exception thrown while monitoring %s on %s, returning CONTINUE", virtualMachine, getClass()
                .getName());
@@ -58,4 +57,25 @@ public class VirtualMachineStateMonitor implements Function<VirtualMachine, Moni
 
       }
    }
+
+   @Override
+   public MonitorStatus statusOf(final VirtualMachineState state) {
+      return state == expectedState ? MonitorStatus.DONE : MonitorStatus.CONTINUE;
+   }
+
+   @Override
+   public boolean equals(final Object obj) {
+      if (this == obj) {
+         return true;
+      }
+      if (!(obj instanceof VirtualMachineStateMonitor)) {
+         return false;
+      }
+      return expectedState == ((VirtualMachineStateMonitor) obj).expectedState;
+   }
+
+   @Override
+   public int hashCode() {
+      return expectedState.hashCode();
+   }
 }
@@ -23,18 +23,18 @@ import javax.inject.Singleton;
 
 import org.jclouds.abiquo.domain.cloud.VirtualMachine;
 import org.jclouds.abiquo.monitor.MonitorStatus;
+import org.jclouds.abiquo.monitor.VirtualMachineStatusFunction;
 import org.jclouds.logging.Logger;
 import org.jclouds.rest.ResourceNotFoundException;
 
 import com.abiquo.server.core.cloud.VirtualMachineState;
-import com.google.common.base.Function;
 
 /**
  * This class takes care of monitoring the a undeploy of a
  * {@link VirtualMachine}.
  */
 @Singleton
-public class VirtualMachineUndeployMonitor implements Function<VirtualMachine, MonitorStatus> {
+public class VirtualMachineUndeployMonitor implements VirtualMachineStatusFunction {
    @Resource
    protected Logger logger = Logger.NULL;
 
@@ -43,22 +43,7 @@ public class VirtualMachineUndeployMonitor implements Function<VirtualMachine, M
       checkNotNull(virtualMachine, "virtualMachine");
 
       try {
-         VirtualMachineState state = virtualMachine.getState();
-
-         // This state may be reached if the undeploy process fails and a
-         // rollback is done
-         if (state.existsInHypervisor()) {
-            return MonitorStatus.FAILED;
-         }
-
-         switch (state) {
-            case UNKNOWN:
-               return MonitorStatus.FAILED;
-            case NOT_ALLOCATED:
-               return MonitorStatus.DONE;
-            default:
-               return MonitorStatus.CONTINUE;
-         }
+         return statusOf(virtualMachine.getState());
       } catch (ResourceNotFoundException nfe) {
          logger.warn("virtual machine %s not found, assuming it was undeployed successfully, "
                + "stop monitor with DONE", virtualMachine);
@@ -70,4 +55,22 @@ public class VirtualMachineUndeployMonitor implements Function<VirtualMachine, M
          return MonitorStatus.CONTINUE;
       }
    }
+
+   @Override
+   public MonitorStatus statusOf(final VirtualMachineState state) {
+      // This state may be reached if the undeploy process fails and a
+      // rollback is done
+      if (state.existsInHypervisor()) {
+         return MonitorStatus.FAILED;
+      }
+
+      switch (state) {
+         case UNKNOWN:
+            return MonitorStatus.FAILED;
+         case NOT_ALLOCATED:
+            return MonitorStatus.DONE;
+         default:
+            return MonitorStatus.CONTINUE;
+      }
+   }
 }
@@ -20,6 +20,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static org.jclouds.Constants.PROPERTY_SCHEDULER_THREADS;
 import static org.jclouds.abiquo.config.AbiquoProperties.ASYNC_TASK_MONITOR_DELAY;
 
+import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -30,12 +31,15 @@ import javax.inject.Singleton;
 import org.jclouds.abiquo.AbiquoApi;
 import org.jclouds.abiquo.domain.task.AsyncTask;
 import org.jclouds.abiquo.internal.BaseMonitoringService;
+import org.jclouds.abiquo.internal.MonitoringPoller;
 import org.jclouds.abiquo.monitor.AsyncTaskMonitor;
+import org.jclouds.abiquo.monitor.events.MonitorEvent;
 import org.jclouds.abiquo.monitor.functions.AsyncTaskStatusMonitor;
 import org.jclouds.rest.ApiContext;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ListenableFuture;
 
 /**
  * Default monitor for {@link AsyncTask} objects.
@@ -50,8 +54,8 @@ public class BaseAsyncTaskMonitor extends BaseMonitoringService implements Async
    public BaseAsyncTaskMonitor(final ApiContext<AbiquoApi> context,
          @Named(PROPERTY_SCHEDULER_THREADS) final ScheduledExecutorService scheduler,
          @Named(ASYNC_TASK_MONITOR_DELAY) final Long pollingDelay, final EventBus eventBus,
-         final AsyncTaskStatusMonitor monitor) {
-      super(context, scheduler, pollingDelay, eventBus);
+         final MonitoringPoller poller, final AsyncTaskStatusMonitor monitor) {
+      super(context, scheduler, pollingDelay, eventBus, poller);
       this.taskMonitor = checkNotNull(monitor, "monitor");
    }
 
@@ -75,4 +79,14 @@ public class BaseAsyncTaskMonitor extends BaseMonitoringService implements Async
       monitor(maxWait, timeUnit, taskMonitor, tasks);
    }
 
+   @Override
+   public List<ListenableFuture<MonitorEvent<AsyncTask<?, ?>>>> track(final AsyncTask<?, ?>... tasks) {
+      return track(taskMonitor, tasks);
+   }
+
+   @Override
+   public List<ListenableFuture<MonitorEvent<AsyncTask<?, ?>>>> track(final Long maxWait, final TimeUnit timeUnit,
+         final AsyncTask<?, ?>... tasks) {
+      return track(maxWait, timeUnit, taskMonitor, tasks);
+   }
 }
@@ -20,6 +20,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static org.jclouds.Constants.PROPERTY_SCHEDULER_THREADS;
 import static org.jclouds.abiquo.config.AbiquoProperties.ASYNC_TASK_MONITOR_DELAY;
 
+import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -30,13 +31,16 @@ import javax.inject.Singleton;
 import org.jclouds.abiquo.AbiquoApi;
 import org.jclouds.abiquo.domain.cloud.VirtualAppliance;
 import org.jclouds.abiquo.internal.BaseMonitoringService;
+import org.jclouds.abiquo.internal.MonitoringPoller;
 import org.jclouds.abiquo.monitor.VirtualApplianceMonitor;
+import org.jclouds.abiquo.monitor.events.MonitorEvent;
 import org.jclouds.abiquo.monitor.functions.VirtualApplianceDeployMonitor;
 import org.jclouds.abiquo.monitor.functions.VirtualApplianceUndeployMonitor;
 import org.jclouds.rest.ApiContext;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ListenableFuture;
 
 /**
  * Default monitor for {@link VirtualAppliance} objects.
@@ -53,8 +57,9 @@ public class BaseVirtualApplianceMonitor extends BaseMonitoringService implement
    public BaseVirtualApplianceMonitor(final ApiContext<AbiquoApi> context,
          @Named(PROPERTY_SCHEDULER_THREADS) final ScheduledExecutorService scheduler,
          @Named(ASYNC_TASK_MONITOR_DELAY) final Long pollingDelay, final EventBus eventBus,
+         final MonitoringPoller poller,
          final VirtualApplianceDeployMonitor deployMonitor, final VirtualApplianceUndeployMonitor undeployMonitor) {
-      super(context, scheduler, pollingDelay, eventBus);
+      super(context, scheduler, pollingDelay, eventBus, poller);
       this.deployMonitor = checkNotNull(deployMonitor, "deployMonitor");
       this.undeployMonitor = checkNotNull(undeployMonitor, "undeployMonitor");
    }
@@ -98,4 +103,26 @@ public class BaseVirtualApplianceMonitor extends BaseMonitoringService implement
    public void monitorUndeploy(final Long maxWait, final TimeUnit timeUnit, final VirtualAppliance... vapps) {
       monitor(maxWait, timeUnit, undeployMonitor, vapps);
    }
+
+   @Override
+   public List<ListenableFuture<MonitorEvent<VirtualAppliance>>> trackDeploy(final VirtualAppliance... vapps) {
+      return track(deployMonitor, vapps);
+   }
+
+   @Override
+   public List<ListenableFuture<MonitorEvent<VirtualAppliance>>> trackDeploy(final Long maxWait,
+         final TimeUnit timeUnit, final VirtualAppliance... vapps) {
+      return track(maxWait, timeUnit, deployMonitor, vapps);
+   }
+
+   @Override
+   public List<ListenableFuture<MonitorEvent<VirtualAppliance>>> trackUndeploy(final VirtualAppliance... vapps) {
+      return track(undeployMonitor, vapps);
+   }
+
+   @Override
+   public List<ListenableFuture<MonitorEvent<VirtualAppliance>>> trackUndeploy(final Long maxWait,
+         final TimeUnit timeUnit, final VirtualAppliance... vapps) {
+      return track(maxWait, timeUnit, undeployMonitor, vapps);
+   }
 }
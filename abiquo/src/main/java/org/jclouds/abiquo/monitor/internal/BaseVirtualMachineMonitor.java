@@ -20,6 +20,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static org.jclouds.Constants.PROPERTY_SCHEDULER_THREADS;
 import static org.jclouds.abiquo.config.AbiquoProperties.ASYNC_TASK_MONITOR_DELAY;
 
+import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -30,7 +31,9 @@ import javax.inject.Singleton;
 import org.jclouds.abiquo.AbiquoApi;
 import org.jclouds.abiquo.domain.cloud.VirtualMachine;
 import org.jclouds.abiquo.internal.BaseMonitoringService;
+import org.jclouds.abiquo.internal.MonitoringPoller;
 import org.jclouds.abiquo.monitor.VirtualMachineMonitor;
+import org.jclouds.abiquo.monitor.events.MonitorEvent;
 import org.jclouds.abiquo.monitor.functions.VirtualMachineDeployMonitor;
 import org.jclouds.abiquo.monitor.functions.VirtualMachineStateMonitor;
 import org.jclouds.abiquo.monitor.functions.VirtualMachineUndeployMonitor;
@@ -39,6 +42,7 @@ import org.jclouds.rest.ApiContext;
 import com.abiquo.server.core.cloud.VirtualMachineState;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ListenableFuture;
 
 /**
  * Default monitor for {@link VirtualMachine} objects.
@@ -55,8 +59,9 @@ public class BaseVirtualMachineMonitor extends BaseMonitoringService implements
    public BaseVirtualMachineMonitor(final ApiContext<AbiquoApi> context,
          @Named(PROPERTY_SCHEDULER_THREADS) final ScheduledExecutorService scheduler,
          @Named(ASYNC_TASK_MONITOR_DELAY) final Long pollingDelay, final EventBus eventBus,
+         final MonitoringPoller poller,
          final VirtualMachineDeployMonitor deployMonitor, final VirtualMachineUndeployMonitor undeployMonitor) {
-      super(context, scheduler, pollingDelay, eventBus);
+      super(context, scheduler, pollingDelay, eventBus, poller);
       this.deployMonitor = checkNotNull(deployMonitor, "deployMonitor");
       this.undeployMonitor = checkNotNull(undeployMonitor, "undeployMonitor");
    }
@@ -122,4 +127,38 @@ public class BaseVirtualMachineMonitor extends BaseMonitoringService implements
          final VirtualMachine... vms) {
       monitor(maxWait, timeUnit, new VirtualMachineStateMonitor(state), vms);
    }
+
+   @Override
+   public List<ListenableFuture<MonitorEvent<VirtualMachine>>> trackDeploy(final VirtualMachine... vms) {
+      return track(deployMonitor, vms);
+   }
+
+   @Override
+   public List<ListenableFuture<MonitorEvent<VirtualMachine>>> trackDeploy(final Long maxWait,
+         final TimeUnit timeUnit, final VirtualMachine... vms) {
+      return track(maxWait, timeUnit, deployMonitor, vms);
+   }
+
+   @Override
+   public List<ListenableFuture<MonitorEvent<VirtualMachine>>> trackUndeploy(final VirtualMachine... vms) {
+      return track(undeployMonitor, vms);
+   }
+
+   @Override
+   public List<ListenableFuture<MonitorEvent<VirtualMachine>>> trackUndeploy(final Long maxWait,
+         final TimeUnit timeUnit, final VirtualMachine... vms) {
+      return track(maxWait, timeUnit, undeployMonitor, vms);
+   }
+
+   @Override
+   public List<ListenableFuture<MonitorEvent<VirtualMachine>>> trackState(final VirtualMachineState state,
+         final VirtualMachine... vms) {
+      return track(new VirtualMachineStateMonitor(state), vms);
+   }
+
+   @Override
+   public List<ListenableFuture<MonitorEvent<VirtualMachine>>> trackState(final Long maxWait,
+         final TimeUnit timeUnit, final VirtualMachineState state, final VirtualMachine... vms) {
+      return track(maxWait, timeUnit, new VirtualMachineStateMonitor(state), vms);
+   }
 }
@@ -17,6 +17,7 @@
 package org.jclouds.abiquo.predicates;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.isEmpty;
 
 import org.jclouds.abiquo.domain.cloud.Conversion;
@@ -28,7 +29,9 @@ import org.jclouds.abiquo.reference.rest.ParentLinkName;
 
 import com.abiquo.model.enumerator.ConversionState;
 import com.abiquo.model.enumerator.HypervisorType;
+import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.base.Supplier;
 
 /**
  * Container for {@link VirtualDatacenter} filters.
@@ -62,13 +65,57 @@ public class VirtualDatacenterPredicates {
     *         compatibles with the given virtual datacenter.
     */
    public static Predicate<VirtualDatacenter> compatibleWithTemplateOrConversions(final VirtualMachineTemplate template) {
+      return compatibleWithTemplateOr(template, new Function<HypervisorType, Iterable<Conversion>>() {
+         @Override
+         public Iterable<Conversion> apply(final HypervisorType type) {
+            return template.listConversions(type, ConversionState.FINISHED);
+         }
+      });
+   }
+
+   /**
+    * Check if the given template type is compatible with the given virtual
+    * datacenter type taking into account the given conversions of the
+    * template.
+    * <p>
+    * Unlike {@link #compatibleWithTemplateOrConversions(VirtualMachineTemplate)}
+    * the conversions are not listed for each virtual datacenter. They are only
+    * read when a virtual datacenter is not compatible with the base disk
+    * format of the template.
+    * 
+    * @param template
+    *           The template to check.
+    * @param conversions
+    *           Supplies the conversions of the template.
+    * @return Predicate to check if the template or its conversions are
+    *         compatibles with the given virtual datacenter.
+    */
+   public static Predicate<VirtualDatacenter> compatibleWithTemplateOrConversions(final VirtualMachineTemplate template,
+         final Supplier<? extends Iterable<Conversion>> conversions) {
+      checkNotNull(conversions, "conversions must be defined");
+      return compatibleWithTemplateOr(template, new Function<HypervisorType, Iterable<Conversion>>() {
+         @Override
+         public Iterable<Conversion> apply(final HypervisorType type) {
+            return filter(conversions.get(), new Predicate<Conversion>() {
+               @Override
+               public boolean apply(final Conversion conversion) {
+                  return conversion.getState() == ConversionState.FINISHED
+                        && type.isCompatible(conversion.getTargetFormat());
+               }
+            });
+         }
+      });
+   }
+
+   private static Predicate<VirtualDatacenter> compatibleWithTemplateOr(final VirtualMachineTemplate template,
+         final Function<HypervisorType, Iterable<Conversion>> finishedConversions) {
       return new Predicate<VirtualDatacenter>() {
          @Override
          public boolean apply(final VirtualDatacenter vdc) {
             HypervisorType type = vdc.getHypervisorType();
             boolean compatible = type.isCompatible(template.getDiskFormatType());
             if (!compatible) {
-               Iterable<Conversion> compatibleConversions = template.listConversions(type, ConversionState.FINISHED);
+               Iterable<Conversion> compatibleConversions = finishedConversions.apply(type);
                compatible = compatibleConversions != null && !isEmpty(compatibleConversions);
             }
             return compatible;
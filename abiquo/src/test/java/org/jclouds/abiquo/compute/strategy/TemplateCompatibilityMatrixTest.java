@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.abiquo.compute.strategy;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.jclouds.abiquo.domain.DomainWrapper.wrap;
+import static org.testng.Assert.assertEquals;
+
+import java.util.List;
+
+import org.jclouds.abiquo.AbiquoApi;
+import org.jclouds.abiquo.domain.cloud.Conversion;
+import org.jclouds.abiquo.domain.cloud.VirtualDatacenter;
+import org.jclouds.abiquo.domain.cloud.VirtualMachineTemplate;
+import org.jclouds.abiquo.domain.cloud.VirtualMachineTemplateInVirtualDatacenter;
+import org.jclouds.abiquo.domain.enterprise.Enterprise;
+import org.jclouds.abiquo.domain.event.Event;
+import org.jclouds.abiquo.features.services.AdministrationService;
+import org.jclouds.abiquo.features.services.CloudService;
+import org.jclouds.abiquo.monitor.events.CompletedEvent;
+import org.jclouds.rest.ApiContext;
+import org.testng.annotations.Test;
+
+import com.abiquo.server.core.appslibrary.ConversionDto;
+import com.abiquo.server.core.appslibrary.VirtualMachineTemplateDto;
+import com.abiquo.server.core.cloud.VirtualDatacenterDto;
+import com.abiquo.server.core.enterprise.EnterpriseDto;
+import com.abiquo.server.core.event.EventDto;
+import com.google.common.collect.ImmutableList;
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Unit tests for the {@link TemplateCompatibilityMatrix} class.
+ */
+@Test(groups = "unit", testName = "TemplateCompatibilityMatrixTest")
+public class TemplateCompatibilityMatrixTest {
+   private final ApiContext<AbiquoApi> context = context();
+
+   private final VirtualMachineTemplate template1 = template(1);
+
+   private final VirtualMachineTemplate template2 = template(2);
+
+   private final VirtualDatacenter vdc = wrap(context, VirtualDatacenter.class, new VirtualDatacenterDto());
+
+   public void testVirtualDatacentersAreListedOncePerBuild() {
+      CloudService cloudService = cloudService(1);
+      FilterCompatibleVirtualDatacenters filter = filter(1);
+      EventBus eventBus = new EventBus();
+      TemplateCompatibilityMatrix matrix = matrix(cloudService, filter, eventBus);
+
+      List<VirtualMachineTemplateInVirtualDatacenter> profiles = matrix.get();
+      matrix.get();
+
+      assertEquals(profiles.size(), 2);
+      assertEquals(matrix.getBuildCount(), 1);
+      verify(cloudService, filter);
+   }
+
+   public void testCompletedConversionsInvalidateTheMatrix() {
+      CloudService cloudService = cloudService(2);
+      FilterCompatibleVirtualDatacenters filter = filter(2);
+      EventBus eventBus = new EventBus();
+      TemplateCompatibilityMatrix matrix = matrix(cloudService, filter, eventBus);
+
+      matrix.get();
+      eventBus.post(new CompletedEvent<Conversion>(wrap(context, Conversion.class, new ConversionDto())));
+      matrix.get();
+
+      assertEquals(matrix.getBuildCount(), 2);
+      verify(cloudService, filter);
+   }
+
+   public void testVirtualDatacenterEventsInvalidateTheMatrix() {
+      CloudService cloudService = cloudService(2);
+      FilterCompatibleVirtualDatacenters filter = filter(2);
+      EventBus eventBus = new EventBus();
+      TemplateCompatibilityMatrix matrix = matrix(cloudService, filter, eventBus);
+
+      matrix.get();
+      eventBus.post(event("VM_DELETE"));
+      matrix.get();
+      assertEquals(matrix.getBuildCount(), 1);
+
+      eventBus.post(event("VDC_CREATE"));
+      matrix.get();
+      assertEquals(matrix.getBuildCount(), 2);
+      verify(cloudService, filter);
+   }
+
+   private TemplateCompatibilityMatrix matrix(final CloudService cloudService,
+         final FilterCompatibleVirtualDatacenters filter, final EventBus eventBus) {
+      AdministrationService adminService = createMock(AdministrationService.class);
+      expect(adminService.getCurrentEnterprise()).andReturn(new MockEnterprise(context, template1, template2))
+            .anyTimes();
+      replay(adminService);
+      return new TemplateCompatibilityMatrix(adminService, cloudService, filter,
+            MoreExecutors.newDirectExecutorService(), 3600L, eventBus);
+   }
+
+   private CloudService cloudService(final int builds) {
+      CloudService cloudService = createMock(CloudService.class);
+      expect(cloudService.listVirtualDatacenters()).andReturn(ImmutableList.of(vdc)).times(builds);
+      replay(cloudService);
+      return cloudService;
+   }
+
+   @SuppressWarnings("unchecked")
+   private FilterCompatibleVirtualDatacenters filter(final int builds) {
+      FilterCompatibleVirtualDatacenters filter = createMock(FilterCompatibleVirtualDatacenters.class);
+      expect(filter.execute(eq(template1), anyObject(Iterable.class))).andReturn(ImmutableList.of(vdc)).times(builds);
+      expect(filter.execute(eq(template2), anyObject(Iterable.class))).andReturn(ImmutableList.of(vdc)).times(builds);
+      replay(filter);
+      return filter;
+   }
+
+   @SuppressWarnings("unchecked")
+   private static ApiContext<AbiquoApi> context() {
+      ApiContext<AbiquoApi> context = createNiceMock(ApiContext.class);
+      replay(context);
+      return context;
+   }
+
+   private VirtualMachineTemplate template(final Integer id) {
+      VirtualMachineTemplateDto dto = new VirtualMachineTemplateDto();
+      dto.setId(id);
+      return wrap(context, VirtualMachineTemplate.class, dto);
+   }
+
+   private Event event(final String action) {
+      EventDto dto = new EventDto();
+      dto.setActionPerformed(action);
+      return wrap(context, Event.class, dto);
+   }
+
+   private static class MockEnterprise extends Enterprise {
+      private final List<VirtualMachineTemplate> templates;
+
+      public MockEnterprise(final ApiContext<AbiquoApi> context, final VirtualMachineTemplate... templates) {
+         super(context, new EnterpriseDto());
+         this.templates = ImmutableList.copyOf(templates);
+      }
+
+      @Override
+      public Iterable<VirtualMachineTemplate> listTemplates() {
+         return templates;
+      }
+   }
+}
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.abiquo.compute.strategy;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.same;
+import static org.easymock.EasyMock.verify;
+import static org.jclouds.abiquo.domain.DomainWrapper.wrap;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+import java.util.List;
+
+import org.jclouds.abiquo.AbiquoApi;
+import org.jclouds.abiquo.domain.cloud.VirtualMachine;
+import org.jclouds.abiquo.features.CloudApi;
+import org.jclouds.abiquo.features.services.CloudService;
+import org.jclouds.abiquo.reference.rest.ParentLinkName;
+import org.jclouds.rest.ApiContext;
+import org.testng.annotations.Test;
+
+import com.abiquo.model.rest.RESTLink;
+import com.abiquo.server.core.cloud.VirtualApplianceDto;
+import com.abiquo.server.core.cloud.VirtualMachineWithNodeExtendedDto;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+
+/**
+ * Unit tests for the {@link VirtualMachineIndex} class.
+ */
+@Test(groups = "unit", testName = "VirtualMachineIndexTest")
+public class VirtualMachineIndexTest {
+   private static final String APPLIANCE_HREF = "http://abiquo/api/cloud/virtualdatacenters/1/virtualappliances/1";
+
+   private static final VirtualApplianceDto APPLIANCE = new VirtualApplianceDto();
+
+   static {
+      APPLIANCE.addLink(new RESTLink("virtualmachines", APPLIANCE_HREF + "/virtualmachines"));
+   }
+
+   public void testIndexedVirtualMachinesAreFetchedThroughTheirLink() {
+      CloudApi cloudApi = createMock(CloudApi.class);
+      CloudService cloudService = createMock(CloudService.class);
+      ApiContext<AbiquoApi> context = context(cloudApi);
+      expect(cloudService.listVirtualMachines()).andReturn(ImmutableList.of(vm(context, 1), vm(context, 2)));
+      expect(cloudApi.getVirtualMachine(same(APPLIANCE), eq(1))).andReturn(dto(1));
+      replay(cloudApi, cloudService);
+
+      VirtualMachineIndex index = new MockVirtualMachineIndex(context, cloudService);
+      assertEquals(Iterables.size(index.list()), 2);
+
+      assertEquals(index.get(1).getId(), Integer.valueOf(1));
+      verify(cloudApi, cloudService);
+   }
+
+   public void testAppliancesAreFetchedOnceThroughTheParentLink() {
+      CloudApi cloudApi = createMock(CloudApi.class);
+      CloudService cloudService = createMock(CloudService.class);
+      ApiContext<AbiquoApi> context = context(cloudApi);
+      expect(cloudService.listVirtualMachines()).andReturn(ImmutableList.of(vm(context, 1), vm(context, 2)));
+      expect(cloudApi.getVirtualMachine(same(APPLIANCE), eq(1))).andReturn(dto(1));
+      expect(cloudApi.getVirtualMachine(same(APPLIANCE), eq(2))).andReturn(dto(2));
+      replay(cloudApi, cloudService);
+
+      MockVirtualMachineIndex index = new MockVirtualMachineIndex(context, cloudService);
+      Iterables.size(index.list());
+      index.get(1);
+      index.get(2);
+
+      assertEquals(index.applianceLinks, ImmutableList.of(APPLIANCE_HREF));
+      verify(cloudApi, cloudService);
+   }
+
+   public void testVirtualMachinesOfDeletedAppliancesAreForgotten() {
+      CloudApi cloudApi = createMock(CloudApi.class);
+      CloudService cloudService = createMock(CloudService.class);
+      ApiContext<AbiquoApi> context = context(cloudApi);
+      expect(cloudService.listVirtualMachines()).andReturn(ImmutableList.of(vm(context, 1)));
+      expect(cloudService.listVirtualMachines()).andReturn(ImmutableList.<VirtualMachine> of());
+      replay(cloudApi, cloudService);
+
+      MockVirtualMachineIndex index = new MockVirtualMachineIndex(context, cloudService);
+      index.appliance = null;
+      Iterables.size(index.list());
+
+      assertNull(index.get(1));
+      // The virtual machine is no longer indexed, so it is listed
+      assertNull(index.get(1));
+      verify(cloudApi, cloudService);
+   }
+
+   public void testUnknownVirtualMachinesAreListed() {
+      CloudApi cloudApi = createMock(CloudApi.class);
+      CloudService cloudService = createMock(CloudService.class);
+      ApiContext<AbiquoApi> context = context(cloudApi);
+      expect(cloudService.listVirtualMachines()).andReturn(ImmutableList.of(vm(context, 1)));
+      expect(cloudService.listVirtualMachines()).andReturn(ImmutableList.of(vm(context, 1), vm(context, 2)));
+      replay(cloudApi, cloudService);
+
+      VirtualMachineIndex index = new MockVirtualMachineIndex(context, cloudService);
+
+      assertNull(index.get(2));
+      assertEquals(index.get(2).getId(), Integer.valueOf(2));
+      verify(cloudApi, cloudService);
+   }
+
+   public void testVirtualMachinesDeletedOutsideAreForgotten() {
+      CloudApi cloudApi = createMock(CloudApi.class);
+      CloudService cloudService = createMock(CloudService.class);
+      ApiContext<AbiquoApi> context = context(cloudApi);
+      expect(cloudService.listVirtualMachines()).andReturn(ImmutableList.of(vm(context, 1), vm(context, 2)));
+      expect(cloudApi.getVirtualMachine(same(APPLIANCE), eq(1))).andReturn(null);
+      expect(cloudApi.getVirtualMachine(same(APPLIANCE), eq(2))).andReturn(dto(2));
+      expect(cloudService.listVirtualMachines()).andReturn(ImmutableList.of(vm(context, 2)));
+      replay(cloudApi, cloudService);
+
+      VirtualMachineIndex index = new MockVirtualMachineIndex(context, cloudService);
+      Iterables.size(index.list());
+
+      Iterable<VirtualMachine> vms = index.get(ImmutableList.of(1, 2));
+      assertEquals(Iterables.getOnlyElement(vms).getId(), Integer.valueOf(2));
+      // The deleted virtual machine is no longer indexed, so it is listed
+      assertNull(index.get(1));
+      verify(cloudApi, cloudService);
+   }
+
+   public void testVirtualMachinesWithoutApplianceAreNotIndexed() {
+      CloudApi cloudApi = createMock(CloudApi.class);
+      CloudService cloudService = createMock(CloudService.class);
+      ApiContext<AbiquoApi> context = context(cloudApi);
+      VirtualMachineWithNodeExtendedDto orphan = new VirtualMachineWithNodeExtendedDto();
+      orphan.setId(1);
+      expect(cloudService.listVirtualMachines()).andReturn(
+            ImmutableList.of(wrap(context, VirtualMachine.class, orphan))).times(2);
+      replay(cloudApi, cloudService);
+
+      VirtualMachineIndex index = new MockVirtualMachineIndex(context, cloudService);
+      Iterables.size(index.list());
+
+      assertNotNull(index.get(1));
+      verify(cloudApi, cloudService);
+   }
+
+   @SuppressWarnings("unchecked")
+   private static ApiContext<AbiquoApi> context(final CloudApi cloudApi) {
+      ApiContext<AbiquoApi> context = createNiceMock(ApiContext.class);
+      AbiquoApi api = createNiceMock(AbiquoApi.class);
+      expect(context.getApi()).andReturn(api).anyTimes();
+      expect(api.getCloudApi()).andReturn(cloudApi).anyTimes();
+      replay(context, api);
+      return context;
+   }
+
+   private static VirtualMachine vm(final ApiContext<AbiquoApi> context, final Integer id) {
+      return wrap(context, VirtualMachine.class, dto(id));
+   }
+
+   private static VirtualMachineWithNodeExtendedDto dto(final Integer id) {
+      VirtualMachineWithNodeExtendedDto dto = new VirtualMachineWithNodeExtendedDto();
+      dto.setId(id);
+      dto.addLink(new RESTLink(ParentLinkName.VIRTUAL_APPLIANCE, APPLIANCE_HREF));
+      return dto;
+   }
+
+   private static class MockVirtualMachineIndex extends VirtualMachineIndex {
+      private final List<String> applianceLinks = Lists.newArrayList();
+
+      private VirtualApplianceDto appliance = APPLIANCE;
+
+      public MockVirtualMachineIndex(final ApiContext<AbiquoApi> context, final CloudService cloudService) {
+         super(context, cloudService);
+      }
+
+      @Override
+      VirtualApplianceDto getVirtualAppliance(final RESTLink link) {
+         applianceLinks.add(link.getHref());
+         return appliance;
+      }
+   }
+}
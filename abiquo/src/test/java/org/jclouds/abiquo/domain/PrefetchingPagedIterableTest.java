@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.abiquo.domain;
+
+import static org.easymock.EasyMock.createMock;
+import static org.testng.Assert.assertEquals;
+
+import java.util.List;
+
+import org.jclouds.abiquo.AbiquoApi;
+import org.jclouds.collect.IterableWithMarker;
+import org.jclouds.collect.IterableWithMarkers;
+import org.jclouds.collect.PagedIterable;
+import org.jclouds.http.functions.ParseXMLWithJAXB;
+import org.testng.annotations.Test;
+
+import com.abiquo.model.rest.RESTLink;
+import com.abiquo.server.core.cloud.VirtualMachineWithNodeExtendedDto;
+import com.abiquo.server.core.cloud.VirtualMachinesWithNodeExtendedDto;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Unit tests for the {@link PrefetchingPagedIterable} class.
+ */
+@Test(groups = "unit", testName = "PrefetchingPagedIterableTest")
+public class PrefetchingPagedIterableTest {
+   private static final String VMS = "http://localhost/api/cloud/virtualmachines";
+
+   public void testFetchesAllPagesInOrder() {
+      RecordingNextPage nextPage = new RecordingNextPage();
+      PagedIterable<VirtualMachineWithNodeExtendedDto> pages = iterable(VMS + "?startwith=2&limit=2", nextPage, 2);
+
+      assertEquals(ids(pages.concat()), ImmutableList.of(0, 1, 2, 3, 4, 5));
+      assertEquals(nextPage.requested, ImmutableList.of(VMS + "?limit=2&startwith=2", VMS + "?limit=2&startwith=4"));
+   }
+
+   public void testFetchesOnlyTheWindowWhenIterationStopsEarly() {
+      RecordingNextPage nextPage = new RecordingNextPage();
+      PagedIterable<VirtualMachineWithNodeExtendedDto> pages = iterable(VMS + "?startwith=2&limit=2", nextPage, 1);
+
+      pages.iterator().next();
+
+      assertEquals(nextPage.requested.size(), 1);
+   }
+
+   public void testFollowsNextLinksWhenPagesCannotBeComputed() {
+      RecordingNextPage nextPage = new RecordingNextPage();
+      PagedIterable<VirtualMachineWithNodeExtendedDto> pages = iterable(VMS + "?startwith=2", nextPage, 2);
+
+      assertEquals(ids(pages.concat()), ImmutableList.of(0, 1, 2, 3));
+      assertEquals(nextPage.requested, ImmutableList.of(VMS + "?startwith=2"));
+   }
+
+   @SuppressWarnings("unchecked")
+   private static PagedIterable<VirtualMachineWithNodeExtendedDto> iterable(final String next,
+         final RecordingNextPage nextPage, final int maxPagesAhead) {
+      VirtualMachinesWithNodeExtendedDto dto = new VirtualMachinesWithNodeExtendedDto();
+      dto.add(vm(0));
+      dto.add(vm(1));
+      dto.setTotalSize(6);
+      dto.addLink(new RESTLink("next", next));
+
+      PaginatedCollection<VirtualMachineWithNodeExtendedDto, VirtualMachinesWithNodeExtendedDto> first =
+            new PaginatedCollection<VirtualMachineWithNodeExtendedDto, VirtualMachinesWithNodeExtendedDto>(
+                  createMock(AbiquoApi.class), dto, createMock(ParseXMLWithJAXB.class));
+      return new PrefetchingPagedIterable<VirtualMachineWithNodeExtendedDto, VirtualMachinesWithNodeExtendedDto>(
+            first, nextPage, MoreExecutors.newDirectExecutorService(), maxPagesAhead);
+   }
+
+   private static VirtualMachineWithNodeExtendedDto vm(final int id) {
+      VirtualMachineWithNodeExtendedDto vm = new VirtualMachineWithNodeExtendedDto();
+      vm.setId(id);
+      return vm;
+   }
+
+   private static List<Integer> ids(final Iterable<VirtualMachineWithNodeExtendedDto> vms) {
+      List<Integer> ids = Lists.newArrayList();
+      for (VirtualMachineWithNodeExtendedDto vm : vms) {
+         ids.add(vm.getId());
+      }
+      return ids;
+   }
+
+   /**
+    * Returns the two elements following the <code>startwith</code> parameter
+    * of the requested link.
+    */
+   private static class RecordingNextPage implements
+         Function<Object, IterableWithMarker<VirtualMachineWithNodeExtendedDto>> {
+      private final List<String> requested = Lists.newArrayList();
+
+      @Override
+      public IterableWithMarker<VirtualMachineWithNodeExtendedDto> apply(final Object marker) {
+         String href = RESTLink.class.cast(marker).getHref();
+         requested.add(href);
+         int start = Integer.parseInt(href.replaceAll(".*startwith=(\\d+).*", "$1"));
+         return IterableWithMarkers.from(ImmutableList.of(vm(start), vm(start + 1)));
+      }
+   }
+}
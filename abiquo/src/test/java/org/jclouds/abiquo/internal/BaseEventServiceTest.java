@@ -16,11 +16,30 @@
  */
 package org.jclouds.abiquo.internal;
 
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 
+import java.util.Date;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.jclouds.abiquo.AbiquoApi;
+import org.jclouds.abiquo.domain.PaginatedCollection;
+import org.jclouds.abiquo.domain.event.options.EventOptions;
+import org.jclouds.abiquo.features.EventApi;
 import org.jclouds.abiquo.features.services.EventService;
+import org.jclouds.http.functions.ParseXMLWithJAXB;
+import org.jclouds.rest.ApiContext;
 import org.testng.annotations.Test;
 
+import com.abiquo.server.core.event.EventDto;
+import com.abiquo.server.core.event.EventsDto;
+import com.google.common.eventbus.EventBus;
+
 /**
  * Unit tests for the {@link BaseEventService} class.
  */
@@ -30,5 +49,34 @@ public class BaseEventServiceTest extends BaseInjectionTest {
       BaseEventService service = (BaseEventService) injector.getInstance(EventService.class);
 
       assertNotNull(service.context);
+      assertNotNull(service.scheduler);
+      assertNotNull(service.pollingDelay);
+      assertNotNull(service.maxDelay);
+      assertNotNull(service.capacity);
+      assertNotNull(service.eventBus);
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testStreamsStartAtTheLastEventLoggedByThePlatform() {
+      EventDto last = new EventDto();
+      last.setId(7);
+      last.setTimestamp(new Date(1000L));
+      EventsDto events = new EventsDto();
+      events.add(last);
+      events.setTotalSize(1);
+
+      ApiContext<AbiquoApi> context = createNiceMock(ApiContext.class);
+      AbiquoApi api = createNiceMock(AbiquoApi.class);
+      EventApi eventApi = createMock(EventApi.class);
+      expect(context.getApi()).andReturn(api).anyTimes();
+      expect(api.getEventApi()).andReturn(eventApi).anyTimes();
+      expect(eventApi.listEvents(anyObject(EventOptions.class))).andReturn(
+            new PaginatedCollection<EventDto, EventsDto>(api, events, createMock(ParseXMLWithJAXB.class)));
+      replay(context, api, eventApi);
+
+      BaseEventService service = new BaseEventService(context, createNiceMock(ScheduledExecutorService.class), 100L,
+            1000L, 10, new EventBus());
+
+      assertEquals(service.streamEvents().getHighWaterMark(), new Date(1000L));
    }
 }
@@ -0,0 +1,365 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.abiquo.internal;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.reportMatcher;
+import static org.easymock.EasyMock.verify;
+import static org.jclouds.abiquo.domain.DomainWrapper.wrap;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.easymock.IArgumentMatcher;
+import org.jclouds.abiquo.AbiquoApi;
+import org.jclouds.abiquo.domain.cloud.VirtualAppliance;
+import org.jclouds.abiquo.domain.cloud.VirtualMachine;
+import org.jclouds.abiquo.domain.event.Event;
+import org.jclouds.abiquo.features.CloudApi;
+import org.jclouds.abiquo.monitor.MonitorStatus;
+import org.jclouds.abiquo.monitor.events.CompletedEvent;
+import org.jclouds.abiquo.monitor.events.MonitorEvent;
+import org.jclouds.abiquo.monitor.functions.VirtualMachineDeployMonitor;
+import org.jclouds.abiquo.monitor.functions.VirtualMachineStateMonitor;
+import org.jclouds.abiquo.reference.rest.ParentLinkName;
+import org.jclouds.collect.IterableWithMarkers;
+import org.jclouds.collect.PagedIterables;
+import org.jclouds.rest.ApiContext;
+import org.testng.annotations.Test;
+
+import com.abiquo.model.rest.RESTLink;
+import com.abiquo.server.core.cloud.VirtualApplianceDto;
+import com.abiquo.server.core.cloud.VirtualMachineState;
+import com.abiquo.server.core.cloud.VirtualMachineWithNodeExtendedDto;
+import com.abiquo.server.core.event.EventDto;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Unit tests for the {@link MonitoringPoller} class.
+ */
+@Test(groups = "unit", testName = "MonitoringPollerTest")
+public class MonitoringPollerTest {
+   public void testVirtualMachineStatesAreRefreshedWithOneListingPerAppliance() {
+      CloudApi cloudApi = createMock(CloudApi.class);
+      expect(cloudApi.listVirtualMachines(anyObject(VirtualApplianceDto.class))).andReturn(
+            PagedIterables.onlyPage(IterableWithMarkers.from(ImmutableList.of(dto(1, VirtualMachineState.ON),
+                  dto(2, VirtualMachineState.LOCKED), dto(3, VirtualMachineState.ON)))));
+      ApiContext<AbiquoApi> context = context(cloudApi);
+
+      EventBus eventBus = new EventBus();
+      CompletedListener listener = new CompletedListener();
+      eventBus.register(listener);
+
+      MonitoringPoller poller = poller(context, eventBus);
+      MockVirtualMachine vm1 = new MockVirtualMachine(context, 1, 1);
+      MockVirtualMachine vm2 = new MockVirtualMachine(context, 2, 1);
+      poller.monitor(null, null, new VirtualMachineDeployMonitor(), vm1, vm2);
+      poller.poll();
+
+      assertEquals(listener.completed, ImmutableList.of(vm1));
+      assertEquals(vm2.unwrap().getState(), VirtualMachineState.LOCKED);
+      assertEquals(vm1.stateRequests + vm2.stateRequests, 0);
+      assertEquals(vm1.applianceRequests + vm2.applianceRequests, 1);
+      assertEquals(poller.size(), 1);
+      verify(cloudApi);
+   }
+
+   public void testAppliancesAreListedThroughTheirOwnLinks() {
+      CloudApi cloudApi = createMock(CloudApi.class);
+      expect(cloudApi.listVirtualMachines(applianceListedAt(MockVirtualMachine.APPLIANCES + "1/virtualmachines")))
+            .andReturn(PagedIterables.onlyPage(IterableWithMarkers.from(ImmutableList.of(
+                  dto(1, VirtualMachineState.LOCKED), dto(2, VirtualMachineState.LOCKED))))).times(2);
+      ApiContext<AbiquoApi> context = context(cloudApi);
+
+      MonitoringPoller poller = new MonitoringPoller(context, createNiceMock(ScheduledExecutorService.class),
+            MoreExecutors.newDirectExecutorService(), 0L, 0L, new EventBus());
+      MockVirtualMachine vm1 = new MockVirtualMachine(context, 1, 1);
+      MockVirtualMachine vm2 = new MockVirtualMachine(context, 2, 1);
+      poller.monitor(null, null, new VirtualMachineDeployMonitor(), vm1, vm2);
+      poller.poll();
+      poller.poll();
+
+      // The appliance is fetched once, through the parent link of a virtual machine
+      assertEquals(vm1.applianceRequests + vm2.applianceRequests, 1);
+      verify(cloudApi);
+   }
+
+   public void testVirtualMachinesNotListedAreCheckedOneByOne() {
+      CloudApi cloudApi = createMock(CloudApi.class);
+      expect(cloudApi.listVirtualMachines(anyObject(VirtualApplianceDto.class))).andReturn(
+            PagedIterables.onlyPage(IterableWithMarkers.from(ImmutableList.of(dto(1, VirtualMachineState.ON)))));
+      ApiContext<AbiquoApi> context = context(cloudApi);
+
+      MonitoringPoller poller = poller(context, new EventBus());
+      MockVirtualMachine vm1 = new MockVirtualMachine(context, 1, 1);
+      MockVirtualMachine vm2 = new MockVirtualMachine(context, 2, 1);
+      poller.monitor(null, null, new VirtualMachineDeployMonitor(), vm1, vm2);
+      poller.poll();
+
+      assertEquals(vm1.stateRequests, 0);
+      assertEquals(vm2.stateRequests, 1);
+      assertEquals(poller.size(), 0);
+      verify(cloudApi);
+   }
+
+   public void testVirtualMachinesAloneInTheirApplianceAreCheckedOneByOne() {
+      CloudApi cloudApi = createMock(CloudApi.class);
+      ApiContext<AbiquoApi> context = context(cloudApi);
+
+      MonitoringPoller poller = poller(context, new EventBus());
+      MockVirtualMachine vm1 = new MockVirtualMachine(context, 1, 1);
+      MockVirtualMachine vm2 = new MockVirtualMachine(context, 2, 2);
+      poller.monitor(null, null, new VirtualMachineDeployMonitor(), vm1, vm2);
+      poller.poll();
+
+      assertEquals(vm1.stateRequests, 1);
+      assertEquals(vm2.stateRequests, 1);
+      assertEquals(poller.size(), 0);
+      verify(cloudApi);
+   }
+
+   public void testUnchangedObjectsAreNotCheckedOnEachPoll() {
+      CountingMonitor monitor = new CountingMonitor();
+      MonitoringPoller poller = poller(context(createMock(CloudApi.class)), new EventBus());
+
+      poller.monitor(null, null, monitor, new Object());
+      poller.poll();
+      poller.poll();
+
+      assertEquals(monitor.checks, 1);
+      assertEquals(poller.size(), 1);
+   }
+
+   public void testTimedOutObjectsAreNotMonitored() {
+      MonitoringPoller poller = poller(context(createMock(CloudApi.class)), new EventBus());
+
+      poller.monitor(-1L, TimeUnit.MILLISECONDS, new CountingMonitor(), new Object());
+      poller.poll();
+
+      assertEquals(poller.size(), 0);
+   }
+
+   public void testFuturesHoldTheFinalEventOfEachObject() throws Exception {
+      MonitoringPoller poller = poller(context(createMock(CloudApi.class)), new EventBus());
+      final Object done = new Object();
+      final Object failed = new Object();
+
+      List<ListenableFuture<MonitorEvent<Object>>> futures = poller.monitor(null, null,
+            new Function<Object, MonitorStatus>() {
+               @Override
+               public MonitorStatus apply(final Object object) {
+                  return object == failed ? MonitorStatus.FAILED : MonitorStatus.DONE;
+               }
+            }, done, failed);
+      poller.poll();
+
+      assertEquals(futures.get(0).get().getType(), MonitorEvent.Type.COMPLETED);
+      assertSame(futures.get(0).get().getTarget(), done);
+      assertEquals(futures.get(1).get().getType(), MonitorEvent.Type.FAILED);
+      assertSame(futures.get(1).get().getTarget(), failed);
+   }
+
+   public void testFuturesCompleteAfterTheEventHandlers() throws Exception {
+      EventBus eventBus = new EventBus();
+      FutureListener listener = new FutureListener();
+      eventBus.register(listener);
+      MonitoringPoller poller = poller(context(createMock(CloudApi.class)), eventBus);
+
+      listener.future = poller.monitor(null, null, new Function<Object, MonitorStatus>() {
+         @Override
+         public MonitorStatus apply(final Object object) {
+            return MonitorStatus.DONE;
+         }
+      }, new Object()).get(0);
+      poller.poll();
+
+      assertEquals(listener.doneWhenHandled, ImmutableList.of(false));
+      assertTrue(listener.future.isDone());
+   }
+
+   public void testObjectsFailAfterRepeatedCheckErrors() throws Exception {
+      MonitoringPoller poller = new MonitoringPoller(context(createMock(CloudApi.class)),
+            createNiceMock(ScheduledExecutorService.class), MoreExecutors.newDirectExecutorService(), 0L, 0L,
+            new EventBus());
+
+      ListenableFuture<MonitorEvent<Object>> future = poller.monitor(null, null,
+            new Function<Object, MonitorStatus>() {
+               @Override
+               public MonitorStatus apply(final Object object) {
+                  throw new IllegalStateException("unreachable");
+               }
+            }, new Object()).get(0);
+      for (int i = 1; i < MonitoringPoller.MAX_CONSECUTIVE_ERRORS; i++) {
+         poller.poll();
+      }
+      assertFalse(future.isDone());
+      poller.poll();
+
+      assertEquals(future.get().getType(), MonitorEvent.Type.FAILED);
+      assertEquals(poller.size(), 0);
+   }
+
+   public void testCancelledFuturesStopMonitoring() {
+      CountingMonitor monitor = new CountingMonitor();
+      MonitoringPoller poller = poller(context(createMock(CloudApi.class)), new EventBus());
+
+      poller.monitor(null, null, monitor, new Object()).get(0).cancel(false);
+      poller.poll();
+
+      assertEquals(monitor.checks, 0);
+      assertEquals(poller.size(), 0);
+   }
+
+   public void testEventsExpediteTheCheckOfTheirVirtualMachines() {
+      CloudApi cloudApi = createMock(CloudApi.class);
+      ApiContext<AbiquoApi> context = context(cloudApi);
+      EventBus eventBus = new EventBus();
+
+      MonitoringPoller poller = poller(context, eventBus);
+      MockVirtualMachine vm = new MockVirtualMachine(context, 1, 1);
+      poller.monitor(null, null, new VirtualMachineStateMonitor(VirtualMachineState.OFF), vm);
+      poller.poll();
+      poller.poll();
+      assertEquals(vm.stateRequests, 1);
+
+      EventDto dto = new EventDto();
+      dto.setIdVirtualMachine(1);
+      eventBus.post(wrap(context, Event.class, dto));
+      poller.poll();
+
+      assertEquals(vm.stateRequests, 2);
+   }
+
+   @SuppressWarnings("unchecked")
+   private static ApiContext<AbiquoApi> context(final CloudApi cloudApi) {
+      ApiContext<AbiquoApi> context = createNiceMock(ApiContext.class);
+      AbiquoApi api = createNiceMock(AbiquoApi.class);
+      expect(context.getApi()).andReturn(api).anyTimes();
+      expect(api.getCloudApi()).andReturn(cloudApi).anyTimes();
+      replay(context, api, cloudApi);
+      return context;
+   }
+
+   private static MonitoringPoller poller(final ApiContext<AbiquoApi> context, final EventBus eventBus) {
+      return new MonitoringPoller(context, createNiceMock(ScheduledExecutorService.class),
+            MoreExecutors.newDirectExecutorService(), 100L, 1000L, eventBus);
+   }
+
+   private static VirtualMachineWithNodeExtendedDto dto(final Integer id, final VirtualMachineState state) {
+      VirtualMachineWithNodeExtendedDto dto = new VirtualMachineWithNodeExtendedDto();
+      dto.setId(id);
+      dto.setState(state);
+      return dto;
+   }
+
+   private static VirtualMachineWithNodeExtendedDto inAppliance(final VirtualMachineWithNodeExtendedDto dto,
+         final Integer applianceId) {
+      dto.addLink(new RESTLink(ParentLinkName.VIRTUAL_APPLIANCE, MockVirtualMachine.APPLIANCES + applianceId));
+      return dto;
+   }
+
+   private static VirtualApplianceDto applianceListedAt(final String href) {
+      reportMatcher(new IArgumentMatcher() {
+         @Override
+         public boolean matches(final Object argument) {
+            RESTLink link = ((VirtualApplianceDto) argument).searchLink("virtualmachines");
+            return link != null && link.getHref().equals(href);
+         }
+
+         @Override
+         public void appendTo(final StringBuffer buffer) {
+            buffer.append("applianceListedAt(").append(href).append(")");
+         }
+      });
+      return null;
+   }
+
+   private static class MockVirtualMachine extends VirtualMachine {
+      private static final String APPLIANCES = "http://abiquo/api/cloud/virtualdatacenters/1/virtualappliances/";
+
+      private final Integer applianceId;
+
+      private int stateRequests;
+
+      private int applianceRequests;
+
+      public MockVirtualMachine(final ApiContext<AbiquoApi> context, final Integer id, final Integer applianceId) {
+         super(context, inAppliance(dto(id, VirtualMachineState.LOCKED), applianceId));
+         this.applianceId = applianceId;
+      }
+
+      @Override
+      public VirtualAppliance getVirtualAppliance() {
+         applianceRequests++;
+         VirtualApplianceDto appliance = new VirtualApplianceDto();
+         appliance.setId(applianceId);
+         appliance.addLink(new RESTLink("virtualmachines", APPLIANCES + applianceId + "/virtualmachines"));
+         return wrap(context, VirtualAppliance.class, appliance);
+      }
+
+      @Override
+      public VirtualMachineState getState() {
+         stateRequests++;
+         return VirtualMachineState.ON;
+      }
+   }
+
+   private static class CountingMonitor implements Function<Object, MonitorStatus> {
+      private int checks;
+
+      @Override
+      public MonitorStatus apply(final Object object) {
+         checks++;
+         return MonitorStatus.CONTINUE;
+      }
+   }
+
+   public static class CompletedListener {
+      private final List<Object> completed = Lists.newArrayList();
+
+      @Subscribe
+      public void handle(final CompletedEvent<?> event) {
+         completed.add(event.getTarget());
+      }
+   }
+
+   public static class FutureListener {
+      private final List<Boolean> doneWhenHandled = Lists.newArrayList();
+
+      private ListenableFuture<?> future;
+
+      @Subscribe
+      public void handle(final CompletedEvent<?> event) {
+         doneWhenHandled.add(future.isDone());
+      }
+   }
+}
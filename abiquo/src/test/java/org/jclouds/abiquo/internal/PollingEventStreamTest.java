@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.abiquo.internal;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.easymock.IAnswer;
+import org.jclouds.abiquo.AbiquoApi;
+import org.jclouds.abiquo.domain.PaginatedCollection;
+import org.jclouds.abiquo.domain.event.Event;
+import org.jclouds.abiquo.domain.event.options.EventOptions;
+import org.jclouds.abiquo.features.EventApi;
+import org.jclouds.http.functions.ParseXMLWithJAXB;
+import org.jclouds.logging.Logger;
+import org.jclouds.rest.ApiContext;
+import org.testng.annotations.Test;
+
+import com.abiquo.model.rest.RESTLink;
+import com.abiquo.server.core.event.EventDto;
+import com.abiquo.server.core.event.EventsDto;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * Unit tests for the {@link PollingEventStream} class.
+ */
+@Test(groups = "unit", testName = "PollingEventStreamTest")
+public class PollingEventStreamTest {
+   public void testOnlyEventsNewerThanTheHighWaterMarkAreTaken() {
+      EventApi eventApi = createMock(EventApi.class);
+      expect(eventApi.listEvents(anyObject(EventOptions.class))).andReturn(
+            page(event(2, 2000L), event(1, 1500L), event(3, null)));
+      expect(eventApi.listEvents(anyObject(EventOptions.class))).andReturn(
+            page(event(1, 1500L), event(2, 2000L), event(4, 2000L)));
+      ApiContext<AbiquoApi> context = context(eventApi);
+
+      EventBus eventBus = new EventBus();
+      EventListener listener = new EventListener();
+      eventBus.register(listener);
+
+      PollingEventStream stream = stream(context, eventBus, 10);
+      assertTrue(stream.fetch());
+      assertEquals(stream.getHighWaterMark(), new Date(2000L));
+      assertTrue(stream.fetch());
+
+      List<Event> taken = Lists.newArrayList();
+      stream.drainTo(taken, 10);
+      assertEquals(ids(taken), ImmutableList.of(1, 2, 4));
+      assertEquals(ids(listener.events), ImmutableList.of(1, 2, 4));
+      verify(eventApi);
+   }
+
+   public void testSkippedEventsAtTheHighWaterMarkAreNotTaken() {
+      EventApi eventApi = createMock(EventApi.class);
+      expect(eventApi.listEvents(anyObject(EventOptions.class))).andReturn(page(event(1, 1000L), event(2, 1000L)));
+      ApiContext<AbiquoApi> context = context(eventApi);
+
+      PollingEventStream stream = stream(context, new EventBus(), 10).skip(1);
+      assertTrue(stream.fetch());
+
+      List<Event> taken = Lists.newArrayList();
+      stream.drainTo(taken, 10);
+      assertEquals(ids(taken), ImmutableList.of(2));
+      verify(eventApi);
+   }
+
+   public void testNoEventsAreFetchedWhileTheStreamIsFull() throws Exception {
+      EventApi eventApi = createMock(EventApi.class);
+      expect(eventApi.listEvents(anyObject(EventOptions.class))).andReturn(page(event(1, 1500L), event(2, 2000L)));
+      expect(eventApi.listEvents(anyObject(EventOptions.class))).andReturn(page());
+      ApiContext<AbiquoApi> context = context(eventApi);
+
+      PollingEventStream stream = stream(context, new EventBus(), 1);
+      assertTrue(stream.fetch());
+      // The second event does not fit, and nothing is fetched
+      assertTrue(stream.fetch());
+
+      assertEquals(stream.take().getId(), Integer.valueOf(1));
+      // The pending event is handed over, and there is nothing new
+      assertFalse(stream.fetch());
+      assertEquals(stream.take().getId(), Integer.valueOf(2));
+      verify(eventApi);
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testNextPagesAreNotFetchedOnceTheStreamIsFull() {
+      EventApi eventApi = createMock(EventApi.class);
+      AbiquoApi api = createMock(AbiquoApi.class);
+      replay(api);
+      EventsDto dto = new EventsDto();
+      dto.add(event(1, 1500L));
+      dto.add(event(2, 2000L));
+      dto.addLink(new RESTLink("next", "http://localhost/api/events?startwith=2"));
+      dto.setTotalSize(4);
+      expect(eventApi.listEvents(anyObject(EventOptions.class))).andReturn(
+            new PaginatedCollection<EventDto, EventsDto>(api, dto, createMock(ParseXMLWithJAXB.class)));
+      ApiContext<AbiquoApi> context = context(eventApi);
+
+      PollingEventStream stream = stream(context, new EventBus(), 2);
+      assertTrue(stream.fetch());
+
+      List<Event> taken = Lists.newArrayList();
+      stream.drainTo(taken, 10);
+      assertEquals(ids(taken), ImmutableList.of(1, 2));
+      verify(eventApi, api);
+   }
+
+   public void testClosingDoesNotWaitForTheEventsBeingListed() throws Exception {
+      EventApi eventApi = createMock(EventApi.class);
+      final AtomicReference<PollingEventStream> stream = new AtomicReference<PollingEventStream>();
+      final AtomicBoolean closedWhileListing = new AtomicBoolean();
+      expect(eventApi.listEvents(anyObject(EventOptions.class))).andAnswer(
+            new IAnswer<PaginatedCollection<EventDto, EventsDto>>() {
+               @Override
+               public PaginatedCollection<EventDto, EventsDto> answer() throws Throwable {
+                  Thread closer = new Thread(new Runnable() {
+                     @Override
+                     public void run() {
+                        stream.get().close();
+                        closedWhileListing.set(true);
+                     }
+                  });
+                  closer.start();
+                  closer.join(5000L);
+                  return page(event(1, 1500L));
+               }
+            });
+      ApiContext<AbiquoApi> context = context(eventApi);
+
+      stream.set(stream(context, new EventBus(), 10));
+
+      assertFalse(stream.get().fetch());
+      assertTrue(closedWhileListing.get());
+      assertEquals(stream.get().drainTo(Lists.<Event> newArrayList(), 10), 0);
+      verify(eventApi);
+   }
+
+   @SuppressWarnings("unchecked")
+   private static ApiContext<AbiquoApi> context(final EventApi eventApi) {
+      ApiContext<AbiquoApi> context = createNiceMock(ApiContext.class);
+      AbiquoApi api = createNiceMock(AbiquoApi.class);
+      expect(context.getApi()).andReturn(api).anyTimes();
+      expect(api.getEventApi()).andReturn(eventApi).anyTimes();
+      replay(context, api, eventApi);
+      return context;
+   }
+
+   private static PollingEventStream stream(final ApiContext<AbiquoApi> context, final EventBus eventBus,
+         final int capacity) {
+      return new PollingEventStream(context, createNiceMock(ScheduledExecutorService.class), 100L, 1000L,
+            capacity, eventBus, new Date(1000L), Logger.NULL);
+   }
+
+   @SuppressWarnings("unchecked")
+   private static PaginatedCollection<EventDto, EventsDto> page(final EventDto... events) {
+      EventsDto dto = new EventsDto();
+      for (EventDto event : events) {
+         dto.add(event);
+      }
+      dto.setTotalSize(events.length);
+      return new PaginatedCollection<EventDto, EventsDto>(createMock(AbiquoApi.class), dto,
+            createMock(ParseXMLWithJAXB.class));
+   }
+
+   private static EventDto event(final Integer id, final Long timestamp) {
+      EventDto event = new EventDto();
+      event.setId(id);
+      event.setTimestamp(timestamp == null ? null : new Date(timestamp));
+      return event;
+   }
+
+   private static List<Integer> ids(final Iterable<Event> events) {
+      List<Integer> ids = Lists.newArrayList();
+      for (Event event : events) {
+         ids.add(event.getId());
+      }
+      return ids;
+   }
+
+   public static class EventListener {
+      private final List<Event> events = Lists.newArrayList();
+
+      @Subscribe
+      public void handle(final Event event) {
+         events.add(event);
+      }
+   }
+}
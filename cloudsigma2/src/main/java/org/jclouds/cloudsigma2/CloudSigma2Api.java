@@ -17,10 +17,12 @@
 package org.jclouds.cloudsigma2;
 
 
+import com.google.common.net.HttpHeaders;
 import com.google.inject.name.Named;
 import org.jclouds.Fallbacks;
 import org.jclouds.cloudsigma2.binders.BindCreateSubscriptionRequest;
 import org.jclouds.cloudsigma2.binders.BindCreateSubscriptionRequestList;
+import org.jclouds.cloudsigma2.binders.BindDriveChunkToMultipartForm;
 import org.jclouds.cloudsigma2.binders.BindDriveToJson;
 import org.jclouds.cloudsigma2.binders.BindDrivesToJson;
 import org.jclouds.cloudsigma2.binders.BindFirewallPoliciesListToJsonRequest;
@@ -40,12 +42,14 @@ import org.jclouds.cloudsigma2.domain.CreateSubscriptionRequest;
 import org.jclouds.cloudsigma2.domain.CurrentUsage;
 import org.jclouds.cloudsigma2.domain.Discount;
 import org.jclouds.cloudsigma2.domain.Drive;
+import org.jclouds.cloudsigma2.domain.DriveChunk;
 import org.jclouds.cloudsigma2.domain.DriveInfo;
 import org.jclouds.cloudsigma2.domain.DrivesListRequestFieldsGroup;
 import org.jclouds.cloudsigma2.domain.FirewallPolicy;
 import org.jclouds.cloudsigma2.domain.IP;
 import org.jclouds.cloudsigma2.domain.IPInfo;
 import org.jclouds.cloudsigma2.domain.LibraryDrive;
+import org.jclouds.cloudsigma2.domain.ListRequestFieldsGroup;
 import org.jclouds.cloudsigma2.domain.License;
 import org.jclouds.cloudsigma2.domain.PaginatedCollection;
 import org.jclouds.cloudsigma2.domain.Pricing;
@@ -58,6 +62,7 @@ import org.jclouds.cloudsigma2.domain.SubscriptionCalculator;
 import org.jclouds.cloudsigma2.domain.Tag;
 import org.jclouds.cloudsigma2.domain.Transaction;
 import org.jclouds.cloudsigma2.domain.VLANInfo;
+import org.jclouds.cloudsigma2.functions.ReturnTrueIfChunkReceived;
 import org.jclouds.cloudsigma2.functions.internal.ParseDiscounts;
 import org.jclouds.cloudsigma2.functions.internal.ParseDriveInfos;
 import org.jclouds.cloudsigma2.functions.internal.ParseDrives;
@@ -75,6 +80,7 @@ import org.jclouds.cloudsigma2.functions.internal.ParseVLANs;
 import org.jclouds.cloudsigma2.options.PaginationOptions;
 import org.jclouds.collect.PagedIterable;
 import org.jclouds.http.filters.BasicAuthentication;
+import org.jclouds.http.functions.ReturnStringIf2xx;
 import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.rest.annotations.BinderParam;
 import org.jclouds.rest.annotations.Fallback;
@@ -90,12 +96,14 @@ import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.QueryParam;
 import java.io.Closeable;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -131,6 +139,32 @@ public interface CloudSigma2Api extends Closeable {
    @ResponseParser(ParseDrives.class)
    PaginatedCollection<Drive> listDrives(PaginationOptions options);
 
+   /**
+    * Gets the list of drives to which the authenticated user has access, with only the given fields.
+    *
+    * @param fields fields of the drives to return
+    * @return list of drives or empty list if no drives are found
+    */
+   @Named("drive:listDrives")
+   @GET
+   @Path("/drives/")
+   @ResponseParser(ParseDrives.class)
+   @Transform(ParseDrives.ToPagedIterable.class)
+   PagedIterable<Drive> listDrives(@QueryParam("fields") ListRequestFieldsGroup fields);
+
+   /**
+    * Gets the list of drives to which the authenticated user has access, with only the given fields.
+    *
+    * @param fields fields of the drives to return
+    * @return PaginatedCollection of drives
+    */
+   @Named("drive:listDrives")
+   @GET
+   @Path("/drives/")
+   @ResponseParser(ParseDrives.class)
+   PaginatedCollection<Drive> listDrives(@QueryParam("fields") ListRequestFieldsGroup fields,
+                                         PaginationOptions options);
+
    /**
     * Gets the list of drives to which the authenticated user has access.
     *
@@ -257,6 +291,51 @@ public interface CloudSigma2Api extends Closeable {
    DriveInfo cloneDrive(@PathParam("uuid") String sourceUuid,
                         @Nullable @BinderParam(BindDriveToJson.class) DriveInfo driveInfo);
 
+   /**
+    * Uploads a chunk of a drive image. The drive is created once all the chunks of the upload have
+    * been received.
+    *
+    * @param chunk chunk to upload
+    * @return uuid of the created drive, or an empty string while chunks of the upload are missing
+    */
+   @Named("drive:uploadDriveChunk")
+   @POST
+   @Path("/drives/upload/")
+   @ResponseParser(ReturnStringIf2xx.class)
+   String uploadDriveChunk(@BinderParam(BindDriveChunkToMultipartForm.class) DriveChunk chunk);
+
+   /**
+    * Checks whether a chunk of a drive image upload has already been received.
+    *
+    * @param identifier  identifier of the upload
+    * @param chunkNumber number of the chunk, starting at one
+    * @param chunkSize   nominal size of the chunks of the upload
+    * @param totalSize   size of the whole image
+    * @return true if the chunk has been received
+    */
+   @Named("drive:hasDriveChunk")
+   @GET
+   @Path("/drives/upload/")
+   @ResponseParser(ReturnTrueIfChunkReceived.class)
+   @Fallback(Fallbacks.FalseOnNotFoundOr404.class)
+   boolean hasDriveChunk(@QueryParam("resumableIdentifier") String identifier,
+                         @QueryParam("resumableChunkNumber") int chunkNumber,
+                         @QueryParam("resumableChunkSize") long chunkSize,
+                         @QueryParam("resumableTotalSize") long totalSize);
+
+   /**
+    * Downloads a range of the content of a drive.
+    *
+    * @param uuid  drive to download
+    * @param range byte range to download, as in {@code bytes=0-1023}
+    * @return content of the range, or null if the drive is not found
+    */
+   @Named("drive:downloadDrive/{uuid}")
+   @GET
+   @Path("/drives/{uuid}/download/")
+   @Fallback(Fallbacks.NullOnNotFoundOr404.class)
+   InputStream downloadDrive(@PathParam("uuid") String uuid, @HeaderParam(HttpHeaders.RANGE) String range);
+
    /**
     * Gets the list of library drives to which the authenticated user has access.
     *
@@ -329,6 +408,32 @@ public interface CloudSigma2Api extends Closeable {
    @ResponseParser(ParseServers.class)
    PaginatedCollection<Server> listServers(PaginationOptions options);
 
+   /**
+    * Gets the list of servers to which the authenticated user has access, with only the given fields.
+    *
+    * @param fields fields of the servers to return
+    * @return list of servers or empty list if no servers are found
+    */
+   @Named("server:listServers")
+   @GET
+   @Path("/servers/")
+   @ResponseParser(ParseServers.class)
+   @Transform(ParseServers.ToPagedIterable.class)
+   PagedIterable<Server> listServers(@QueryParam("fields") ListRequestFieldsGroup fields);
+
+   /**
+    * Gets the list of servers to which the authenticated user has access, with only the given fields.
+    *
+    * @param fields fields of the servers to return
+    * @return PaginatedCollection of servers
+    */
+   @Named("server:listServers")
+   @GET
+   @Path("/servers/")
+   @ResponseParser(ParseServers.class)
+   PaginatedCollection<Server> listServers(@QueryParam("fields") ListRequestFieldsGroup fields,
+                                           PaginationOptions options);
+
    /**
     * Gets the detailed list of servers to which the authenticated user has access.
     *
@@ -648,6 +753,32 @@ public interface CloudSigma2Api extends Closeable {
    @ResponseParser(ParseVLANs.class)
    PaginatedCollection<VLANInfo> listVLANs(PaginationOptions options);
 
+   /**
+    * Gets the list of VLANs to which the authenticated user has access, with only the given fields.
+    *
+    * @param fields fields of the VLANs to return
+    * @return list of VLANs or empty list if no VLANs are found
+    */
+   @Named("vlan:listVLANs")
+   @GET
+   @Path("/vlans/")
+   @ResponseParser(ParseVLANs.class)
+   @Transform(ParseVLANs.ToPagedIterable.class)
+   PagedIterable<VLANInfo> listVLANs(@QueryParam("fields") ListRequestFieldsGroup fields);
+
+   /**
+    * Gets the list of VLANs to which the authenticated user has access, with only the given fields.
+    *
+    * @param fields fields of the VLANs to return
+    * @return PaginatedCollection of VLANs
+    */
+   @Named("vlan:listVLANs")
+   @GET
+   @Path("/vlans/")
+   @ResponseParser(ParseVLANs.class)
+   PaginatedCollection<VLANInfo> listVLANs(@QueryParam("fields") ListRequestFieldsGroup fields,
+                                           PaginationOptions options);
+
    /**
     * Gets the list of VLANs to which the authenticated user has access.
     *
@@ -708,6 +839,32 @@ public interface CloudSigma2Api extends Closeable {
    @ResponseParser(ParseIPs.class)
    PaginatedCollection<IP> listIPs(PaginationOptions options);
 
+   /**
+    * Gets the list of IPs to which the authenticated user has access, with only the given fields.
+    *
+    * @param fields fields of the IPs to return
+    * @return list of IPs or empty list if no IPs are found
+    */
+   @Named("ip:listIPs")
+   @GET
+   @Path("/ips/")
+   @ResponseParser(ParseIPs.class)
+   @Transform(ParseIPs.ToPagedIterable.class)
+   PagedIterable<IP> listIPs(@QueryParam("fields") ListRequestFieldsGroup fields);
+
+   /**
+    * Gets the list of IPs to which the authenticated user has access, with only the given fields.
+    *
+    * @param fields fields of the IPs to return
+    * @return PaginatedCollection of IPs
+    */
+   @Named("ip:listIPs")
+   @GET
+   @Path("/ips/")
+   @ResponseParser(ParseIPs.class)
+   PaginatedCollection<IP> listIPs(@QueryParam("fields") ListRequestFieldsGroup fields,
+                                   PaginationOptions options);
+
    /**
     * Gets the detailed list of IPs with additional information to which the authenticated user has access.
     *
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudsigma2.billing;
+
+/**
+ * The costs of a period, split between burst usage, subscriptions and the other transactions of
+ * the ledger.
+ */
+public class CostBreakdown {
+
+   private final double burst;
+   private final double subscription;
+   private final double other;
+
+   public CostBreakdown(double burst, double subscription, double other) {
+      this.burst = burst;
+      this.subscription = subscription;
+      this.other = other;
+   }
+
+   /**
+    * @return cost of the usage above the subscribed resources
+    */
+   public double getBurst() {
+      return burst;
+   }
+
+   /**
+    * @return cost of the subscriptions
+    */
+   public double getSubscription() {
+      return subscription;
+   }
+
+   /**
+    * @return amount of the other transactions; credits are negative
+    */
+   public double getOther() {
+      return other;
+   }
+
+   public double getTotal() {
+      return burst + subscription + other;
+   }
+
+   /**
+    * @return part of the burst and subscription costs spent on burst usage, or zero if there are no
+    *         such costs
+    */
+   public double getBurstShare() {
+      double usage = burst + subscription;
+      return usage == 0 ? 0 : burst / usage;
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof CostBreakdown)) return false;
+
+      CostBreakdown that = (CostBreakdown) o;
+
+      if (Double.compare(that.burst, burst) != 0) return false;
+      if (Double.compare(that.subscription, subscription) != 0) return false;
+      if (Double.compare(that.other, other) != 0) return false;
+
+      return true;
+   }
+
+   @Override
+   public int hashCode() {
+      long temp = Double.doubleToLongBits(burst);
+      int result = (int) (temp ^ (temp >>> 32));
+      temp = Double.doubleToLongBits(subscription);
+      result = 31 * result + (int) (temp ^ (temp >>> 32));
+      temp = Double.doubleToLongBits(other);
+      result = 31 * result + (int) (temp ^ (temp >>> 32));
+      return result;
+   }
+
+   @Override
+   public String toString() {
+      return "[" +
+            "burst=" + burst +
+            ", subscription=" + subscription +
+            ", other=" + other +
+            "]";
+   }
+}
@@ -0,0 +1,342 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudsigma2.billing;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+
+import org.jclouds.cloudsigma2.CloudSigma2Api;
+import org.jclouds.cloudsigma2.domain.PaginatedCollection;
+import org.jclouds.cloudsigma2.domain.Transaction;
+import org.jclouds.cloudsigma2.options.PaginationOptions;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Aggregates the transactions of the ledger locally, so that cost reports do not download the whole
+ * ledger again.
+ * <p/>
+ * Each {@link #update()} reads the pages of the ledger, newest transactions first, until it reaches
+ * the transaction read last, which is kept as a cursor. The transactions of an update are only
+ * aggregated once all its pages have been read, together with the new cursor, so an update that
+ * fails aggregates nothing and is simply read again.
+ * <p/>
+ * The cursor and the rollups can be saved together as a {@link Checkpoint} and restored with
+ * {@link #restore(Checkpoint)}, so that later reads only aggregate the newer transactions.
+ * <p/>
+ * The amounts are rolled up per resource and per day in flat arrays of doubles, and split between
+ * burst usage, subscriptions and other transactions according to their reason. Cost queries are
+ * answered from the rollups without any request.
+ */
+public class LedgerAggregator {
+
+   @VisibleForTesting
+   static final int PAGE_SIZE = 100;
+
+   /**
+    * Resource of the transactions whose reason does not tell one, such as top-ups.
+    */
+   public static final String OTHER_RESOURCE = "other";
+
+   private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+   private static final int INITIAL_DAYS = 32;
+   private static final int BURST = 0;
+   private static final int SUBSCRIPTION = 1;
+   private static final int OTHER = 2;
+   private static final int KINDS = 3;
+   // as in "Burst: 57783091200 of dssd for 299 seconds at ..."
+   private static final Pattern RESOURCE = Pattern.compile(" of (\\S+)");
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   private final CloudSigma2Api api;
+
+   private final Map<String, Integer> resourceIds = Maps.newHashMap();
+   private final List<String> resources = Lists.newArrayList();
+   private int resourceCapacity = 4;
+   private int firstDay;
+   private int dayCapacity;
+   // amount of day d, resource r and kind k at ((d - firstDay) * resourceCapacity + r) * KINDS + k
+   private double[] daily = new double[0];
+   // amount of resource r and kind k at r * KINDS + k
+   private double[] totals = new double[resourceCapacity * KINDS];
+   private long cursor;
+   private int transactionCount;
+
+   @Inject
+   LedgerAggregator(CloudSigma2Api api) {
+      this.api = checkNotNull(api, "api");
+   }
+
+   /**
+    * The cursor and the rollups of an aggregator, which can be saved and restored later.
+    */
+   public static final class Checkpoint implements Serializable {
+      private static final long serialVersionUID = 1L;
+
+      private final long cursor;
+      private final int transactionCount;
+      private final List<String> resources;
+      private final int resourceCapacity;
+      private final int firstDay;
+      private final int dayCapacity;
+      private final double[] daily;
+      private final double[] totals;
+
+      private Checkpoint(LedgerAggregator aggregator) {
+         this.cursor = aggregator.cursor;
+         this.transactionCount = aggregator.transactionCount;
+         this.resources = ImmutableList.copyOf(aggregator.resources);
+         this.resourceCapacity = aggregator.resourceCapacity;
+         this.firstDay = aggregator.firstDay;
+         this.dayCapacity = aggregator.dayCapacity;
+         this.daily = aggregator.daily.clone();
+         this.totals = aggregator.totals.clone();
+      }
+
+      /**
+       * @return id of the newest transaction aggregated in the checkpoint
+       */
+      public long getCursor() {
+         return cursor;
+      }
+   }
+
+   /**
+    * @return the cursor and the rollups aggregated so far
+    */
+   public synchronized Checkpoint checkpoint() {
+      return new Checkpoint(this);
+   }
+
+   /**
+    * Replaces the cursor and the rollups with the saved ones, so the next updates only aggregate
+    * the transactions added to the ledger after the checkpoint.
+    *
+    * @param checkpoint a checkpoint returned by {@link #checkpoint()}
+    */
+   public synchronized void restore(Checkpoint checkpoint) {
+      checkNotNull(checkpoint, "checkpoint");
+      cursor = checkpoint.cursor;
+      transactionCount = checkpoint.transactionCount;
+      resources.clear();
+      resourceIds.clear();
+      for (String resource : checkpoint.resources) {
+         resourceIds.put(resource, resources.size());
+         resources.add(resource);
+      }
+      resourceCapacity = checkpoint.resourceCapacity;
+      firstDay = checkpoint.firstDay;
+      dayCapacity = checkpoint.dayCapacity;
+      daily = checkpoint.daily.clone();
+      totals = checkpoint.totals.clone();
+   }
+
+   /**
+    * @return id of the newest aggregated transaction
+    */
+   public synchronized long getCursor() {
+      return cursor;
+   }
+
+   /**
+    * @return number of aggregated transactions
+    */
+   public synchronized int getTransactionCount() {
+      return transactionCount;
+   }
+
+   /**
+    * @return resources the aggregated transactions were charged for
+    */
+   public synchronized Set<String> getResources() {
+      return ImmutableSet.copyOf(resources);
+   }
+
+   /**
+    * Reads and aggregates the transactions added to the ledger since the last update.
+    *
+    * @return number of aggregated transactions
+    */
+   public synchronized int update() {
+      long newest = cursor;
+      // the ids already read in this update; transactions added meanwhile shift the older ones to
+      // the next pages
+      long oldestRead = Long.MAX_VALUE;
+      // the transactions are only aggregated once all the pages are read, so a failed update leaves
+      // the rollups and the cursor as they were
+      List<Transaction> read = Lists.newArrayList();
+      PaginationOptions options = new PaginationOptions.Builder().limit(PAGE_SIZE).offset(0).build();
+      pages:
+      while (true) {
+         PaginatedCollection<Transaction> page = api.listTransactions(options);
+         for (Transaction transaction : page) {
+            long id = Long.parseLong(transaction.getId());
+            if (id <= cursor)
+               break pages;
+            if (id >= oldestRead)
+               continue;
+            oldestRead = id;
+            newest = Math.max(newest, id);
+            read.add(transaction);
+         }
+         if (!page.nextMarker().isPresent())
+            break;
+         options = PaginationOptions.class.cast(page.nextMarker().get());
+      }
+      for (Transaction transaction : read) {
+         add(transaction);
+      }
+      cursor = newest;
+      logger.debug("<< aggregated %d transactions of the ledger, up to %d", read.size(), cursor);
+      return read.size();
+   }
+
+   @VisibleForTesting
+   synchronized void add(Transaction transaction) {
+      String reason = transaction.getReason() == null ? "" : transaction.getReason();
+      Matcher matcher = RESOURCE.matcher(reason);
+      int resource = resourceId(matcher.find() ? matcher.group(1) : OTHER_RESOURCE);
+      int kind = kindOf(reason);
+
+      totals[resource * KINDS + kind] += transaction.getAmount();
+      // transactions without a time only count in the totals
+      if (transaction.getTime() != null) {
+         daily[slot(day(transaction.getTime()), resource) + kind] += transaction.getAmount();
+      }
+      transactionCount++;
+   }
+
+   /**
+    * @return the costs of a resource since the first aggregated transaction
+    */
+   public synchronized CostBreakdown getCosts(String resource) {
+      Integer id = resourceIds.get(checkNotNull(resource, "resource"));
+      if (id == null)
+         return new CostBreakdown(0, 0, 0);
+      return new CostBreakdown(totals[id * KINDS + BURST], totals[id * KINDS + SUBSCRIPTION],
+            totals[id * KINDS + OTHER]);
+   }
+
+   /**
+    * @return the costs of all the resources on the days from <code>from</code> to <code>to</code>,
+    *         both included
+    */
+   public synchronized CostBreakdown getCosts(Date from, Date to) {
+      return sum(0, resources.size(), from, to);
+   }
+
+   /**
+    * @return the costs of a resource on the days from <code>from</code> to <code>to</code>, both
+    *         included
+    */
+   public synchronized CostBreakdown getCosts(String resource, Date from, Date to) {
+      Integer id = resourceIds.get(checkNotNull(resource, "resource"));
+      if (id == null)
+         return new CostBreakdown(0, 0, 0);
+      return sum(id, id + 1, from, to);
+   }
+
+   private CostBreakdown sum(int fromResource, int toResource, Date from, Date to) {
+      double[] sums = new double[KINDS];
+      int fromDay = Math.max(day(checkNotNull(from, "from")), firstDay);
+      int toDay = Math.min(day(checkNotNull(to, "to")), firstDay + dayCapacity - 1);
+      for (int day = fromDay; day <= toDay; day++) {
+         int base = (day - firstDay) * resourceCapacity * KINDS;
+         for (int resource = fromResource; resource < toResource; resource++) {
+            for (int kind = 0; kind < KINDS; kind++) {
+               sums[kind] += daily[base + resource * KINDS + kind];
+            }
+         }
+      }
+      return new CostBreakdown(sums[BURST], sums[SUBSCRIPTION], sums[OTHER]);
+   }
+
+   private static int kindOf(String reason) {
+      String lowerCase = reason.toLowerCase(Locale.ENGLISH);
+      if (lowerCase.startsWith("burst"))
+         return BURST;
+      if (lowerCase.startsWith("subscription"))
+         return SUBSCRIPTION;
+      return OTHER;
+   }
+
+   private static int day(Date date) {
+      return (int) (date.getTime() / MILLIS_PER_DAY);
+   }
+
+   private int resourceId(String resource) {
+      Integer id = resourceIds.get(resource);
+      if (id == null) {
+         id = resources.size();
+         resources.add(resource);
+         resourceIds.put(resource, id);
+         if (id >= resourceCapacity)
+            relayout(firstDay, dayCapacity, resourceCapacity * 2);
+      }
+      return id;
+   }
+
+   /**
+    * @return the index of the amounts of a day and a resource, growing the rollups if needed
+    */
+   private int slot(int day, int resource) {
+      if (dayCapacity == 0) {
+         // the ledger is read from the newest transactions, so room is left for the older days
+         relayout(day - INITIAL_DAYS + 1, INITIAL_DAYS, resourceCapacity);
+      } else if (day < firstDay) {
+         int newFirstDay = Math.min(day, firstDay - dayCapacity);
+         relayout(newFirstDay, firstDay + dayCapacity - newFirstDay, resourceCapacity);
+      } else if (day >= firstDay + dayCapacity) {
+         relayout(firstDay, Math.max(day + 1 - firstDay, dayCapacity * 2), resourceCapacity);
+      }
+      return ((day - firstDay) * resourceCapacity + resource) * KINDS;
+   }
+
+   private void relayout(int newFirstDay, int newDayCapacity, int newResourceCapacity) {
+      int stride = resourceCapacity * KINDS;
+      int newStride = newResourceCapacity * KINDS;
+      double[] newDaily = new double[newDayCapacity * newStride];
+      for (int day = 0; day < dayCapacity; day++) {
+         System.arraycopy(daily, day * stride, newDaily, (day + firstDay - newFirstDay) * newStride, stride);
+      }
+      daily = newDaily;
+      totals = Arrays.copyOf(totals, newStride);
+      firstDay = newFirstDay;
+      dayCapacity = newDayCapacity;
+      resourceCapacity = newResourceCapacity;
+   }
+}
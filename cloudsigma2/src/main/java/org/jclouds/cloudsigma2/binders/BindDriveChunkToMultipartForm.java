@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudsigma2.binders;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import javax.inject.Singleton;
+import javax.ws.rs.core.MediaType;
+
+import org.jclouds.cloudsigma2.domain.DriveChunk;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.io.payloads.MultipartForm;
+import org.jclouds.io.payloads.Part;
+import org.jclouds.io.payloads.Part.PartOptions;
+import org.jclouds.rest.Binder;
+
+/**
+ * Binds a {@link DriveChunk} to the multipart form expected by the resumable drive upload.
+ */
+@Singleton
+public class BindDriveChunkToMultipartForm implements Binder {
+   @Override
+   public <R extends HttpRequest> R bindToRequest(R request, Object payload) {
+      checkArgument(payload instanceof DriveChunk, "this binder is only valid for DriveChunk!");
+      DriveChunk chunk = DriveChunk.class.cast(payload);
+      Long currentChunkSize = chunk.getData().getContentMetadata().getContentLength();
+      checkArgument(currentChunkSize != null, "content length of chunk %s", chunk);
+
+      MultipartForm form = new MultipartForm(
+            Part.create("resumableChunkNumber", Integer.toString(chunk.getNumber())),
+            Part.create("resumableChunkSize", Long.toString(chunk.getChunkSize())),
+            Part.create("resumableCurrentChunkSize", Long.toString(currentChunkSize)),
+            Part.create("resumableTotalSize", Long.toString(chunk.getTotalSize())),
+            Part.create("resumableIdentifier", chunk.getIdentifier()),
+            Part.create("resumableFilename", chunk.getFilename()),
+            Part.create("file", chunk.getData(), PartOptions.Builder.filename(chunk.getFilename())
+                  .contentType(MediaType.APPLICATION_OCTET_STREAM)));
+      request.setPayload(form);
+      return request;
+   }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudsigma2.compute.functions;
+
+import java.util.Map;
+
+import javax.inject.Singleton;
+
+import org.jclouds.cloudsigma2.domain.DriveStatus;
+import org.jclouds.cloudsigma2.domain.LibraryDrive;
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.Image.Status;
+import org.jclouds.compute.domain.ImageBuilder;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.domain.OsFamily;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Transforms a {@link LibraryDrive} to the jclouds portable model.
+ */
+@Singleton
+public class LibraryDriveToImage implements Function<LibraryDrive, Image> {
+
+   public static final Map<DriveStatus, Status> DRIVE_STATUS_TO_IMAGE_STATUS = ImmutableMap
+         .<DriveStatus, Status> builder()
+         .put(DriveStatus.MOUNTED, Status.AVAILABLE)
+         .put(DriveStatus.UNMOUNTED, Status.AVAILABLE)
+         .put(DriveStatus.COPYING, Status.PENDING)
+         .put(DriveStatus.UNAVAILABLE, Status.ERROR)
+         .build();
+
+   @Override
+   public Image apply(LibraryDrive input) {
+      String description = input.getDescription() != null ? input.getDescription() : input.getName();
+      return new ImageBuilder()
+            .ids(input.getUuid())
+            .name(input.getName())
+            .description(description)
+            .status(input.getStatus() == null ? Status.UNRECOGNIZED : DRIVE_STATUS_TO_IMAGE_STATUS.get(input
+                  .getStatus()))
+            .backendStatus(input.getStatus() == null ? null : input.getStatus().value())
+            .operatingSystem(OperatingSystem.builder()
+                  .name(input.getName())
+                  .family(osFamily(input))
+                  .description(description)
+                  .arch(input.getArch())
+                  .is64Bit("64".equals(input.getArch()))
+                  .build())
+            .build();
+   }
+
+   /**
+    * The name of library drives tells the distribution, while their os field only tells whether
+    * they are linux or windows images.
+    */
+   private static OsFamily osFamily(LibraryDrive input) {
+      String name = input.getName() == null ? "" : input.getName().toLowerCase();
+      for (OsFamily family : OsFamily.values()) {
+         if (family != OsFamily.UNRECOGNIZED && family != OsFamily.LINUX && name.contains(family.value())) {
+            return family;
+         }
+      }
+      return input.getOs() == null ? OsFamily.UNRECOGNIZED : OsFamily.fromValue(input.getOs().toLowerCase());
+   }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudsigma2.compute.functions;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.cloudsigma2.domain.IP;
+import org.jclouds.cloudsigma2.domain.NIC;
+import org.jclouds.cloudsigma2.domain.ServerInfo;
+import org.jclouds.cloudsigma2.domain.ServerStatus;
+import org.jclouds.compute.domain.HardwareBuilder;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.compute.domain.Processor;
+import org.jclouds.compute.functions.GroupNamingConvention;
+import org.jclouds.domain.Location;
+
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+/**
+ * Transforms a {@link ServerInfo} into a {@link NodeMetadata}.
+ */
+@Singleton
+public class ServerInfoToNodeMetadata implements Function<ServerInfo, NodeMetadata> {
+
+   public static final Map<ServerStatus, Status> SERVER_STATUS_TO_NODE_STATUS = ImmutableMap
+         .<ServerStatus, Status> builder()
+         .put(ServerStatus.RUNNING, Status.RUNNING)
+         .put(ServerStatus.STARTING, Status.PENDING)
+         .put(ServerStatus.STOPPING, Status.PENDING)
+         .put(ServerStatus.STOPPED, Status.SUSPENDED)
+         .put(ServerStatus.PAUSED, Status.SUSPENDED)
+         .put(ServerStatus.UNAVAILABLE, Status.ERROR)
+         .put(ServerStatus.UNRECOGNIZED, Status.UNRECOGNIZED)
+         .build();
+
+   private static final BigInteger ONE_MB = BigInteger.valueOf(1024 * 1024);
+
+   private final GroupNamingConvention nodeNamingConvention;
+   private final Supplier<Location> defaultLocation;
+
+   @Inject
+   ServerInfoToNodeMetadata(GroupNamingConvention.Factory namingConvention, Supplier<Location> defaultLocation) {
+      this.nodeNamingConvention = checkNotNull(namingConvention, "namingConvention").createWithoutPrefix();
+      this.defaultLocation = checkNotNull(defaultLocation, "defaultLocation");
+   }
+
+   @Override
+   public NodeMetadata apply(ServerInfo input) {
+      int cores = input.getSmp() > 0 ? input.getSmp() : 1;
+      NodeMetadataBuilder builder = new NodeMetadataBuilder()
+            .ids(input.getUuid())
+            .name(input.getName())
+            .hostname(input.getName())
+            .group(nodeNamingConvention.groupInUniqueNameOrNull(input.getName()))
+            .location(defaultLocation.get())
+            .hardware(new HardwareBuilder()
+                  .ids(String.format("cpu=%d,ram=%d", input.getCpu(), ram(input)))
+                  .processor(new Processor(cores, (double) input.getCpu() / cores))
+                  .ram(ram(input))
+                  .hypervisor("kvm")
+                  .build())
+            .status(input.getStatus() == null ? Status.UNRECOGNIZED : SERVER_STATUS_TO_NODE_STATUS.get(input
+                  .getStatus()))
+            .backendStatus(input.getStatus() == null ? null : input.getStatus().value())
+            .publicAddresses(publicAddresses(input));
+      if (input.getMeta() != null) {
+         builder.userMetadata(input.getMeta());
+      }
+      if (input.getTags() != null) {
+         builder.tags(input.getTags());
+      }
+      return builder.build();
+   }
+
+   private static int ram(ServerInfo input) {
+      return input.getMemory() == null ? 0 : input.getMemory().divide(ONE_MB).intValue();
+   }
+
+   private static Iterable<String> publicAddresses(ServerInfo input) {
+      if (input.getNics() == null) {
+         return ImmutableSet.of();
+      }
+      List<String> addresses = Lists.newArrayList();
+      for (NIC nic : input.getNics()) {
+         // static addresses are configured; DHCP ones are only known at runtime
+         IP ip = nic.getIpV4Configuration() == null ? null : nic.getIpV4Configuration().getIp();
+         if (ip == null && nic.getRuntime() != null) {
+            ip = nic.getRuntime().getIpV4();
+         }
+         if (ip != null && ip.getUuid() != null) {
+            addresses.add(ip.getUuid());
+         }
+      }
+      return addresses;
+   }
+}
@@ -0,0 +1,439 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudsigma2.compute.strategy;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Iterables.contains;
+import static com.google.common.collect.Iterables.filter;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.cloudsigma2.config.CloudSigma2Properties.PROPERTY_VNC_PASSWORD;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.cloudsigma2.CloudSigma2Api;
+import org.jclouds.cloudsigma2.domain.DeviceEmulationType;
+import org.jclouds.cloudsigma2.domain.Drive;
+import org.jclouds.cloudsigma2.domain.IP;
+import org.jclouds.cloudsigma2.domain.LibraryDrive;
+import org.jclouds.cloudsigma2.domain.MediaType;
+import org.jclouds.cloudsigma2.domain.Model;
+import org.jclouds.cloudsigma2.domain.Server;
+import org.jclouds.cloudsigma2.domain.ServerDrive;
+import org.jclouds.cloudsigma2.domain.ServerInfo;
+import org.jclouds.cloudsigma2.domain.ServerStatus;
+import org.jclouds.compute.ComputeServiceAdapter;
+import org.jclouds.compute.domain.Hardware;
+import org.jclouds.compute.domain.HardwareBuilder;
+import org.jclouds.compute.domain.Processor;
+import org.jclouds.compute.domain.Template;
+import org.jclouds.compute.options.TemplateOptions;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LoginCredentials;
+import org.jclouds.logging.Logger;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Implementation of the Compute Service for the CloudSigma 2.0 API.
+ * <p/>
+ * Nodes are created in batches: the library drive is cloned once per node, all the servers are
+ * created with a single request, and the drives and servers of the whole batch are waited for with
+ * the {@link ReadinessTracker}.
+ *
+ * @see CreateNodesInBatch
+ */
+@Singleton
+public class CloudSigma2ComputeServiceAdapter implements
+      ComputeServiceAdapter<ServerInfo, Hardware, LibraryDrive, Location> {
+
+   /** The speed of each core of the hardware profiles, in MHz. */
+   private static final int CORE_SPEED = 2000;
+   private static final List<Integer> CORES = ImmutableList.of(1, 2, 4, 8);
+   private static final List<Integer> RAM = ImmutableList.of(1024, 2048, 4096, 8192, 16384);
+   private static final BigInteger ONE_MB = BigInteger.valueOf(1024 * 1024);
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final CloudSigma2Api api;
+   private final ReadinessTracker readinessTracker;
+   private final ListeningExecutorService userExecutor;
+   private final String defaultVncPassword;
+
+   /** The nodes being created in a batch, by name. */
+   private final ConcurrentMap<String, ListenableFuture<NodeAndInitialCredentials<ServerInfo>>> inFlight = Maps
+         .newConcurrentMap();
+
+   @Inject
+   CloudSigma2ComputeServiceAdapter(CloudSigma2Api api, ReadinessTracker readinessTracker,
+         @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         @Named(PROPERTY_VNC_PASSWORD) String defaultVncPassword) {
+      this.api = checkNotNull(api, "api");
+      this.readinessTracker = checkNotNull(readinessTracker, "readinessTracker");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+      this.defaultVncPassword = checkNotNull(defaultVncPassword, "defaultVncPassword");
+   }
+
+   /**
+    * Starts creating all the given nodes at once. Each node is then returned by
+    * {@link #createNodeWithGroupEncodedIntoName(String, String, Template)}.
+    * <p/>
+    * Each step of the batch is chained to the futures of the steps it depends
+    * on, so no task of the batch waits for another one to run on the user
+    * executor. The drives and the servers of the nodes that fail are destroyed.
+    * <p/>
+    * Getting a node before its future is done blocks the calling thread; callers
+    * running on the user executor should wait for the future instead.
+    *
+    * @return the future of each node, by name
+    */
+   public Map<String, ListenableFuture<NodeAndInitialCredentials<ServerInfo>>> createNodesWithGroupEncodedIntoNames(
+         String group, Set<String> names, Template template) {
+      final Batch batch = new Batch(group, template);
+      logger.debug(">> cloning library drive %s for %s nodes of group %s", template.getImage().getId(),
+            names.size(), group);
+      final Map<String, ListenableFuture<Drive>> drives = Maps.newLinkedHashMap();
+      for (String name : names) {
+         drives.put(name, batch.cloneDrive(name));
+      }
+      // all the servers are created with a single request, once every drive is ready or has failed
+      ListenableFuture<Map<String, ServerInfo>> servers = Futures.transform(Futures.successfulAsList(drives.values()),
+            new Function<List<Drive>, Map<String, ServerInfo>>() {
+               @Override
+               public Map<String, ServerInfo> apply(List<Drive> ready) {
+                  return batch.createServers(drives);
+               }
+            }, userExecutor);
+
+      ImmutableMap.Builder<String, ListenableFuture<NodeAndInitialCredentials<ServerInfo>>> nodes = ImmutableMap
+            .builder();
+      for (Map.Entry<String, ListenableFuture<Drive>> drive : drives.entrySet()) {
+         final String name = drive.getKey();
+         final ListenableFuture<NodeAndInitialCredentials<ServerInfo>> node = batch.startServer(name,
+               drive.getValue(), servers);
+         Futures.addCallback(node, new FutureCallback<NodeAndInitialCredentials<ServerInfo>>() {
+            @Override
+            public void onSuccess(NodeAndInitialCredentials<ServerInfo> result) {
+               logger.debug("<< server %s(%s) is running", name, result.getNodeId());
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+               logger.warn(t, "could not create node %s", name);
+               // a failed node is not picked up
+               inFlight.remove(name, node);
+               batch.destroy(name);
+            }
+         }, userExecutor);
+         inFlight.put(name, node);
+         nodes.put(name, node);
+      }
+      return nodes.build();
+   }
+
+   @Override
+   public NodeAndInitialCredentials<ServerInfo> createNodeWithGroupEncodedIntoName(String group, String name,
+         Template template) {
+      ListenableFuture<NodeAndInitialCredentials<ServerInfo>> node = inFlight.remove(name);
+      if (node == null) {
+         node = createNodesWithGroupEncodedIntoNames(group, ImmutableSet.of(name), template).get(name);
+         inFlight.remove(name);
+      }
+      return getUnchecked(node);
+   }
+
+   private static <T> T getUnchecked(ListenableFuture<T> future) {
+      try {
+         return future.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(e);
+      } catch (ExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      }
+   }
+
+   /**
+    * The nodes created together, and the drives and servers created for them
+    * so far.
+    */
+   private class Batch {
+      private final String group;
+      private final Template template;
+      /** The uuid of the drive cloned for each node, by name. */
+      private final ConcurrentMap<String, String> clonedDrives = Maps.newConcurrentMap();
+      /** The uuid of the server created for each node, by name. */
+      private final ConcurrentMap<String, String> createdServers = Maps.newConcurrentMap();
+
+      private Batch(String group, Template template) {
+         this.group = group;
+         this.template = template;
+      }
+
+      /**
+       * There is no bulk clone operation, so the drives are cloned
+       * concurrently.
+       */
+      private ListenableFuture<Drive> cloneDrive(final String name) {
+         final String imageId = template.getImage().getId();
+         ListenableFuture<LibraryDrive> clone = userExecutor.submit(new Callable<LibraryDrive>() {
+            @Override
+            public LibraryDrive call() {
+               LibraryDrive clone = api.cloneLibraryDrive(imageId, new LibraryDrive.Builder().name(name)
+                     .media(MediaType.DISK).build());
+               checkNotNull(clone, "library drive %s", imageId);
+               clonedDrives.put(name, clone.getUuid());
+               return clone;
+            }
+         });
+         return Futures.transform(clone, new AsyncFunction<LibraryDrive, Drive>() {
+            @Override
+            public ListenableFuture<Drive> apply(LibraryDrive clone) {
+               return readinessTracker.driveReady(clone.getUuid());
+            }
+         });
+      }
+
+      /**
+       * Creates the servers of the nodes whose drive is ready.
+       *
+       * @return the created servers, by node name
+       */
+      private Map<String, ServerInfo> createServers(Map<String, ListenableFuture<Drive>> drives) {
+         List<ServerInfo> requests = Lists.newArrayList();
+         for (Map.Entry<String, ListenableFuture<Drive>> drive : drives.entrySet()) {
+            Drive ready;
+            try {
+               ready = Futures.getUnchecked(drive.getValue());
+            } catch (RuntimeException e) {
+               // the node fails with the cause of its own drive
+               continue;
+            }
+            requests.add(server(drive.getKey(), ready, template.getHardware(), template.getOptions()));
+         }
+         if (requests.isEmpty())
+            return ImmutableMap.of();
+         logger.debug(">> creating %s servers of group %s", requests.size(), group);
+         Map<String, ServerInfo> created = Maps.newHashMap();
+         for (ServerInfo server : api.createServers(requests)) {
+            createdServers.put(server.getName(), server.getUuid());
+            created.put(server.getName(), server);
+         }
+         return created;
+      }
+
+      private ListenableFuture<NodeAndInitialCredentials<ServerInfo>> startServer(final String name,
+            ListenableFuture<Drive> drive, final ListenableFuture<Map<String, ServerInfo>> servers) {
+         ListenableFuture<String> created = Futures.transform(drive, new AsyncFunction<Drive, String>() {
+            @Override
+            public ListenableFuture<String> apply(Drive ready) {
+               return Futures.transform(servers, new Function<Map<String, ServerInfo>, String>() {
+                  @Override
+                  public String apply(Map<String, ServerInfo> servers) {
+                     checkState(servers.containsKey(name), "server %s was not created", name);
+                     return servers.get(name).getUuid();
+                  }
+               });
+            }
+         });
+         ListenableFuture<String> started = Futures.transform(created, new Function<String, String>() {
+            @Override
+            public String apply(String uuid) {
+               api.startServer(uuid);
+               return uuid;
+            }
+         }, userExecutor);
+         ListenableFuture<Server> running = Futures.transform(started, new AsyncFunction<String, Server>() {
+            @Override
+            public ListenableFuture<Server> apply(String uuid) {
+               return readinessTracker.serverRunning(uuid);
+            }
+         });
+         return Futures.transform(running, new Function<Server, NodeAndInitialCredentials<ServerInfo>>() {
+            @Override
+            public NodeAndInitialCredentials<ServerInfo> apply(Server running) {
+               // the tracker only knows the status of the server
+               ServerInfo server = checkNotNull(api.getServerInfo(running.getUuid()), "server %s",
+                     running.getUuid());
+               // the password of the images with automated SSH access is the VNC password
+               String password = server.getVncPassword() != null ? server.getVncPassword() : defaultVncPassword;
+               return new NodeAndInitialCredentials<ServerInfo>(server, server.getUuid(), LoginCredentials.builder()
+                     .user("cloudsigma").password(password).authenticateSudo(true).build());
+            }
+         }, userExecutor);
+      }
+
+      /**
+       * Destroys the server and the drive created for the given node, if any.
+       */
+      private void destroy(String name) {
+         try {
+            String server = createdServers.remove(name);
+            if (server != null) {
+               // deletes the drive of the server too
+               destroyNode(server);
+            } else if (clonedDrives.containsKey(name)) {
+               api.deleteDrive(clonedDrives.get(name));
+            }
+            clonedDrives.remove(name);
+         } catch (RuntimeException e) {
+            logger.error(e, "could not destroy the resources of node %s", name);
+         }
+      }
+   }
+
+   private ServerInfo server(String name, Drive drive, Hardware hardware, TemplateOptions options) {
+      int cores = 0;
+      double speed = 0;
+      for (Processor processor : hardware.getProcessors()) {
+         cores += processor.getCores();
+         speed += processor.getCores() * processor.getSpeed();
+      }
+      Map<String, String> meta = Maps.newHashMap(options.getUserMetadata());
+      if (options.getPublicKey() != null) {
+         meta.put("ssh_public_key", options.getPublicKey());
+      }
+      return new ServerInfo.Builder()
+            .name(name)
+            .cpu((int) speed)
+            .smp(cores)
+            .memory(BigInteger.valueOf(hardware.getRam()).multiply(ONE_MB))
+            .vncPassword(defaultVncPassword)
+            .meta(meta)
+            .tags(ImmutableList.copyOf(options.getTags()))
+            .drives(ImmutableList.<ServerDrive> of(drive.toServerDrive(1, "0:0", DeviceEmulationType.VIRTIO)))
+            .nics(ImmutableList.of(IP.createDHCPIPv4ConfNIC(Model.VIRTIO)))
+            .build();
+   }
+
+   @Override
+   public Iterable<Hardware> listHardwareProfiles() {
+      // Any combination of CPU and memory can be used; these are the common ones
+      ImmutableList.Builder<Hardware> hardware = ImmutableList.builder();
+      for (int cores : CORES) {
+         for (int ram : RAM) {
+            hardware.add(new HardwareBuilder()
+                  .ids(String.format("cpu=%d,ram=%d", cores * CORE_SPEED, ram))
+                  .processor(new Processor(cores, CORE_SPEED))
+                  .ram(ram)
+                  .hypervisor("kvm")
+                  .build());
+         }
+      }
+      return hardware.build();
+   }
+
+   @Override
+   public Iterable<LibraryDrive> listImages() {
+      return api.listLibraryDrives().concat();
+   }
+
+   @Override
+   public LibraryDrive getImage(String uuid) {
+      return api.getLibraryDrive(uuid);
+   }
+
+   @Override
+   public Iterable<Location> listLocations() {
+      // the provider is the only location
+      return ImmutableSet.of();
+   }
+
+   @Override
+   public ServerInfo getNode(String uuid) {
+      return api.getServerInfo(uuid);
+   }
+
+   @Override
+   public void destroyNode(String uuid) {
+      ServerInfo server = api.getServerInfo(uuid);
+      if (server == null)
+         return;
+      if (server.getStatus() != ServerStatus.STOPPED) {
+         // servers can only be deleted once they are stopped
+         api.stopServer(uuid);
+         getUnchecked(readinessTracker.serverStopped(uuid));
+      }
+      api.deleteServer(uuid);
+      List<String> drives = Lists.newArrayList();
+      for (ServerDrive drive : server.getDrives()) {
+         drives.add(drive.getDriveUuid());
+      }
+      if (!drives.isEmpty()) {
+         api.deleteDrives(drives);
+      }
+   }
+
+   @Override
+   public void rebootNode(String uuid) {
+      // a server can only be started once it is stopped
+      api.stopServer(uuid);
+      getUnchecked(readinessTracker.serverStopped(uuid));
+      api.startServer(uuid);
+   }
+
+   @Override
+   public void resumeNode(String uuid) {
+      api.startServer(uuid);
+   }
+
+   @Override
+   public void suspendNode(String uuid) {
+      api.stopServer(uuid);
+   }
+
+   @Override
+   public Iterable<ServerInfo> listNodes() {
+      return api.listServersInfo().concat();
+   }
+
+   @Override
+   public Iterable<ServerInfo> listNodesByIds(final Iterable<String> uuids) {
+      return filter(listNodes(), new Predicate<ServerInfo>() {
+         @Override
+         public boolean apply(ServerInfo server) {
+            return contains(uuids, server.getUuid());
+         }
+      });
+   }
+}
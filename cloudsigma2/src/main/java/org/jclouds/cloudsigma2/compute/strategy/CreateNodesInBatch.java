@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudsigma2.compute.strategy;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.cloudsigma2.domain.ServerInfo;
+import org.jclouds.compute.ComputeServiceAdapter.NodeAndInitialCredentials;
+import org.jclouds.compute.config.CustomizationResponse;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.Template;
+import org.jclouds.compute.functions.GroupNamingConvention;
+import org.jclouds.compute.strategy.CreateNodeWithGroupEncodedIntoName;
+import org.jclouds.compute.strategy.CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap;
+import org.jclouds.compute.strategy.ListNodesStrategy;
+import org.jclouds.compute.strategy.impl.CreateNodesWithGroupEncodedIntoNameThenAddToSet;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Starts creating all the nodes of a group at once, so the adapter can clone their drives and
+ * create and start their servers in a batch, before each node is added and customized as usual.
+ * <p/>
+ * A node is only added once the batch has created it, so no user thread waits for the steps of
+ * the batch, which run on the user executor too.
+ */
+@Singleton
+public class CreateNodesInBatch extends CreateNodesWithGroupEncodedIntoNameThenAddToSet {
+
+   private final CloudSigma2ComputeServiceAdapter adapter;
+
+   @Inject
+   protected CreateNodesInBatch(
+         CreateNodeWithGroupEncodedIntoName addNodeWithGroupStrategy,
+         ListNodesStrategy listNodesStrategy,
+         GroupNamingConvention.Factory namingConvention,
+         @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap.Factory customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory,
+         CloudSigma2ComputeServiceAdapter adapter) {
+      super(addNodeWithGroupStrategy, listNodesStrategy, namingConvention, userExecutor,
+            customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory);
+      this.adapter = checkNotNull(adapter, "adapter");
+   }
+
+   @Override
+   public Map<?, ListenableFuture<Void>> execute(final String group, int count, final Template template,
+         Set<NodeMetadata> goodNodes, Map<NodeMetadata, Exception> badNodes,
+         Multimap<NodeMetadata, CustomizationResponse> customizationResponses) {
+      Set<String> names = getNextNames(group, template, count);
+      Map<String, ListenableFuture<NodeAndInitialCredentials<ServerInfo>>> batch = adapter
+            .createNodesWithGroupEncodedIntoNames(group, names, template);
+
+      Map<String, ListenableFuture<Void>> responses = Maps.newLinkedHashMap();
+      for (final String name : names) {
+         // picks up the node created in the batch, which no longer blocks
+         ListenableFuture<AtomicReference<NodeMetadata>> added = Futures.transform(batch.get(name),
+               new AsyncFunction<NodeAndInitialCredentials<ServerInfo>, AtomicReference<NodeMetadata>>() {
+                  @Override
+                  public ListenableFuture<AtomicReference<NodeMetadata>> apply(
+                        NodeAndInitialCredentials<ServerInfo> created) {
+                     return createNodeInGroupWithNameAndTemplate(group, name, template);
+                  }
+               });
+         responses.put(name, Futures.transform(added, customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory
+               .create(template.getOptions(), goodNodes, badNodes, customizationResponses), userExecutor));
+      }
+      return responses;
+   }
+}
@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudsigma2.compute.strategy;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Maps.immutableEntry;
+import static org.jclouds.Constants.PROPERTY_SCHEDULER_THREADS;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.cloudsigma2.CloudSigma2Api;
+import org.jclouds.cloudsigma2.domain.Drive;
+import org.jclouds.cloudsigma2.domain.DriveStatus;
+import org.jclouds.cloudsigma2.domain.ListRequestFieldsGroup;
+import org.jclouds.cloudsigma2.domain.Server;
+import org.jclouds.cloudsigma2.domain.ServerStatus;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.compute.reference.ComputeServiceConstants.PollPeriod;
+import org.jclouds.compute.reference.ComputeServiceConstants.Timeouts;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Waits for cloned drives to be ready and for servers to be running or stopped,
+ * for all the nodes being created or destroyed at once.
+ * <p>
+ * Each tick lists the drives and the servers of the account once, whatever the
+ * number of tracked resources, instead of getting each of them. Only their
+ * status is listed, so the futures hold summaries of the resources.
+ * <p>
+ * A tracked resource fails once it expires, or once it disappears from the
+ * listings after having been listed, so no caller waits for a resource that
+ * has been deleted. Nothing is kept about the resources that are not tracked.
+ */
+@Singleton
+public class ReadinessTracker {
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final CloudSigma2Api api;
+   private final ScheduledExecutorService scheduler;
+   private final long pollPeriod;
+   private final long timeout;
+
+   /** The tracked drives, by uuid and expected status. */
+   private final ConcurrentMap<Entry<String, DriveStatus>, Tracked<Drive>> drives = Maps.newConcurrentMap();
+   /** The tracked servers, by uuid and expected status, so a server can be waited for to stop and to run again. */
+   private final ConcurrentMap<Entry<String, ServerStatus>, Tracked<Server>> servers = Maps.newConcurrentMap();
+   private ScheduledFuture<?> poller;
+
+   @Inject
+   ReadinessTracker(CloudSigma2Api api, @Named(PROPERTY_SCHEDULER_THREADS) ScheduledExecutorService scheduler,
+         PollPeriod pollPeriod, Timeouts timeouts) {
+      this(api, scheduler, pollPeriod.pollInitialPeriod, timeouts.nodeRunning);
+   }
+
+   @VisibleForTesting
+   ReadinessTracker(CloudSigma2Api api, ScheduledExecutorService scheduler, long pollPeriod, long timeout) {
+      this.api = checkNotNull(api, "api");
+      this.scheduler = checkNotNull(scheduler, "scheduler");
+      this.pollPeriod = pollPeriod;
+      this.timeout = timeout;
+   }
+
+   private static class Tracked<T> {
+      private final SettableFuture<T> future = SettableFuture.create();
+      private final long deadline;
+      /** Whether the resource has been listed, so its absence from a later listing means it was removed. */
+      private volatile boolean listed;
+
+      private Tracked(long deadline) {
+         this.deadline = deadline;
+      }
+   }
+
+   /**
+    * @return a future holding the drive once it is no longer being copied
+    */
+   public ListenableFuture<Drive> driveReady(String uuid) {
+      return track(drives, immutableEntry(checkNotNull(uuid, "uuid"), DriveStatus.UNMOUNTED));
+   }
+
+   /**
+    * @return a future holding the server once it is running
+    */
+   public ListenableFuture<Server> serverRunning(String uuid) {
+      return track(servers, immutableEntry(checkNotNull(uuid, "uuid"), ServerStatus.RUNNING));
+   }
+
+   /**
+    * @return a future holding the server once it is stopped
+    */
+   public ListenableFuture<Server> serverStopped(String uuid) {
+      return track(servers, immutableEntry(checkNotNull(uuid, "uuid"), ServerStatus.STOPPED));
+   }
+
+   private <S, T> ListenableFuture<T> track(ConcurrentMap<Entry<String, S>, Tracked<T>> tracked,
+         Entry<String, S> key) {
+      Tracked<T> fresh = new Tracked<T>(System.currentTimeMillis() + timeout);
+      Tracked<T> existing = tracked.putIfAbsent(key, fresh);
+      if (existing != null)
+         return existing.future;
+      logger.trace("tracking %s until it is %s", key.getKey(), key.getValue());
+      startPolling();
+      return fresh.future;
+   }
+
+   /**
+    * Lists the drives and the servers, if any of them is tracked, and completes
+    * the futures of those that are ready.
+    */
+   @VisibleForTesting
+   void poll() {
+      if (!drives.isEmpty()) {
+         try {
+            Set<String> listed = Sets.newHashSet();
+            for (Drive drive : api.listDrives(ListRequestFieldsGroup.STATUS).concat()) {
+               listed.add(drive.getUuid());
+               complete(drives, immutableEntry(drive.getUuid(), drive.getStatus()), drive);
+            }
+            failRemoved(drives, listed, "drive");
+         } catch (RuntimeException e) {
+            logger.warn(e, "could not list the drives");
+         }
+      }
+      if (!servers.isEmpty()) {
+         try {
+            Set<String> listed = Sets.newHashSet();
+            for (Server server : api.listServers(ListRequestFieldsGroup.STATUS).concat()) {
+               listed.add(server.getUuid());
+               if (server.getStatus() == ServerStatus.UNAVAILABLE) {
+                  fail(servers, immutableEntry(server.getUuid(), ServerStatus.RUNNING));
+                  fail(servers, immutableEntry(server.getUuid(), ServerStatus.STOPPED));
+               } else {
+                  complete(servers, immutableEntry(server.getUuid(), server.getStatus()), server);
+               }
+            }
+            failRemoved(servers, listed, "server");
+         } catch (RuntimeException e) {
+            logger.warn(e, "could not list the servers");
+         }
+      }
+      failExpired(drives);
+      failExpired(servers);
+      stopPollingIfIdle();
+   }
+
+   private static <S, T> void complete(ConcurrentMap<Entry<String, S>, Tracked<T>> tracked, Entry<String, S> key,
+         T value) {
+      Tracked<T> entry = tracked.remove(key);
+      if (entry != null)
+         entry.future.set(value);
+   }
+
+   private static <S, T> void fail(ConcurrentMap<Entry<String, S>, Tracked<T>> tracked, Entry<String, S> key) {
+      Tracked<T> entry = tracked.remove(key);
+      if (entry != null)
+         entry.future.setException(new IllegalStateException("server " + key.getKey() + " is unavailable"));
+   }
+
+   /**
+    * Fails the tracked resources that were listed before but are missing from
+    * the last listing, and marks the others as listed.
+    */
+   private static <S, T> void failRemoved(ConcurrentMap<Entry<String, S>, Tracked<T>> tracked, Set<String> listed,
+         String kind) {
+      for (Map.Entry<Entry<String, S>, Tracked<T>> entry : tracked.entrySet()) {
+         Tracked<T> value = entry.getValue();
+         String uuid = entry.getKey().getKey();
+         if (listed.contains(uuid)) {
+            value.listed = true;
+         } else if (value.listed && tracked.remove(entry.getKey(), value)) {
+            value.future.setException(new IllegalStateException(kind + " " + uuid + " no longer exists"));
+         }
+      }
+   }
+
+   private <S, T> void failExpired(ConcurrentMap<Entry<String, S>, Tracked<T>> tracked) {
+      long now = System.currentTimeMillis();
+      for (Map.Entry<Entry<String, S>, Tracked<T>> entry : tracked.entrySet()) {
+         Tracked<T> value = entry.getValue();
+         if (value.future.isCancelled()) {
+            tracked.remove(entry.getKey(), value);
+         } else if (now > value.deadline && tracked.remove(entry.getKey(), value)) {
+            value.future.setException(new TimeoutException(String.format("%s was not %s within %dms", entry
+                  .getKey().getKey(), entry.getKey().getValue(), timeout)));
+         }
+      }
+   }
+
+   /**
+    * The tracked resources are only forgotten once they are ready, removed or expired,
+    * so a tick that fails is just retried on the next one.
+    */
+   private class Tick implements Runnable {
+      @Override
+      public void run() {
+         try {
+            poll();
+         } catch (RuntimeException e) {
+            logger.error(e, "error polling the tracked drives and servers");
+         }
+      }
+   }
+
+   private synchronized void startPolling() {
+      if (poller == null) {
+         poller = scheduler.scheduleWithFixedDelay(new Tick(), pollPeriod, pollPeriod, TimeUnit.MILLISECONDS);
+      }
+   }
+
+   private synchronized void stopPollingIfIdle() {
+      if (poller != null && drives.isEmpty() && servers.isEmpty()) {
+         poller.cancel(false);
+         poller = null;
+      }
+   }
+}
@@ -23,4 +23,25 @@ public class CloudSigma2Properties {
     */
    public static final String PROPERTY_VNC_PASSWORD = "jclouds.cloudsigma.vnc-password";
 
+   /**
+    * maximum number of pages fetched concurrently, ahead of the one being read, when iterating all
+    * the pages of a listing. Zero fetches one page at a time.
+    */
+   public static final String PROPERTY_PAGINATION_PREFETCH_PAGES = "jclouds.cloudsigma.pagination-prefetch-pages";
+
+   /**
+    * size in bytes of the chunks in which drive images are uploaded and downloaded
+    */
+   public static final String PROPERTY_TRANSFER_CHUNK_SIZE = "jclouds.cloudsigma.transfer-chunk-size";
+
+   /**
+    * maximum number of chunks of a drive image transferred concurrently
+    */
+   public static final String PROPERTY_TRANSFER_PARALLEL_CHUNKS = "jclouds.cloudsigma.transfer-parallel-chunks";
+
+   /**
+    * number of times the transfer of a chunk is retried before the whole transfer fails
+    */
+   public static final String PROPERTY_TRANSFER_CHUNK_RETRIES = "jclouds.cloudsigma.transfer-chunk-retries";
+
 }
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudsigma2.domain;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.jclouds.io.Payload;
+
+/**
+ * A chunk of a drive image uploaded through the resumable upload protocol of the drives upload
+ * endpoint. Chunks are numbered from one, and the upload is identified by the same identifier in
+ * all of them.
+ */
+public class DriveChunk {
+
+   public static class Builder {
+      private String identifier;
+      private String filename;
+      private int number;
+      private long chunkSize;
+      private long totalSize;
+      private Payload data;
+
+      public Builder identifier(String identifier) {
+         this.identifier = identifier;
+         return this;
+      }
+
+      public Builder filename(String filename) {
+         this.filename = filename;
+         return this;
+      }
+
+      public Builder number(int number) {
+         this.number = number;
+         return this;
+      }
+
+      public Builder chunkSize(long chunkSize) {
+         this.chunkSize = chunkSize;
+         return this;
+      }
+
+      public Builder totalSize(long totalSize) {
+         this.totalSize = totalSize;
+         return this;
+      }
+
+      public Builder data(Payload data) {
+         this.data = data;
+         return this;
+      }
+
+      public DriveChunk build() {
+         return new DriveChunk(identifier, filename, number, chunkSize, totalSize, data);
+      }
+   }
+
+   private final String identifier;
+   private final String filename;
+   private final int number;
+   private final long chunkSize;
+   private final long totalSize;
+   private final Payload data;
+
+   public DriveChunk(String identifier, String filename, int number, long chunkSize, long totalSize, Payload data) {
+      this.identifier = checkNotNull(identifier, "identifier");
+      this.filename = checkNotNull(filename, "filename");
+      this.number = number;
+      this.chunkSize = chunkSize;
+      this.totalSize = totalSize;
+      this.data = checkNotNull(data, "data");
+   }
+
+   /**
+    * @return identifier of the upload the chunk belongs to
+    */
+   public String getIdentifier() {
+      return identifier;
+   }
+
+   /**
+    * @return name of the uploaded image
+    */
+   public String getFilename() {
+      return filename;
+   }
+
+   /**
+    * @return number of the chunk, starting at one
+    */
+   public int getNumber() {
+      return number;
+   }
+
+   /**
+    * @return nominal size of the chunks of the upload; the last chunk may be smaller
+    */
+   public long getChunkSize() {
+      return chunkSize;
+   }
+
+   /**
+    * @return size of the whole image
+    */
+   public long getTotalSize() {
+      return totalSize;
+   }
+
+   /**
+    * @return content of the chunk
+    */
+   public Payload getData() {
+      return data;
+   }
+
+   @Override
+   public String toString() {
+      return "[" +
+            "identifier='" + identifier + '\'' +
+            ", filename='" + filename + '\'' +
+            ", number=" + number +
+            ", chunkSize=" + chunkSize +
+            ", totalSize=" + totalSize +
+            "]";
+   }
+}
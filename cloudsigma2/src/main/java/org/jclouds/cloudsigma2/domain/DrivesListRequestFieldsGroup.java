@@ -16,33 +16,9 @@
  */
 package org.jclouds.cloudsigma2.domain;
 
-import java.util.Iterator;
-
-public class DrivesListRequestFieldsGroup {
-   private final Iterable<String> fields;
+public class DrivesListRequestFieldsGroup extends ListRequestFieldsGroup {
 
    public DrivesListRequestFieldsGroup(Iterable<String> fields) {
-      this.fields = fields;
-   }
-
-   public Iterable<String> getFields() {
-      return fields;
-   }
-
-   @Override
-   public String toString() {
-      String returnString = "";
-
-      Iterator<String> iterator = fields.iterator();
-
-      while (iterator.hasNext()) {
-         returnString += iterator.next();
-
-         if (iterator.hasNext()) {
-            returnString += ",";
-         }
-      }
-
-      return returnString;
+      super(fields);
    }
 }
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudsigma2.domain;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The fields returned by a list request. Only the requested fields are sent and parsed, which keeps
+ * the listings used for frequent polling small.
+ */
+public class ListRequestFieldsGroup {
+
+   /**
+    * The fields needed to follow the status of servers and drives.
+    */
+   public static final ListRequestFieldsGroup STATUS = of("uuid", "name", "status");
+
+   private final Iterable<String> fields;
+
+   public ListRequestFieldsGroup(Iterable<String> fields) {
+      this.fields = checkNotNull(fields, "fields");
+   }
+
+   public static ListRequestFieldsGroup of(String... fields) {
+      return new ListRequestFieldsGroup(ImmutableList.copyOf(fields));
+   }
+
+   public Iterable<String> getFields() {
+      return fields;
+   }
+
+   @Override
+   public String toString() {
+      return Joiner.on(',').join(fields);
+   }
+}
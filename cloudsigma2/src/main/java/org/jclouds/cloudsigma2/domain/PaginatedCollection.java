@@ -48,6 +48,10 @@ public class PaginatedCollection<T> extends IterableWithMarker<T> {
       return Optional.absent();
    }
 
+   public PaginationOptions getPaginationOptions() {
+      return paginationOptions;
+   }
+
    @Override
    public Iterator<T> iterator() {
       return objects.iterator();
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudsigma2.functions.internal;
+
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.cloudsigma2.config.CloudSigma2Properties.PROPERTY_PAGINATION_PREFETCH_PAGES;
+
+import javax.inject.Named;
+
+import org.jclouds.cloudsigma2.domain.PaginatedCollection;
+import org.jclouds.cloudsigma2.options.PaginationOptions;
+import org.jclouds.collect.IterableWithMarker;
+import org.jclouds.collect.PagedIterable;
+import org.jclouds.collect.PagedIterables;
+import org.jclouds.collect.internal.ArgsToPagedIterable;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.rest.internal.GeneratedHttpRequest;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.inject.Inject;
+
+/**
+ * Turns the first page of a listing into a {@link PagedIterable} that fetches the pages ahead of the
+ * one being read concurrently.
+ * <p/>
+ * The <code>meta</code> block of the first page tells the total count, so the offsets of all the
+ * pages are known up front. Listings without pagination information, or when prefetching is
+ * disabled, fetch one page after the other.
+ *
+ * @see PrefetchingNextPage
+ */
+public abstract class BasePrefetchingToPagedIterable<T, I extends ArgsToPagedIterable<T, I>> extends
+      ArgsToPagedIterable<T, I> {
+
+   @Inject(optional = true)
+   @Named(PROPERTY_USER_THREADS)
+   private ListeningExecutorService userExecutor;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_PAGINATION_PREFETCH_PAGES)
+   private int prefetchPages;
+
+   private GeneratedHttpRequest request;
+
+   @Override
+   public PagedIterable<T> apply(IterableWithMarker<T> input) {
+      if (userExecutor == null || prefetchPages <= 0 || request == null || !input.nextMarker().isPresent()
+            || !(input instanceof PaginatedCollection)) {
+         return super.apply(input);
+      }
+      PaginationOptions options = PaginatedCollection.class.cast(input).getPaginationOptions();
+      if (options == null || options.getLimit() <= 0) {
+         return super.apply(input);
+      }
+      return PagedIterables.advance(input, new PrefetchingNextPage<T>(markerToNextForArgs(getArgs(request)),
+            options, userExecutor, prefetchPages));
+   }
+
+   @Override
+   public I setContext(HttpRequest request) {
+      this.request = GeneratedHttpRequest.class.cast(request);
+      return super.setContext(request);
+   }
+}
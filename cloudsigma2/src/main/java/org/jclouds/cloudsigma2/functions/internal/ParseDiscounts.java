@@ -24,7 +24,6 @@ import org.jclouds.cloudsigma2.domain.Discount;
 import org.jclouds.cloudsigma2.domain.PaginatedCollection;
 import org.jclouds.cloudsigma2.options.PaginationOptions;
 import org.jclouds.collect.IterableWithMarker;
-import org.jclouds.collect.internal.ArgsToPagedIterable;
 import org.jclouds.http.functions.ParseJson;
 import org.jclouds.json.Json;
 
@@ -47,7 +46,7 @@ public class ParseDiscounts extends ParseJson<ParseDiscounts.Discounts> {
       super(json, TypeLiteral.get(Discounts.class));
    }
 
-   public static class ToPagedIterable extends ArgsToPagedIterable<Discount, ToPagedIterable> {
+   public static class ToPagedIterable extends BasePrefetchingToPagedIterable<Discount, ToPagedIterable> {
 
       private CloudSigma2Api api;
 
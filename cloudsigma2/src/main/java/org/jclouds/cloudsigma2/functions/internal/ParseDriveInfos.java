@@ -24,7 +24,6 @@ import org.jclouds.cloudsigma2.domain.DriveInfo;
 import org.jclouds.cloudsigma2.domain.PaginatedCollection;
 import org.jclouds.cloudsigma2.options.PaginationOptions;
 import org.jclouds.collect.IterableWithMarker;
-import org.jclouds.collect.internal.ArgsToPagedIterable;
 import org.jclouds.http.functions.ParseJson;
 import org.jclouds.json.Json;
 
@@ -48,7 +47,7 @@ public class ParseDriveInfos extends ParseJson<ParseDriveInfos.DriveInfos> {
       super(json, TypeLiteral.get(DriveInfos.class));
    }
 
-   public static class ToPagedIterable extends ArgsToPagedIterable<DriveInfo, ToPagedIterable> {
+   public static class ToPagedIterable extends BasePrefetchingToPagedIterable<DriveInfo, ToPagedIterable> {
 
       private CloudSigma2Api api;
 
@@ -20,10 +20,10 @@ import com.google.common.base.Function;
 import com.google.inject.TypeLiteral;
 import org.jclouds.cloudsigma2.CloudSigma2Api;
 import org.jclouds.cloudsigma2.domain.Drive;
+import org.jclouds.cloudsigma2.domain.ListRequestFieldsGroup;
 import org.jclouds.cloudsigma2.domain.PaginatedCollection;
 import org.jclouds.cloudsigma2.options.PaginationOptions;
 import org.jclouds.collect.IterableWithMarker;
-import org.jclouds.collect.internal.ArgsToPagedIterable;
 import org.jclouds.http.functions.ParseJson;
 import org.jclouds.json.Json;
 
@@ -47,7 +47,7 @@ public class ParseDrives extends ParseJson<ParseDrives.Drives> {
       super(json, TypeLiteral.get(Drives.class));
    }
 
-   public static class ToPagedIterable extends ArgsToPagedIterable<Drive, ToPagedIterable> {
+   public static class ToPagedIterable extends BasePrefetchingToPagedIterable<Drive, ToPagedIterable> {
 
       private CloudSigma2Api api;
 
@@ -58,11 +58,13 @@ public class ParseDrives extends ParseJson<ParseDrives.Drives> {
 
       @Override
       protected Function<Object, IterableWithMarker<Drive>> markerToNextForArgs(List<Object> args) {
+         // the next pages return the same fields as the first one
+         final ListRequestFieldsGroup fields = args.isEmpty() ? null : ListRequestFieldsGroup.class.cast(args.get(0));
          return new Function<Object, IterableWithMarker<Drive>>() {
             @Override
             public IterableWithMarker<Drive> apply(Object input) {
                PaginationOptions paginationOptions = PaginationOptions.class.cast(input);
-               return api.listDrives(paginationOptions);
+               return fields == null ? api.listDrives(paginationOptions) : api.listDrives(fields, paginationOptions);
             }
          };
       }
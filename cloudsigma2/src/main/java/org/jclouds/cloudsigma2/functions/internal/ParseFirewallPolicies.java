@@ -23,7 +23,6 @@ import org.jclouds.cloudsigma2.domain.FirewallPolicy;
 import org.jclouds.cloudsigma2.domain.PaginatedCollection;
 import org.jclouds.cloudsigma2.options.PaginationOptions;
 import org.jclouds.collect.IterableWithMarker;
-import org.jclouds.collect.internal.ArgsToPagedIterable;
 import org.jclouds.http.functions.ParseJson;
 import org.jclouds.json.Json;
 
@@ -47,7 +46,7 @@ public class ParseFirewallPolicies extends ParseJson<ParseFirewallPolicies.Firew
       super(json, TypeLiteral.get(FirewallPolicies.class));
    }
 
-   public static class ToPagedIterable extends ArgsToPagedIterable<FirewallPolicy, ToPagedIterable> {
+   public static class ToPagedIterable extends BasePrefetchingToPagedIterable<FirewallPolicy, ToPagedIterable> {
 
       private CloudSigma2Api api;
 
@@ -68,7 +67,7 @@ public class ParseFirewallPolicies extends ParseJson<ParseFirewallPolicies.Firew
       }
    }
 
-   public static class ToPagedIterableInfo extends ArgsToPagedIterable<FirewallPolicy, ToPagedIterable> {
+   public static class ToPagedIterableInfo extends BasePrefetchingToPagedIterable<FirewallPolicy, ToPagedIterable> {
 
       private CloudSigma2Api api;
 
@@ -25,7 +25,6 @@ import org.jclouds.cloudsigma2.domain.IPInfo;
 import org.jclouds.cloudsigma2.domain.PaginatedCollection;
 import org.jclouds.cloudsigma2.options.PaginationOptions;
 import org.jclouds.collect.IterableWithMarker;
-import org.jclouds.collect.internal.ArgsToPagedIterable;
 import org.jclouds.http.functions.ParseJson;
 import org.jclouds.json.Json;
 
@@ -47,7 +46,7 @@ public class ParseIPInfos extends ParseJson<ParseIPInfos.IPInfos> {
       super(json, TypeLiteral.get(IPInfos.class));
    }
 
-   public static class ToPagedIterable extends ArgsToPagedIterable<IPInfo, ToPagedIterable> {
+   public static class ToPagedIterable extends BasePrefetchingToPagedIterable<IPInfo, ToPagedIterable> {
 
       private CloudSigma2Api api;
 
@@ -21,10 +21,10 @@ import com.google.inject.Inject;
 import com.google.inject.TypeLiteral;
 import org.jclouds.cloudsigma2.CloudSigma2Api;
 import org.jclouds.cloudsigma2.domain.IP;
+import org.jclouds.cloudsigma2.domain.ListRequestFieldsGroup;
 import org.jclouds.cloudsigma2.domain.PaginatedCollection;
 import org.jclouds.cloudsigma2.options.PaginationOptions;
 import org.jclouds.collect.IterableWithMarker;
-import org.jclouds.collect.internal.ArgsToPagedIterable;
 import org.jclouds.http.functions.ParseJson;
 import org.jclouds.json.Json;
 
@@ -47,7 +47,7 @@ public class ParseIPs extends ParseJson<ParseIPs.IPs> {
       super(json, TypeLiteral.get(IPs.class));
    }
 
-   public static class ToPagedIterable extends ArgsToPagedIterable<IP, ToPagedIterable> {
+   public static class ToPagedIterable extends BasePrefetchingToPagedIterable<IP, ToPagedIterable> {
 
       private CloudSigma2Api api;
 
@@ -58,11 +58,13 @@ public class ParseIPs extends ParseJson<ParseIPs.IPs> {
 
       @Override
       protected Function<Object, IterableWithMarker<IP>> markerToNextForArgs(List<Object> args) {
+         // the next pages return the same fields as the first one
+         final ListRequestFieldsGroup fields = args.isEmpty() ? null : ListRequestFieldsGroup.class.cast(args.get(0));
          return new Function<Object, IterableWithMarker<IP>>() {
             @Override
             public IterableWithMarker<IP> apply(Object input) {
                PaginationOptions paginationOptions = PaginationOptions.class.cast(input);
-               return api.listIPs(paginationOptions);
+               return fields == null ? api.listIPs(paginationOptions) : api.listIPs(fields, paginationOptions);
             }
          };
       }
@@ -24,7 +24,6 @@ import org.jclouds.cloudsigma2.domain.LibraryDrive;
 import org.jclouds.cloudsigma2.domain.PaginatedCollection;
 import org.jclouds.cloudsigma2.options.PaginationOptions;
 import org.jclouds.collect.IterableWithMarker;
-import org.jclouds.collect.internal.ArgsToPagedIterable;
 import org.jclouds.http.functions.ParseJson;
 import org.jclouds.json.Json;
 
@@ -47,7 +46,7 @@ public class ParseLibraryDrives extends ParseJson<ParseLibraryDrives.LibraryDriv
       super(json, TypeLiteral.get(LibraryDrives.class));
    }
 
-   public static class ToPagedIterable extends ArgsToPagedIterable<LibraryDrive, ToPagedIterable> {
+   public static class ToPagedIterable extends BasePrefetchingToPagedIterable<LibraryDrive, ToPagedIterable> {
 
       private CloudSigma2Api api;
 
@@ -24,7 +24,6 @@ import org.jclouds.cloudsigma2.domain.License;
 import org.jclouds.cloudsigma2.domain.PaginatedCollection;
 import org.jclouds.cloudsigma2.options.PaginationOptions;
 import org.jclouds.collect.IterableWithMarker;
-import org.jclouds.collect.internal.ArgsToPagedIterable;
 import org.jclouds.http.functions.ParseJson;
 import org.jclouds.json.Json;
 
@@ -47,7 +46,7 @@ public class ParseLicenses extends ParseJson<ParseLicenses.Licenses> {
       super(json, TypeLiteral.get(Licenses.class));
    }
 
-   public static class ToPagedIterable extends ArgsToPagedIterable<License, ToPagedIterable> {
+   public static class ToPagedIterable extends BasePrefetchingToPagedIterable<License, ToPagedIterable> {
 
       private CloudSigma2Api api;
 
@@ -24,7 +24,6 @@ import org.jclouds.cloudsigma2.domain.PaginatedCollection;
 import org.jclouds.cloudsigma2.domain.ServerInfo;
 import org.jclouds.cloudsigma2.options.PaginationOptions;
 import org.jclouds.collect.IterableWithMarker;
-import org.jclouds.collect.internal.ArgsToPagedIterable;
 import org.jclouds.http.functions.ParseJson;
 import org.jclouds.json.Json;
 
@@ -48,7 +47,7 @@ public class ParseServerInfos extends ParseJson<ParseServerInfos.ServerInfos> {
       super(json, TypeLiteral.get(ServerInfos.class));
    }
 
-   public static class ToPagedIterable extends ArgsToPagedIterable<ServerInfo, ToPagedIterable> {
+   public static class ToPagedIterable extends BasePrefetchingToPagedIterable<ServerInfo, ToPagedIterable> {
 
       private CloudSigma2Api api;
 
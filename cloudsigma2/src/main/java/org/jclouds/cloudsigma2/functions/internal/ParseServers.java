@@ -20,11 +20,11 @@ import com.google.common.base.Function;
 import com.google.inject.Inject;
 import com.google.inject.TypeLiteral;
 import org.jclouds.cloudsigma2.CloudSigma2Api;
+import org.jclouds.cloudsigma2.domain.ListRequestFieldsGroup;
 import org.jclouds.cloudsigma2.domain.PaginatedCollection;
 import org.jclouds.cloudsigma2.domain.Server;
 import org.jclouds.cloudsigma2.options.PaginationOptions;
 import org.jclouds.collect.IterableWithMarker;
-import org.jclouds.collect.internal.ArgsToPagedIterable;
 import org.jclouds.http.functions.ParseJson;
 import org.jclouds.json.Json;
 
@@ -48,7 +48,7 @@ public class ParseServers extends ParseJson<ParseServers.Servers> {
       super(json, TypeLiteral.get(Servers.class));
    }
 
-   public static class ToPagedIterable extends ArgsToPagedIterable<Server, ToPagedIterable> {
+   public static class ToPagedIterable extends BasePrefetchingToPagedIterable<Server, ToPagedIterable> {
 
       private CloudSigma2Api api;
 
@@ -59,11 +59,13 @@ public class ParseServers extends ParseJson<ParseServers.Servers> {
 
       @Override
       protected Function<Object, IterableWithMarker<Server>> markerToNextForArgs(List<Object> args) {
+         // the next pages return the same fields as the first one
+         final ListRequestFieldsGroup fields = args.isEmpty() ? null : ListRequestFieldsGroup.class.cast(args.get(0));
          return new Function<Object, IterableWithMarker<Server>>() {
             @Override
             public IterableWithMarker<Server> apply(Object input) {
                PaginationOptions paginationOptions = PaginationOptions.class.cast(input);
-               return api.listServers(paginationOptions);
+               return fields == null ? api.listServers(paginationOptions) : api.listServers(fields, paginationOptions);
             }
          };
       }
@@ -24,7 +24,6 @@ import org.jclouds.cloudsigma2.domain.PaginatedCollection;
 import org.jclouds.cloudsigma2.domain.Subscription;
 import org.jclouds.cloudsigma2.options.PaginationOptions;
 import org.jclouds.collect.IterableWithMarker;
-import org.jclouds.collect.internal.ArgsToPagedIterable;
 import org.jclouds.http.functions.ParseJson;
 import org.jclouds.json.Json;
 
@@ -47,7 +46,7 @@ public class ParseSubscriptions extends ParseJson<ParseSubscriptions.Subscriptio
       super(json, TypeLiteral.get(Subscriptions.class));
    }
 
-   public static class ToPagedIterable extends ArgsToPagedIterable<Subscription, ToPagedIterable> {
+   public static class ToPagedIterable extends BasePrefetchingToPagedIterable<Subscription, ToPagedIterable> {
 
       private CloudSigma2Api api;
 
@@ -24,7 +24,6 @@ import org.jclouds.cloudsigma2.domain.PaginatedCollection;
 import org.jclouds.cloudsigma2.domain.Tag;
 import org.jclouds.cloudsigma2.options.PaginationOptions;
 import org.jclouds.collect.IterableWithMarker;
-import org.jclouds.collect.internal.ArgsToPagedIterable;
 import org.jclouds.http.functions.ParseJson;
 import org.jclouds.json.Json;
 
@@ -47,7 +46,7 @@ public class ParseTags extends ParseJson<ParseTags.Tags> {
       super(json, TypeLiteral.get(Tags.class));
    }
 
-   public static class ToPagedIterable extends ArgsToPagedIterable<Tag, ToPagedIterable> {
+   public static class ToPagedIterable extends BasePrefetchingToPagedIterable<Tag, ToPagedIterable> {
 
       private CloudSigma2Api api;
 
@@ -68,7 +67,7 @@ public class ParseTags extends ParseJson<ParseTags.Tags> {
       }
    }
 
-   public static class ToPagedIterableInfo extends ArgsToPagedIterable<Tag, ToPagedIterable> {
+   public static class ToPagedIterableInfo extends BasePrefetchingToPagedIterable<Tag, ToPagedIterable> {
 
       private CloudSigma2Api api;
 
@@ -24,7 +24,6 @@ import org.jclouds.cloudsigma2.domain.PaginatedCollection;
 import org.jclouds.cloudsigma2.domain.Transaction;
 import org.jclouds.cloudsigma2.options.PaginationOptions;
 import org.jclouds.collect.IterableWithMarker;
-import org.jclouds.collect.internal.ArgsToPagedIterable;
 import org.jclouds.http.functions.ParseJson;
 import org.jclouds.json.Json;
 
@@ -47,7 +46,7 @@ public class ParseTransactions extends ParseJson<ParseTransactions.Transactions>
       super(json, TypeLiteral.get(Transactions.class));
    }
 
-   public static class ToPagedIterable extends ArgsToPagedIterable<Transaction, ToPagedIterable> {
+   public static class ToPagedIterable extends BasePrefetchingToPagedIterable<Transaction, ToPagedIterable> {
 
       private CloudSigma2Api api;
 
@@ -19,11 +19,11 @@ package org.jclouds.cloudsigma2.functions.internal;
 import com.google.common.base.Function;
 import com.google.inject.TypeLiteral;
 import org.jclouds.cloudsigma2.CloudSigma2Api;
+import org.jclouds.cloudsigma2.domain.ListRequestFieldsGroup;
 import org.jclouds.cloudsigma2.domain.PaginatedCollection;
 import org.jclouds.cloudsigma2.domain.VLANInfo;
 import org.jclouds.cloudsigma2.options.PaginationOptions;
 import org.jclouds.collect.IterableWithMarker;
-import org.jclouds.collect.internal.ArgsToPagedIterable;
 import org.jclouds.http.functions.ParseJson;
 import org.jclouds.json.Json;
 
@@ -47,7 +47,7 @@ public class ParseVLANs extends ParseJson<ParseVLANs.VLANs> {
       super(json, TypeLiteral.get(VLANs.class));
    }
 
-   public static class ToPagedIterable extends ArgsToPagedIterable<VLANInfo, ToPagedIterable> {
+   public static class ToPagedIterable extends BasePrefetchingToPagedIterable<VLANInfo, ToPagedIterable> {
 
       private CloudSigma2Api api;
 
@@ -58,17 +58,19 @@ public class ParseVLANs extends ParseJson<ParseVLANs.VLANs> {
 
       @Override
       protected Function<Object, IterableWithMarker<VLANInfo>> markerToNextForArgs(List<Object> args) {
+         // the next pages return the same fields as the first one
+         final ListRequestFieldsGroup fields = args.isEmpty() ? null : ListRequestFieldsGroup.class.cast(args.get(0));
          return new Function<Object, IterableWithMarker<VLANInfo>>() {
             @Override
             public IterableWithMarker<VLANInfo> apply(Object input) {
                PaginationOptions paginationOptions = PaginationOptions.class.cast(input);
-               return api.listVLANs(paginationOptions);
+               return fields == null ? api.listVLANs(paginationOptions) : api.listVLANs(fields, paginationOptions);
             }
          };
       }
    }
 
-   public static class ToPagedIterableInfo extends ArgsToPagedIterable<VLANInfo, ToPagedIterable> {
+   public static class ToPagedIterableInfo extends BasePrefetchingToPagedIterable<VLANInfo, ToPagedIterable> {
 
       private CloudSigma2Api api;
 
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudsigma2.functions.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import org.jclouds.cloudsigma2.options.PaginationOptions;
+import org.jclouds.collect.IterableWithMarker;
+import org.jclouds.collect.PagedIterables;
+
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Fetches the page at the offset of the given marker, along with up to a given number of the pages
+ * that follow it, concurrently.
+ * <p/>
+ * The offsets of all the pages are known from the total count of the first one, so the pages after
+ * the one being read are fetched ahead. It is meant to be followed with
+ * {@link PagedIterables#advance(IterableWithMarker, Function)}, which asks for the pages in order
+ * and only while the iteration goes on.
+ */
+public class PrefetchingNextPage<T> implements Function<Object, IterableWithMarker<T>> {
+
+   private final Function<Object, IterableWithMarker<T>> markerToNext;
+   private final PaginationOptions first;
+   private final ListeningExecutorService executor;
+   private final int maxPagesAhead;
+
+   /** The pages being fetched, by offset. */
+   private final Map<Integer, ListenableFuture<IterableWithMarker<T>>> ahead = Maps.newHashMap();
+
+   public PrefetchingNextPage(Function<Object, IterableWithMarker<T>> markerToNext, PaginationOptions first,
+         ListeningExecutorService executor, int maxPagesAhead) {
+      this.markerToNext = checkNotNull(markerToNext, "markerToNext");
+      this.first = checkNotNull(first, "first");
+      this.executor = checkNotNull(executor, "executor");
+      this.maxPagesAhead = maxPagesAhead;
+   }
+
+   @Override
+   public IterableWithMarker<T> apply(Object marker) {
+      checkArgument(marker instanceof PaginationOptions, "Marker must be a PaginationOptions");
+      int offset = PaginationOptions.class.cast(marker).getOffset();
+      ListenableFuture<IterableWithMarker<T>> page;
+      synchronized (ahead) {
+         page = fetch(offset);
+         ahead.remove(offset);
+         for (int next = offset + first.getLimit(); next <= offset + maxPagesAhead * first.getLimit()
+               && next < first.getTotalCount(); next += first.getLimit()) {
+            fetch(next);
+         }
+      }
+      try {
+         return page.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(e);
+      } catch (ExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      }
+   }
+
+   private ListenableFuture<IterableWithMarker<T>> fetch(int offset) {
+      ListenableFuture<IterableWithMarker<T>> page = ahead.get(offset);
+      if (page == null) {
+         final PaginationOptions options = new PaginationOptions.Builder().limit(first.getLimit()).offset(offset)
+               .build();
+         page = executor.submit(new Callable<IterableWithMarker<T>>() {
+            @Override
+            public IterableWithMarker<T> call() {
+               return markerToNext.apply(options);
+            }
+         });
+         ahead.put(offset, page);
+      }
+      return page;
+   }
+}
@@ -0,0 +1,403 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudsigma2.transfer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Strings.emptyToNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.cloudsigma2.config.CloudSigma2Properties.PROPERTY_TRANSFER_CHUNK_RETRIES;
+import static org.jclouds.cloudsigma2.config.CloudSigma2Properties.PROPERTY_TRANSFER_CHUNK_SIZE;
+import static org.jclouds.cloudsigma2.config.CloudSigma2Properties.PROPERTY_TRANSFER_PARALLEL_CHUNKS;
+import static org.jclouds.util.Closeables2.closeQuietly;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.cloudsigma2.CloudSigma2Api;
+import org.jclouds.cloudsigma2.domain.DriveChunk;
+import org.jclouds.cloudsigma2.domain.DriveInfo;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+import org.jclouds.logging.Logger;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.google.common.math.LongMath;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Uploads drive images to, and downloads them from, CloudSigma in fixed-size chunks.
+ * <p/>
+ * Up to {@link org.jclouds.cloudsigma2.config.CloudSigma2Properties#PROPERTY_TRANSFER_PARALLEL_CHUNKS}
+ * chunks are transferred concurrently on the user executor, and the transfer of each chunk is
+ * retried on its own. When a chunk cannot be transferred, the transfer stops with an
+ * {@link IncompleteTransferException} telling up to which offset the image has been transferred.
+ * <p/>
+ * Uploads use the resumable upload protocol of the drives upload endpoint: uploading the same image
+ * under the same name again skips the chunks the endpoint already received. Downloads are resumed
+ * by passing the confirmed offset of the failed download.
+ */
+@Singleton
+public class DriveTransferService {
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   private final CloudSigma2Api api;
+   private final ListeningExecutorService userExecutor;
+   private final int chunkSize;
+   private final int parallelChunks;
+   private final int chunkRetries;
+
+   @Inject
+   DriveTransferService(CloudSigma2Api api, @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+                        @Named(PROPERTY_TRANSFER_CHUNK_SIZE) int chunkSize,
+                        @Named(PROPERTY_TRANSFER_PARALLEL_CHUNKS) int parallelChunks,
+                        @Named(PROPERTY_TRANSFER_CHUNK_RETRIES) int chunkRetries) {
+      checkArgument(chunkSize > 0, "chunk size must be positive");
+      checkArgument(parallelChunks > 0, "parallel chunks must be positive");
+      this.api = checkNotNull(api, "api");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+      this.chunkSize = chunkSize;
+      this.parallelChunks = parallelChunks;
+      this.chunkRetries = chunkRetries;
+   }
+
+   /**
+    * Uploads an image from a file.
+    *
+    * @param filename name of the image, which identifies the upload together with its size
+    * @param source   file to upload, read from its start
+    * @return the result of the transfer, holding the uuid of the created drive
+    */
+   public TransferResult upload(String filename, final FileChannel source) throws IOException {
+      return upload(filename, source.size(), new ChunkSource() {
+         @Override
+         public Payload read(long offset, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+               if (source.read(buffer, offset + buffer.position()) < 0)
+                  throw new EOFException(String.format("file ended before offset %d", offset + length));
+            }
+            return Payloads.newByteArrayPayload(buffer.array());
+         }
+      });
+   }
+
+   /**
+    * Uploads an image from a payload, which is read once and only as far as needed.
+    *
+    * @param filename name of the image, which identifies the upload together with its size
+    * @param source   payload to upload; its content length must be set
+    * @return the result of the transfer, holding the uuid of the created drive
+    */
+   public TransferResult upload(String filename, Payload source) throws IOException {
+      Long size = source.getContentMetadata().getContentLength();
+      checkArgument(size != null, "content length of %s must be set", filename);
+      final InputStream in = source.openStream();
+      try {
+         return upload(filename, size, new ChunkSource() {
+            private long position;
+
+            @Override
+            public Payload read(long offset, int length) throws IOException {
+               ByteStreams.skipFully(in, offset - position);
+               byte[] data = new byte[length];
+               ByteStreams.readFully(in, data);
+               position = offset + length;
+               return Payloads.newByteArrayPayload(data);
+            }
+         });
+      } finally {
+         closeQuietly(in);
+      }
+   }
+
+   /**
+    * Downloads a drive into a file.
+    *
+    * @see #download(String, FileChannel, long)
+    */
+   public TransferResult download(String uuid, FileChannel target) throws IOException {
+      return download(uuid, target, 0);
+   }
+
+   /**
+    * Downloads a drive into a file, from the given offset on. The content of the drive is written
+    * at the same offsets in the file.
+    *
+    * @param uuid   drive to download
+    * @param target file to write to
+    * @param offset offset to start at, usually the confirmed offset of a failed download
+    * @return the result of the transfer
+    */
+   public TransferResult download(final String uuid, final FileChannel target, long offset) throws IOException {
+      DriveInfo drive = api.getDriveInfo(uuid);
+      checkArgument(drive != null, "drive %s not found", uuid);
+      long size = drive.getSize().longValue();
+      checkArgument(offset >= 0 && offset <= size, "offset %s is outside drive %s", offset, uuid);
+
+      Transfer transfer = new Transfer(uuid, offset, size);
+      for (long position = offset; position < size && transfer.acquire(); position += chunkSize) {
+         final long from = position;
+         final int length = (int) Math.min(chunkSize, size - position);
+         transfer.submit(from, length, new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+               downloadChunk(uuid, target, from, length);
+               return null;
+            }
+         });
+      }
+      transfer.awaitCompletion();
+      return transfer.result(uuid);
+   }
+
+   private TransferResult upload(String filename, long size, ChunkSource source) throws IOException {
+      checkNotNull(filename, "filename");
+      checkArgument(size > 0, "cannot upload the empty image %s", filename);
+      String identifier = size + "-" + filename;
+      int chunks = Ints.checkedCast(LongMath.divide(size, chunkSize, RoundingMode.CEILING));
+      int first = firstChunkNotReceived(identifier, size, chunks);
+      if (first > 0)
+         logger.debug(">> resuming upload %s at chunk %d of %d", identifier, first + 1, chunks);
+
+      Transfer transfer = new Transfer(identifier, (long) first * chunkSize, size);
+      try {
+         // the last chunk is sent once all the others are received, so that its response carries
+         // the uuid of the drive
+         for (int index = first; index < chunks - 1 && transfer.acquire(); index++) {
+            final DriveChunk chunk = chunk(identifier, filename, size, index, source);
+            transfer.submit((long) index * chunkSize, chunkSize, new Callable<String>() {
+               @Override
+               public String call() {
+                  return api.uploadDriveChunk(chunk);
+               }
+            });
+         }
+      } catch (IOException e) {
+         transfer.fail(e);
+      }
+      transfer.awaitCompletion();
+
+      final DriveChunk last = chunk(identifier, filename, size, chunks - 1, source);
+      ListenableFuture<String> uuid = transfer.submit((long) (chunks - 1) * chunkSize,
+            (int) (size - (long) (chunks - 1) * chunkSize), new Callable<String>() {
+               @Override
+               public String call() {
+                  return api.uploadDriveChunk(last);
+               }
+            });
+      transfer.awaitCompletion();
+      return transfer.result(emptyToNull(Futures.getUnchecked(uuid).trim()));
+   }
+
+   private int firstChunkNotReceived(String identifier, long size, int chunks) {
+      int index = 0;
+      // the last chunk is always sent again
+      while (index < chunks - 1 && api.hasDriveChunk(identifier, index + 1, chunkSize, size))
+         index++;
+      return index;
+   }
+
+   private DriveChunk chunk(String identifier, String filename, long size, int index, ChunkSource source)
+         throws IOException {
+      long offset = (long) index * chunkSize;
+      return new DriveChunk.Builder()
+            .identifier(identifier)
+            .filename(filename)
+            .number(index + 1)
+            .chunkSize(chunkSize)
+            .totalSize(size)
+            .data(source.read(offset, (int) Math.min(chunkSize, size - offset)))
+            .build();
+   }
+
+   private void downloadChunk(String uuid, FileChannel target, long offset, int length) throws IOException {
+      InputStream in = api.downloadDrive(uuid, String.format("bytes=%d-%d", offset, offset + length - 1));
+      if (in == null)
+         throw new IllegalStateException(String.format("drive %s not found", uuid));
+      byte[] data;
+      try {
+         data = ByteStreams.toByteArray(in);
+      } finally {
+         closeQuietly(in);
+      }
+      if (data.length != length)
+         throw new IOException(String.format("expected %d bytes at offset %d of drive %s, got %d", length, offset,
+               uuid, data.length));
+      ByteBuffer buffer = ByteBuffer.wrap(data);
+      while (buffer.hasRemaining())
+         target.write(buffer, offset + buffer.position());
+   }
+
+   /**
+    * Reads the chunks of an upload, in increasing offsets.
+    */
+   private interface ChunkSource {
+      Payload read(long offset, int length) throws IOException;
+   }
+
+   /**
+    * Runs the chunks of a transfer and tracks which of them are confirmed.
+    */
+   private class Transfer {
+      private final String name;
+      private final long start;
+      private final long size;
+      private final Stopwatch stopwatch = Stopwatch.createStarted();
+      private final Semaphore permits = new Semaphore(parallelChunks);
+      private final List<ListenableFuture<?>> futures = Lists.newArrayList();
+      private final BitSet confirmed = new BitSet();
+      private final AtomicLong bytesTransferred = new AtomicLong();
+      private final AtomicInteger retries = new AtomicInteger();
+      private volatile Throwable failure;
+
+      private Transfer(String name, long start, long size) {
+         this.name = name;
+         this.start = start;
+         this.size = size;
+      }
+
+      /**
+       * Waits until another chunk can be sent.
+       *
+       * @return false if the transfer has failed and no chunk should be sent anymore
+       */
+      private boolean acquire() throws InterruptedIOException {
+         try {
+            permits.acquire();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while transferring " + name);
+         }
+         if (failure != null) {
+            permits.release();
+            return false;
+         }
+         return true;
+      }
+
+      private <T> ListenableFuture<T> submit(final long offset, final int length, final Callable<T> call) {
+         ListenableFuture<T> future = userExecutor.submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+               return withRetries(offset, call);
+            }
+         });
+         futures.add(future);
+         Futures.addCallback(future, new FutureCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+               confirm(offset, length);
+               permits.release();
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+               fail(t);
+               permits.release();
+            }
+         });
+         return future;
+      }
+
+      private <T> T withRetries(long offset, Callable<T> call) throws Exception {
+         for (int attempt = 0; ; attempt++) {
+            if (failure != null)
+               throw new CancellationException("transfer of " + name + " failed");
+            try {
+               return call.call();
+            } catch (Exception e) {
+               if (attempt >= chunkRetries || failure != null)
+                  throw e;
+               retries.incrementAndGet();
+               logger.debug(">> retrying the chunk at offset %d of %s: %s", offset, name, e.getMessage());
+            }
+         }
+      }
+
+      private synchronized void confirm(long offset, int length) {
+         confirmed.set(Ints.checkedCast((offset - start) / chunkSize));
+         bytesTransferred.addAndGet(length);
+      }
+
+      private synchronized void fail(Throwable t) {
+         // keeps the first failure; the chunks failing after it were stopped by it
+         if (failure == null) {
+            logger.warn(t, "transfer of %s failed", name);
+            failure = t;
+         }
+      }
+
+      private synchronized long confirmedOffset() {
+         return Math.min(size, start + (long) confirmed.nextClearBit(0) * chunkSize);
+      }
+
+      /**
+       * Waits for the chunks sent so far.
+       *
+       * @throws IncompleteTransferException if one of them failed
+       */
+      private void awaitCompletion() throws IOException {
+         try {
+            Futures.successfulAsList(futures).get();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while transferring " + name);
+         } catch (ExecutionException e) {
+            // successfulAsList does not fail
+            throw Throwables.propagate(e);
+         }
+         if (failure != null)
+            throw new IncompleteTransferException(name, confirmedOffset(), failure);
+      }
+
+      private TransferResult result(String driveUuid) {
+         TransferResult result = new TransferResult(driveUuid, start, bytesTransferred.get(), retries.get(),
+               stopwatch.elapsed(MILLISECONDS));
+         logger.debug("<< transferred %s: %s", name, result);
+         return result;
+      }
+   }
+}
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudsigma2.transfer;
+
+import java.io.IOException;
+
+/**
+ * Signals that a drive image transfer stopped before all its chunks were transferred. The bytes
+ * before the {@link #getConfirmedOffset() confirmed offset} have been transferred, and the
+ * transfer can be resumed from there.
+ */
+public class IncompleteTransferException extends IOException {
+
+   private static final long serialVersionUID = 1L;
+
+   private final long confirmedOffset;
+
+   public IncompleteTransferException(String name, long confirmedOffset, Throwable cause) {
+      super(String.format("transfer of %s stopped after %d confirmed bytes", name, confirmedOffset), cause);
+      this.confirmedOffset = confirmedOffset;
+   }
+
+   /**
+    * @return number of bytes, from the start of the image, that have been transferred
+    */
+   public long getConfirmedOffset() {
+      return confirmedOffset;
+   }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudsigma2.transfer;
+
+import org.jclouds.javax.annotation.Nullable;
+
+/**
+ * Outcome of a drive image transfer.
+ */
+public class TransferResult {
+
+   private final String driveUuid;
+   private final long resumedFrom;
+   private final long bytesTransferred;
+   private final int retries;
+   private final long elapsedMillis;
+
+   public TransferResult(@Nullable String driveUuid, long resumedFrom, long bytesTransferred, int retries,
+                         long elapsedMillis) {
+      this.driveUuid = driveUuid;
+      this.resumedFrom = resumedFrom;
+      this.bytesTransferred = bytesTransferred;
+      this.retries = retries;
+      this.elapsedMillis = elapsedMillis;
+   }
+
+   /**
+    * @return uuid of the uploaded or downloaded drive
+    */
+   @Nullable
+   public String getDriveUuid() {
+      return driveUuid;
+   }
+
+   /**
+    * @return offset the transfer started at; the bytes before it had been transferred earlier
+    */
+   public long getResumedFrom() {
+      return resumedFrom;
+   }
+
+   /**
+    * @return number of bytes transferred, not counting the retried chunks twice
+    */
+   public long getBytesTransferred() {
+      return bytesTransferred;
+   }
+
+   /**
+    * @return number of chunk transfers that were retried
+    */
+   public int getRetries() {
+      return retries;
+   }
+
+   public long getElapsedMillis() {
+      return elapsedMillis;
+   }
+
+   /**
+    * @return average throughput of the transfer
+    */
+   public long getBytesPerSecond() {
+      return bytesTransferred * 1000 / Math.max(elapsedMillis, 1);
+   }
+
+   @Override
+   public String toString() {
+      return "[" +
+            "driveUuid='" + driveUuid + '\'' +
+            ", resumedFrom=" + resumedFrom +
+            ", bytesTransferred=" + bytesTransferred +
+            ", retries=" + retries +
+            ", elapsedMillis=" + elapsedMillis +
+            ", bytesPerSecond=" + getBytesPerSecond() +
+            "]";
+   }
+}
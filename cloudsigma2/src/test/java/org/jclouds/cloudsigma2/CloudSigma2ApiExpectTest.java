@@ -34,6 +34,7 @@ import org.jclouds.cloudsigma2.domain.IP;
 import org.jclouds.cloudsigma2.domain.IPInfo;
 import org.jclouds.cloudsigma2.domain.LibraryDrive;
 import org.jclouds.cloudsigma2.domain.License;
+import org.jclouds.cloudsigma2.domain.ListRequestFieldsGroup;
 import org.jclouds.cloudsigma2.domain.Pricing;
 import org.jclouds.cloudsigma2.domain.ProfileInfo;
 import org.jclouds.cloudsigma2.domain.Server;
@@ -450,6 +451,32 @@ public class CloudSigma2ApiExpectTest extends BaseRestApiExpectTest<CloudSigma2A
       assertEquals(servers.get(2).getUuid(), "05c16b9a-f2f5-4da6-a1cb-b90722c32212");
    }
 
+   @Test
+   public void testListServersWithFields() throws Exception {
+      CloudSigma2Api api = requestsSendResponses(
+            getBuilder()
+                  .endpoint(endpoint + "servers/")
+                  .addQueryParam("fields", "uuid,name,status")
+                  .build(),
+            responseBuilder()
+                  .payload(payloadFromResourceWithContentType("/servers.json", MediaType.APPLICATION_JSON))
+                  .build(),
+            getBuilder()
+                  .endpoint(endpoint + "servers/")
+                  .addQueryParam("fields", "uuid,name,status")
+                  .addQueryParam("limit", "2")
+                  .addQueryParam("offset", "2")
+                  .build(),
+            responseBuilder()
+                  .payload(payloadFromResourceWithContentType("/servers-last-page.json", MediaType.APPLICATION_JSON))
+                  .build());
+
+      List<Server> servers = api.listServers(ListRequestFieldsGroup.STATUS).concat().toList();
+
+      assertEquals(servers.size(), 3);
+      assertEquals(servers.get(2).getUuid(), "05c16b9a-f2f5-4da6-a1cb-b90722c32212");
+   }
+
    @Test
    public void testListServersPaginatedCollection() throws Exception {
       CloudSigma2Api api = requestSendsResponse(
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudsigma2.billing;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.cloudsigma2.CloudSigma2Api;
+import org.jclouds.cloudsigma2.domain.PaginatedCollection;
+import org.jclouds.cloudsigma2.domain.Transaction;
+import org.jclouds.cloudsigma2.options.PaginationOptions;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+@Test(groups = "unit", testName = "LedgerAggregatorTest")
+public class LedgerAggregatorTest {
+
+   private static final long DAY = TimeUnit.DAYS.toMillis(1);
+   private static final Date TODAY = new Date(16000 * DAY + 3600000);
+   private static final Date YESTERDAY = new Date(TODAY.getTime() - DAY);
+
+   public void testUpdatesReadTheLedgerUpToTheCursor() {
+      CloudSigma2Api api = createMock(CloudSigma2Api.class);
+      expect(api.listTransactions(options(LedgerAggregator.PAGE_SIZE, 0))).andReturn(page(2, 0, 4,
+            transaction(5, 2.0, "Burst: 57783091200 of dssd for 300 seconds at 2013-07-09 07:44:06+00:00", TODAY),
+            transaction(4, 10.0, "Subscription: 2000 of cpu for 1 month", TODAY)));
+      expect(api.listTransactions(options(2, 2))).andReturn(page(2, 2, 4,
+            transaction(3, 1.0, "Burst: 57783091200 of dssd for 299 seconds at 2013-07-08 07:44:06+00:00",
+                  YESTERDAY),
+            transaction(2, -100.0, "Top-up", YESTERDAY)));
+      expect(api.listTransactions(options(LedgerAggregator.PAGE_SIZE, 0))).andReturn(page(2, 0, 5,
+            transaction(6, 0.5, "Burst: 2000 of cpu for 300 seconds at 2013-08-18 07:44:06+00:00",
+                  new Date(TODAY.getTime() + 40 * DAY)),
+            transaction(5, 2.0, "Burst: 57783091200 of dssd for 300 seconds at 2013-07-09 07:44:06+00:00", TODAY)));
+      replay(api);
+
+      LedgerAggregator aggregator = new LedgerAggregator(api);
+
+      assertEquals(aggregator.update(), 4);
+      assertEquals(aggregator.getCursor(), 5);
+      assertEquals(aggregator.getResources(), ImmutableSet.of("dssd", "cpu", LedgerAggregator.OTHER_RESOURCE));
+      assertEquals(aggregator.getCosts("dssd"), new CostBreakdown(3.0, 0, 0));
+      assertEquals(aggregator.getCosts(TODAY, TODAY), new CostBreakdown(2.0, 10.0, 0));
+      assertEquals(aggregator.getCosts(YESTERDAY, TODAY), new CostBreakdown(3.0, 10.0, -100.0));
+
+      assertEquals(aggregator.update(), 1);
+      assertEquals(aggregator.getCursor(), 6);
+      assertEquals(aggregator.getTransactionCount(), 5);
+      assertEquals(aggregator.getCosts("cpu"), new CostBreakdown(0.5, 10.0, 0));
+      assertEquals(aggregator.getCosts("cpu", YESTERDAY, TODAY), new CostBreakdown(0, 10.0, 0));
+      verify(api);
+   }
+
+   public void testResumesFromACheckpoint() {
+      CloudSigma2Api api = createMock(CloudSigma2Api.class);
+      expect(api.listTransactions(options(LedgerAggregator.PAGE_SIZE, 0))).andReturn(page(2, 0, 1,
+            transaction(4, 1.0, "Burst: 2000 of cpu for 300 seconds at 2013-07-09 07:39:06+00:00", TODAY)));
+      expect(api.listTransactions(options(LedgerAggregator.PAGE_SIZE, 0))).andReturn(page(2, 0, 2,
+            transaction(5, 2.0, "Burst: 2000 of cpu for 300 seconds at 2013-07-09 07:44:06+00:00", TODAY),
+            transaction(4, 1.0, "Burst: 2000 of cpu for 300 seconds at 2013-07-09 07:39:06+00:00", TODAY)));
+      replay(api);
+
+      LedgerAggregator aggregator = new LedgerAggregator(api);
+      assertEquals(aggregator.update(), 1);
+      LedgerAggregator.Checkpoint checkpoint = aggregator.checkpoint();
+      assertEquals(checkpoint.getCursor(), 4);
+
+      LedgerAggregator resumed = new LedgerAggregator(api);
+      resumed.restore(checkpoint);
+
+      assertEquals(resumed.update(), 1);
+      assertEquals(resumed.getTransactionCount(), 2);
+      assertEquals(resumed.getCosts("cpu").getBurst(), 3.0);
+      assertEquals(resumed.getCosts(TODAY, TODAY).getBurst(), 3.0);
+      assertEquals(aggregator.getCosts("cpu").getBurst(), 1.0);
+      verify(api);
+   }
+
+   public void testFailedUpdatesAggregateNothing() {
+      CloudSigma2Api api = createMock(CloudSigma2Api.class);
+      expect(api.listTransactions(options(LedgerAggregator.PAGE_SIZE, 0))).andReturn(page(2, 0, 3,
+            transaction(3, 2.0, "Burst: 2000 of cpu for 300 seconds at 2013-07-09 07:44:06+00:00", TODAY),
+            transaction(2, 1.0, "Burst: 2000 of cpu for 300 seconds at 2013-07-09 07:39:06+00:00", TODAY)))
+            .times(2);
+      expect(api.listTransactions(options(2, 2))).andThrow(new IllegalStateException("ledger unavailable"));
+      expect(api.listTransactions(options(2, 2))).andReturn(page(2, 2, 3,
+            transaction(1, 4.0, "Burst: 2000 of cpu for 300 seconds at 2013-07-09 07:34:06+00:00", TODAY)));
+      replay(api);
+
+      LedgerAggregator aggregator = new LedgerAggregator(api);
+      try {
+         aggregator.update();
+         fail("the second page could not be read");
+      } catch (IllegalStateException e) {
+         assertEquals(aggregator.getCursor(), 0);
+         assertEquals(aggregator.getTransactionCount(), 0);
+         assertEquals(aggregator.getCosts("cpu").getBurst(), 0.0);
+      }
+
+      assertEquals(aggregator.update(), 3);
+      assertEquals(aggregator.getCursor(), 3);
+      assertEquals(aggregator.getCosts("cpu").getBurst(), 7.0);
+      verify(api);
+   }
+
+   public void testRollupsGrowWithTheResourcesAndTheDays() {
+      LedgerAggregator aggregator = new LedgerAggregator(createMock(CloudSigma2Api.class));
+      for (int day = 0; day < 100; day++) {
+         Date date = new Date(TODAY.getTime() - day * DAY);
+         for (int resource = 0; resource < 10; resource++) {
+            aggregator.add(transaction(1, 1.0, "Burst: 1 of resource" + resource + " for 300 seconds", date));
+         }
+      }
+
+      assertEquals(aggregator.getResources().size(), 10);
+      assertEquals(aggregator.getCosts("resource9").getBurst(), 100.0);
+      assertEquals(aggregator.getCosts(new Date(TODAY.getTime() - 99 * DAY), TODAY).getBurst(), 1000.0);
+      assertEquals(aggregator.getCosts("resource0", TODAY, TODAY).getBurst(), 1.0);
+      assertEquals(aggregator.getCosts("unknown", YESTERDAY, TODAY), new CostBreakdown(0, 0, 0));
+   }
+
+   private static PaginationOptions options(int limit, int offset) {
+      return new PaginationOptions.Builder().limit(limit).offset(offset).build();
+   }
+
+   private static PaginatedCollection<Transaction> page(int limit, int offset, int totalCount,
+                                                        Transaction... transactions) {
+      return new PaginatedCollection<Transaction>(ImmutableList.copyOf(transactions),
+            new PaginationOptions(limit, offset, totalCount));
+   }
+
+   private static Transaction transaction(long id, double amount, String reason, Date time) {
+      return new Transaction.Builder().id(String.valueOf(id)).amount(amount).reason(reason).time(time).build();
+   }
+}
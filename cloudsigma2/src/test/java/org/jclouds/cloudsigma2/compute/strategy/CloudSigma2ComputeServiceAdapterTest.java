@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudsigma2.compute.strategy;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createStrictControl;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import org.easymock.IMocksControl;
+import org.jclouds.cloudsigma2.CloudSigma2Api;
+import org.jclouds.cloudsigma2.domain.DeviceEmulationType;
+import org.jclouds.cloudsigma2.domain.Drive;
+import org.jclouds.cloudsigma2.domain.LibraryDrive;
+import org.jclouds.cloudsigma2.domain.Server;
+import org.jclouds.cloudsigma2.domain.ServerInfo;
+import org.jclouds.cloudsigma2.domain.ServerStatus;
+import org.jclouds.compute.ComputeServiceAdapter.NodeAndInitialCredentials;
+import org.jclouds.compute.domain.Hardware;
+import org.jclouds.compute.domain.HardwareBuilder;
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.Processor;
+import org.jclouds.compute.domain.Template;
+import org.jclouds.compute.options.TemplateOptions;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+
+@Test(groups = "unit", testName = "CloudSigma2ComputeServiceAdapterTest")
+public class CloudSigma2ComputeServiceAdapterTest {
+
+   public void testRebootWaitsForTheServerToStop() {
+      IMocksControl control = createStrictControl();
+      CloudSigma2Api api = control.createMock(CloudSigma2Api.class);
+      ReadinessTracker tracker = control.createMock(ReadinessTracker.class);
+      api.stopServer("1");
+      expect(tracker.serverStopped("1")).andReturn(Futures.immediateFuture(server("1", ServerStatus.STOPPED)));
+      api.startServer("1");
+      control.replay();
+
+      adapter(api, tracker).rebootNode("1");
+
+      control.verify();
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testBatchIsNotBlockedByTheDrivesBeingCloned() throws Exception {
+      CloudSigma2Api api = createMock(CloudSigma2Api.class);
+      ReadinessTracker tracker = createMock(ReadinessTracker.class);
+      SettableFuture<Drive> drive = SettableFuture.create();
+      expect(api.cloneLibraryDrive(eq("image"), anyObject(LibraryDrive.class))).andReturn(libraryDrive("d1"));
+      expect(tracker.driveReady("d1")).andReturn(drive);
+      expect(api.createServers(anyObject(Iterable.class))).andReturn(ImmutableList.of(serverInfo("s1", "node-1",
+            ServerStatus.STOPPED, "d1")));
+      api.startServer("s1");
+      expect(tracker.serverRunning("s1")).andReturn(Futures.immediateFuture(server("s1", ServerStatus.RUNNING)));
+      expect(api.getServerInfo("s1")).andReturn(serverInfo("s1", "node-1", ServerStatus.RUNNING, "d1"));
+      replay(api, tracker);
+
+      // the executor runs every task in the calling thread, so a task waiting for the drive would never return
+      ListenableFuture<NodeAndInitialCredentials<ServerInfo>> node = adapter(api, tracker)
+            .createNodesWithGroupEncodedIntoNames("group", ImmutableSet.of("node-1"), template()).get("node-1");
+      assertFalse(node.isDone());
+
+      drive.set(new Drive.Builder().uuid("d1").build());
+      assertEquals(node.get().getNodeId(), "s1");
+      assertEquals(node.get().getCredentials().getOptionalPassword().get(), "secret");
+      verify(api, tracker);
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testResourcesOfTheFailedNodesAreDestroyed() throws Exception {
+      CloudSigma2Api api = createMock(CloudSigma2Api.class);
+      ReadinessTracker tracker = createMock(ReadinessTracker.class);
+      expect(api.cloneLibraryDrive(eq("image"), anyObject(LibraryDrive.class))).andReturn(libraryDrive("d1"));
+      expect(api.cloneLibraryDrive(eq("image"), anyObject(LibraryDrive.class))).andReturn(libraryDrive("d2"));
+      expect(tracker.driveReady("d1")).andReturn(Futures.immediateFuture(new Drive.Builder().uuid("d1").build()));
+      expect(tracker.driveReady("d2")).andReturn(Futures.immediateFuture(new Drive.Builder().uuid("d2").build()));
+      // the server of the second node is not created
+      expect(api.createServers(anyObject(Iterable.class))).andReturn(ImmutableList.of(serverInfo("s1", "node-1",
+            ServerStatus.STOPPED, "d1")));
+      api.deleteDrive("d2");
+      // and the first one does not start
+      api.startServer("s1");
+      expect(tracker.serverRunning("s1")).andReturn(Futures.<Server> immediateFailedFuture(
+            new IllegalStateException("server s1 is unavailable")));
+      expect(api.getServerInfo("s1")).andReturn(serverInfo("s1", "node-1", ServerStatus.STOPPED, "d1"));
+      api.deleteServer("s1");
+      api.deleteDrives(ImmutableList.of("d1"));
+      replay(api, tracker);
+
+      Map<String, ListenableFuture<NodeAndInitialCredentials<ServerInfo>>> nodes = adapter(api, tracker)
+            .createNodesWithGroupEncodedIntoNames("group", ImmutableSet.of("node-1", "node-2"), template());
+
+      for (ListenableFuture<NodeAndInitialCredentials<ServerInfo>> node : nodes.values()) {
+         try {
+            node.get();
+            fail("the node should have failed");
+         } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+         }
+      }
+      verify(api, tracker);
+   }
+
+   private static CloudSigma2ComputeServiceAdapter adapter(CloudSigma2Api api, ReadinessTracker tracker) {
+      return new CloudSigma2ComputeServiceAdapter(api, tracker, MoreExecutors.newDirectExecutorService(), "secret");
+   }
+
+   private static Template template() {
+      Image image = createMock(Image.class);
+      expect(image.getId()).andReturn("image").anyTimes();
+      Hardware hardware = new HardwareBuilder().ids("cpu=2000,ram=1024").processor(new Processor(1, 2000))
+            .ram(1024).build();
+      Template template = createMock(Template.class);
+      expect(template.getImage()).andReturn(image).anyTimes();
+      expect(template.getHardware()).andReturn(hardware).anyTimes();
+      expect(template.getOptions()).andReturn(new TemplateOptions()).anyTimes();
+      replay(image, template);
+      return template;
+   }
+
+   private static LibraryDrive libraryDrive(String uuid) {
+      return new LibraryDrive.Builder().uuid(uuid).name("drive-" + uuid).build();
+   }
+
+   private static Server server(String uuid, ServerStatus status) {
+      return new Server.Builder().uuid(uuid).name("server-" + uuid).status(status).build();
+   }
+
+   private static ServerInfo serverInfo(String uuid, String name, ServerStatus status, String drive) {
+      return new ServerInfo.Builder().uuid(uuid).name(name).status(status)
+            .drives(ImmutableList.of(new Drive.Builder().uuid(drive).build().toServerDrive(1, "0:0",
+                  DeviceEmulationType.VIRTIO))).build();
+   }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudsigma2.compute.strategy;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
+
+import org.jclouds.cloudsigma2.CloudSigma2Api;
+import org.jclouds.cloudsigma2.domain.Drive;
+import org.jclouds.cloudsigma2.domain.DriveStatus;
+import org.jclouds.cloudsigma2.domain.ListRequestFieldsGroup;
+import org.jclouds.cloudsigma2.domain.Server;
+import org.jclouds.cloudsigma2.domain.ServerStatus;
+import org.jclouds.collect.IterableWithMarkers;
+import org.jclouds.collect.PagedIterables;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+
+@Test(groups = "unit", testName = "ReadinessTrackerTest")
+public class ReadinessTrackerTest {
+
+   public void testServersOfABatchAreListedOncePerTick() throws Exception {
+      CloudSigma2Api api = createMock(CloudSigma2Api.class);
+      expect(api.listServers(ListRequestFieldsGroup.STATUS)).andReturn(PagedIterables.onlyPage(IterableWithMarkers.from(ImmutableList.of(
+            server("1", ServerStatus.RUNNING), server("2", ServerStatus.STARTING),
+            server("3", ServerStatus.UNAVAILABLE)))));
+      replay(api);
+
+      ReadinessTracker tracker = new ReadinessTracker(api, createNiceMock(ScheduledExecutorService.class), 1000,
+            60000);
+      ListenableFuture<Server> first = tracker.serverRunning("1");
+      ListenableFuture<Server> second = tracker.serverRunning("2");
+      ListenableFuture<Server> third = tracker.serverRunning("3");
+      tracker.poll();
+
+      assertEquals(first.get().getUuid(), "1");
+      assertFalse(second.isDone());
+      try {
+         third.get();
+         fail("server 3 is unavailable");
+      } catch (ExecutionException e) {
+         assertTrue(e.getCause() instanceof IllegalStateException);
+      }
+      verify(api);
+   }
+
+   public void testAServerCanBeWaitedForToStopAndToRun() throws Exception {
+      CloudSigma2Api api = createMock(CloudSigma2Api.class);
+      expect(api.listServers(ListRequestFieldsGroup.STATUS)).andReturn(PagedIterables.onlyPage(IterableWithMarkers.from(ImmutableList.of(
+            server("1", ServerStatus.STOPPED)))));
+      replay(api);
+
+      ReadinessTracker tracker = new ReadinessTracker(api, createNiceMock(ScheduledExecutorService.class), 1000,
+            60000);
+      ListenableFuture<Server> stopped = tracker.serverStopped("1");
+      ListenableFuture<Server> running = tracker.serverRunning("1");
+      tracker.poll();
+
+      assertEquals(stopped.get().getStatus(), ServerStatus.STOPPED);
+      assertFalse(running.isDone());
+      verify(api);
+   }
+
+   public void testDrivesAreReadyOnceUnmounted() throws Exception {
+      CloudSigma2Api api = createMock(CloudSigma2Api.class);
+      expect(api.listDrives(ListRequestFieldsGroup.STATUS)).andReturn(PagedIterables.onlyPage(IterableWithMarkers.from(ImmutableList.of(
+            drive("1", DriveStatus.UNMOUNTED), drive("2", DriveStatus.COPYING)))));
+      replay(api);
+
+      ReadinessTracker tracker = new ReadinessTracker(api, createNiceMock(ScheduledExecutorService.class), 1000,
+            60000);
+      ListenableFuture<Drive> ready = tracker.driveReady("1");
+      ListenableFuture<Drive> copying = tracker.driveReady("2");
+      tracker.poll();
+
+      assertEquals(ready.get().getUuid(), "1");
+      assertFalse(copying.isDone());
+      verify(api);
+   }
+
+   public void testResourcesThatAreNotReadyInTimeFail() throws Exception {
+      CloudSigma2Api api = createMock(CloudSigma2Api.class);
+      expect(api.listServers(ListRequestFieldsGroup.STATUS)).andReturn(PagedIterables.onlyPage(IterableWithMarkers.from(ImmutableList.of(
+            server("1", ServerStatus.STARTING)))));
+      replay(api);
+
+      ReadinessTracker tracker = new ReadinessTracker(api, createNiceMock(ScheduledExecutorService.class), 1000, -1);
+      ListenableFuture<Server> server = tracker.serverRunning("1");
+      tracker.poll();
+
+      try {
+         server.get();
+         fail("server 1 did not start in time");
+      } catch (ExecutionException e) {
+         assertTrue(e.getCause() instanceof TimeoutException);
+      }
+      verify(api);
+   }
+
+   public void testResourcesRemovedWhileTrackedFail() throws Exception {
+      CloudSigma2Api api = createMock(CloudSigma2Api.class);
+      expect(api.listDrives(ListRequestFieldsGroup.STATUS)).andReturn(PagedIterables.onlyPage(IterableWithMarkers.from(ImmutableList.of(
+            drive("1", DriveStatus.COPYING), drive("2", DriveStatus.COPYING)))));
+      expect(api.listDrives(ListRequestFieldsGroup.STATUS)).andReturn(PagedIterables.onlyPage(IterableWithMarkers.from(ImmutableList.of(
+            drive("2", DriveStatus.COPYING)))));
+      replay(api);
+
+      ReadinessTracker tracker = new ReadinessTracker(api, createNiceMock(ScheduledExecutorService.class), 1000,
+            60000);
+      ListenableFuture<Drive> removed = tracker.driveReady("1");
+      ListenableFuture<Drive> copying = tracker.driveReady("2");
+      tracker.poll();
+      assertFalse(removed.isDone());
+      tracker.poll();
+
+      try {
+         removed.get();
+         fail("drive 1 was removed");
+      } catch (ExecutionException e) {
+         assertTrue(e.getCause() instanceof IllegalStateException);
+      }
+      assertFalse(copying.isDone());
+      verify(api);
+   }
+
+   private static Server server(String uuid, ServerStatus status) {
+      return new Server.Builder().uuid(uuid).name("server-" + uuid).status(status).build();
+   }
+
+   private static Drive drive(String uuid, DriveStatus status) {
+      return new Drive.Builder().uuid(uuid).name("drive-" + uuid).status(status).build();
+   }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudsigma2.functions.internal;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.jclouds.cloudsigma2.domain.PaginatedCollection;
+import org.jclouds.cloudsigma2.options.PaginationOptions;
+import org.jclouds.collect.IterableWithMarker;
+import org.jclouds.collect.PagedIterable;
+import org.jclouds.collect.PagedIterables;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+
+@Test(groups = "unit", testName = "PrefetchingNextPageTest")
+public class PrefetchingNextPageTest {
+
+   public void testFetchesAllPagesInOrder() {
+      RecordingNextPage nextPage = new RecordingNextPage();
+      PagedIterable<Integer> pages = iterable(nextPage, 2);
+
+      assertEquals(pages.concat().toList(), ImmutableList.of(0, 1, 2, 3, 4, 5, 6));
+      assertEquals(nextPage.offsets, ImmutableList.of(2, 4, 6));
+   }
+
+   public void testFetchesOnlyTheWindowWhenIterationStopsEarly() {
+      RecordingNextPage nextPage = new RecordingNextPage();
+      PagedIterable<Integer> pages = iterable(nextPage, 1);
+
+      Iterator<IterableWithMarker<Integer>> iterator = pages.iterator();
+      iterator.next();
+      assertEquals(nextPage.offsets, ImmutableList.of());
+
+      iterator.next();
+      assertEquals(nextPage.offsets, ImmutableList.of(2, 4));
+   }
+
+   private static PagedIterable<Integer> iterable(RecordingNextPage nextPage, int maxPagesAhead) {
+      PaginationOptions options = new PaginationOptions(2, 0, 7);
+      return PagedIterables.advance(new PaginatedCollection<Integer>(ImmutableList.of(0, 1), options),
+            new PrefetchingNextPage<Integer>(nextPage, options, MoreExecutors.newDirectExecutorService(),
+                  maxPagesAhead));
+   }
+
+   /**
+    * Returns the elements of the requested page, whose values are their positions in the listing.
+    */
+   private static class RecordingNextPage implements Function<Object, IterableWithMarker<Integer>> {
+      private final List<Integer> offsets = Lists.newArrayList();
+
+      @Override
+      public IterableWithMarker<Integer> apply(Object marker) {
+         PaginationOptions options = PaginationOptions.class.cast(marker);
+         offsets.add(options.getOffset());
+         List<Integer> page = Lists.newArrayList();
+         for (int i = options.getOffset(); i < Math.min(7, options.getOffset() + options.getLimit()); i++) {
+            page.add(i);
+         }
+         return new PaginatedCollection<Integer>(page, new PaginationOptions(options.getLimit(),
+               options.getOffset(), 7));
+      }
+   }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudsigma2.transfer;
+
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static org.jclouds.cloudsigma2.config.CloudSigma2Properties.PROPERTY_TRANSFER_CHUNK_RETRIES;
+import static org.jclouds.cloudsigma2.config.CloudSigma2Properties.PROPERTY_TRANSFER_CHUNK_SIZE;
+import static org.jclouds.cloudsigma2.config.CloudSigma2Properties.PROPERTY_TRANSFER_PARALLEL_CHUNKS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.Properties;
+
+import org.jclouds.Constants;
+import org.jclouds.ContextBuilder;
+import org.jclouds.concurrent.config.ExecutorServiceModule;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+import com.google.inject.Module;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+@Test(groups = "unit", testName = "DriveTransferServiceMockTest", singleThreaded = true)
+public class DriveTransferServiceMockTest {
+
+   public void testUploadSkipsReceivedChunksAndRetriesFailedOnes() throws Exception {
+      MockWebServer server = mockWebServer();
+      server.enqueue(new MockResponse().setResponseCode(200));
+      server.enqueue(new MockResponse().setResponseCode(204));
+      server.enqueue(new MockResponse().setResponseCode(500));
+      server.enqueue(new MockResponse().setResponseCode(200));
+      server.enqueue(new MockResponse().setBody("5b1d6a4b-8a4f-4a6d-9b24-7b1c2e7e0a11\n"));
+
+      try {
+         Payload image = Payloads.newByteArrayPayload("0123456789".getBytes(Charsets.UTF_8));
+         TransferResult result = transferService(server).upload("image.raw", image);
+
+         assertEquals(result.getDriveUuid(), "5b1d6a4b-8a4f-4a6d-9b24-7b1c2e7e0a11");
+         assertEquals(result.getResumedFrom(), 4);
+         assertEquals(result.getBytesTransferred(), 6);
+         assertEquals(result.getRetries(), 1);
+
+         assertEquals(server.takeRequest().getRequestLine(), "GET /drives/upload/?resumableIdentifier=10-image.raw"
+               + "&resumableChunkNumber=1&resumableChunkSize=4&resumableTotalSize=10 HTTP/1.1");
+         assertEquals(server.takeRequest().getRequestLine(), "GET /drives/upload/?resumableIdentifier=10-image.raw"
+               + "&resumableChunkNumber=2&resumableChunkSize=4&resumableTotalSize=10 HTTP/1.1");
+         assertChunk(server.takeRequest(), 2, "4567");
+         assertChunk(server.takeRequest(), 2, "4567");
+         assertChunk(server.takeRequest(), 3, "89");
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   public void testDownloadResumesFromTheConfirmedOffset() throws Exception {
+      MockWebServer server = mockWebServer();
+      server.enqueue(drive(10));
+      server.enqueue(new MockResponse().setResponseCode(206).setBody("0123"));
+      server.enqueue(new MockResponse().setResponseCode(500));
+      server.enqueue(new MockResponse().setResponseCode(500));
+      server.enqueue(drive(10));
+      server.enqueue(new MockResponse().setResponseCode(206).setBody("4567"));
+      server.enqueue(new MockResponse().setResponseCode(206).setBody("89"));
+
+      File file = File.createTempFile("drive", ".raw");
+      RandomAccessFile target = new RandomAccessFile(file, "rw");
+      try {
+         DriveTransferService transferService = transferService(server);
+         FileChannel channel = target.getChannel();
+         long confirmedOffset = 0;
+         try {
+            transferService.download("d1", channel);
+            fail("the second chunk cannot be downloaded");
+         } catch (IncompleteTransferException e) {
+            confirmedOffset = e.getConfirmedOffset();
+         }
+         assertEquals(confirmedOffset, 4);
+
+         TransferResult result = transferService.download("d1", channel, confirmedOffset);
+
+         assertEquals(result.getResumedFrom(), 4);
+         assertEquals(result.getBytesTransferred(), 6);
+         assertEquals(Files.toString(file, Charsets.UTF_8), "0123456789");
+
+         assertEquals(server.takeRequest().getRequestLine(), "GET /drives/d1/ HTTP/1.1");
+         assertEquals(server.takeRequest().getHeader("Range"), "bytes=0-3");
+         assertEquals(server.takeRequest().getHeader("Range"), "bytes=4-7");
+         assertEquals(server.takeRequest().getHeader("Range"), "bytes=4-7");
+         assertEquals(server.takeRequest().getRequestLine(), "GET /drives/d1/ HTTP/1.1");
+         assertEquals(server.takeRequest().getHeader("Range"), "bytes=4-7");
+         assertEquals(server.takeRequest().getHeader("Range"), "bytes=8-9");
+      } finally {
+         target.close();
+         file.delete();
+         server.shutdown();
+      }
+   }
+
+   private static void assertChunk(RecordedRequest request, int number, String data) {
+      assertEquals(request.getRequestLine(), "POST /drives/upload/ HTTP/1.1");
+      String body = request.getUtf8Body();
+      assertTrue(body.matches("(?s).*name=\"resumableChunkNumber\"(\r\n[^\r\n]+)*\r\n\r\n" + number
+            + "\r\n.*"), body);
+      assertTrue(body.contains("\r\n\r\n" + data + "\r\n"), body);
+   }
+
+   private static MockResponse drive(long size) {
+      return new MockResponse().setBody("{\"uuid\": \"d1\", \"name\": \"image.raw\", \"size\": " + size
+            + ", \"status\": \"unmounted\"}");
+   }
+
+   private static DriveTransferService transferService(MockWebServer server) {
+      Properties overrides = new Properties();
+      overrides.setProperty(PROPERTY_TRANSFER_CHUNK_SIZE, "4");
+      overrides.setProperty(PROPERTY_TRANSFER_PARALLEL_CHUNKS, "2");
+      overrides.setProperty(PROPERTY_TRANSFER_CHUNK_RETRIES, "1");
+      // only the retries of the transfer are counted
+      overrides.setProperty(Constants.PROPERTY_MAX_RETRIES, "0");
+      return ContextBuilder.newBuilder("cloudsigma2")
+            .credentials("identity", "credential")
+            .endpoint(server.getUrl("/").toString())
+            .modules(ImmutableSet.<Module>of(new ExecutorServiceModule(newDirectExecutorService(),
+                  newDirectExecutorService())))
+            .overrides(overrides)
+            .buildInjector()
+            .getInstance(DriveTransferService.class);
+   }
+
+   private static MockWebServer mockWebServer() throws IOException {
+      MockWebServer server = new MockWebServer();
+      server.play();
+      return server;
+   }
+}
@@ -16,6 +16,9 @@
  */
 package org.jclouds.fujitsu.fgcp;
 
+import static org.jclouds.fujitsu.fgcp.reference.FGCPProperties.PROPERTY_DEPLOY_IN_BULK;
+import static org.jclouds.fujitsu.fgcp.reference.FGCPProperties.PROPERTY_DEPLOY_POLL_PERIOD;
+import static org.jclouds.fujitsu.fgcp.reference.FGCPProperties.PROPERTY_LIST_NODES_PARALLELISM;
 import static org.jclouds.reflect.Reflection2.typeToken;
 
 import java.net.URI;
@@ -23,6 +26,7 @@ import java.util.Properties;
 
 import org.jclouds.Constants;
 import org.jclouds.compute.ComputeServiceContext;
+import org.jclouds.concurrent.config.ScheduledExecutorServiceModule;
 import org.jclouds.fujitsu.fgcp.compute.config.FGCPComputeServiceContextModule;
 import org.jclouds.fujitsu.fgcp.config.FGCPHttpApiModule;
 import org.jclouds.rest.internal.BaseHttpApiMetadata;
@@ -58,6 +62,9 @@ public class FGCPApiMetadata extends BaseHttpApiMetadata<FGCPApi> {
       // Tuning retry parameters accordingly:
       properties.setProperty(Constants.PROPERTY_RETRY_DELAY_START, "10000L"); // 10 sec.
       properties.setProperty(Constants.PROPERTY_MAX_RETRIES, "100"); // means 1000s (17min) timeout
+      properties.setProperty(PROPERTY_LIST_NODES_PARALLELISM, "8");
+      properties.setProperty(PROPERTY_DEPLOY_POLL_PERIOD, "5000");
+      properties.setProperty(PROPERTY_DEPLOY_IN_BULK, "false");
       return properties;
    }
 
@@ -78,7 +85,8 @@ public class FGCPApiMetadata extends BaseHttpApiMetadata<FGCPApi> {
                .defaultModules(
                      ImmutableSet.<Class<? extends Module>> of(
                            FGCPComputeServiceContextModule.class,
-                           FGCPHttpApiModule.class));
+                           FGCPHttpApiModule.class,
+                           ScheduledExecutorServiceModule.class));
       }
 
       @Override
@@ -36,6 +36,7 @@ import org.jclouds.compute.domain.NodeMetadata.Status;
 import org.jclouds.compute.domain.NodeMetadataBuilder;
 import org.jclouds.compute.functions.GroupNamingConvention;
 import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.domain.Credentials;
 import org.jclouds.domain.Location;
 import org.jclouds.domain.LoginCredentials;
 import org.jclouds.fujitsu.fgcp.compute.strategy.VServerMetadata;
@@ -82,6 +83,7 @@ public class VServerMetadataToNodeMetadata implements
    protected final Supplier<Set<? extends Image>> images;
    protected final Supplier<Set<? extends Hardware>> hardwares;
    protected final GroupNamingConvention nodeNamingConvention;
+   protected final Map<String, Credentials> credentialStore;
 
    private static class FindImageForVServer implements Predicate<Image> {
       private final VServer server;
@@ -160,12 +162,14 @@ public class VServerMetadataToNodeMetadata implements
          @Memoized Supplier<Set<? extends Location>> locations,
          @Memoized Supplier<Set<? extends Image>> images,
          @Memoized Supplier<Set<? extends Hardware>> hardwares,
-         GroupNamingConvention.Factory namingConvention) {
+         GroupNamingConvention.Factory namingConvention,
+         Map<String, Credentials> credentialStore) {
       this.images = checkNotNull(images, "images");
       this.locations = checkNotNull(locations, "locations");
       this.hardwares = checkNotNull(hardwares, "hardwares");
       this.nodeNamingConvention = checkNotNull(namingConvention,
             "namingConvention").createWithoutPrefix();
+      this.credentialStore = checkNotNull(credentialStore, "credentialStore");
    }
 
    @Override
@@ -203,8 +207,12 @@ public class VServerMetadataToNodeMetadata implements
          builder.imageId(from.getServer().getDiskimageId());
          builder.hardware(parseHardware(from.getServer().getType()));
 
-         LoginCredentials.Builder credentialsBuilder = LoginCredentials
-               .builder().password(from.getInitialPassword());
+         LoginCredentials.Builder credentialsBuilder = LoginCredentials.builder();
+         // the initial password takes a request of its own, and the stored
+         // credentials take precedence over it anyway
+         if (!credentialStore.containsKey("node#" + from.getId())) {
+            credentialsBuilder.password(from.getInitialPassword());
+         }
 
          Image image = parseImage(from.getServer());
          // image will not be found if server was created a while back and
@@ -16,17 +16,25 @@
  */
 package org.jclouds.fujitsu.fgcp.compute.strategy;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
-import static com.google.common.collect.Iterables.contains;
-import static com.google.common.collect.Iterables.filter;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.fujitsu.fgcp.reference.FGCPProperties.PROPERTY_DEPLOY_IN_BULK;
+import static org.jclouds.fujitsu.fgcp.reference.FGCPProperties.PROPERTY_LIST_NODES_PARALLELISM;
 import static org.jclouds.util.Predicates2.retry;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.inject.Provider;
 import javax.inject.Singleton;
 
 import org.jclouds.compute.ComputeServiceAdapter;
@@ -50,11 +58,21 @@ import org.jclouds.fujitsu.fgcp.domain.VServerWithDetails;
 import org.jclouds.fujitsu.fgcp.domain.VServerWithVNICs;
 import org.jclouds.fujitsu.fgcp.domain.VSystem;
 import org.jclouds.fujitsu.fgcp.domain.VSystemWithDetails;
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.logging.Logger;
 import org.jclouds.rest.ResourceNotFoundException;
 
 import com.google.common.base.Predicate;
+import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 /**
  * Defines the connection between the {@link org.jclouds.fujitsu.fgcp.FGCPApi}
@@ -74,34 +92,56 @@ public class FGCPComputeServiceAdapter implements
    protected Predicate<String> serverCreated = null;
    protected ResourceIdToFirewallId toFirewallId = null;
    protected ResourceIdToSystemId toSystemId = null;
+   private final ListeningExecutorService userExecutor;
+   private final int listParallelism;
+   private final Provider<ServerDeployer> deployer;
+   private final boolean deployInBulk;
 
    @Inject
    public FGCPComputeServiceAdapter(FGCPApi api, ServerStopped serverStopped,
          ServerStarted serverStarted, Timeouts timeouts,
          ResourceIdToFirewallId toFirewallId,
-         ResourceIdToSystemId toSystemId) {
+         ResourceIdToSystemId toSystemId,
+         @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         @Named(PROPERTY_LIST_NODES_PARALLELISM) int listParallelism,
+         Provider<ServerDeployer> deployer,
+         @Named(PROPERTY_DEPLOY_IN_BULK) boolean deployInBulk) {
+      checkArgument(listParallelism > 0, "listParallelism must be positive");
       this.api = checkNotNull(api, "api");
       this.serverStopped = retry(checkNotNull(serverStopped), timeouts.nodeSuspended);
       this.serverStarted = retry(checkNotNull(serverStarted), timeouts.nodeRunning);
       this.serverCreated = retry(checkNotNull(serverStopped), timeouts.nodeRunning);
       this.toFirewallId = checkNotNull(toFirewallId, "ResourceIdToFirewallId");
       this.toSystemId = checkNotNull(toSystemId, "ResourceIdToSystemId");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+      this.listParallelism = listParallelism;
+      this.deployer = checkNotNull(deployer, "ServerDeployer");
+      this.deployInBulk = deployInBulk;
    }
 
    /**
     * {@inheritDoc}
+    * <p/>
+    * When deploying in bulk, the server is queued on the {@link ServerDeployer}
+    * along with the other servers of its system, and is returned once it is
+    * running.
     */
    @Override
    public NodeAndInitialCredentials<VServerMetadata> createNodeWithGroupEncodedIntoName(
          String group, String name, Template template) {
-      String id = api.getVirtualSystemApi().createServer(name,
-            template.getHardware().getName(), template.getImage().getId(),
-            template.getLocation().getId());
-
-      // wait until fully created (i.e. transitions to stopped status)
-      checkState(serverCreated.apply(id), "node %s not reaching STOPPED state after creation", id);
-      resumeNode(id);
-      // don't wait until fully started, template "optionToNotBlock" takes care of that
+      String id;
+      if (deployInBulk) {
+         id = deploy(name, template);
+      } else {
+         id = api.getVirtualSystemApi().createServer(name,
+               template.getHardware().getName(), template.getImage().getId(),
+               template.getLocation().getId());
+
+         // wait until fully created (i.e. transitions to stopped status)
+         checkState(serverCreated.apply(id), "node %s not reaching STOPPED state after creation", id);
+         resumeNode(id);
+         // don't wait until fully started, template "optionToNotBlock" takes care of that
+      }
       VServerMetadata server = getNode(id);
 
       // do we need this?
@@ -112,6 +152,22 @@ public class FGCPComputeServiceAdapter implements
             .password(server.getInitialPassword()).build());
    }
 
+   private String deploy(String name, Template template) {
+      // the deployer, and its poller, are only created once a server is deployed in bulk
+      ServerDeployment deployment = deployer.get().deploy(name, template.getHardware().getName(),
+            template.getImage().getId(), template.getLocation().getId());
+      try {
+         return deployment.getFuture().get();
+      } catch (InterruptedException e) {
+         // the deployer destroys the server of a cancelled deployment
+         deployment.getFuture().cancel(false);
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(e);
+      } catch (ExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      }
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -164,7 +220,7 @@ public class FGCPComputeServiceAdapter implements
          logger.trace("Node %s [%s] - %s", id, status, server);
          builder.serverWithDetails(server);
          builder.status(status);
-         builder.initialPassword(api.getVirtualServerApi().getInitialPassword(id));
+         builder.initialPassword(initialPassword(id));
 
          // mapped public ips?
 //       String fwId = toFirewallId.apply(id);
@@ -182,39 +238,143 @@ public class FGCPComputeServiceAdapter implements
       return "firewall".equals(serverType) || "slb".equals(serverType);
    }
 
+   private Supplier<String> initialPassword(final String id) {
+      return new Supplier<String>() {
+         @Override
+         public String get() {
+            String password = api.getVirtualServerApi().getInitialPassword(id);
+            return password == null ? "" : password;
+         }
+
+         @Override
+         public String toString() {
+            return "initialPassword(" + id + ")";
+         }
+      };
+   }
+
    /**
     * {@inheritDoc}
+    * <p/>
+    * The systems are looked up in parallel, and the servers are taken from
+    * the system details, so only their status takes a request per server.
     */
    @Override
    public Iterable<VServerMetadata> listNodes() {
-      ImmutableSet.Builder<VServerMetadata> servers = ImmutableSet.<VServerMetadata> builder();
-
-      Set<VSystem> systems = api.getVirtualDCApi().listVirtualSystems();
-      for (VSystem system : systems) {
+      Set<String> systemIds = Sets.newLinkedHashSet();
+      for (VSystem system : api.getVirtualDCApi().listVirtualSystems()) {
+         systemIds.add(system.getId());
+      }
+      return listServers(systemIds, null);
+   }
 
-         VSystemWithDetails systemDetails = api.getVirtualSystemApi().getDetails(system.getId());
+   /**
+    * {@inheritDoc}
+    * <p/>
+    * Only the systems the given servers are part of are looked up.
+    */
+   @Override
+   public Iterable<VServerMetadata> listNodesByIds(Iterable<String> ids) {
+      Set<String> serverIds = ImmutableSet.copyOf(ids);
+      Set<String> systemIds = Sets.newLinkedHashSet();
+      for (String id : serverIds) {
+         try {
+            systemIds.add(toSystemId.apply(id));
+         } catch (IllegalArgumentException e) {
+            logger.debug("ignoring %s: %s", id, e.getMessage());
+         }
+      }
+      return listServers(systemIds, serverIds);
+   }
 
-         for (VServerWithVNICs server : systemDetails.getServers()) {
+   /**
+    * Lists the servers of the given systems, keeping at most
+    * {@code listParallelism} requests in flight.
+    *
+    * @param serverIds
+    *           the servers to keep, or null to keep all of them
+    */
+   private Set<VServerMetadata> listServers(Iterable<String> systemIds,
+         @Nullable Set<String> serverIds) {
+      Semaphore permits = new Semaphore(listParallelism);
+
+      List<ListenableFuture<VSystemWithDetails>> systems = Lists.newArrayList();
+      for (final String systemId : systemIds) {
+         systems.add(submit(permits, new Callable<VSystemWithDetails>() {
+            @Override
+            public VSystemWithDetails call() {
+               return api.getVirtualSystemApi().getDetails(systemId);
+            }
+         }));
+      }
 
+      Map<VServerWithVNICs, ListenableFuture<VServerStatus>> statuses = Maps.newLinkedHashMap();
+      for (ListenableFuture<VSystemWithDetails> system : systems) {
+         VSystemWithDetails details = getUnchecked(system);
+         // the system was destroyed after it was listed
+         if (details == null) {
+            continue;
+         }
+         for (final VServerWithVNICs server : details.getServers()) {
             // skip FWs and SLBs
-            if (!isFWorSLB(server)) {
-               servers.add(getNode(server.getId()));
+            if (isFWorSLB(server) || (serverIds != null && !serverIds.contains(server.getId()))) {
+               continue;
             }
+            statuses.put(server, submit(permits, new Callable<VServerStatus>() {
+               @Override
+               public VServerStatus call() {
+                  return api.getVirtualServerApi().getStatus(server.getId());
+               }
+            }));
          }
       }
 
+      ImmutableSet.Builder<VServerMetadata> servers = ImmutableSet.builder();
+      for (Map.Entry<VServerWithVNICs, ListenableFuture<VServerStatus>> entry : statuses.entrySet()) {
+         VServerWithVNICs server = entry.getKey();
+         VServerStatus status = getUnchecked(entry.getValue());
+         // the server was destroyed after its system was looked up
+         if (status == null) {
+            continue;
+         }
+         logger.trace("Node %s [%s] - %s", server.getId(), status, server);
+         servers.add(VServerMetadata.builder().serverWithDetails(server).status(status)
+               .initialPassword(initialPassword(server.getId())).build());
+      }
       return servers.build();
    }
 
-   @Override
-   public Iterable<VServerMetadata> listNodesByIds(final Iterable<String> ids) {
-      return filter(listNodes(), new Predicate<VServerMetadata>() {
+   /**
+    * Runs the call on the user executor once a permit is available. The
+    * future holds null if the resource was not found.
+    */
+   private <T> ListenableFuture<T> submit(final Semaphore permits, final Callable<T> call) {
+      permits.acquireUninterruptibly();
+      try {
+         return userExecutor.submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+               try {
+                  return call.call();
+               } catch (ResourceNotFoundException e) {
+                  return null;
+               } finally {
+                  permits.release();
+               }
+            }
+         });
+      } catch (RuntimeException e) {
+         permits.release();
+         throw e;
+      }
+   }
 
-         @Override
-         public boolean apply(VServerMetadata server) {
-            return contains(ids, server.getId());
-         }
-      });
+   private static <T> T getUnchecked(ListenableFuture<T> future) {
+      try {
+         return Futures.getUnchecked(future);
+      } catch (UncheckedExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      }
    }
 
    /**
@@ -0,0 +1,410 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.fujitsu.fgcp.compute.strategy;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.Constants.PROPERTY_SCHEDULER_THREADS;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.fujitsu.fgcp.reference.FGCPProperties.PROPERTY_DEPLOY_POLL_PERIOD;
+
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.compute.reference.ComputeServiceConstants.Timeouts;
+import org.jclouds.fujitsu.fgcp.FGCPApi;
+import org.jclouds.fujitsu.fgcp.compute.functions.ResourceIdToSystemId;
+import org.jclouds.fujitsu.fgcp.domain.VServerStatus;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Deploys servers in bulk, and follows them until they are running.
+ * <p/>
+ * FGCP rejects an operation on a virtual system while another one is
+ * reconfiguring it, so servers of the same system are created one at a time:
+ * the next server is created as soon as the previous one is deployed, while
+ * that one starts. Servers of different systems are deployed side by side.
+ * <p/>
+ * All deployments are followed by one scheduled poller, which only asks for
+ * the status of the servers being deployed or started, rather than each
+ * server waiting on a predicate of its own. The scheduler only times the
+ * polls: the requests of each poll run on the user threads, one poll at a
+ * time.
+ * <p/>
+ * The server of a deployment cancelled after its creation is not left behind:
+ * it is stopped if needed and destroyed.
+ */
+@Singleton
+public class ServerDeployer {
+
+   private static final Set<VServerStatus> FAILED = EnumSet.of(VServerStatus.ERROR, VServerStatus.START_ERROR);
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final FGCPApi api;
+   private final ResourceIdToSystemId toSystemId;
+   private final ScheduledExecutorService scheduler;
+   private final ListeningExecutorService userExecutor;
+   private final long pollPeriod;
+   private final long timeout;
+
+   // systems are few, so their lanes are kept once created
+   private final ConcurrentMap<String, Lane> lanes = Maps.newConcurrentMap();
+   private ScheduledFuture<?> poller;
+   // set while a refresh is submitted or running, so slow requests do not pile polls up
+   private final AtomicBoolean refreshing = new AtomicBoolean();
+
+   @Inject
+   ServerDeployer(FGCPApi api, ResourceIdToSystemId toSystemId,
+         @Named(PROPERTY_SCHEDULER_THREADS) ScheduledExecutorService scheduler,
+         @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         @Named(PROPERTY_DEPLOY_POLL_PERIOD) long pollPeriod, Timeouts timeouts) {
+      this.api = checkNotNull(api, "api");
+      this.toSystemId = checkNotNull(toSystemId, "toSystemId");
+      this.scheduler = checkNotNull(scheduler, "scheduler");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+      this.pollPeriod = pollPeriod;
+      this.timeout = checkNotNull(timeouts, "timeouts").nodeRunning;
+   }
+
+   /**
+    * The deployments of one virtual system. Only the poller changes which
+    * server is deployed or started.
+    */
+   private static class Lane {
+      private final Queue<ServerDeployment> queued = new ConcurrentLinkedQueue<ServerDeployment>();
+      private final List<ServerDeployment> starting = Lists.newArrayList();
+      private volatile ServerDeployment deploying;
+      // cancelled deployments whose server is being stopped or destroyed
+      private final List<ServerDeployment> discarded = Lists.newArrayList();
+
+      private boolean isIdle() {
+         return queued.isEmpty() && deploying == null && starting.isEmpty() && discarded.isEmpty();
+      }
+   }
+
+   /**
+    * Queues a server to be created in the virtual system of the given
+    * network.
+    *
+    * @return the progress of the server, whose future holds the server id
+    *         once it is running
+    */
+   public ServerDeployment deploy(String name, String type, String diskImageId, String networkId) {
+      ServerDeployment deployment = new ServerDeployment(name, type, diskImageId, networkId);
+      String systemId = toSystemId.apply(networkId);
+      Lane lane = lanes.get(systemId);
+      if (lane == null) {
+         Lane fresh = new Lane();
+         lane = lanes.putIfAbsent(systemId, fresh);
+         if (lane == null) {
+            lane = fresh;
+         }
+      }
+      lane.queued.add(deployment);
+      logger.trace("queued deployment of %s in system %s", name, systemId);
+      startPolling();
+      return deployment;
+   }
+
+   /**
+    * @return the deployments of servers that are not running yet
+    */
+   public List<ServerDeployment> getPending() {
+      ImmutableList.Builder<ServerDeployment> pending = ImmutableList.builder();
+      for (Lane lane : lanes.values()) {
+         synchronized (lane.starting) {
+            pending.addAll(lane.starting);
+         }
+         ServerDeployment deploying = lane.deploying;
+         if (deploying != null) {
+            pending.add(deploying);
+         }
+         pending.addAll(lane.queued);
+      }
+      return pending.build();
+   }
+
+   /**
+    * Updates the servers being deployed or started, and creates the next
+    * queued server of each system that is free.
+    */
+   @VisibleForTesting
+   void refresh() {
+      boolean idle = true;
+      for (Lane lane : lanes.values()) {
+         refresh(lane);
+         idle &= lane.isIdle();
+      }
+      if (idle) {
+         stopPollingIfIdle();
+      }
+   }
+
+   private void refresh(Lane lane) {
+      long now = System.currentTimeMillis();
+      synchronized (lane.starting) {
+         for (Iterator<ServerDeployment> it = lane.starting.iterator(); it.hasNext();) {
+            ServerDeployment deployment = it.next();
+            if (deployment.getFuture().isCancelled()) {
+               it.remove();
+               discard(lane, deployment, now);
+               continue;
+            }
+            VServerStatus status = updateStatus(deployment);
+            if (status == VServerStatus.RUNNING) {
+               it.remove();
+               logger.trace("server %s is running", deployment.getServerId());
+               // cancelled since it was last checked
+               if (!deployment.running()) {
+                  discard(lane, deployment, now);
+               }
+            } else if (isDone(deployment, status, now)) {
+               it.remove();
+            }
+         }
+      }
+
+      ServerDeployment deploying = lane.deploying;
+      if (deploying != null) {
+         VServerStatus status = updateStatus(deploying);
+         // a deployed server is left stopped; a cancelled one is followed until
+         // then, as the system takes no other operation while it is deployed
+         if (status == VServerStatus.STOPPED) {
+            lane.deploying = null;
+            if (deploying.getFuture().isCancelled()) {
+               discard(lane, deploying, now);
+            } else if (start(deploying)) {
+               synchronized (lane.starting) {
+                  lane.starting.add(deploying);
+               }
+            }
+         } else if (isDone(deploying, status, now)) {
+            lane.deploying = null;
+            if (deploying.getFuture().isCancelled()) {
+               discard(lane, deploying, now);
+            }
+         }
+      }
+
+      for (Iterator<ServerDeployment> it = lane.discarded.iterator(); it.hasNext();) {
+         ServerDeployment deployment = it.next();
+         VServerStatus status = updateStatus(deployment);
+         if (status == VServerStatus.RUNNING) {
+            stop(deployment);
+         } else if (status == VServerStatus.STOPPED || FAILED.contains(status)) {
+            if (destroy(deployment)) {
+               it.remove();
+            }
+         } else if (deployment.isExpired(now)) {
+            logger.warn("could not destroy server %s of a cancelled deployment, last status: %s",
+                  deployment.getServerId(), deployment.getStatus());
+            it.remove();
+         }
+      }
+
+      // the system only takes one server at a time
+      while (lane.deploying == null && !lane.queued.isEmpty()) {
+         ServerDeployment next = lane.queued.poll();
+         if (next != null && !next.getFuture().isDone() && create(next)) {
+            lane.deploying = next;
+         }
+      }
+   }
+
+   private boolean create(ServerDeployment deployment) {
+      try {
+         String id = api.getVirtualSystemApi().createServer(deployment.getName(), deployment.getType(),
+               deployment.getDiskImageId(), deployment.getNetworkId());
+         deployment.created(id, System.currentTimeMillis() + timeout);
+         logger.trace("deploying server %s as %s", deployment.getName(), id);
+         return true;
+      } catch (RuntimeException e) {
+         logger.warn(e, "could not create server %s", deployment.getName());
+         deployment.failed(e);
+         return false;
+      }
+   }
+
+   private boolean start(ServerDeployment deployment) {
+      String id = deployment.getServerId();
+      try {
+         api.getVirtualServerApi().start(id);
+      } catch (IllegalStateException ise) {
+         if (!(ise.getMessage().contains("ALREADY_STARTED") || ise.getMessage().contains("STARTING"))) {
+            logger.warn(ise, "could not start server %s", id);
+            deployment.failed(ise);
+            return false;
+         }
+      } catch (RuntimeException e) {
+         logger.warn(e, "could not start server %s", id);
+         deployment.failed(e);
+         return false;
+      }
+      deployment.update(VServerStatus.STARTING);
+      logger.trace("starting server %s", id);
+      return true;
+   }
+
+   private void discard(Lane lane, ServerDeployment deployment, long now) {
+      logger.trace("deployment of server %s was cancelled, destroying it", deployment.getServerId());
+      deployment.discarded(now + timeout);
+      lane.discarded.add(deployment);
+   }
+
+   private void stop(ServerDeployment deployment) {
+      try {
+         api.getVirtualServerApi().stop(deployment.getServerId());
+         deployment.update(VServerStatus.STOPPING);
+      } catch (RuntimeException e) {
+         logger.warn(e, "could not stop server %s", deployment.getServerId());
+      }
+   }
+
+   private boolean destroy(ServerDeployment deployment) {
+      try {
+         api.getVirtualServerApi().destroy(deployment.getServerId());
+         logger.trace("destroyed server %s", deployment.getServerId());
+         return true;
+      } catch (RuntimeException e) {
+         logger.warn(e, "could not destroy server %s", deployment.getServerId());
+         return false;
+      }
+   }
+
+   /**
+    * @return the current status of the server, or null if it could not be
+    *         looked up this time
+    */
+   private VServerStatus updateStatus(ServerDeployment deployment) {
+      try {
+         VServerStatus status = api.getVirtualServerApi().getStatus(deployment.getServerId());
+         if (status != null && status != deployment.getStatus()) {
+            logger.trace("server %s: %s -> %s", deployment.getServerId(), deployment.getStatus(), status);
+            deployment.update(status);
+         }
+         return status;
+      } catch (RuntimeException e) {
+         logger.warn(e, "could not get the status of server %s", deployment.getServerId());
+         return null;
+      }
+   }
+
+   /**
+    * Fails the deployment if the server is in error or late.
+    *
+    * @return true if the deployment should no longer be followed
+    */
+   private boolean isDone(ServerDeployment deployment, VServerStatus status, long now) {
+      if (FAILED.contains(status)) {
+         logger.trace("server %s is in error: %s", deployment.getServerId(), status);
+         deployment.failed(new IllegalStateException("server in error: " + status));
+         return true;
+      }
+      if (deployment.isExpired(now)) {
+         deployment.failed(new TimeoutException(String.format(
+               "server %s did not reach RUNNING state within %dms, last status: %s", deployment.getServerId(),
+               timeout, deployment.getStatus())));
+         return true;
+      }
+      return false;
+   }
+
+   /**
+    * Submits a refresh of the deployments to the user threads at each poll,
+    * unless the previous one is still running.
+    */
+   private class RefreshDeployments implements Runnable {
+      @Override
+      public void run() {
+         if (!refreshing.compareAndSet(false, true)) {
+            return;
+         }
+         try {
+            userExecutor.execute(new Refresh());
+         } catch (RejectedExecutionException e) {
+            refreshing.set(false);
+            logger.warn(e, "could not submit the refresh of server deployments");
+         }
+      }
+
+      @Override
+      public String toString() {
+         return "refreshServerDeployments()";
+      }
+   }
+
+   /**
+    * Refreshes the deployments. The lanes keep their state when a refresh
+    * fails half way, so the next poll takes up where it stopped.
+    */
+   private class Refresh implements Runnable {
+      @Override
+      public void run() {
+         try {
+            refresh();
+         } catch (RuntimeException e) {
+            logger.error(e, "error refreshing server deployments");
+         } finally {
+            refreshing.set(false);
+         }
+      }
+   }
+
+   private synchronized void startPolling() {
+      if (poller == null) {
+         poller = scheduler.scheduleWithFixedDelay(new RefreshDeployments(), 0, pollPeriod, TimeUnit.MILLISECONDS);
+      }
+   }
+
+   private synchronized void stopPollingIfIdle() {
+      if (poller == null) {
+         return;
+      }
+      for (Lane lane : lanes.values()) {
+         if (!lane.isIdle()) {
+            return;
+         }
+      }
+      poller.cancel(false);
+      poller = null;
+   }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.fujitsu.fgcp.compute.strategy;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.jclouds.fujitsu.fgcp.domain.VServerStatus;
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * The progress of a server deployed by the {@link ServerDeployer}.
+ */
+public class ServerDeployment {
+
+   private final String name;
+   private final String type;
+   private final String diskImageId;
+   private final String networkId;
+   private final SettableFuture<String> future = SettableFuture.create();
+   private volatile String serverId;
+   private volatile VServerStatus status;
+   private volatile long deadline;
+
+   ServerDeployment(String name, String type, String diskImageId, String networkId) {
+      this.name = checkNotNull(name, "name");
+      this.type = checkNotNull(type, "type");
+      this.diskImageId = checkNotNull(diskImageId, "diskImageId");
+      this.networkId = checkNotNull(networkId, "networkId");
+   }
+
+   public String getName() {
+      return name;
+   }
+
+   public String getType() {
+      return type;
+   }
+
+   public String getDiskImageId() {
+      return diskImageId;
+   }
+
+   public String getNetworkId() {
+      return networkId;
+   }
+
+   /**
+    * @return the id of the server, or null while it waits for its turn to be
+    *         created
+    */
+   @Nullable
+   public String getServerId() {
+      return serverId;
+   }
+
+   /**
+    * @return the last known status of the server, or null while it waits for
+    *         its turn to be created
+    */
+   @Nullable
+   public VServerStatus getStatus() {
+      return status;
+   }
+
+   /**
+    * @return a future holding the id of the server once it is running
+    */
+   public ListenableFuture<String> getFuture() {
+      return future;
+   }
+
+   void created(String serverId, long deadline) {
+      this.serverId = checkNotNull(serverId, "serverId");
+      this.status = VServerStatus.DEPLOYING;
+      this.deadline = deadline;
+   }
+
+   boolean isExpired(long now) {
+      return now > deadline;
+   }
+
+   void update(VServerStatus status) {
+      this.status = status;
+   }
+
+   /**
+    * @return false if the deployment was cancelled, so the server is not
+    *         wanted anymore
+    */
+   boolean running() {
+      return future.set(serverId);
+   }
+
+   void discarded(long deadline) {
+      this.deadline = deadline;
+   }
+
+   void failed(Throwable cause) {
+      future.setException(cause);
+   }
+
+   @Override
+   public String toString() {
+      return MoreObjects.toStringHelper(this).omitNullValues().add("name", name).add("serverId", serverId)
+            .add("status", status).add("networkId", networkId).toString();
+   }
+}
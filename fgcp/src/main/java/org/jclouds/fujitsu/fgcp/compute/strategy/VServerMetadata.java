@@ -27,6 +27,8 @@ import org.jclouds.fujitsu.fgcp.domain.VServer;
 import org.jclouds.fujitsu.fgcp.domain.VServerStatus;
 import org.jclouds.fujitsu.fgcp.domain.VServerWithVNICs;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableSet;
 
 /**
@@ -39,15 +41,24 @@ public class VServerMetadata {
    protected String id;
    protected String name;
    protected Template template;
-   protected String initialPassword;
+   protected Supplier<String> initialPassword;
    protected VServerStatus status = VServerStatus.UNRECOGNIZED;
    protected Set<PublicIP> ips;
    protected DiskImage image;
 
    public VServerMetadata(VServer server, String initialPassword,
          VServerStatus status, DiskImage image, Set<PublicIP> publicIps) {
+      this(server, Suppliers.ofInstance(initialPassword), status, image, publicIps);
+   }
+
+   /**
+    * @param initialPassword
+    *           looked up once, the first time the password is asked for
+    */
+   public VServerMetadata(VServer server, Supplier<String> initialPassword,
+         VServerStatus status, DiskImage image, Set<PublicIP> publicIps) {
       this.server = checkNotNull(server, "server");
-      this.initialPassword = initialPassword;
+      this.initialPassword = Suppliers.memoize(checkNotNull(initialPassword, "initialPassword"));
       this.status = status;
       this.image = image;
       this.ips = publicIps;
@@ -84,7 +95,7 @@ public class VServerMetadata {
    }
 
    public String getInitialPassword() {
-      return initialPassword;
+      return initialPassword == null ? null : initialPassword.get();
    }
 
    public VServerStatus getStatus() {
@@ -105,7 +116,7 @@ public class VServerMetadata {
       private String id;
       private String name;
       private Template template;
-      private String initialPassword;
+      private Supplier<String> initialPassword;
       private VServerStatus status = VServerStatus.UNRECOGNIZED;
       private Set<PublicIP> publicIps = ImmutableSet.of();
       private DiskImage image;
@@ -136,6 +147,15 @@ public class VServerMetadata {
       }
 
       public Builder initialPassword(String password) {
+         this.initialPassword = Suppliers.ofInstance(password);
+         return this;
+      }
+
+      /**
+       * Defers looking up the password until it is needed, as it takes a
+       * request of its own per server.
+       */
+      public Builder initialPassword(Supplier<String> password) {
          this.initialPassword = password;
          return this;
       }
@@ -156,7 +176,7 @@ public class VServerMetadata {
       }
 
       public VServerMetadata build() {
-         if (initialPassword == null) initialPassword = "";
+         if (initialPassword == null) initialPassword = Suppliers.ofInstance("");
          if (server != null) {
             return new VServerMetadata(server, initialPassword, status,
                   image, publicIps);
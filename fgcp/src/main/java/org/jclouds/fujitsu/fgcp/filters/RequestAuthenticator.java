@@ -29,6 +29,8 @@ import java.security.Signature;
 import java.security.SignatureException;
 import java.util.Calendar;
 import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 
 import javax.annotation.Resource;
@@ -73,7 +75,7 @@ public class RequestAuthenticator implements HttpRequestFilter, RequestSigner {
    private Logger signatureLog = Logger.NULL;
 
    private final Supplier<FGCPCredentials> creds;
-   private final LoadingCache<FGCPCredentials, Signature> signerCache;
+   private final LoadingCache<FGCPCredentials, SignerPool> signerCache;
    private final Provider<Calendar> calendarProvider;
    private final HttpUtils utils;
    private final String apiVersion;
@@ -95,19 +97,17 @@ public class RequestAuthenticator implements HttpRequestFilter, RequestSigner {
 
    /**
     * It is relatively expensive to create a new signing key. Cache the
-    * relationship between current credentials so that the signer is only
-    * recalculated once.
+    * relationship between current credentials so that the signers are only
+    * initialized once.
     */
    @VisibleForTesting
-   static class SignatureForCredentials extends CacheLoader<FGCPCredentials, Signature> {
+   static class SignatureForCredentials extends CacheLoader<FGCPCredentials, SignerPool> {
 
       @Override
-      public Signature load(FGCPCredentials creds) {
+      public SignerPool load(FGCPCredentials creds) {
          PrivateKey privateKey = checkNotNull(creds.privateKey, "fgcpcredential's privateKey is null");
          try {
-            Signature signer = Signature.getInstance(RequestAuthenticator.SIGNATURE_METHOD);
-            signer.initSign(privateKey);
-            return signer;
+            return new SignerPool(privateKey);
          } catch (NoSuchAlgorithmException e) {
             throw propagate(e);
          } catch (InvalidKeyException e) {
@@ -116,6 +116,60 @@ public class RequestAuthenticator implements HttpRequestFilter, RequestSigner {
       }
    }
 
+   /**
+    * Signers initialized with the key of one set of credentials.
+    * <p/>
+    * A {@link Signature} keeps the data being signed, so it can only be used
+    * by one thread at a time. Each signature is made with a signer taken out
+    * of the pool, which is returned once the signature is complete, so the
+    * pool holds as many signers as there have been concurrent requests.
+    */
+   @VisibleForTesting
+   static class SignerPool {
+      private final PrivateKey privateKey;
+      private final java.security.Provider provider;
+      private final Queue<Signature> idle = new ConcurrentLinkedQueue<Signature>();
+
+      SignerPool(PrivateKey privateKey) throws NoSuchAlgorithmException, InvalidKeyException {
+         this.privateKey = checkNotNull(privateKey, "privateKey");
+         // fails early on an unusable key, and saves looking up the provider
+         // for every new signer
+         Signature signer = Signature.getInstance(SIGNATURE_METHOD);
+         signer.initSign(privateKey);
+         this.provider = signer.getProvider();
+         idle.add(signer);
+      }
+
+      byte[] sign(byte[] data) throws SignatureException {
+         Signature signer = idle.poll();
+         if (signer == null) {
+            signer = newSigner();
+         }
+         signer.update(data);
+         // sign() resets the signer, so that it can be used again
+         byte[] signature = signer.sign();
+         idle.add(signer);
+         return signature;
+      }
+
+      private Signature newSigner() throws SignatureException {
+         try {
+            Signature signer = Signature.getInstance(SIGNATURE_METHOD, provider);
+            signer.initSign(privateKey);
+            return signer;
+         } catch (NoSuchAlgorithmException e) {
+            throw new SignatureException(e);
+         } catch (InvalidKeyException e) {
+            throw new SignatureException(e);
+         }
+      }
+
+      @VisibleForTesting
+      int size() {
+         return idle.size();
+      }
+   }
+
    public HttpRequest filter(HttpRequest request) throws HttpException {
       checkNotNull(request, "request must be present");
       utils.logRequest(signatureLog, request, ">>");
@@ -174,9 +228,8 @@ public class RequestAuthenticator implements HttpRequestFilter, RequestSigner {
    public String sign(String stringToSign) {
       String signed;
       try {
-         Signature signer = signerCache.get(checkNotNull(creds.get(), "credential supplier returned null"));
-         signer.update(stringToSign.getBytes(UTF_8));
-         signed = base64().withSeparator("\n", 61).encode(signer.sign());
+         SignerPool signers = signerCache.get(checkNotNull(creds.get(), "credential supplier returned null"));
+         signed = base64().withSeparator("\n", 61).encode(signers.sign(stringToSign.getBytes(UTF_8)));
       } catch (SignatureException e) {
          throw new HttpException("error signing request", e);
       } catch (ExecutionException e) {
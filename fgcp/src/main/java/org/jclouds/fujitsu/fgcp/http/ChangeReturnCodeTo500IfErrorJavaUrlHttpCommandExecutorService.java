@@ -16,9 +16,14 @@
  */
 package org.jclouds.fujitsu.fgcp.http;
 
-import static org.jclouds.http.HttpUtils.closeClientButKeepContentStream;
+import static org.jclouds.util.Closeables2.closeQuietly;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.net.HttpURLConnection;
 import java.net.Proxy;
 import java.net.URI;
@@ -28,6 +33,10 @@ import javax.inject.Named;
 import javax.inject.Singleton;
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLContext;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.jclouds.Constants;
 import org.jclouds.http.HttpResponse;
@@ -38,7 +47,10 @@ import org.jclouds.http.handlers.DelegatingRetryHandler;
 import org.jclouds.http.internal.HttpWire;
 import org.jclouds.http.internal.JavaUrlHttpCommandExecutorService;
 import org.jclouds.io.ContentMetadataCodec;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Supplier;
 import com.google.common.util.concurrent.ListeningExecutorService;
@@ -46,11 +58,24 @@ import com.google.common.util.concurrent.ListeningExecutorService;
 /**
  * Changes super class' behaviour to return an HTTP response with status code 500 instead of the 200 returned by
  * the FGCP API endpoint when the XML payload indicates an error with the request.
+ * <p/>
+ * Only the start of the payload is read to find the response status, which comes before the elements holding the
+ * actual response; the rest is left to be read by the response parser.
  */
 @Singleton
 public class ChangeReturnCodeTo500IfErrorJavaUrlHttpCommandExecutorService extends
       JavaUrlHttpCommandExecutorService {
 
+   static final String SUCCESS = "SUCCESS";
+
+   private static final XMLInputFactory INPUT_FACTORY;
+
+   static {
+      INPUT_FACTORY = XMLInputFactory.newInstance();
+      INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+      INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+   }
+
    @Inject
    public ChangeReturnCodeTo500IfErrorJavaUrlHttpCommandExecutorService(
          HttpUtils utils,
@@ -73,12 +98,128 @@ public class ChangeReturnCodeTo500IfErrorJavaUrlHttpCommandExecutorService exten
          throws IOException, InterruptedException {
       HttpResponse response = super.invoke(connection);
 
-      byte[] data = closeClientButKeepContentStream(response);
-      if (data != null
-            && !new String(data).contains("<responseStatus>SUCCESS</responseStatus>")) {
+      if (response.getPayload() != null
+            && !SUCCESS.equals(readResponseStatus(response))) {
          response = response.toBuilder().statusCode(500).build();
       }
 
       return response;
    }
+
+   /**
+    * Reads the payload up to the response status. The payload is replaced by
+    * one that starts over with the bytes already read.
+    *
+    * @return the response status, or null if the payload has none
+    */
+   @VisibleForTesting
+   static String readResponseStatus(HttpResponse response) throws IOException {
+      Payload payload = response.getPayload();
+      InputStream in = payload.openStream();
+      RecordingInputStream recording = new RecordingInputStream(in);
+      String status;
+      try {
+         status = readResponseStatus(recording);
+      } catch (IOException e) {
+         closeQuietly(in);
+         throw e;
+      } catch (RuntimeException e) {
+         closeQuietly(in);
+         throw e;
+      }
+
+      Payload replay = Payloads.newInputStreamPayload(new SequenceInputStream(
+            new ByteArrayInputStream(recording.getRecorded()), in));
+      HttpUtils.copy(payload.getContentMetadata(), replay.getContentMetadata());
+      response.setPayload(replay);
+      return status;
+   }
+
+   private static String readResponseStatus(InputStream in) throws IOException {
+      XMLStreamReader reader = null;
+      try {
+         reader = INPUT_FACTORY.createXMLStreamReader(in);
+         int depth = 0;
+         while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+               depth++;
+               if (depth == 2 && "responseStatus".equals(reader.getLocalName())) {
+                  return reader.getElementText().trim();
+               }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+               depth--;
+               if (depth == 0) {
+                  break;
+               }
+            }
+         }
+         return null;
+      } catch (XMLStreamException e) {
+         if (e.getNestedException() instanceof IOException) {
+            throw (IOException) e.getNestedException();
+         }
+         // not a response of the API, such as an error page of a proxy
+         return null;
+      } finally {
+         if (reader != null) {
+            try {
+               // leaves the stream open
+               reader.close();
+            } catch (XMLStreamException e) {
+               // nothing was left to release
+            }
+         }
+      }
+   }
+
+   /**
+    * Keeps a copy of the bytes read from a stream.
+    */
+   private static class RecordingInputStream extends FilterInputStream {
+      private final ByteArrayOutputStream recorded = new ByteArrayOutputStream();
+
+      private RecordingInputStream(InputStream in) {
+         super(in);
+      }
+
+      @Override
+      public int read() throws IOException {
+         int b = super.read();
+         if (b != -1) {
+            recorded.write(b);
+         }
+         return b;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+         int read = super.read(b, off, len);
+         if (read > 0) {
+            recorded.write(b, off, read);
+         }
+         return read;
+      }
+
+      @Override
+      public long skip(long n) throws IOException {
+         byte[] skipped = new byte[(int) Math.min(n, 8192)];
+         int read = read(skipped, 0, skipped.length);
+         return read < 0 ? 0 : read;
+      }
+
+      @Override
+      public boolean markSupported() {
+         return false;
+      }
+
+      @Override
+      public void close() {
+         // the stream is read on after the status has been found
+      }
+
+      byte[] getRecorded() {
+         return recorded.toByteArray();
+      }
+   }
 }
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.fujitsu.fgcp.reference;
+
+/**
+ * Configuration properties specific to FGCP.
+ */
+public interface FGCPProperties {
+
+   /**
+    * The maximum number of requests that listing nodes keeps in flight at a
+    * time. Systems and servers are looked up in parallel up to this bound.
+    * Defaults to 8.
+    */
+   public static final String PROPERTY_LIST_NODES_PARALLELISM = "jclouds.fgcp.list-nodes-parallelism";
+
+   /**
+    * The time in milliseconds between two polls of the servers being deployed
+    * by the {@code ServerDeployer}. Defaults to 5000.
+    */
+   public static final String PROPERTY_DEPLOY_POLL_PERIOD = "jclouds.fgcp.deploy-poll-period";
+
+   /**
+    * Whether new nodes are created through the {@code ServerDeployer}, which
+    * creates the servers of a system one after the other and starts each of
+    * them as soon as it is deployed. Defaults to false, which creates and
+    * starts each node on its own.
+    */
+   public static final String PROPERTY_DEPLOY_IN_BULK = "jclouds.fgcp.deploy-in-bulk";
+}
@@ -18,6 +18,8 @@ package org.jclouds.fujitsu.fgcp.xml;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.inject.Singleton;
 import javax.xml.bind.JAXBContext;
@@ -30,12 +32,16 @@ import org.jclouds.xml.XMLParser;
 
 /**
  * Parses XML documents using JAXB.
+ * <p/>
+ * Unmarshallers are expensive to create but cannot be shared between threads,
+ * so each one is returned to a pool once it has parsed a document.
  * 
  * @see org.jclouds.http.functions.ParseXMLWithJAXB
  */
 @Singleton
 public class FGCPJAXBParser implements XMLParser {
    JAXBContext context;
+   private final Queue<Unmarshaller> unmarshallers = new ConcurrentLinkedQueue<Unmarshaller>();
 
    public FGCPJAXBParser() throws JAXBException {
       context = JAXBContext.newInstance(VServerWithDetails.class.getPackage()
@@ -65,9 +71,14 @@ public class FGCPJAXBParser implements XMLParser {
       try {
          StringReader reader = new StringReader(xml);
 
-         Unmarshaller unmarshaller = context.createUnmarshaller();
+         Unmarshaller unmarshaller = unmarshallers.poll();
+         if (unmarshaller == null) {
+            unmarshaller = context.createUnmarshaller();
+         }
 
          response = (T) unmarshaller.unmarshal(reader);
+         // an unmarshaller that failed is not reused
+         unmarshallers.offer(unmarshaller);
       } catch (Exception ex) {
          throw new IOException("Could not unmarshal document", ex);
       }
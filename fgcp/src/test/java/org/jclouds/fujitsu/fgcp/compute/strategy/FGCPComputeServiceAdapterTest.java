@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.fujitsu.fgcp.compute.strategy;
+
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.Set;
+
+import org.jclouds.compute.ComputeServiceAdapter.NodeAndInitialCredentials;
+import org.jclouds.compute.domain.Hardware;
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.domain.OsFamily;
+import org.jclouds.compute.domain.Template;
+import org.jclouds.compute.reference.ComputeServiceConstants.Timeouts;
+import org.jclouds.domain.Location;
+import org.jclouds.fujitsu.fgcp.FGCPApi;
+import org.jclouds.fujitsu.fgcp.compute.functions.ResourceIdToFirewallId;
+import org.jclouds.fujitsu.fgcp.compute.functions.ResourceIdToSystemId;
+import org.jclouds.fujitsu.fgcp.compute.predicates.ServerStarted;
+import org.jclouds.fujitsu.fgcp.compute.predicates.ServerStopped;
+import org.jclouds.fujitsu.fgcp.domain.VServerStatus;
+import org.jclouds.fujitsu.fgcp.domain.VServerWithDetails;
+import org.jclouds.fujitsu.fgcp.domain.VSystem;
+import org.jclouds.fujitsu.fgcp.domain.VSystemWithDetails;
+import org.jclouds.fujitsu.fgcp.services.VirtualDCApi;
+import org.jclouds.fujitsu.fgcp.services.VirtualServerApi;
+import org.jclouds.fujitsu.fgcp.services.VirtualSystemApi;
+import org.jclouds.fujitsu.fgcp.xml.FGCPJAXBParser;
+import org.jclouds.fujitsu.fgcp.xml.internal.SingleElementResponse;
+import org.jclouds.rest.ResourceNotFoundException;
+import org.jclouds.util.Strings2;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.inject.util.Providers;
+
+@Test(groups = "unit", testName = "FGCPComputeServiceAdapterTest")
+public class FGCPComputeServiceAdapterTest {
+
+   private static final String SYSTEM = "ABCDEFGH-I123J456K";
+   private static final String DESTROYED_SYSTEM = "ABCDEFGH-L654J321I";
+   private static final String IMAGE = "IMG_A1B2C3_1234567890ABCD";
+
+   public void testListNodesTakesServersFromSystemDetails() throws Exception {
+      FGCPApi api = createMock(FGCPApi.class);
+      VirtualDCApi dcApi = createMock(VirtualDCApi.class);
+      VirtualSystemApi systemApi = createMock(VirtualSystemApi.class);
+      VirtualServerApi serverApi = createMock(VirtualServerApi.class);
+      expectApis(api, dcApi, systemApi, serverApi);
+
+      expect(dcApi.listVirtualSystems()).andReturn(systems());
+      expect(systemApi.getDetails(SYSTEM)).andReturn(system());
+      expect(systemApi.getDetails(DESTROYED_SYSTEM)).andThrow(new ResourceNotFoundException(DESTROYED_SYSTEM));
+      expect(serverApi.getStatus(SYSTEM + "-S-0003")).andReturn(VServerStatus.RUNNING);
+      expect(serverApi.getStatus(SYSTEM + "-S-0004")).andReturn(VServerStatus.STOPPED);
+      replay(api, dcApi, systemApi, serverApi);
+
+      Iterable<VServerMetadata> nodes = adapter(api).listNodes();
+
+      assertEquals(ImmutableList.copyOf(Iterables.transform(nodes, VServerMetadataToId.INSTANCE)),
+            ImmutableList.of(SYSTEM + "-S-0003", SYSTEM + "-S-0004"));
+      assertEquals(Iterables.get(nodes, 0).getStatus(), VServerStatus.RUNNING);
+      assertEquals(Iterables.get(nodes, 1).getServer().getName(), "CentOS 6.3 32bit(EN)2");
+      // neither the server details nor the passwords were asked for
+      verify(api, dcApi, systemApi, serverApi);
+   }
+
+   public void testListNodesByIdsOnlyLooksUpTheirSystems() throws Exception {
+      FGCPApi api = createMock(FGCPApi.class);
+      VirtualDCApi dcApi = createMock(VirtualDCApi.class);
+      VirtualSystemApi systemApi = createMock(VirtualSystemApi.class);
+      VirtualServerApi serverApi = createMock(VirtualServerApi.class);
+      expectApis(api, dcApi, systemApi, serverApi);
+
+      expect(systemApi.getDetails(SYSTEM)).andReturn(system());
+      expect(serverApi.getStatus(SYSTEM + "-S-0004")).andReturn(VServerStatus.STOPPED);
+      replay(api, dcApi, systemApi, serverApi);
+
+      Iterable<VServerMetadata> nodes = adapter(api).listNodesByIds(ImmutableList.of(SYSTEM + "-S-0004",
+            SYSTEM + "-S-0001"));
+
+      assertEquals(Iterables.getOnlyElement(nodes).getId(), SYSTEM + "-S-0004");
+      verify(api, dcApi, systemApi, serverApi);
+   }
+
+   public void testInitialPasswordIsLookedUpOnceWhenAskedFor() throws Exception {
+      FGCPApi api = createMock(FGCPApi.class);
+      VirtualDCApi dcApi = createMock(VirtualDCApi.class);
+      VirtualSystemApi systemApi = createMock(VirtualSystemApi.class);
+      VirtualServerApi serverApi = createMock(VirtualServerApi.class);
+      expectApis(api, dcApi, systemApi, serverApi);
+
+      expect(systemApi.getDetails(SYSTEM)).andReturn(system());
+      expect(serverApi.getStatus(SYSTEM + "-S-0003")).andReturn(VServerStatus.RUNNING);
+      expect(serverApi.getInitialPassword(SYSTEM + "-S-0003")).andReturn("secret");
+      replay(api, dcApi, systemApi, serverApi);
+
+      VServerMetadata node = Iterables.getOnlyElement(adapter(api).listNodesByIds(ImmutableSet.of(SYSTEM
+            + "-S-0003")));
+
+      assertEquals(node.getInitialPassword(), "secret");
+      assertEquals(node.getInitialPassword(), "secret");
+      verify(api, dcApi, systemApi, serverApi);
+   }
+
+   public void testCreatesNodesThroughTheDeployerWhenDeployingInBulk() throws Exception {
+      FGCPApi api = createMock(FGCPApi.class);
+      VirtualDCApi dcApi = createMock(VirtualDCApi.class);
+      VirtualSystemApi systemApi = createMock(VirtualSystemApi.class);
+      VirtualServerApi serverApi = createMock(VirtualServerApi.class);
+      ServerDeployer deployer = createMock(ServerDeployer.class);
+      expectApis(api, dcApi, systemApi, serverApi);
+
+      // the deployer creates and starts the server, so the adapter only looks it up
+      ServerDeployment deployment = new ServerDeployment("web1", "economy", IMAGE, SYSTEM + "-N-DMZ");
+      deployment.created(SYSTEM + "-S-0002", Long.MAX_VALUE);
+      deployment.running();
+      expect(deployer.deploy("web1", "economy", IMAGE, SYSTEM + "-N-DMZ")).andReturn(deployment);
+      expect(serverApi.getDetails(SYSTEM + "-S-0002")).andReturn(server());
+      expect(serverApi.getStatus(SYSTEM + "-S-0002")).andReturn(VServerStatus.RUNNING);
+      expect(serverApi.getInitialPassword(SYSTEM + "-S-0002")).andReturn("secret");
+      replay(api, dcApi, systemApi, serverApi, deployer);
+
+      NodeAndInitialCredentials<VServerMetadata> node = adapter(api, deployer, true)
+            .createNodeWithGroupEncodedIntoName("web", "web1", template());
+
+      assertEquals(node.getNodeId(), SYSTEM + "-S-0002");
+      assertEquals(node.getCredentials().getOptionalPassword().get(), "secret");
+      verify(api, dcApi, systemApi, serverApi, deployer);
+   }
+
+   private enum VServerMetadataToId implements Function<VServerMetadata, String> {
+      INSTANCE;
+
+      @Override
+      public String apply(VServerMetadata input) {
+         return input.getId();
+      }
+   }
+
+   private static void expectApis(FGCPApi api, VirtualDCApi dcApi, VirtualSystemApi systemApi,
+         VirtualServerApi serverApi) {
+      expect(api.getVirtualDCApi()).andReturn(dcApi).anyTimes();
+      expect(api.getVirtualSystemApi()).andReturn(systemApi).anyTimes();
+      expect(api.getVirtualServerApi()).andReturn(serverApi).anyTimes();
+   }
+
+   private static FGCPComputeServiceAdapter adapter(FGCPApi api) {
+      return adapter(api, createMock(ServerDeployer.class), false);
+   }
+
+   private static FGCPComputeServiceAdapter adapter(FGCPApi api, ServerDeployer deployer, boolean deployInBulk) {
+      return new FGCPComputeServiceAdapter(api, new ServerStopped(api), new ServerStarted(api), new Timeouts(),
+            createMock(ResourceIdToFirewallId.class), new ResourceIdToSystemId(), newDirectExecutorService(), 4,
+            Providers.of(deployer), deployInBulk);
+   }
+
+   private static Template template() {
+      Hardware hardware = createMock(Hardware.class);
+      expect(hardware.getName()).andReturn("economy").anyTimes();
+      Image image = createMock(Image.class);
+      expect(image.getId()).andReturn(IMAGE).anyTimes();
+      expect(image.getOperatingSystem()).andReturn(OperatingSystem.builder().family(OsFamily.CENTOS)
+            .description("CentOS").build()).anyTimes();
+      Location location = createMock(Location.class);
+      expect(location.getId()).andReturn(SYSTEM + "-N-DMZ").anyTimes();
+      Template template = createMock(Template.class);
+      expect(template.getHardware()).andReturn(hardware).anyTimes();
+      expect(template.getImage()).andReturn(image).anyTimes();
+      expect(template.getLocation()).andReturn(location).anyTimes();
+      replay(hardware, image, location, template);
+      return template;
+   }
+
+   @SuppressWarnings("unchecked")
+   private Set<VSystem> systems() throws IOException {
+      return parse("/responses/ListVSYS-response.xml", Set.class);
+   }
+
+   private VServerWithDetails server() throws IOException {
+      return (VServerWithDetails) parse("/responses/GetVServerConfiguration-response.xml",
+            SingleElementResponse.class).getElement();
+   }
+
+   private VSystemWithDetails system() throws IOException {
+      return (VSystemWithDetails) parse("/responses/GetVSYSConfiguration-response.xml",
+            SingleElementResponse.class).getElement();
+   }
+
+   private <T> T parse(String resource, Class<T> type) throws IOException {
+      return new FGCPJAXBParser().fromXML(Strings2.toStringAndClose(getClass().getResourceAsStream(resource)),
+            type);
+   }
+}
@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.fujitsu.fgcp.compute.strategy;
+
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.jclouds.compute.reference.ComputeServiceConstants.Timeouts;
+import org.jclouds.fujitsu.fgcp.FGCPApi;
+import org.jclouds.fujitsu.fgcp.compute.functions.ResourceIdToSystemId;
+import org.jclouds.fujitsu.fgcp.domain.VServerStatus;
+import org.jclouds.fujitsu.fgcp.services.VirtualServerApi;
+import org.jclouds.fujitsu.fgcp.services.VirtualSystemApi;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+
+@Test(groups = "unit", testName = "ServerDeployerTest")
+public class ServerDeployerTest {
+
+   private static final String NETWORK = "ABCDEFGH-I123J456K-N-DMZ";
+   private static final String OTHER_NETWORK = "ABCDEFGH-L654J321I-N-DMZ";
+   private static final String IMAGE = "IMG_A1B2C3_1234567890ABCD";
+
+   public void testDeploysServersOfASystemOneAfterTheOther() throws Exception {
+      FGCPApi api = createMock(FGCPApi.class);
+      VirtualSystemApi systemApi = createMock(VirtualSystemApi.class);
+      VirtualServerApi serverApi = createMock(VirtualServerApi.class);
+      ScheduledExecutorService scheduler = createNiceMock(ScheduledExecutorService.class);
+      expect(api.getVirtualSystemApi()).andReturn(systemApi).anyTimes();
+      expect(api.getVirtualServerApi()).andReturn(serverApi).anyTimes();
+
+      // first poll: only the first server is created
+      expect(systemApi.createServer("web1", "economy", IMAGE, NETWORK)).andReturn("ABCDEFGH-I123J456K-S-0002");
+      // second poll: the first server is deployed and started, the second one created
+      expect(serverApi.getStatus("ABCDEFGH-I123J456K-S-0002")).andReturn(VServerStatus.STOPPED);
+      serverApi.start("ABCDEFGH-I123J456K-S-0002");
+      expectLastCall();
+      expect(systemApi.createServer("web2", "economy", IMAGE, NETWORK)).andReturn("ABCDEFGH-I123J456K-S-0003");
+      // third poll
+      expect(serverApi.getStatus("ABCDEFGH-I123J456K-S-0002")).andReturn(VServerStatus.RUNNING);
+      expect(serverApi.getStatus("ABCDEFGH-I123J456K-S-0003")).andReturn(VServerStatus.DEPLOYING);
+      replay(api, systemApi, serverApi, scheduler);
+
+      ServerDeployer deployer = new ServerDeployer(api, new ResourceIdToSystemId(), scheduler,
+            newDirectExecutorService(), 1000, new Timeouts());
+      ServerDeployment first = deployer.deploy("web1", "economy", IMAGE, NETWORK);
+      ServerDeployment second = deployer.deploy("web2", "economy", IMAGE, NETWORK);
+
+      deployer.refresh();
+      assertEquals(first.getStatus(), VServerStatus.DEPLOYING);
+      assertNull(second.getServerId());
+
+      deployer.refresh();
+      assertEquals(first.getStatus(), VServerStatus.STARTING);
+      assertEquals(second.getServerId(), "ABCDEFGH-I123J456K-S-0003");
+
+      deployer.refresh();
+      assertEquals(first.getFuture().get(), "ABCDEFGH-I123J456K-S-0002");
+      assertFalse(second.getFuture().isDone());
+      assertEquals(deployer.getPending(), ImmutableList.of(second));
+      verify(api, systemApi, serverApi);
+   }
+
+   public void testServerOfACancelledDeploymentIsDestroyedOnceDeployed() throws Exception {
+      FGCPApi api = createMock(FGCPApi.class);
+      VirtualSystemApi systemApi = createMock(VirtualSystemApi.class);
+      VirtualServerApi serverApi = createMock(VirtualServerApi.class);
+      ScheduledExecutorService scheduler = createNiceMock(ScheduledExecutorService.class);
+      expect(api.getVirtualSystemApi()).andReturn(systemApi).anyTimes();
+      expect(api.getVirtualServerApi()).andReturn(serverApi).anyTimes();
+
+      expect(systemApi.createServer("web1", "economy", IMAGE, NETWORK)).andReturn("ABCDEFGH-I123J456K-S-0002");
+      // the server is deployed after its deployment was cancelled: it is destroyed rather than started
+      expect(serverApi.getStatus("ABCDEFGH-I123J456K-S-0002")).andReturn(VServerStatus.STOPPED).times(2);
+      serverApi.destroy("ABCDEFGH-I123J456K-S-0002");
+      expectLastCall();
+      replay(api, systemApi, serverApi, scheduler);
+
+      ServerDeployer deployer = new ServerDeployer(api, new ResourceIdToSystemId(), scheduler,
+            newDirectExecutorService(), 1000, new Timeouts());
+      ServerDeployment deployment = deployer.deploy("web1", "economy", IMAGE, NETWORK);
+
+      deployer.refresh();
+      deployment.getFuture().cancel(false);
+      deployer.refresh();
+
+      assertTrue(deployer.getPending().isEmpty());
+      verify(api, systemApi, serverApi);
+   }
+
+   public void testServerOfADeploymentCancelledWhileStartingIsStoppedAndDestroyed() throws Exception {
+      FGCPApi api = createMock(FGCPApi.class);
+      VirtualSystemApi systemApi = createMock(VirtualSystemApi.class);
+      VirtualServerApi serverApi = createMock(VirtualServerApi.class);
+      ScheduledExecutorService scheduler = createNiceMock(ScheduledExecutorService.class);
+      expect(api.getVirtualSystemApi()).andReturn(systemApi).anyTimes();
+      expect(api.getVirtualServerApi()).andReturn(serverApi).anyTimes();
+
+      expect(systemApi.createServer("web1", "economy", IMAGE, NETWORK)).andReturn("ABCDEFGH-I123J456K-S-0002");
+      expect(serverApi.getStatus("ABCDEFGH-I123J456K-S-0002")).andReturn(VServerStatus.STOPPED);
+      serverApi.start("ABCDEFGH-I123J456K-S-0002");
+      expectLastCall();
+      // cancelled while starting: stopped once running, then destroyed
+      expect(serverApi.getStatus("ABCDEFGH-I123J456K-S-0002")).andReturn(VServerStatus.RUNNING);
+      serverApi.stop("ABCDEFGH-I123J456K-S-0002");
+      expectLastCall();
+      expect(serverApi.getStatus("ABCDEFGH-I123J456K-S-0002")).andReturn(VServerStatus.STOPPED);
+      serverApi.destroy("ABCDEFGH-I123J456K-S-0002");
+      expectLastCall();
+      replay(api, systemApi, serverApi, scheduler);
+
+      ServerDeployer deployer = new ServerDeployer(api, new ResourceIdToSystemId(), scheduler,
+            newDirectExecutorService(), 1000, new Timeouts());
+      ServerDeployment deployment = deployer.deploy("web1", "economy", IMAGE, NETWORK);
+
+      deployer.refresh();
+      deployer.refresh();
+      assertEquals(deployment.getStatus(), VServerStatus.STARTING);
+      deployment.getFuture().cancel(false);
+      deployer.refresh();
+      assertEquals(deployment.getStatus(), VServerStatus.STOPPING);
+      deployer.refresh();
+
+      assertTrue(deployer.getPending().isEmpty());
+      verify(api, systemApi, serverApi);
+   }
+
+   public void testDeploysServersOfDifferentSystemsSideBySide() throws Exception {
+      FGCPApi api = createMock(FGCPApi.class);
+      VirtualSystemApi systemApi = createMock(VirtualSystemApi.class);
+      ScheduledExecutorService scheduler = createNiceMock(ScheduledExecutorService.class);
+      expect(api.getVirtualSystemApi()).andReturn(systemApi).anyTimes();
+
+      expect(systemApi.createServer("web1", "economy", IMAGE, NETWORK)).andReturn("ABCDEFGH-I123J456K-S-0002");
+      expect(systemApi.createServer("db1", "economy", IMAGE, OTHER_NETWORK)).andReturn("ABCDEFGH-L654J321I-S-0002");
+      replay(api, systemApi, scheduler);
+
+      ServerDeployer deployer = new ServerDeployer(api, new ResourceIdToSystemId(), scheduler,
+            newDirectExecutorService(), 1000, new Timeouts());
+      ServerDeployment web = deployer.deploy("web1", "economy", IMAGE, NETWORK);
+      ServerDeployment db = deployer.deploy("db1", "economy", IMAGE, OTHER_NETWORK);
+
+      deployer.refresh();
+
+      assertEquals(web.getStatus(), VServerStatus.DEPLOYING);
+      assertEquals(db.getStatus(), VServerStatus.DEPLOYING);
+      verify(api, systemApi);
+   }
+
+   public void testFailedCreationLetsTheNextServerThrough() throws Exception {
+      FGCPApi api = createMock(FGCPApi.class);
+      VirtualSystemApi systemApi = createMock(VirtualSystemApi.class);
+      ScheduledExecutorService scheduler = createNiceMock(ScheduledExecutorService.class);
+      expect(api.getVirtualSystemApi()).andReturn(systemApi).anyTimes();
+
+      expect(systemApi.createServer("web1", "economy", IMAGE, NETWORK)).andThrow(
+            new IllegalStateException("VALIDATION_ERROR"));
+      expect(systemApi.createServer("web2", "economy", IMAGE, NETWORK)).andReturn("ABCDEFGH-I123J456K-S-0002");
+      replay(api, systemApi, scheduler);
+
+      ServerDeployer deployer = new ServerDeployer(api, new ResourceIdToSystemId(), scheduler,
+            newDirectExecutorService(), 1000, new Timeouts());
+      ServerDeployment first = deployer.deploy("web1", "economy", IMAGE, NETWORK);
+      ServerDeployment second = deployer.deploy("web2", "economy", IMAGE, NETWORK);
+
+      deployer.refresh();
+
+      try {
+         first.getFuture().get();
+         fail("creation of web1 failed");
+      } catch (ExecutionException e) {
+         assertTrue(e.getCause() instanceof IllegalStateException);
+      }
+      assertEquals(second.getStatus(), VServerStatus.DEPLOYING);
+      verify(api, systemApi);
+   }
+
+   public void testServerInErrorFailsItsDeployment() throws Exception {
+      FGCPApi api = createMock(FGCPApi.class);
+      VirtualSystemApi systemApi = createMock(VirtualSystemApi.class);
+      VirtualServerApi serverApi = createMock(VirtualServerApi.class);
+      ScheduledExecutorService scheduler = createNiceMock(ScheduledExecutorService.class);
+      expect(api.getVirtualSystemApi()).andReturn(systemApi).anyTimes();
+      expect(api.getVirtualServerApi()).andReturn(serverApi).anyTimes();
+
+      expect(systemApi.createServer("web1", "economy", IMAGE, NETWORK)).andReturn("ABCDEFGH-I123J456K-S-0002");
+      expect(serverApi.getStatus("ABCDEFGH-I123J456K-S-0002")).andReturn(VServerStatus.ERROR);
+      replay(api, systemApi, serverApi, scheduler);
+
+      ServerDeployer deployer = new ServerDeployer(api, new ResourceIdToSystemId(), scheduler,
+            newDirectExecutorService(), 1000, new Timeouts());
+      ServerDeployment deployment = deployer.deploy("web1", "economy", IMAGE, NETWORK);
+
+      deployer.refresh();
+      deployer.refresh();
+
+      assertTrue(deployment.getFuture().isDone());
+      assertTrue(deployer.getPending().isEmpty());
+      verify(api, systemApi, serverApi);
+   }
+}
@@ -16,10 +16,21 @@
  */
 package org.jclouds.fujitsu.fgcp.filters;
 
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.io.BaseEncoding.base64;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
 import java.util.Calendar;
+import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.inject.Provider;
 
@@ -31,6 +42,8 @@ import org.jclouds.http.internal.SignatureWire;
 import org.testng.annotations.Test;
 
 import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.Lists;
 
 public class RequestAuthenticatorTest {
 
@@ -158,4 +171,38 @@ public class RequestAuthenticatorTest {
             newRequest.getRequestLine(),
             "GET https://api.globalcloud.fujitsu.com.au/ovissapi/endpoint?Version=2012-02-18&Locale=en&AccessKeyId=accessKeyId%0AWith/And%2BAnd%3D&Signature=signature%0AWith/And%2BAnd%3D HTTP/1.1");
    }
+
+   @Test
+   public void testSignsConcurrently() throws Exception {
+      KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+      generator.initialize(1024);
+      final KeyPair keys = generator.generateKeyPair();
+      FGCPCredentials credentials = FGCPCredentials.builder().identity("identity").credential("credential")
+            .privateKey(keys.getPrivate()).build();
+      final RequestAuthenticator authenticator = new RequestAuthenticator(Suppliers.ofInstance(credentials),
+            new SignatureForCredentials(), calendarProvider, new HttpUtils(0, 0, 0, 0), new SignatureWire(), "");
+
+      ExecutorService executor = Executors.newFixedThreadPool(8);
+      try {
+         List<Future<Boolean>> verified = Lists.newArrayList();
+         for (int i = 0; i < 200; i++) {
+            final String stringToSign = "access key id " + i;
+            verified.add(executor.submit(new Callable<Boolean>() {
+               @Override
+               public Boolean call() throws Exception {
+                  String signature = authenticator.sign(stringToSign);
+                  Signature verifier = Signature.getInstance(RequestAuthenticator.SIGNATURE_METHOD);
+                  verifier.initVerify(keys.getPublic());
+                  verifier.update(stringToSign.getBytes(UTF_8));
+                  return verifier.verify(base64().withSeparator("\n", 61).decode(signature));
+               }
+            }));
+         }
+         for (Future<Boolean> future : verified) {
+            assertTrue(future.get());
+         }
+      } finally {
+         executor.shutdownNow();
+      }
+   }
 }
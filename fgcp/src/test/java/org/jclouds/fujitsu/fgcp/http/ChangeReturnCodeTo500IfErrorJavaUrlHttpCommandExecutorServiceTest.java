@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.fujitsu.fgcp.http;
+
+import static org.jclouds.fujitsu.fgcp.http.ChangeReturnCodeTo500IfErrorJavaUrlHttpCommandExecutorService.readResponseStatus;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.io.IOException;
+
+import org.jclouds.http.HttpResponse;
+import org.jclouds.io.Payloads;
+import org.jclouds.util.Strings2;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "ChangeReturnCodeTo500IfErrorJavaUrlHttpCommandExecutorServiceTest")
+public class ChangeReturnCodeTo500IfErrorJavaUrlHttpCommandExecutorServiceTest {
+
+   public void testReadsSuccessAndKeepsWholePayload() throws IOException {
+      String xml = resource("/responses/GetVSYSConfiguration-response.xml");
+      HttpResponse response = response(xml);
+
+      assertEquals(readResponseStatus(response), "SUCCESS");
+      assertEquals(Strings2.toStringAndClose(response.getPayload().openStream()), xml);
+   }
+
+   public void testReadsErrorStatus() throws IOException {
+      String xml = resource("/responses/IllegalState_RECONFIG_ING-response.xml");
+      HttpResponse response = response(xml);
+
+      assertEquals(readResponseStatus(response), "ILLEGAL_STATE");
+      assertEquals(Strings2.toStringAndClose(response.getPayload().openStream()), xml);
+   }
+
+   public void testNoStatusInPayloadThatIsNotXml() throws IOException {
+      HttpResponse response = response("<html><body>Service Unavailable");
+
+      assertNull(readResponseStatus(response));
+      assertEquals(Strings2.toStringAndClose(response.getPayload().openStream()), "<html><body>Service Unavailable");
+   }
+
+   public void testIgnoresNestedResponseStatus() throws IOException {
+      HttpResponse response = response("<response><item><responseStatus>SUCCESS</responseStatus></item></response>");
+
+      assertNull(readResponseStatus(response));
+   }
+
+   private String resource(String name) throws IOException {
+      return Strings2.toStringAndClose(getClass().getResourceAsStream(name));
+   }
+
+   private static HttpResponse response(String payload) {
+      return HttpResponse.builder().statusCode(200)
+            .payload(Payloads.newInputStreamPayload(Strings2.toInputStream(payload))).build();
+   }
+}
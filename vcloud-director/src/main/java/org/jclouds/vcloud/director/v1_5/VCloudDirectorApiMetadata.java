@@ -18,20 +18,35 @@ package org.jclouds.vcloud.director.v1_5;
 
 import static org.jclouds.Constants.PROPERTY_SESSION_INTERVAL;
 import static org.jclouds.reflect.Reflection2.typeToken;
+import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_ENTITY_CACHE_REFRESH;
+import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_ENTITY_CACHE_SIZE;
+import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_RESPONSE_CACHE;
+import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_RESPONSE_CACHE_SIZE;
+import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_RESPONSE_CACHE_TTL;
+import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_SCREEN_PARALLEL_CAPTURES;
+import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_TASK_POLL_PERIOD;
 import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_TIMEOUT_TASK_COMPLETED;
+import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_UPLOAD_CHECKPOINT_DIR;
+import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_UPLOAD_CHUNK_RETRIES;
+import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_UPLOAD_CHUNK_SIZE;
+import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_UPLOAD_PARALLEL_CHUNKS;
 import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_VERSION_SCHEMA;
 import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_XML_NAMESPACE;
 import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_XML_SCHEMA;
 
+import java.io.File;
 import java.net.URI;
 import java.util.Properties;
 
+import org.jclouds.concurrent.config.ScheduledExecutorServiceModule;
 import org.jclouds.rest.internal.BaseRestApiMetadata;
 import org.jclouds.vcloud.director.v1_5.config.VCloudDirectorRestClientModule;
 import org.jclouds.vcloud.director.v1_5.user.VCloudDirectorApi;
 import org.jclouds.vcloud.director.v1_5.user.VCloudDirectorAsyncApi;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.reflect.TypeToken;
+import com.google.inject.Module;
 
 /**
  * Implementation of {@link ApiMetadata} for VCloudDirector 1.5 API
@@ -66,6 +81,18 @@ public class VCloudDirectorApiMetadata extends BaseRestApiMetadata {
       // TODO integrate these with the {@link ComputeTimeouts} instead of having a single timeout for everything.
       properties.setProperty(PROPERTY_SESSION_INTERVAL, Integer.toString(300));
       properties.setProperty(PROPERTY_VCLOUD_DIRECTOR_TIMEOUT_TASK_COMPLETED, Long.toString(1200l * 1000l));
+      properties.setProperty(PROPERTY_VCLOUD_DIRECTOR_TASK_POLL_PERIOD, Long.toString(1000l));
+      properties.setProperty(PROPERTY_VCLOUD_DIRECTOR_ENTITY_CACHE_SIZE, Long.toString(10000l));
+      properties.setProperty(PROPERTY_VCLOUD_DIRECTOR_ENTITY_CACHE_REFRESH, Integer.toString(60));
+      properties.setProperty(PROPERTY_VCLOUD_DIRECTOR_RESPONSE_CACHE, Boolean.toString(false));
+      properties.setProperty(PROPERTY_VCLOUD_DIRECTOR_RESPONSE_CACHE_TTL, Long.toString(5000l));
+      properties.setProperty(PROPERTY_VCLOUD_DIRECTOR_RESPONSE_CACHE_SIZE, Long.toString(16l * 1024 * 1024));
+      properties.setProperty(PROPERTY_VCLOUD_DIRECTOR_UPLOAD_CHUNK_SIZE, Long.toString(64l * 1024l * 1024l));
+      properties.setProperty(PROPERTY_VCLOUD_DIRECTOR_UPLOAD_PARALLEL_CHUNKS, Integer.toString(4));
+      properties.setProperty(PROPERTY_VCLOUD_DIRECTOR_UPLOAD_CHUNK_RETRIES, Integer.toString(3));
+      properties.setProperty(PROPERTY_VCLOUD_DIRECTOR_UPLOAD_CHECKPOINT_DIR,
+            System.getProperty("java.io.tmpdir") + File.separator + "jclouds-vcloud-director-uploads");
+      properties.setProperty(PROPERTY_VCLOUD_DIRECTOR_SCREEN_PARALLEL_CAPTURES, Integer.toString(8));
 
       return properties;
    }
@@ -82,7 +109,8 @@ public class VCloudDirectorApiMetadata extends BaseRestApiMetadata {
          .version("1.5")
          .defaultProperties(VCloudDirectorApiMetadata.defaultProperties())
          .context(typeToken(VCloudDirectorContext.class))
-         .defaultModule(VCloudDirectorRestClientModule.class);
+         .defaultModules(ImmutableSet.<Class<? extends Module>> of(VCloudDirectorRestClientModule.class,
+               ScheduledExecutorServiceModule.class));
       }
 
       @Override
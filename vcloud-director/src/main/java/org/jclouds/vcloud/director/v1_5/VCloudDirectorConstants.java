@@ -35,6 +35,39 @@ public final class VCloudDirectorConstants {
    /** The property used to configure the timeout for task completion. */
    public static final String PROPERTY_VCLOUD_DIRECTOR_TIMEOUT_TASK_COMPLETED = "jclouds.vcloud-director.timeout.task-complete";
 
+   /** The property used to configure the delay in milliseconds between two refreshes of the tracked tasks. */
+   public static final String PROPERTY_VCLOUD_DIRECTOR_TASK_POLL_PERIOD = "jclouds.vcloud-director.task.poll-period";
+
+   /** The property used to configure how many resolved URNs are cached. */
+   public static final String PROPERTY_VCLOUD_DIRECTOR_ENTITY_CACHE_SIZE = "jclouds.vcloud-director.entity-cache.size";
+
+   /** The property used to configure the delay in seconds after which a resolved URN is refreshed in the background. */
+   public static final String PROPERTY_VCLOUD_DIRECTOR_ENTITY_CACHE_REFRESH = "jclouds.vcloud-director.entity-cache.refresh";
+
+   /** The property used to enable the cache of the entities read, which is disabled by default. */
+   public static final String PROPERTY_VCLOUD_DIRECTOR_RESPONSE_CACHE = "jclouds.vcloud-director.response-cache";
+
+   /** The property used to configure how long in milliseconds a cached entity the server sent no validator for is served. */
+   public static final String PROPERTY_VCLOUD_DIRECTOR_RESPONSE_CACHE_TTL = "jclouds.vcloud-director.response-cache.ttl";
+
+   /** The property used to configure how many bytes of entity bodies are cached. */
+   public static final String PROPERTY_VCLOUD_DIRECTOR_RESPONSE_CACHE_SIZE = "jclouds.vcloud-director.response-cache.size";
+
+   /** The property used to configure the size in bytes of the chunks of a file upload. */
+   public static final String PROPERTY_VCLOUD_DIRECTOR_UPLOAD_CHUNK_SIZE = "jclouds.vcloud-director.upload.chunk-size";
+
+   /** The property used to configure how many chunks are uploaded at the same time. */
+   public static final String PROPERTY_VCLOUD_DIRECTOR_UPLOAD_PARALLEL_CHUNKS = "jclouds.vcloud-director.upload.parallel-chunks";
+
+   /** The property used to configure how many times a failed chunk is sent again. */
+   public static final String PROPERTY_VCLOUD_DIRECTOR_UPLOAD_CHUNK_RETRIES = "jclouds.vcloud-director.upload.chunk-retries";
+
+   /** The property used to configure how many screens of vms are captured at the same time. */
+   public static final String PROPERTY_VCLOUD_DIRECTOR_SCREEN_PARALLEL_CAPTURES = "jclouds.vcloud-director.screen.parallel-captures";
+
+   /** The property used to configure the directory where the completed chunks of the uploads are recorded. */
+   public static final String PROPERTY_VCLOUD_DIRECTOR_UPLOAD_CHECKPOINT_DIR = "jclouds.vcloud-director.upload.checkpoint-dir";
+
    public static final String PROPERTY_VCLOUD_DIRECTOR_VERSION_SCHEMA = "jclouds.vcloud-director.version.schema";
 
    /** Name of the default org that your vApp will join, if an org isn't explicitly specified. */
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vcloud.director.v1_5;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static org.jclouds.Fallbacks.valOnNotFoundOr404;
+
+import org.jclouds.Fallback;
+import org.jclouds.http.HttpResponseException;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * Fallbacks common to the vCloud Director apis.
+ */
+public final class VCloudDirectorFallbacks {
+   private VCloudDirectorFallbacks() {
+   }
+
+   /**
+    * Return <code>null</code> when a conditional request finds the resource unchanged, or does not
+    * find it at all.
+    */
+   public static final class NullOnNotModifiedOrNotFound implements Fallback<Object> {
+      @Override
+      public ListenableFuture<Object> create(Throwable t) throws Exception {
+         return immediateFuture(createOrPropagate(t));
+      }
+
+      @Override
+      public Object createOrPropagate(Throwable t) throws Exception {
+         for (HttpResponseException e : Iterables.filter(Throwables.getCausalChain(checkNotNull(t, "throwable")),
+               HttpResponseException.class)) {
+            if (e.getResponse() != null && e.getResponse().getStatusCode() == 304)
+               return null;
+         }
+         return valOnNotFoundOr404(null, t);
+      }
+   }
+}
@@ -17,6 +17,7 @@
 package org.jclouds.vcloud.director.v1_5.compute.functions;
 
 import java.net.URI;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 
@@ -31,7 +32,14 @@ import org.jclouds.vcloud.director.v1_5.domain.Reference;
 
 import com.google.common.base.Function;
 import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 
+/**
+ * Finds the location of a resource, such as the vdc of a vm, through an index of the locations by
+ * href. The index is rebuilt whenever the supplier returns a new set of locations, so a lookup
+ * does not scan the locations and their parents.
+ */
 @Singleton
 public class FindLocationForResource implements Function<Reference, Location> {
 
@@ -39,12 +47,41 @@ public class FindLocationForResource implements Function<Reference, Location> {
    protected Logger logger = Logger.NULL;
 
    final Supplier<Set<? extends Location>> locations;
+   private volatile LocationIndex index;
 
    @Inject
    public FindLocationForResource(@Memoized Supplier<Set<? extends Location>> locations) {
       this.locations = locations;
    }
 
+   private static class LocationIndex {
+      private final Set<? extends Location> locations;
+      private final Map<URI, Location> byHref;
+
+      private LocationIndex(Set<? extends Location> locations) {
+         this.locations = locations;
+         Map<URI, Location> byHref = Maps.newHashMap();
+         for (Location input : locations) {
+            do {
+               // keeps the first match, as a scan of the locations would
+               URI href = hrefOf(input);
+               if (href != null && !byHref.containsKey(href))
+                  byHref.put(href, input);
+            } while ((input = input.getParent()) != null);
+         }
+         this.byHref = ImmutableMap.copyOf(byHref);
+      }
+
+      private static URI hrefOf(Location location) {
+         try {
+            return URI.create(location.getId());
+         } catch (IllegalArgumentException e) {
+            // such as the id of the provider, which is not a resource
+            return null;
+         }
+      }
+   }
+
    /**
     * searches for a location associated with this resource.
     * 
@@ -52,15 +89,18 @@ public class FindLocationForResource implements Function<Reference, Location> {
     *            if not found
     */
    public Location apply(Reference resource) {
-      for (Location input : locations.get()) {
-         do {
-            // The "name" isn't always present, ex inside a vApp we have a rel
-            // link that only includes href and type.
-            if (URI.create(input.getId()).equals(resource.getHref()))
-               return input;
-         } while ((input = input.getParent()) != null);
+      Set<? extends Location> current = locations.get();
+      LocationIndex index = this.index;
+      // the memoized supplier returns the same set until it is refreshed
+      if (index == null || index.locations != current) {
+         index = new LocationIndex(current);
+         this.index = index;
       }
-      throw new NoSuchElementException(String.format("resource: %s not found in locations: %s", resource,
-            locations.get()));
+      // The "name" isn't always present, ex inside a vApp we have a rel
+      // link that only includes href and type.
+      Location location = index.byHref.get(resource.getHref());
+      if (location == null)
+         throw new NoSuchElementException(String.format("resource: %s not found in locations: %s", resource, current));
+      return location;
    }
 }
@@ -18,15 +18,23 @@ package org.jclouds.vcloud.director.v1_5.compute.functions;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+
 import javax.annotation.Resource;
 import javax.inject.Inject;
 
 import org.jclouds.compute.domain.Hardware;
 import org.jclouds.compute.domain.HardwareBuilder;
 import org.jclouds.compute.predicates.ImagePredicates;
+import org.jclouds.dmtf.CIMPredicates;
+import org.jclouds.dmtf.cim.ResourceAllocationSettingData;
+import org.jclouds.dmtf.cim.ResourceAllocationSettingData.ResourceType;
 import org.jclouds.domain.Location;
 import org.jclouds.logging.Logger;
 import org.jclouds.vcloud.director.v1_5.VCloudDirectorMediaType;
+import org.jclouds.vcloud.director.v1_5.domain.Link;
 import org.jclouds.vcloud.director.v1_5.domain.Reference;
 import org.jclouds.vcloud.director.v1_5.domain.Vm;
 import org.jclouds.vcloud.director.v1_5.domain.section.VirtualHardwareSection;
@@ -34,16 +42,41 @@ import org.jclouds.vcloud.director.v1_5.functions.SectionForVApp;
 import org.jclouds.vcloud.director.v1_5.predicates.LinkPredicates;
 
 import com.google.common.base.Function;
+import com.google.common.base.Objects;
+import com.google.common.base.Predicate;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 
+/**
+ * Builds the hardware of a vm. The processors, memory and volumes derived from the virtual hardware
+ * are indexed by the allocations they are built from, so vms with the same profile only derive them
+ * once.
+ */
 public class HardwareForVm implements Function<Vm, Hardware> {
 
+   private static final Predicate<Link> VDC_LINK = LinkPredicates.typeEquals(VCloudDirectorMediaType.VDC);
+
    @Resource
    protected Logger logger = Logger.NULL;
 
    private final Function<Reference, Location> findLocationForResource;
    private final VCloudHardwareBuilderFromResourceAllocations rasdToHardwareBuilder;
    private final SectionForVApp<VirtualHardwareSection> findVirtualHardwareSectionForVm;
+   private static final Predicate<ResourceAllocationSettingData> PROFILE_ITEM = CIMPredicates.resourceTypeIn(
+         ResourceType.PROCESSOR, ResourceType.MEMORY, ResourceType.DISK_DRIVE, ResourceType.BASE_PARTITIONABLE_UNIT,
+         ResourceType.PARTITIONABLE_UNIT);
+
+   private final LoadingCache<Profile, Hardware> profiles = CacheBuilder.newBuilder().maximumSize(1000)
+         .build(new CacheLoader<Profile, Hardware>() {
+            @Override
+            public Hardware load(Profile profile) {
+               // the id is replaced by the one of each vm
+               return rasdToHardwareBuilder.apply(profile.items).ids("profile").hypervisor("VMware").build();
+            }
+         });
 
    @Inject
    protected HardwareForVm(Function<Reference, Location> findLocationForResource,
@@ -62,12 +95,49 @@ public class HardwareForVm implements Function<Vm, Hardware> {
          return null;
       
       VirtualHardwareSection hardware = findVirtualHardwareSectionForVm.apply(from);
-      HardwareBuilder builder = rasdToHardwareBuilder.apply(hardware.getItems());
-      builder.location(findLocationForResource.apply(Iterables.find(checkNotNull(from, "from").getLinks(), 
-            LinkPredicates.typeEquals(VCloudDirectorMediaType.VDC))));
+      Profile profile = new Profile(ImmutableList.<ResourceAllocationSettingData> copyOf(Iterables.filter(
+            hardware.getItems(), PROFILE_ITEM)));
+      HardwareBuilder builder = HardwareBuilder.fromHardware(profiles.getUnchecked(profile));
+      builder.location(findLocationForResource.apply(Iterables.find(checkNotNull(from, "from").getLinks(), VDC_LINK)));
       builder.ids(from.getHref().toASCIIString()).name(from.getName()).supportsImage(
                ImagePredicates.idEquals(from.getHref().toASCIIString()));
-      builder.hypervisor("VMware");
       return builder.build();
    }
+
+   /**
+    * The processors, memory and disks of a vm. The other allocations, such as the network cards and
+    * their addresses, differ between vms of the same profile and are left out.
+    */
+   private static final class Profile {
+      private final List<ResourceAllocationSettingData> items;
+      private final List<List<Object>> sizes;
+
+      private Profile(List<ResourceAllocationSettingData> items) {
+         this.items = items;
+         ImmutableList.Builder<List<Object>> sizes = ImmutableList.builder();
+         for (ResourceAllocationSettingData item : items) {
+            ResourceType type = item.getResourceType();
+            BigInteger quantity = item.getVirtualQuantity();
+            // disks are told apart by their address on the controller
+            String addressOnParent = type == ResourceType.PROCESSOR || type == ResourceType.MEMORY ? null : item
+                  .getAddressOnParent();
+            sizes.add(Arrays.<Object> asList(type, quantity, addressOnParent));
+         }
+         this.sizes = sizes.build();
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (this == o)
+            return true;
+         if (o == null || getClass() != o.getClass())
+            return false;
+         return Objects.equal(sizes, Profile.class.cast(o).sizes);
+      }
+
+      @Override
+      public int hashCode() {
+         return sizes.hashCode();
+      }
+   }
 }
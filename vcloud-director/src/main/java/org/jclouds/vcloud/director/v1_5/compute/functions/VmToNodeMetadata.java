@@ -38,15 +38,19 @@ import org.jclouds.domain.Credentials;
 import org.jclouds.logging.Logger;
 import org.jclouds.util.InetAddresses2.IsPrivateIPAddress;
 import org.jclouds.vcloud.director.v1_5.VCloudDirectorMediaType;
+import org.jclouds.vcloud.director.v1_5.domain.Link;
 import org.jclouds.vcloud.director.v1_5.domain.Vm;
 import org.jclouds.vcloud.director.v1_5.domain.ResourceEntity.Status;
 import org.jclouds.vcloud.director.v1_5.predicates.LinkPredicates;
 
 import com.google.common.base.Function;
+import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 
 @Singleton
 public class VmToNodeMetadata implements Function<Vm, NodeMetadata> {
+   private static final Predicate<Link> VDC_LINK = LinkPredicates.typeEquals(VCloudDirectorMediaType.VDC);
+
    @Resource
    protected static Logger logger = Logger.NULL;
 
@@ -73,8 +77,7 @@ public class VmToNodeMetadata implements Function<Vm, NodeMetadata> {
       builder.uri(from.getHref());
       builder.name(from.getName());
       builder.hostname(from.getName());
-      builder.location(findLocationForResourceInVDC.apply(
-            Iterables.find(from.getLinks(), LinkPredicates.typeEquals(VCloudDirectorMediaType.VDC))));
+      builder.location(findLocationForResourceInVDC.apply(Iterables.find(from.getLinks(), VDC_LINK)));
       builder.group(nodeNamingConvention.groupInUniqueNameOrNull(from.getName()));
       builder.operatingSystem(toComputeOs(from));
       builder.hardware(hardwareForVm.apply(from));
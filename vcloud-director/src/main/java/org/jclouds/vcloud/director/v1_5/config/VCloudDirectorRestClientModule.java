@@ -18,6 +18,8 @@ package org.jclouds.vcloud.director.v1_5.config;
 
 import static org.jclouds.Constants.PROPERTY_SESSION_INTERVAL;
 import static org.jclouds.rest.config.BinderUtils.bindSyncToAsyncHttpApi;
+import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_ENTITY_CACHE_REFRESH;
+import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_ENTITY_CACHE_SIZE;
 
 import java.net.URI;
 import java.util.Map;
@@ -29,6 +31,7 @@ import org.jclouds.http.HttpRetryHandler;
 import org.jclouds.http.annotation.ClientError;
 import org.jclouds.http.annotation.Redirection;
 import org.jclouds.http.annotation.ServerError;
+import org.jclouds.http.internal.JavaUrlHttpCommandExecutorService;
 import org.jclouds.location.Provider;
 import org.jclouds.rest.ConfiguresRestClient;
 import org.jclouds.rest.RestContext;
@@ -80,6 +83,7 @@ import org.jclouds.vcloud.director.v1_5.features.admin.UserApi;
 import org.jclouds.vcloud.director.v1_5.features.admin.UserAsyncApi;
 import org.jclouds.vcloud.director.v1_5.handlers.InvalidateSessionAndRetryOn401AndLogoutOnClose;
 import org.jclouds.vcloud.director.v1_5.handlers.VCloudDirectorErrorHandler;
+import org.jclouds.vcloud.director.v1_5.http.CachingJavaUrlHttpCommandExecutorService;
 import org.jclouds.vcloud.director.v1_5.loaders.LoginUserInOrgWithPassword;
 import org.jclouds.vcloud.director.v1_5.loaders.ResolveEntity;
 import org.jclouds.vcloud.director.v1_5.login.SessionApi;
@@ -144,10 +148,12 @@ public class VCloudDirectorRestClientModule extends RestClientModule<VCloudDirec
       bindSyncToAsyncHttpApi(binder(), OrgApi.class, OrgAsyncApi.class);
       bindSyncToAsyncHttpApi(binder(), SessionApi.class, SessionAsyncApi.class);
       bindSyncToAsyncHttpApi(binder(), TaskApi.class, TaskAsyncApi.class);
+      bindSyncToAsyncHttpApi(binder(), UploadApi.class, UploadAsyncApi.class);
       bindSyncToAsyncHttpApi(binder(), VAppApi.class, VAppAsyncApi.class);
       bindSyncToAsyncHttpApi(binder(), VmApi.class, VmAsyncApi.class);
       
       bind(HttpRetryHandler.class).annotatedWith(ClientError.class).to(InvalidateSessionAndRetryOn401AndLogoutOnClose.class);
+      bind(JavaUrlHttpCommandExecutorService.class).to(CachingJavaUrlHttpCommandExecutorService.class);
       
       super.configure();
       bindSyncToAsyncHttpApi(binder(),  VCloudDirectorAdminApi.class, VCloudDirectorAdminAsyncApi.class);
@@ -205,8 +211,11 @@ public class VCloudDirectorRestClientModule extends RestClientModule<VCloudDirec
 
    @Provides
    @Singleton
-   LoadingCache<String, Entity> resolveEntityCache(ResolveEntity loader, @Named(PROPERTY_SESSION_INTERVAL) int seconds) {
-      return CacheBuilder.newBuilder().expireAfterWrite(seconds, TimeUnit.SECONDS).build(loader);
+   LoadingCache<String, Entity> resolveEntityCache(ResolveEntity loader, @Named(PROPERTY_SESSION_INTERVAL) int seconds,
+         @Named(PROPERTY_VCLOUD_DIRECTOR_ENTITY_CACHE_SIZE) long maximumSize,
+         @Named(PROPERTY_VCLOUD_DIRECTOR_ENTITY_CACHE_REFRESH) int refreshSeconds) {
+      return CacheBuilder.newBuilder().maximumSize(maximumSize).refreshAfterWrite(refreshSeconds, TimeUnit.SECONDS)
+            .expireAfterWrite(seconds, TimeUnit.SECONDS).recordStats().build(loader);
    }
 
    @Provides
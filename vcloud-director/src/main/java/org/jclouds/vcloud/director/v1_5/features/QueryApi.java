@@ -20,6 +20,7 @@ import org.jclouds.vcloud.director.v1_5.domain.query.CatalogReferences;
 import org.jclouds.vcloud.director.v1_5.domain.query.QueryList;
 import org.jclouds.vcloud.director.v1_5.domain.query.QueryResultRecords;
 import org.jclouds.vcloud.director.v1_5.domain.query.VAppReferences;
+import org.jclouds.vcloud.director.v1_5.functions.QueryResultRecordsStream;
 
 /**
  * Provides synchronous access to the REST API query interface.
@@ -62,6 +63,15 @@ public interface QueryApi {
    /** @see #queryAll() */
    QueryResultRecords query(Integer page, Integer pageSize, String format, String type, String filter);
 
+   /**
+    * Retrieves a page of records, decoding them one at a time while the response is read.
+    *
+    * The returned stream must be closed if it is not read to the end.
+    *
+    * @see #query(Integer, Integer, String, String, String)
+    */
+   QueryResultRecordsStream queryStream(Integer page, Integer pageSize, String type, String filter);
+
    /**
     * Retrieves a list of {@link Catalog}s by using REST API general QueryHandler.
     *
@@ -128,6 +138,9 @@ public interface QueryApi {
    /** @see #queryAll() */
    QueryResultRecords vAppsQuery(Integer page, Integer pageSize, String filter);
 
+   /** @see #queryStream(Integer, Integer, String, String) */
+   QueryResultRecordsStream vAppsQueryStream(Integer page, Integer pageSize, String filter);
+
    /**
     * Retrieves a list of {@link VAppReference}s by using REST API general QueryHandler.
     *
@@ -160,6 +173,9 @@ public interface QueryApi {
    /** @see #queryAll() */
    QueryResultRecords vmsQuery(String filter);
 
+   /** @see #queryStream(Integer, Integer, String, String) */
+   QueryResultRecordsStream vmsQueryStream(Integer page, Integer pageSize, String filter);
+
    /**
     * Retrieves a list of {@link Media}s by using REST API general QueryHandler.
     *
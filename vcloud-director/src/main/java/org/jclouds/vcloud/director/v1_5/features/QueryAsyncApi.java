@@ -24,11 +24,14 @@ import javax.ws.rs.QueryParam;
 import org.jclouds.rest.annotations.JAXBResponseParser;
 import org.jclouds.rest.annotations.QueryParams;
 import org.jclouds.rest.annotations.RequestFilters;
+import org.jclouds.rest.annotations.ResponseParser;
 import org.jclouds.vcloud.director.v1_5.domain.query.CatalogReferences;
 import org.jclouds.vcloud.director.v1_5.domain.query.QueryList;
 import org.jclouds.vcloud.director.v1_5.domain.query.QueryResultRecords;
 import org.jclouds.vcloud.director.v1_5.domain.query.VAppReferences;
 import org.jclouds.vcloud.director.v1_5.filters.AddVCloudAuthorizationAndCookieToRequest;
+import org.jclouds.vcloud.director.v1_5.functions.ParseQueryResultRecordsStream;
+import org.jclouds.vcloud.director.v1_5.functions.QueryResultRecordsStream;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
@@ -66,6 +69,14 @@ public interface QueryAsyncApi {
    ListenableFuture<QueryResultRecords> query(@QueryParam("page") Integer page, @QueryParam("pageSize") Integer pageSize,
          @QueryParam("format") String format, @QueryParam("type") String type, @QueryParam("filter") String filter);
 
+   @GET
+   @Path("/query")
+   @Consumes
+   @QueryParams(keys = { "format" }, values = { "records" })
+   @ResponseParser(ParseQueryResultRecordsStream.class)
+   ListenableFuture<QueryResultRecordsStream> queryStream(@QueryParam("page") Integer page, @QueryParam("pageSize") Integer pageSize,
+         @QueryParam("type") String type, @QueryParam("filter") String filter);
+
    /**
     * Retrieves a list of {@link Catalog}s by using REST API general QueryHandler.
     */
@@ -144,6 +155,13 @@ public interface QueryAsyncApi {
    ListenableFuture<QueryResultRecords> vAppsQuery(@QueryParam("page") Integer page, @QueryParam("pageSize") Integer pageSize,
          @QueryParam("filter") String filter);
 
+   @GET
+   @Path("/vApps/query")
+   @Consumes
+   @ResponseParser(ParseQueryResultRecordsStream.class)
+   ListenableFuture<QueryResultRecordsStream> vAppsQueryStream(@QueryParam("page") Integer page, @QueryParam("pageSize") Integer pageSize,
+         @QueryParam("filter") String filter);
+
    @GET
    @Path("/vApps/query")
    @Consumes
@@ -177,6 +195,13 @@ public interface QueryAsyncApi {
    @Consumes
    @JAXBResponseParser
    ListenableFuture<QueryResultRecords> vmsQuery(@QueryParam("filter") String filter);
+
+   @GET
+   @Path("/vms/query")
+   @Consumes
+   @ResponseParser(ParseQueryResultRecordsStream.class)
+   ListenableFuture<QueryResultRecordsStream> vmsQueryStream(@QueryParam("page") Integer page, @QueryParam("pageSize") Integer pageSize,
+         @QueryParam("filter") String filter);
    
    @GET
    @Path("/mediaList/query")
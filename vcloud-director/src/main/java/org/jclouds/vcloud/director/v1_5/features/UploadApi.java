@@ -30,5 +30,13 @@ public interface UploadApi {
     * @return eTag
     */
    void upload(URI location, Payload payload);
+
+   /**
+    * Uploads a part of a file, so that large files can be sent in chunks and resumed.
+    *
+    * @param contentRange
+    *           the range of the file held by the payload, as in {@code bytes 0-1023/4096}
+    */
+   void uploadRange(URI location, String contentRange, Payload payload);
    
 }
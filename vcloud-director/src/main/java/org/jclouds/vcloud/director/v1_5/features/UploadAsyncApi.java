@@ -18,6 +18,7 @@ package org.jclouds.vcloud.director.v1_5.features;
 
 import java.net.URI;
 
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.PUT;
 
 import org.jclouds.io.Payload;
@@ -38,4 +39,11 @@ public interface UploadAsyncApi {
     */
    @PUT
    ListenableFuture<Void> upload(@EndpointParam URI location, Payload payload);
+
+   /**
+    * @see UploadApi#uploadRange
+    */
+   @PUT
+   ListenableFuture<Void> uploadRange(@EndpointParam URI location, @HeaderParam("Content-Range") String contentRange,
+         Payload payload);
 }
@@ -35,6 +35,7 @@ import org.jclouds.vcloud.director.v1_5.domain.section.NetworkConnectionSection;
 import org.jclouds.vcloud.director.v1_5.domain.section.OperatingSystemSection;
 import org.jclouds.vcloud.director.v1_5.domain.section.RuntimeInfoSection;
 import org.jclouds.vcloud.director.v1_5.domain.section.VirtualHardwareSection;
+import org.jclouds.vcloud.director.v1_5.screen.ScreenImage;
 
 /**
  * Provides synchronous access to {@link Vm} objects.
@@ -404,6 +405,26 @@ public interface VmApi {
 
    byte[] getScreenImage(URI vmHref);
 
+   /**
+    * Retrieves the thumbnail of the screen of a {@link Vm}, without reading it into memory.
+    * 
+    * The image must be {@link ScreenImage#close() closed} once read.
+    * 
+    * @see #getScreenImage(String)
+    */
+   ScreenImage getScreenImageStream(String vmUrn);
+
+   ScreenImage getScreenImageStream(URI vmHref);
+
+   /**
+    * Retrieves the thumbnail of the screen of a {@link Vm}, unless it still has the given entity tag.
+    * 
+    * @param eTag
+    *           the {@link ScreenImage#getETag() entity tag} of the last image retrieved
+    * @return the new image, or null if the screen has not changed or the vm is not found
+    */
+   ScreenImage getScreenImageIfNoneMatch(URI vmHref, String eTag);
+
    /**
     * Retrieve a screen ticket for remote console connection to a {@link Vm}.
     * 
@@ -37,10 +37,12 @@ import java.net.URI;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.HttpHeaders;
 
 import org.jclouds.Fallbacks.NullOnNotFoundOr404;
 import org.jclouds.rest.annotations.BinderParam;
@@ -50,6 +52,7 @@ import org.jclouds.rest.annotations.JAXBResponseParser;
 import org.jclouds.rest.annotations.RequestFilters;
 import org.jclouds.rest.annotations.ResponseParser;
 import org.jclouds.rest.binders.BindToXMLPayload;
+import org.jclouds.vcloud.director.v1_5.VCloudDirectorFallbacks.NullOnNotModifiedOrNotFound;
 import org.jclouds.vcloud.director.v1_5.domain.ProductSectionList;
 import org.jclouds.vcloud.director.v1_5.domain.RasdItemsList;
 import org.jclouds.vcloud.director.v1_5.domain.ScreenTicket;
@@ -68,8 +71,10 @@ import org.jclouds.vcloud.director.v1_5.domain.section.OperatingSystemSection;
 import org.jclouds.vcloud.director.v1_5.domain.section.RuntimeInfoSection;
 import org.jclouds.vcloud.director.v1_5.domain.section.VirtualHardwareSection;
 import org.jclouds.vcloud.director.v1_5.filters.AddVCloudAuthorizationAndCookieToRequest;
+import org.jclouds.vcloud.director.v1_5.functions.ParseScreenImage;
 import org.jclouds.vcloud.director.v1_5.functions.ReturnPayloadBytes;
 import org.jclouds.vcloud.director.v1_5.functions.URNToHref;
+import org.jclouds.vcloud.director.v1_5.screen.ScreenImage;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
@@ -379,6 +384,16 @@ public interface VmAsyncApi {
    @ResponseParser(ReturnPayloadBytes.class)
    ListenableFuture<byte[]> getScreenImage(@EndpointParam(parser = URNToHref.class) String vmUrn);
 
+   /**
+    * @see VmApi#getScreenImageStream(String)
+    */
+   @GET
+   @Path("/screen")
+   @Consumes(ANY_IMAGE)
+   @Fallback(NullOnNotFoundOr404.class)
+   @ResponseParser(ParseScreenImage.class)
+   ListenableFuture<ScreenImage> getScreenImageStream(@EndpointParam(parser = URNToHref.class) String vmUrn);
+
    /**
     * @see VmApi#getScreenTicket(String)
     */
@@ -826,6 +841,27 @@ public interface VmAsyncApi {
    @ResponseParser(ReturnPayloadBytes.class)
    ListenableFuture<byte[]> getScreenImage(@EndpointParam URI vmHref);
 
+   /**
+    * @see VmApi#getScreenImageStream(URI)
+    */
+   @GET
+   @Path("/screen")
+   @Consumes(ANY_IMAGE)
+   @Fallback(NullOnNotFoundOr404.class)
+   @ResponseParser(ParseScreenImage.class)
+   ListenableFuture<ScreenImage> getScreenImageStream(@EndpointParam URI vmHref);
+
+   /**
+    * @see VmApi#getScreenImageIfNoneMatch(URI, String)
+    */
+   @GET
+   @Path("/screen")
+   @Consumes(ANY_IMAGE)
+   @Fallback(NullOnNotModifiedOrNotFound.class)
+   @ResponseParser(ParseScreenImage.class)
+   ListenableFuture<ScreenImage> getScreenImageIfNoneMatch(@EndpointParam URI vmHref,
+         @HeaderParam(HttpHeaders.IF_NONE_MATCH) String eTag);
+
    /**
     * @see VmApi#getScreenTicket(URI)
     */
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vcloud.director.v1_5.functions;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.util.Closeables2.closeQuietly;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.inject.Singleton;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+
+import org.jclouds.http.HttpResponse;
+import org.jclouds.vcloud.director.v1_5.domain.query.QueryResultRecords;
+
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+
+/**
+ * Decodes a {@link QueryResultRecords} response as a {@link QueryResultRecordsStream}, instead of
+ * unmarshalling the whole page at once.
+ */
+@Singleton
+public class ParseQueryResultRecordsStream implements Function<HttpResponse, QueryResultRecordsStream> {
+
+   private static final XMLInputFactory INPUT_FACTORY;
+
+   static {
+      INPUT_FACTORY = XMLInputFactory.newInstance();
+      INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+      INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+   }
+
+   // the context is expensive to create and thread safe; unmarshallers are neither
+   private static class ContextHolder {
+      private static final JAXBContext CONTEXT;
+
+      static {
+         try {
+            CONTEXT = JAXBContext.newInstance(QueryResultRecords.class);
+         } catch (JAXBException e) {
+            throw new ExceptionInInitializerError(e);
+         }
+      }
+   }
+
+   @Override
+   public QueryResultRecordsStream apply(HttpResponse response) {
+      checkNotNull(response.getPayload(), "payload in %s", response);
+      InputStream in = null;
+      try {
+         in = response.getPayload().openStream();
+         return new QueryResultRecordsStream(in, INPUT_FACTORY.createXMLStreamReader(in),
+               ContextHolder.CONTEXT.createUnmarshaller());
+      } catch (IOException e) {
+         throw closeAndPropagate(in, e);
+      } catch (XMLStreamException e) {
+         throw closeAndPropagate(in, e);
+      } catch (JAXBException e) {
+         throw closeAndPropagate(in, e);
+      }
+   }
+
+   private static RuntimeException closeAndPropagate(InputStream in, Exception e) {
+      closeQuietly(in);
+      throw Throwables.propagate(e);
+   }
+}
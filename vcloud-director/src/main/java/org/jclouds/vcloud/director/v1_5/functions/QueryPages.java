@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vcloud.director.v1_5.functions;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Iterables.any;
+import static org.jclouds.vcloud.director.v1_5.predicates.LinkPredicates.relEquals;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+
+import org.jclouds.vcloud.director.v1_5.domain.Link;
+import org.jclouds.vcloud.director.v1_5.domain.query.QueryResultRecordType;
+import org.jclouds.vcloud.director.v1_5.domain.query.QueryResultRecords;
+import org.jclouds.vcloud.director.v1_5.features.QueryAsyncApi;
+
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Lazily iterates over the records of a paged vCloud query.
+ * <p/>
+ * Pages are only requested when iteration reaches them. Once the first page tells the total number
+ * of records, up to {@code prefetch} following pages are requested concurrently, so at most
+ * {@code prefetch + 1} pages are held in memory. Stopping the iteration stops requesting pages, and
+ * closing the {@link RecordIterator} cancels the pages already requested ahead.
+ */
+public class QueryPages {
+
+   /**
+    * Iterates over the records of the pages returned by the given loader.
+    *
+    * @param pageLoader requests the page with the given (1-based) number
+    * @param prefetch maximum number of pages requested ahead of the page being iterated
+    */
+   public static Records records(final Function<Integer, ListenableFuture<QueryResultRecords>> pageLoader,
+         final int prefetch) {
+      checkNotNull(pageLoader, "pageLoader must be defined");
+      checkArgument(prefetch > 0, "prefetch must be positive");
+
+      return new Records() {
+         @Override
+         public RecordIterator iterator() {
+            return new RecordIterator(pageLoader, prefetch);
+         }
+
+         @Override
+         public String toString() {
+            return "records(" + pageLoader + ")";
+         }
+      };
+   }
+
+   /**
+    * Iterates over the records of a general query.
+    *
+    * @see QueryAsyncApi#query(Integer, Integer, String, String, String)
+    */
+   public static Records records(QueryAsyncApi queryApi, String type, String filter, int pageSize, int prefetch) {
+      return records(query(queryApi, type, filter, pageSize), prefetch);
+   }
+
+   /**
+    * Requests the pages of a general query in the records format.
+    *
+    * @see QueryAsyncApi#query(Integer, Integer, String, String, String)
+    */
+   public static Function<Integer, ListenableFuture<QueryResultRecords>> query(final QueryAsyncApi queryApi,
+         final String type, final String filter, final int pageSize) {
+      checkNotNull(queryApi, "queryApi must be defined");
+      checkNotNull(type, "type must be defined");
+      checkArgument(pageSize > 0, "pageSize must be positive");
+
+      return new Function<Integer, ListenableFuture<QueryResultRecords>>() {
+         @Override
+         public ListenableFuture<QueryResultRecords> apply(Integer page) {
+            return queryApi.query(page, pageSize, "records", type, filter);
+         }
+
+         @Override
+         public String toString() {
+            return "query(" + type + ", " + filter + ")";
+         }
+      };
+   }
+
+   /**
+    * Requests the pages of a query on vApps.
+    *
+    * @see QueryAsyncApi#vAppsQuery(Integer, Integer, String)
+    */
+   public static Function<Integer, ListenableFuture<QueryResultRecords>> vAppsQuery(final QueryAsyncApi queryApi,
+         final String filter, final int pageSize) {
+      checkNotNull(queryApi, "queryApi must be defined");
+      checkArgument(pageSize > 0, "pageSize must be positive");
+
+      return new Function<Integer, ListenableFuture<QueryResultRecords>>() {
+         @Override
+         public ListenableFuture<QueryResultRecords> apply(Integer page) {
+            return queryApi.vAppsQuery(page, pageSize, filter);
+         }
+
+         @Override
+         public String toString() {
+            return "vAppsQuery(" + filter + ")";
+         }
+      };
+   }
+
+   /**
+    * Requests the pages of a query on catalogs.
+    *
+    * @see QueryAsyncApi#catalogsQuery(Integer, Integer, String)
+    */
+   public static Function<Integer, ListenableFuture<QueryResultRecords>> catalogsQuery(final QueryAsyncApi queryApi,
+         final String filter, final int pageSize) {
+      checkNotNull(queryApi, "queryApi must be defined");
+      checkArgument(pageSize > 0, "pageSize must be positive");
+
+      return new Function<Integer, ListenableFuture<QueryResultRecords>>() {
+         @Override
+         public ListenableFuture<QueryResultRecords> apply(Integer page) {
+            return queryApi.catalogsQuery(page, pageSize, filter);
+         }
+
+         @Override
+         public String toString() {
+            return "catalogsQuery(" + filter + ")";
+         }
+      };
+   }
+
+   /**
+    * The records of a paged query, whose iterators can be closed when they are abandoned.
+    */
+   public abstract static class Records extends FluentIterable<QueryResultRecordType> {
+      @Override
+      public abstract RecordIterator iterator();
+   }
+
+   /**
+    * Iterates over the records of the pages, requesting the following pages ahead.
+    */
+   public static final class RecordIterator extends AbstractIterator<QueryResultRecordType> implements Closeable {
+
+      private final Function<Integer, ListenableFuture<QueryResultRecords>> pageLoader;
+      private final int prefetch;
+      private final Deque<ListenableFuture<QueryResultRecords>> window = new ArrayDeque<ListenableFuture<QueryResultRecords>>();
+      private Iterator<QueryResultRecordType> current = Iterators.emptyIterator();
+      private int nextPage = 1;
+      private int lastPage = 1;
+      private int pagesRead = 0;
+
+      private RecordIterator(Function<Integer, ListenableFuture<QueryResultRecords>> pageLoader, int prefetch) {
+         this.pageLoader = pageLoader;
+         this.prefetch = prefetch;
+      }
+
+      @Override
+      protected QueryResultRecordType computeNext() {
+         while (!current.hasNext()) {
+            if (window.isEmpty())
+               fill();
+            if (window.isEmpty())
+               return endOfData();
+            QueryResultRecords page;
+            try {
+               page = get(window.poll());
+            } catch (RuntimeException e) {
+               close();
+               throw e;
+            }
+            pagesRead++;
+            updateLastPage(page);
+            fill();
+            current = page.getRecords().iterator();
+         }
+         return current.next();
+      }
+
+      private void fill() {
+         while (window.size() < prefetch && nextPage <= lastPage) {
+            window.add(pageLoader.apply(nextPage++));
+         }
+      }
+
+      /**
+       * Stops requesting pages, and cancels those requested ahead of the page being iterated.
+       */
+      @Override
+      public void close() {
+         lastPage = 0;
+         for (ListenableFuture<QueryResultRecords> page : window) {
+            page.cancel(true);
+         }
+         window.clear();
+      }
+
+      private void updateLastPage(QueryResultRecords page) {
+         Integer pageSize = page.getPageSize();
+         boolean knownPageSize = pageSize != null && pageSize > 0;
+         if (knownPageSize && page.getTotal() != null) {
+            lastPage = (int) ((page.getTotal() + pageSize - 1) / pageSize);
+         } else if (any(page.getLinks(), relEquals(Link.Rel.NEXT_PAGE))) {
+            // without a total, pages are requested one at a time while each one links to the next
+            lastPage = pagesRead + 1;
+         } else if (knownPageSize && page.getRecords().size() >= pageSize) {
+            // or, without links, until a short one comes back
+            lastPage = pagesRead + 1;
+         }
+      }
+
+      private static QueryResultRecords get(ListenableFuture<QueryResultRecords> future) {
+         try {
+            return Uninterruptibles.getUninterruptibly(future);
+         } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+         }
+      }
+   }
+}
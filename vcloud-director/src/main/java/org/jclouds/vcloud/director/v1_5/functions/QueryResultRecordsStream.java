@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vcloud.director.v1_5.functions;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.vcloud.director.v1_5.domain.query.QueryResultRecordType;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+
+/**
+ * The records of a {@code QueryResultRecords} response, decoded one at a time while they are read
+ * from the response body.
+ * <p/>
+ * Only the record being returned is unmarshalled, so the memory used does not grow with the size
+ * of the page. The stream is closed when the last record has been read; callers that stop earlier
+ * must {@link #close()} it.
+ */
+public class QueryResultRecordsStream extends AbstractIterator<QueryResultRecordType> implements Closeable {
+
+   private final InputStream in;
+   private final XMLStreamReader reader;
+   private final Unmarshaller unmarshaller;
+   private final String name;
+   private final Integer page;
+   private final Integer pageSize;
+   private final Long total;
+   private boolean closed;
+
+   QueryResultRecordsStream(InputStream in, XMLStreamReader reader, Unmarshaller unmarshaller)
+         throws XMLStreamException {
+      this.in = checkNotNull(in, "in");
+      this.reader = checkNotNull(reader, "reader");
+      this.unmarshaller = checkNotNull(unmarshaller, "unmarshaller");
+      reader.nextTag();
+      this.name = reader.getAttributeValue(null, "name");
+      this.page = integerAttribute("page");
+      this.pageSize = integerAttribute("pageSize");
+      String total = reader.getAttributeValue(null, "total");
+      this.total = total == null ? null : Long.valueOf(total);
+      reader.next();
+   }
+
+   /**
+    * @see org.jclouds.vcloud.director.v1_5.domain.query.ContainerType#getName()
+    */
+   @Nullable
+   public String getName() {
+      return name;
+   }
+
+   /**
+    * @see org.jclouds.vcloud.director.v1_5.domain.query.ContainerType#getPage()
+    */
+   @Nullable
+   public Integer getPage() {
+      return page;
+   }
+
+   /**
+    * @see org.jclouds.vcloud.director.v1_5.domain.query.ContainerType#getPageSize()
+    */
+   @Nullable
+   public Integer getPageSize() {
+      return pageSize;
+   }
+
+   /**
+    * @see org.jclouds.vcloud.director.v1_5.domain.query.ContainerType#getTotal()
+    */
+   @Nullable
+   public Long getTotal() {
+      return total;
+   }
+
+   @Override
+   protected QueryResultRecordType computeNext() {
+      if (closed)
+         return endOfData();
+      try {
+         while (reader.hasNext()) {
+            int event = reader.getEventType();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+               if (reader.getLocalName().endsWith("Record")) {
+                  // leaves the reader on the event following the record
+                  return toRecord(unmarshaller.unmarshal(reader));
+               }
+               skipElement();
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+               break;
+            }
+            reader.next();
+         }
+      } catch (XMLStreamException e) {
+         closeQuietly();
+         throw Throwables.propagate(e);
+      } catch (JAXBException e) {
+         closeQuietly();
+         throw Throwables.propagate(e);
+      }
+      closeQuietly();
+      return endOfData();
+   }
+
+   @Override
+   public void close() throws IOException {
+      if (closed)
+         return;
+      closed = true;
+      try {
+         reader.close();
+      } catch (XMLStreamException e) {
+         throw new IOException(e);
+      } finally {
+         in.close();
+      }
+   }
+
+   private void closeQuietly() {
+      try {
+         close();
+      } catch (IOException e) {
+         // nothing is left to read from the response anyway
+      }
+   }
+
+   private static QueryResultRecordType toRecord(Object unmarshalled) {
+      if (unmarshalled instanceof JAXBElement)
+         unmarshalled = JAXBElement.class.cast(unmarshalled).getValue();
+      return QueryResultRecordType.class.cast(unmarshalled);
+   }
+
+   private void skipElement() throws XMLStreamException {
+      int depth = 1;
+      while (depth > 0) {
+         int event = reader.next();
+         if (event == XMLStreamConstants.START_ELEMENT)
+            depth++;
+         else if (event == XMLStreamConstants.END_ELEMENT)
+            depth--;
+      }
+   }
+
+   private Integer integerAttribute(String attribute) {
+      String value = reader.getAttributeValue(null, attribute);
+      return value == null ? null : Integer.valueOf(value);
+   }
+
+   @Override
+   public String toString() {
+      return "QueryResultRecordsStream(" + name + ", page=" + page + ", pageSize=" + pageSize + ", total=" + total
+            + ")";
+   }
+}
@@ -21,6 +21,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Iterables.get;
 
 import java.net.URI;
+import java.util.concurrent.ExecutionException;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -29,6 +30,9 @@ import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.vcloud.director.v1_5.domain.Entity;
 
 import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheLoader.InvalidCacheLoadException;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
 
 /**
@@ -50,4 +54,26 @@ public final class URNToHref implements Function<Object, URI> {
       checkArgument(entity.getLinks().size() > 0, "no links found for entity %s", entity);
       return get(entity.getLinks(), 0).getHref();
    }
+
+   /**
+    * Resolves the URNs that are not cached yet concurrently, so that the calls
+    * addressing them do not resolve them one at a time. The URNs that cannot be resolved are not
+    * cached, and fail when they are addressed.
+    */
+   public void prefetch(Iterable<String> urns) {
+      try {
+         resolveEntityCache.getAll(urns);
+      } catch (InvalidCacheLoadException e) {
+         // the URNs that were resolved are cached all the same
+      } catch (ExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      }
+   }
+
+   /**
+    * @return the hit rate and load times of the URN resolution
+    */
+   public CacheStats stats() {
+      return resolveEntityCache.stats();
+   }
 }
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vcloud.director.v1_5.http;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.http.HttpUtils.closeClientButKeepContentStream;
+import static org.jclouds.util.Closeables2.closeQuietly;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.net.URI;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+
+import org.jclouds.Constants;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpUtils;
+import org.jclouds.http.IOExceptionRetryHandler;
+import org.jclouds.http.handlers.DelegatingErrorHandler;
+import org.jclouds.http.handlers.DelegatingRetryHandler;
+import org.jclouds.http.internal.HttpWire;
+import org.jclouds.http.internal.JavaUrlHttpCommandExecutorService;
+import org.jclouds.io.ContentMetadataCodec;
+import org.jclouds.vcloud.director.v1_5.http.EntityResponseCache.CachedEntity;
+
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
+import com.google.common.net.HttpHeaders;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Serves entity reads from the {@link EntityResponseCache} when it is enabled: adds the validators
+ * of the cached entity to the request, and returns the cached body when the server answers that it
+ * has not changed. Requests modifying an entity drop its cached entries, and a read that was in
+ * progress meanwhile does not cache what it read.
+ */
+@Singleton
+public class CachingJavaUrlHttpCommandExecutorService extends JavaUrlHttpCommandExecutorService {
+
+   private final EntityResponseCache cache;
+
+   @Inject
+   public CachingJavaUrlHttpCommandExecutorService(
+         HttpUtils utils,
+         ContentMetadataCodec contentMetadataCodec,
+         @Named(Constants.PROPERTY_IO_WORKER_THREADS) ListeningExecutorService ioExecutor,
+         DelegatingRetryHandler retryHandler,
+         IOExceptionRetryHandler ioRetryHandler,
+         DelegatingErrorHandler errorHandler, HttpWire wire,
+         HostnameVerifier verifier,
+         Supplier<SSLContext> untrustedSSLContextProvider,
+         Function<URI, Proxy> proxyForURI,
+         EntityResponseCache cache) throws SecurityException,
+         NoSuchFieldException {
+      super(utils, contentMetadataCodec, ioExecutor, retryHandler,
+            ioRetryHandler, errorHandler, wire, verifier,
+            untrustedSSLContextProvider, proxyForURI);
+      this.cache = checkNotNull(cache, "cache");
+   }
+
+   @Override
+   protected HttpResponse invoke(HttpURLConnection connection)
+         throws IOException, InterruptedException {
+      if (!cache.isEnabled())
+         return super.invoke(connection);
+
+      URI href = URI.create(connection.getURL().toString());
+      if (!"GET".equals(connection.getRequestMethod())) {
+         // after the write, so that the entity is not read from the cache as it was before; the reads
+         // started before the invalidation see a new generation of the entity, and do not cache it
+         try {
+            return super.invoke(connection);
+         } finally {
+            cache.invalidate(href);
+         }
+      }
+
+      String accept = connection.getRequestProperty(HttpHeaders.ACCEPT);
+      long generation = cache.generation(href);
+      CachedEntity cached = cache.get(href, accept);
+      if (cached != null) {
+         if (!cached.isRevalidatable() && cached.isFresh())
+            return cached.toResponse();
+         if (cached.getETag() != null)
+            connection.setRequestProperty(HttpHeaders.IF_NONE_MATCH, cached.getETag());
+         if (cached.getLastModified() != null)
+            connection.setRequestProperty(HttpHeaders.IF_MODIFIED_SINCE, cached.getLastModified());
+      }
+
+      HttpResponse response = super.invoke(connection);
+      if (response.getStatusCode() == 304 && cached != null && cached.isRevalidatable()) {
+         if (response.getPayload() != null)
+            closeQuietly(response.getPayload().openStream());
+         return cached.toResponse();
+      }
+      if (response.getStatusCode() == 200 && response.getPayload() != null
+            && cache.isCacheable(response.getPayload().getContentMetadata().getContentType())) {
+         // reads the body once, and leaves a repeatable copy of it in the response
+         byte[] body = closeClientButKeepContentStream(response);
+         if (body != null)
+            cache.put(href, accept, cache.newEntity(body, response), generation);
+      }
+      return response;
+   }
+}
@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vcloud.director.v1_5.http;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_RESPONSE_CACHE;
+import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_RESPONSE_CACHE_SIZE;
+import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_RESPONSE_CACHE_TTL;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.http.HttpResponse;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.vcloud.director.v1_5.VCloudDirectorMediaType;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.net.HttpHeaders;
+
+/**
+ * Keeps the last body read for each href and media type, so that reading an entity again only
+ * transfers and parses it when it has changed.
+ * <p/>
+ * An entity the server sent an {@code ETag} or {@code Last-Modified} header for is revalidated with
+ * a conditional request. Any other entity is served from the cache for a short time. The entries
+ * of an entity, such as the vApp and its sections, are dropped when the entity is modified or when
+ * a task it owns completes. The cache is bounded by the total size of the bodies it keeps.
+ * <p/>
+ * Query results are not cached, so that their pages keep being streamed instead of buffered.
+ */
+@Singleton
+public class EntityResponseCache {
+
+   // the generations of the entities, by the hash of their path; a write to another entity of the
+   // same stripe only makes a read racing with it miss the cache
+   private static final int GENERATION_STRIPES = 64;
+
+   private final boolean enabled;
+   private final long ttl;
+   private final Cache<Key, CachedEntity> entities;
+   private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+   @Inject
+   public EntityResponseCache(@Named(PROPERTY_VCLOUD_DIRECTOR_RESPONSE_CACHE) boolean enabled,
+         @Named(PROPERTY_VCLOUD_DIRECTOR_RESPONSE_CACHE_TTL) long ttl,
+         @Named(PROPERTY_VCLOUD_DIRECTOR_RESPONSE_CACHE_SIZE) long maximumBytes) {
+      this.enabled = enabled;
+      this.ttl = ttl;
+      this.entities = CacheBuilder.newBuilder().maximumWeight(maximumBytes).weigher(new Weigher<Key, CachedEntity>() {
+         @Override
+         public int weigh(Key key, CachedEntity entity) {
+            return entity.body.length;
+         }
+      }).build();
+   }
+
+   public boolean isEnabled() {
+      return enabled;
+   }
+
+   /**
+    * @return true if a successful response of the given type may be cached
+    */
+   public boolean isCacheable(@Nullable String contentType) {
+      // tasks change until they complete, and are polled for that reason; query results are paged
+      // through as they are read
+      return enabled && contentType != null && contentType.startsWith("application/vnd.vmware.")
+            && !contentType.startsWith(VCloudDirectorMediaType.TASK)
+            && !contentType.startsWith(VCloudDirectorMediaType.TASKS_LIST)
+            && !contentType.startsWith(VCloudDirectorMediaType.QUERY_RESULT_RECORDS)
+            && !contentType.startsWith(VCloudDirectorMediaType.QUERY_RESULT_REFERENCES)
+            && !contentType.startsWith(VCloudDirectorMediaType.QUERY_RESULT_ID_RECORDS);
+   }
+
+   @Nullable
+   public CachedEntity get(URI href, @Nullable String accept) {
+      return enabled ? entities.getIfPresent(new Key(href, accept)) : null;
+   }
+
+   /**
+    * @return the generation of the entity the href belongs to, to be passed to
+    *         {@link #put(URI, String, CachedEntity, long)} once its body is read
+    */
+   public long generation(URI href) {
+      return generations.get(stripeOf(entityPathOf(href)));
+   }
+
+   /**
+    * Caches the body read for the href, unless its entity was invalidated since the given
+    * generation, as the body may then be older than the write.
+    */
+   public void put(URI href, @Nullable String accept, CachedEntity entity, long generation) {
+      if (!enabled || generation(href) != generation)
+         return;
+      Key key = new Key(href, accept);
+      entities.put(key, entity);
+      // an invalidation between the check and the put may have missed the entry
+      if (generation(href) != generation)
+         entities.invalidate(key);
+   }
+
+   /**
+    * Drops the entries of the entity the href belongs to, including those of its sections and
+    * other sub-resources.
+    */
+   public void invalidate(URI href) {
+      if (!enabled || href == null)
+         return;
+      String entity = entityPathOf(href);
+      // before dropping the entries, so that the reads in progress do not cache them again
+      generations.incrementAndGet(stripeOf(entity));
+      for (Key key : entities.asMap().keySet()) {
+         String path = key.href.getPath();
+         if (path != null && (path.equals(entity) || path.startsWith(entity + "/")))
+            entities.invalidate(key);
+      }
+   }
+
+   private static int stripeOf(String entityPath) {
+      return (entityPath.hashCode() & Integer.MAX_VALUE) % GENERATION_STRIPES;
+   }
+
+   // /api/{type}/{id}
+   @VisibleForTesting
+   static String entityPathOf(URI href) {
+      String path = href.getPath() == null ? "" : href.getPath();
+      int slash = 0;
+      for (int i = 0; i < 3 && slash >= 0; i++)
+         slash = path.indexOf('/', slash + 1);
+      return slash < 0 ? path : path.substring(0, slash);
+   }
+
+   public CachedEntity newEntity(byte[] body, HttpResponse response) {
+      return new CachedEntity(body, response.getPayload().getContentMetadata().getContentType(),
+            response.getFirstHeaderOrNull(HttpHeaders.ETAG), response.getFirstHeaderOrNull(HttpHeaders.LAST_MODIFIED),
+            System.currentTimeMillis() + ttl);
+   }
+
+   public static class CachedEntity {
+      private final byte[] body;
+      private final String contentType;
+      private final String eTag;
+      private final String lastModified;
+      private final long expires;
+
+      private CachedEntity(byte[] body, String contentType, @Nullable String eTag, @Nullable String lastModified,
+            long expires) {
+         this.body = checkNotNull(body, "body");
+         this.contentType = contentType;
+         this.eTag = eTag;
+         this.lastModified = lastModified;
+         this.expires = expires;
+      }
+
+      @Nullable
+      public String getETag() {
+         return eTag;
+      }
+
+      @Nullable
+      public String getLastModified() {
+         return lastModified;
+      }
+
+      /**
+       * @return true if the server sent a validator to revalidate the entity with
+       */
+      public boolean isRevalidatable() {
+         return eTag != null || lastModified != null;
+      }
+
+      public boolean isFresh() {
+         return System.currentTimeMillis() < expires;
+      }
+
+      /**
+       * @return a new response with the cached body
+       */
+      public HttpResponse toResponse() {
+         Payload payload = Payloads.newByteArrayPayload(body);
+         payload.getContentMetadata().setContentType(contentType);
+         HttpResponse.Builder<?> response = HttpResponse.builder().statusCode(200).message("OK").payload(payload);
+         if (eTag != null)
+            response.addHeader(HttpHeaders.ETAG, eTag);
+         if (lastModified != null)
+            response.addHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+         return response.build();
+      }
+   }
+
+   private static class Key {
+      private final URI href;
+      private final String accept;
+
+      private Key(URI href, String accept) {
+         this.href = checkNotNull(href, "href");
+         this.accept = accept;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (this == o)
+            return true;
+         if (!(o instanceof Key))
+            return false;
+         Key that = Key.class.cast(o);
+         return href.equals(that.href) && Objects.equal(accept, that.accept);
+      }
+
+      @Override
+      public int hashCode() {
+         return Objects.hashCode(href, accept);
+      }
+   }
+}
@@ -17,22 +17,43 @@
 package org.jclouds.vcloud.director.v1_5.loaders;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.jclouds.vcloud.director.v1_5.domain.Entity;
 import org.jclouds.vcloud.director.v1_5.user.VCloudDirectorApi;
 
 import com.google.common.cache.CacheLoader;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
+/**
+ * Resolves URNs with the entity resolver.
+ * <p/>
+ * Entries are reloaded on the user executor, so a refreshed entry keeps being served while it is
+ * reloaded. Bulk loads resolve their URNs concurrently; the URNs the resolver does not find are left
+ * out of the result, so that the cache keeps the others.
+ */
 @Singleton
 public class ResolveEntity extends CacheLoader<String, Entity> {
    private final VCloudDirectorApi api;
+   private final ListeningExecutorService userExecutor;
 
    @Inject
-   public ResolveEntity(VCloudDirectorApi api) {
+   public ResolveEntity(VCloudDirectorApi api, @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
       this.api = checkNotNull(api, "api");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
    }
 
    @Override
@@ -40,6 +61,37 @@ public class ResolveEntity extends CacheLoader<String, Entity> {
       return api.resolveEntity(checkNotNull(input, "urn"));
    }
 
+   @Override
+   public ListenableFuture<Entity> reload(final String key, Entity oldValue) {
+      return userExecutor.submit(new Callable<Entity>() {
+         @Override
+         public Entity call() {
+            return load(key);
+         }
+      });
+   }
+
+   @Override
+   public Map<String, Entity> loadAll(Iterable<? extends String> keys) throws Exception {
+      List<String> urns = ImmutableList.<String> copyOf(keys);
+      List<ListenableFuture<Entity>> resolved = Lists.newArrayListWithCapacity(urns.size());
+      for (final String urn : urns) {
+         resolved.add(userExecutor.submit(new Callable<Entity>() {
+            @Override
+            public Entity call() {
+               return load(urn);
+            }
+         }));
+      }
+      List<Entity> results = Futures.allAsList(resolved).get();
+      Map<String, Entity> entities = Maps.newLinkedHashMap();
+      for (int i = 0; i < urns.size(); i++) {
+         if (results.get(i) != null)
+            entities.put(urns.get(i), results.get(i));
+      }
+      return entities;
+   }
+
    @Override
    public String toString() {
       return "resolveEntity()";
@@ -53,8 +53,9 @@ public class TaskSuccess implements Predicate<Task> {
       checkNotNull(task, "task");
       logger.trace("looking for status on task %s", task.getOperationName());
 
-      // TODO shouldn't we see if it's already done before getting it from API server?
-      task = taskApi.get(task.getHref());
+      // a task that has already ended will not change any more
+      if (!isDone(task))
+         task = taskApi.get(task.getHref());
       
       // perhaps task isn't available, yet
       if (task == null) return false;
@@ -65,6 +66,11 @@ public class TaskSuccess implements Predicate<Task> {
       } else return task.getStatus().equals(Task.Status.SUCCESS);
    }
 
+   private static boolean isDone(Task task) {
+      return EnumSet.of(Task.Status.SUCCESS, Task.Status.ERROR, Task.Status.CANCELED, Task.Status.ABORTED)
+            .contains(task.getStatus());
+   }
+
    @Override
    public String toString() {
       return "checkTaskSuccess()";
@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vcloud.director.v1_5.screen;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_SCREEN_PARALLEL_CAPTURES;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.io.ByteStreams2;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+import org.jclouds.logging.Logger;
+import org.jclouds.vcloud.director.v1_5.VCloudDirectorMediaType;
+import org.jclouds.vcloud.director.v1_5.domain.Reference;
+import org.jclouds.vcloud.director.v1_5.domain.VApp;
+import org.jclouds.vcloud.director.v1_5.domain.Vdc;
+import org.jclouds.vcloud.director.v1_5.domain.Vm;
+import org.jclouds.vcloud.director.v1_5.features.VAppApi;
+import org.jclouds.vcloud.director.v1_5.features.VmApi;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Captures the screens of many vms, a bounded number at a time, and only hands over those that
+ * changed since the previous capture.
+ * <p/>
+ * When the server tags the images, the next capture of a vm is a conditional request, and an
+ * unchanged screen is not transferred at all. Otherwise the thumbnail is read and compared to the
+ * digest of the previous one.
+ */
+@Singleton
+public class ScreenCapturer {
+
+   /**
+    * Receives the screens that changed.
+    */
+   public interface ScreenListener {
+      /**
+       * Called from the capturing threads; the image is closed once this method returns.
+       */
+      void screenChanged(URI vmHref, ScreenImage image) throws IOException;
+   }
+
+   private static final String ETAG = "etag:";
+   private static final String DIGEST = "md5:";
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   private final VmApi vmApi;
+   private final VAppApi vAppApi;
+   private final ListeningExecutorService userExecutor;
+   private final int parallelCaptures;
+
+   // the entity tag or the digest of the last screen captured of each vm
+   private final ConcurrentMap<URI, String> lastVersions = Maps.newConcurrentMap();
+
+   @Inject
+   ScreenCapturer(VmApi vmApi, VAppApi vAppApi, @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         @Named(PROPERTY_VCLOUD_DIRECTOR_SCREEN_PARALLEL_CAPTURES) int parallelCaptures) {
+      this.vmApi = checkNotNull(vmApi, "vmApi");
+      this.vAppApi = checkNotNull(vAppApi, "vAppApi");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+      checkArgument(parallelCaptures > 0, "parallelCaptures must be positive");
+      this.parallelCaptures = parallelCaptures;
+   }
+
+   /**
+    * Captures the screens of all the vms of the vApp, including those of its nested vApps.
+    * 
+    * @return a future holding the hrefs of the vms whose screen changed
+    */
+   public ListenableFuture<Set<URI>> captureChanged(VApp vApp, ScreenListener listener) {
+      return captureChanged(vmsOf(vApp), listener);
+   }
+
+   /**
+    * Captures the screens of all the vms of the vApps of the vdc. The vApps are fetched on the user
+    * executor.
+    * 
+    * @return a future holding the hrefs of the vms whose screen changed
+    */
+   public ListenableFuture<Set<URI>> captureChanged(final Vdc vdc, final ScreenListener listener) {
+      ListenableFuture<List<URI>> vms = userExecutor.submit(new Callable<List<URI>>() {
+         @Override
+         public List<URI> call() {
+            ImmutableList.Builder<URI> vms = ImmutableList.builder();
+            for (Reference entity : vdc.getResourceEntities()) {
+               if (!VCloudDirectorMediaType.VAPP.equals(entity.getType()))
+                  continue;
+               VApp vApp = vAppApi.get(entity.getHref());
+               if (vApp != null)
+                  vms.addAll(vmsOf(vApp));
+            }
+            return vms.build();
+         }
+      });
+      return Futures.transform(vms, new AsyncFunction<List<URI>, Set<URI>>() {
+         @Override
+         public ListenableFuture<Set<URI>> apply(List<URI> vms) {
+            return captureChanged(vms, listener);
+         }
+      });
+   }
+
+   /**
+    * Captures the screens of the given vms.
+    * 
+    * @return a future holding the hrefs of the vms whose screen changed; a vm whose screen could not
+    *         be captured is logged and left out
+    */
+   public ListenableFuture<Set<URI>> captureChanged(Iterable<URI> vmHrefs, final ScreenListener listener) {
+      checkNotNull(listener, "listener");
+      final Queue<URI> pending = new ConcurrentLinkedQueue<URI>(ImmutableSet.copyOf(vmHrefs));
+      final Set<URI> changed = Sets.newConcurrentHashSet();
+      final SettableFuture<Set<URI>> result = SettableFuture.create();
+      int workers = Math.min(parallelCaptures, pending.size());
+      if (workers == 0) {
+         result.set(ImmutableSet.<URI> of());
+         return result;
+      }
+      final AtomicInteger runningWorkers = new AtomicInteger(workers);
+      for (int i = 0; i < workers; i++) {
+         userExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+               try {
+                  URI vm;
+                  while (!result.isCancelled() && (vm = pending.poll()) != null) {
+                     try {
+                        if (capture(vm, listener))
+                           changed.add(vm);
+                     } catch (IOException e) {
+                        logger.warn(e, "could not capture the screen of vm %s", vm);
+                     } catch (RuntimeException e) {
+                        logger.warn(e, "could not capture the screen of vm %s", vm);
+                     }
+                  }
+               } finally {
+                  if (runningWorkers.decrementAndGet() == 0)
+                     result.set(ImmutableSet.copyOf(changed));
+               }
+            }
+         });
+      }
+      return result;
+   }
+
+   /**
+    * Forgets the last screen captured of a vm, so that its next screen is handed over even if it
+    * has not changed.
+    */
+   public void forget(URI vmHref) {
+      lastVersions.remove(vmHref);
+   }
+
+   private boolean capture(URI vm, ScreenListener listener) throws IOException {
+      String last = lastVersions.get(vm);
+      ScreenImage image = last != null && last.startsWith(ETAG) ? vmApi.getScreenImageIfNoneMatch(vm,
+            last.substring(ETAG.length())) : vmApi.getScreenImageStream(vm);
+      // not modified, or the vm has gone
+      if (image == null)
+         return false;
+      try {
+         if (image.getETag() != null) {
+            lastVersions.put(vm, ETAG + image.getETag());
+            listener.screenChanged(vm, image);
+            return true;
+         }
+         // without an entity tag, the thumbnail has to be read to tell whether it changed
+         byte[] bytes = ByteStreams2.toByteArrayAndClose(image.openStream());
+         String digest = DIGEST + Hashing.md5().hashBytes(bytes);
+         if (digest.equals(lastVersions.put(vm, digest)))
+            return false;
+         Payload payload = Payloads.newByteArrayPayload(bytes);
+         payload.getContentMetadata().setContentType(image.getContentType());
+         ScreenImage read = new ScreenImage(payload, null);
+         try {
+            listener.screenChanged(vm, read);
+         } finally {
+            read.close();
+         }
+         return true;
+      } finally {
+         image.close();
+      }
+   }
+
+   private static List<URI> vmsOf(VApp vApp) {
+      List<URI> vms = Lists.newArrayList();
+      if (vApp.getChildren() == null)
+         return vms;
+      for (Vm vm : vApp.getChildren().getVms())
+         vms.add(vm.getHref());
+      for (VApp child : vApp.getChildren().getVApps())
+         vms.addAll(vmsOf(child));
+      return vms;
+   }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vcloud.director.v1_5.screen;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.util.Closeables2.closeQuietly;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+import org.jclouds.io.Payload;
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * The thumbnail of the screen of a vm, streamed from the response that returned it.
+ */
+public class ScreenImage implements Closeable {
+
+   private final Payload payload;
+   private final String eTag;
+
+   public ScreenImage(Payload payload, @Nullable String eTag) {
+      this.payload = checkNotNull(payload, "payload");
+      this.eTag = eTag;
+   }
+
+   /**
+    * @return the payload, whose content type tells the format of the image
+    */
+   public Payload getPayload() {
+      return payload;
+   }
+
+   /**
+    * @return the entity tag of the image, if the server sent one
+    */
+   @Nullable
+   public String getETag() {
+      return eTag;
+   }
+
+   /**
+    * @return the content type of the image, such as {@code image/png}
+    */
+   @Nullable
+   public String getContentType() {
+      return payload.getContentMetadata().getContentType();
+   }
+
+   public InputStream openStream() throws IOException {
+      return payload.openStream();
+   }
+
+   /**
+    * Copies the image to the channel, then closes the image.
+    * 
+    * @return the number of bytes copied
+    */
+   public long writeTo(WritableByteChannel channel) throws IOException {
+      InputStream in = openStream();
+      try {
+         return ByteStreams.copy(Channels.newChannel(in), channel);
+      } finally {
+         closeQuietly(in);
+         close();
+      }
+   }
+
+   @Override
+   public void close() {
+      payload.release();
+   }
+
+   @Override
+   public String toString() {
+      return "ScreenImage(" + getContentType() + ", eTag=" + eTag + ")";
+   }
+}
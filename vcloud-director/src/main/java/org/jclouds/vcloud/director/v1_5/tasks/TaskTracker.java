@@ -0,0 +1,296 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vcloud.director.v1_5.tasks;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.Constants.PROPERTY_SCHEDULER_THREADS;
+import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_TASK_POLL_PERIOD;
+import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_TIMEOUT_TASK_COMPLETED;
+
+import java.net.URI;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.logging.Logger;
+import org.jclouds.vcloud.director.v1_5.VCloudDirectorException;
+import org.jclouds.vcloud.director.v1_5.VCloudDirectorMediaType;
+import org.jclouds.vcloud.director.v1_5.domain.Link;
+import org.jclouds.vcloud.director.v1_5.domain.Reference;
+import org.jclouds.vcloud.director.v1_5.domain.Task;
+import org.jclouds.vcloud.director.v1_5.domain.org.Org;
+import org.jclouds.vcloud.director.v1_5.features.OrgApi;
+import org.jclouds.vcloud.director.v1_5.features.TaskApi;
+import org.jclouds.vcloud.director.v1_5.http.EntityResponseCache;
+import org.jclouds.vcloud.director.v1_5.predicates.LinkPredicates;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Tracks in-flight {@link Task tasks} in a single registry, and completes a future per task.
+ * <p/>
+ * All the tracked tasks are refreshed together on one scheduled poller: the tasks list of each
+ * organization owning a tracked task is fetched once per poll, and only the tasks missing from
+ * those lists are fetched one by one. The number of requests per poll therefore depends on the
+ * number of organizations, not on the number of tasks.
+ * <p/>
+ * The cached responses of the owner of a task are dropped when the task completes.
+ * <p/>
+ * A future fails with a {@link VCloudDirectorException} when its task ends in error, is canceled
+ * or aborted, and with a {@link TimeoutException} when the task does not complete in time.
+ */
+@Singleton
+public class TaskTracker {
+
+   private static final Set<Task.Status> FAILED = EnumSet.of(Task.Status.ERROR, Task.Status.CANCELED,
+         Task.Status.ABORTED);
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   private final TaskApi taskApi;
+   private final OrgApi orgApi;
+   private final EntityResponseCache responseCache;
+   private final ScheduledExecutorService scheduler;
+   private final long pollPeriod;
+   private final long timeout;
+
+   private final ConcurrentMap<URI, TrackedTask> tracked = Maps.newConcurrentMap();
+   private final ConcurrentMap<URI, Optional<URI>> tasksListByOrg = Maps.newConcurrentMap();
+   private ScheduledFuture<?> poller;
+
+   @Inject
+   TaskTracker(TaskApi taskApi, OrgApi orgApi, EntityResponseCache responseCache,
+         @Named(PROPERTY_SCHEDULER_THREADS) ScheduledExecutorService scheduler,
+         @Named(PROPERTY_VCLOUD_DIRECTOR_TASK_POLL_PERIOD) long pollPeriod,
+         @Named(PROPERTY_VCLOUD_DIRECTOR_TIMEOUT_TASK_COMPLETED) long timeout) {
+      this.taskApi = checkNotNull(taskApi, "taskApi");
+      this.orgApi = checkNotNull(orgApi, "orgApi");
+      this.responseCache = checkNotNull(responseCache, "responseCache");
+      this.scheduler = checkNotNull(scheduler, "scheduler");
+      this.pollPeriod = pollPeriod;
+      this.timeout = timeout;
+   }
+
+   private static class TrackedTask {
+      private final SettableFuture<Task> future = SettableFuture.create();
+      private final long deadline;
+      private volatile Task task;
+
+      private TrackedTask(Task task, long deadline) {
+         this.task = task;
+         this.deadline = deadline;
+      }
+   }
+
+   /**
+    * Registers a task, unless it is already tracked.
+    *
+    * @return a future holding the task once it has succeeded
+    */
+   public ListenableFuture<Task> track(Task task) {
+      checkNotNull(task, "task");
+      URI href = checkNotNull(task.getHref(), "href of %s", task);
+      if (task.getStatus() == Task.Status.SUCCESS)
+         return Futures.immediateFuture(task);
+      if (FAILED.contains(task.getStatus()))
+         return Futures.immediateFailedFuture(new VCloudDirectorException(task));
+
+      TrackedTask fresh = new TrackedTask(task, System.currentTimeMillis() + timeout);
+      TrackedTask existing = tracked.putIfAbsent(href, fresh);
+      if (existing != null)
+         return existing.future;
+      logger.trace("tracking task %s", href);
+      startPolling();
+      return fresh.future;
+   }
+
+   /**
+    * @return the hrefs of the tasks that have not completed yet
+    */
+   public Set<URI> getTrackedTasks() {
+      return ImmutableSet.copyOf(tracked.keySet());
+   }
+
+   /**
+    * @return the last known state of a tracked task, or null if it is not tracked
+    */
+   public Task getLastKnownState(URI taskHref) {
+      TrackedTask trackedTask = tracked.get(taskHref);
+      return trackedTask == null ? null : trackedTask.task;
+   }
+
+   /**
+    * Refreshes all tracked tasks and completes the futures of those that are done.
+    */
+   @VisibleForTesting
+   void refresh() {
+      if (tracked.isEmpty()) {
+         stopPollingIfIdle();
+         return;
+      }
+      Set<URI> refreshed = Sets.newHashSet();
+      for (Map.Entry<URI, URI> orgAndTasksList : tasksListsOfTrackedTasks().entries()) {
+         try {
+            for (Task task : taskApi.getTasksList(orgAndTasksList.getValue())) {
+               if (task.getHref() != null && update(task))
+                  refreshed.add(task.getHref());
+            }
+         } catch (RuntimeException e) {
+            logger.warn(e, "could not list the tasks of org %s", orgAndTasksList.getKey());
+         }
+      }
+      for (URI href : Sets.difference(ImmutableSet.copyOf(tracked.keySet()), refreshed)) {
+         try {
+            Task task = taskApi.get(href);
+            // perhaps task isn't available, yet
+            if (task != null)
+               update(task);
+         } catch (RuntimeException e) {
+            logger.warn(e, "could not get task %s", href);
+         }
+      }
+      failExpired();
+   }
+
+   private Multimap<URI, URI> tasksListsOfTrackedTasks() {
+      Multimap<URI, URI> tasksLists = LinkedHashMultimap.create();
+      for (TrackedTask trackedTask : tracked.values()) {
+         Reference org = trackedTask.task.get();
+         if (org == null || org.getHref() == null)
+            continue;
+         Optional<URI> tasksList = tasksListOf(org.getHref());
+         if (tasksList.isPresent())
+            tasksLists.put(org.getHref(), tasksList.get());
+      }
+      return tasksLists;
+   }
+
+   private Optional<URI> tasksListOf(URI orgHref) {
+      Optional<URI> tasksList = tasksListByOrg.get(orgHref);
+      if (tasksList == null) {
+         tasksList = Optional.absent();
+         try {
+            Org org = orgApi.get(orgHref);
+            if (org != null) {
+               Optional<Link> link = Iterables.tryFind(org.getLinks(),
+                     LinkPredicates.typeEquals(VCloudDirectorMediaType.TASKS_LIST));
+               if (link.isPresent())
+                  tasksList = Optional.of(link.get().getHref());
+            }
+         } catch (RuntimeException e) {
+            logger.warn(e, "could not find the tasks list of org %s", orgHref);
+            return Optional.absent();
+         }
+         tasksListByOrg.putIfAbsent(orgHref, tasksList);
+      }
+      return tasksList;
+   }
+
+   /**
+    * @return true if the given task was tracked
+    */
+   private boolean update(Task task) {
+      TrackedTask trackedTask = tracked.get(task.getHref());
+      if (trackedTask == null)
+         return false;
+      trackedTask.task = task;
+      if (task.getStatus() == Task.Status.SUCCESS) {
+         tracked.remove(task.getHref(), trackedTask);
+         invalidateOwner(task);
+         logger.trace("task %s succeeded", task.getHref());
+         trackedTask.future.set(task);
+      } else if (FAILED.contains(task.getStatus())) {
+         tracked.remove(task.getHref(), trackedTask);
+         invalidateOwner(task);
+         logger.trace("task %s ended with status %s", task.getHref(), task.getStatus());
+         trackedTask.future.setException(new VCloudDirectorException(task));
+      }
+      return true;
+   }
+
+   private void invalidateOwner(Task task) {
+      if (task.getOwner() != null)
+         responseCache.invalidate(task.getOwner().getHref());
+   }
+
+   private void failExpired() {
+      long now = System.currentTimeMillis();
+      for (Map.Entry<URI, TrackedTask> entry : tracked.entrySet()) {
+         TrackedTask trackedTask = entry.getValue();
+         if (now > trackedTask.deadline && tracked.remove(entry.getKey(), trackedTask)) {
+            trackedTask.future.setException(new TimeoutException(String.format(
+                  "task %s did not complete within %dms, last status: %s", entry.getKey(), timeout,
+                  trackedTask.task.getStatus())));
+         }
+      }
+   }
+
+   /**
+    * Refreshes the tracked tasks. The tasks stay tracked until they end, so
+    * a refresh that fails leaves them to the next one.
+    */
+   private class RefreshTrackedTasks implements Runnable {
+      @Override
+      public void run() {
+         try {
+            refresh();
+         } catch (RuntimeException e) {
+            logger.error(e, "error refreshing tasks");
+         }
+      }
+
+      @Override
+      public String toString() {
+         return "refreshTrackedTasks()";
+      }
+   }
+
+   private synchronized void startPolling() {
+      if (poller == null) {
+         poller = scheduler.scheduleWithFixedDelay(new RefreshTrackedTasks(), pollPeriod, pollPeriod,
+               TimeUnit.MILLISECONDS);
+      }
+   }
+
+   private synchronized void stopPollingIfIdle() {
+      if (poller != null && tracked.isEmpty()) {
+         poller.cancel(false);
+         poller = null;
+      }
+   }
+}
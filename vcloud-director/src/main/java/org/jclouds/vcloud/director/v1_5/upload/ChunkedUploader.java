@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vcloud.director.v1_5.upload;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_UPLOAD_CHUNK_RETRIES;
+import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_UPLOAD_CHUNK_SIZE;
+import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_UPLOAD_PARALLEL_CHUNKS;
+
+import java.io.File;
+import java.net.URI;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+import org.jclouds.logging.Logger;
+import org.jclouds.vcloud.director.v1_5.domain.Link;
+import org.jclouds.vcloud.director.v1_5.domain.ResourceEntity;
+import org.jclouds.vcloud.director.v1_5.features.UploadApi;
+import org.jclouds.vcloud.director.v1_5.predicates.LinkPredicates;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Uploads files, such as the OVF descriptor and the disks of a vApp template, in chunks sent with a
+ * {@code Content-Range} header.
+ * <p/>
+ * The chunks of all the files of an upload are sent by a bounded number of concurrent workers, so
+ * small files are not held up behind large ones. A failed chunk is sent again a few times before
+ * the upload fails. Every accepted chunk is recorded in the {@link UploadCheckpoints}, so starting
+ * the same upload again only sends the chunks that are missing.
+ */
+@Singleton
+public class ChunkedUploader {
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   private final UploadApi uploadApi;
+   private final UploadCheckpoints checkpoints;
+   private final ListeningExecutorService userExecutor;
+   private final long chunkSize;
+   private final int parallelChunks;
+   private final int retries;
+
+   @Inject
+   ChunkedUploader(UploadApi uploadApi, UploadCheckpoints checkpoints,
+         @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         @Named(PROPERTY_VCLOUD_DIRECTOR_UPLOAD_CHUNK_SIZE) long chunkSize,
+         @Named(PROPERTY_VCLOUD_DIRECTOR_UPLOAD_PARALLEL_CHUNKS) int parallelChunks,
+         @Named(PROPERTY_VCLOUD_DIRECTOR_UPLOAD_CHUNK_RETRIES) int retries) {
+      this.uploadApi = checkNotNull(uploadApi, "uploadApi");
+      this.checkpoints = checkNotNull(checkpoints, "checkpoints");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+      checkArgument(chunkSize > 0, "chunkSize must be positive");
+      checkArgument(parallelChunks > 0, "parallelChunks must be positive");
+      this.chunkSize = chunkSize;
+      this.parallelChunks = parallelChunks;
+      this.retries = retries;
+   }
+
+   /**
+    * Uploads a single file to the given location.
+    */
+   public ChunkedUpload upload(URI location, File file) {
+      return upload(ImmutableMap.of(location, file));
+   }
+
+   /**
+    * Uploads the files of an entity which has been created, but whose files have not all been
+    * transferred yet, such as a vApp template after {@code uploadVappTemplate} or after its OVF
+    * descriptor has been uploaded.
+    * 
+    * @param filesByName
+    *           the local file for each {@link org.jclouds.vcloud.director.v1_5.domain.File} of the
+    *           entity, by name
+    */
+   public ChunkedUpload upload(ResourceEntity entity, Map<String, File> filesByName) {
+      ImmutableMap.Builder<URI, File> files = ImmutableMap.builder();
+      for (org.jclouds.vcloud.director.v1_5.domain.File expected : entity.getFiles()) {
+         File file = filesByName.get(expected.getName());
+         if (file == null || isTransferred(expected))
+            continue;
+         Optional<Link> location = Iterables.tryFind(expected.getLinks(),
+               LinkPredicates.relEquals(Link.Rel.UPLOAD_DEFAULT));
+         checkState(location.isPresent(), "no upload link for file %s of %s", expected.getName(), entity.getHref());
+         files.put(location.get().getHref(), file);
+      }
+      return upload(files.build());
+   }
+
+   /**
+    * Uploads each file to its location.
+    */
+   public ChunkedUpload upload(Map<URI, File> files) {
+      ChunkedUpload upload = new ChunkedUpload();
+      for (Map.Entry<URI, File> entry : files.entrySet())
+         upload.plan(entry.getKey(), entry.getValue());
+      upload.start();
+      return upload;
+   }
+
+   /**
+    * @return the number of bytes of the files of the entity that the server has received, which
+    *         lags behind {@link ChunkedUpload#getBytesSent()} while the server processes the chunks
+    */
+   public static long getBytesTransferred(ResourceEntity entity) {
+      long transferred = 0;
+      for (org.jclouds.vcloud.director.v1_5.domain.File file : entity.getFiles()) {
+         if (file.getBytesTransferred() != null)
+            transferred += file.getBytesTransferred();
+      }
+      return transferred;
+   }
+
+   private static boolean isTransferred(org.jclouds.vcloud.director.v1_5.domain.File file) {
+      return file.getSize() != null && file.getBytesTransferred() != null
+            && file.getBytesTransferred() >= file.getSize();
+   }
+
+   private static class Chunk {
+      private final FileUpload file;
+      private final long offset;
+      private final long length;
+
+      private Chunk(FileUpload file, long offset, long length) {
+         this.file = file;
+         this.offset = offset;
+         this.length = length;
+      }
+
+      private String contentRange() {
+         return String.format("bytes %d-%d/%d", offset, offset + length - 1, file.size);
+      }
+
+      @Override
+      public String toString() {
+         return file.location + " " + contentRange();
+      }
+   }
+
+   private static class FileUpload {
+      private final URI location;
+      private final File file;
+      private final long size;
+      private final AtomicInteger remainingChunks = new AtomicInteger();
+
+      private FileUpload(URI location, File file) {
+         this.location = location;
+         this.file = file;
+         this.size = file.length();
+      }
+   }
+
+   /**
+    * The progress of an upload, which completes once all the chunks of all the files have been sent.
+    * Cancelling it stops the workers after the chunks they are sending.
+    */
+   public class ChunkedUpload extends AbstractFuture<Void> {
+
+      private final Queue<Chunk> pending = new ConcurrentLinkedQueue<Chunk>();
+      private final AtomicInteger remainingChunks = new AtomicInteger();
+      private final AtomicLong bytesSent = new AtomicLong();
+      private long totalBytes;
+
+      private ChunkedUpload() {
+      }
+
+      /**
+       * @return the number of bytes of all the files, including those sent before a resume
+       */
+      public long getTotalBytes() {
+         return totalBytes;
+      }
+
+      /**
+       * @return the number of bytes whose chunks have been accepted so far
+       */
+      public long getBytesSent() {
+         return bytesSent.get();
+      }
+
+      private void plan(URI location, File file) {
+         checkArgument(file.isFile(), "%s is not a file", file);
+         FileUpload fileUpload = new FileUpload(location, file);
+         totalBytes += fileUpload.size;
+         Set<Long> completed = checkpoints.getCompletedChunks(location, chunkSize);
+         for (long offset = 0; offset < fileUpload.size; offset += chunkSize) {
+            long length = Math.min(chunkSize, fileUpload.size - offset);
+            if (completed.contains(offset)) {
+               bytesSent.addAndGet(length);
+            } else {
+               pending.add(new Chunk(fileUpload, offset, length));
+               fileUpload.remainingChunks.incrementAndGet();
+               remainingChunks.incrementAndGet();
+            }
+         }
+         if (fileUpload.remainingChunks.get() == 0)
+            logger.debug("%s already uploaded to %s", file, location);
+      }
+
+      private void start() {
+         if (remainingChunks.get() == 0) {
+            set(null);
+            return;
+         }
+         logger.debug("uploading %d chunks of %d bytes", remainingChunks.get(), chunkSize);
+         for (int i = 0; i < Math.min(parallelChunks, remainingChunks.get()); i++) {
+            userExecutor.execute(new Runnable() {
+               @Override
+               public void run() {
+                  sendPendingChunks();
+               }
+            });
+         }
+      }
+
+      private void sendPendingChunks() {
+         Chunk chunk;
+         while (!isDone() && (chunk = pending.poll()) != null) {
+            try {
+               send(chunk);
+            } catch (RuntimeException e) {
+               setException(e);
+               return;
+            }
+            bytesSent.addAndGet(chunk.length);
+            if (chunk.file.remainingChunks.decrementAndGet() == 0)
+               checkpoints.uploadCompleted(chunk.file.location, chunkSize);
+            if (remainingChunks.decrementAndGet() == 0)
+               set(null);
+         }
+      }
+
+      private void send(Chunk chunk) {
+         for (int attempt = 0;; attempt++) {
+            Payload payload = Payloads.newByteSourcePayload(Files.asByteSource(chunk.file.file).slice(chunk.offset,
+                  chunk.length));
+            payload.getContentMetadata().setContentLength(chunk.length);
+            payload.getContentMetadata().setContentType("application/octet-stream");
+            try {
+               uploadApi.uploadRange(chunk.file.location, chunk.contentRange(), payload);
+               checkpoints.chunkCompleted(chunk.file.location, chunkSize, chunk.offset);
+               return;
+            } catch (RuntimeException e) {
+               if (attempt >= retries || isDone())
+                  throw e;
+               logger.warn(e, "could not upload %s, attempt %d of %d", chunk, attempt + 1, retries + 1);
+            } finally {
+               payload.release();
+            }
+         }
+      }
+
+      @Override
+      public String toString() {
+         return "ChunkedUpload(" + getBytesSent() + "/" + totalBytes + " bytes)";
+      }
+   }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vcloud.director.v1_5.upload;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_UPLOAD_CHECKPOINT_DIR;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Set;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.logging.Logger;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
+import com.google.common.io.FileWriteMode;
+import com.google.common.io.Files;
+
+/**
+ * Keeps the checkpoints of each upload in a file of its own, one offset per line, under the
+ * directory configured with {@code jclouds.vcloud-director.upload.checkpoint-dir}.
+ */
+@Singleton
+public class FileUploadCheckpoints implements UploadCheckpoints {
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   private final File directory;
+
+   @Inject
+   FileUploadCheckpoints(@Named(PROPERTY_VCLOUD_DIRECTOR_UPLOAD_CHECKPOINT_DIR) String directory) {
+      this.directory = new File(checkNotNull(directory, "directory"));
+   }
+
+   @Override
+   public synchronized Set<Long> getCompletedChunks(URI location, long chunkSize) {
+      File checkpoints = checkpointsOf(location, chunkSize);
+      if (!checkpoints.isFile())
+         return ImmutableSet.of();
+      ImmutableSet.Builder<Long> offsets = ImmutableSet.builder();
+      try {
+         for (String line : Files.readLines(checkpoints, UTF_8)) {
+            // the last line may have been cut short by a crash
+            if (!line.isEmpty() && line.endsWith(";"))
+               offsets.add(Long.valueOf(line.substring(0, line.length() - 1)));
+         }
+      } catch (IOException e) {
+         logger.warn(e, "could not read the checkpoints of %s, uploading it from the start", location);
+         return ImmutableSet.of();
+      }
+      return offsets.build();
+   }
+
+   @Override
+   public synchronized void chunkCompleted(URI location, long chunkSize, long offset) {
+      File checkpoints = checkpointsOf(location, chunkSize);
+      try {
+         Files.createParentDirs(checkpoints);
+         Files.asCharSink(checkpoints, UTF_8, FileWriteMode.APPEND).write(offset + ";\n");
+      } catch (IOException e) {
+         // the chunk would only be sent again if the upload is resumed
+         logger.warn(e, "could not record chunk %d of %s", offset, location);
+      }
+   }
+
+   @Override
+   public synchronized void uploadCompleted(URI location, long chunkSize) {
+      File checkpoints = checkpointsOf(location, chunkSize);
+      if (checkpoints.exists() && !checkpoints.delete())
+         logger.warn("could not delete the checkpoints of %s at %s", location, checkpoints);
+   }
+
+   private File checkpointsOf(URI location, long chunkSize) {
+      return new File(directory, Hashing.md5().hashString(location + " " + chunkSize, UTF_8).toString());
+   }
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vcloud.director.v1_5.upload;
+
+import java.net.URI;
+import java.util.Set;
+
+import com.google.inject.ImplementedBy;
+
+/**
+ * Remembers which chunks of an upload have been accepted, so that an interrupted upload only sends
+ * the missing chunks when it is started again, even from another process.
+ */
+@ImplementedBy(FileUploadCheckpoints.class)
+public interface UploadCheckpoints {
+
+   /**
+    * @return the offsets of the chunks of the given size already uploaded to the location
+    */
+   Set<Long> getCompletedChunks(URI location, long chunkSize);
+
+   /**
+    * Records that the chunk starting at the given offset has been uploaded.
+    */
+   void chunkCompleted(URI location, long chunkSize, long offset);
+
+   /**
+    * Forgets the chunks of an upload that has completed.
+    */
+   void uploadCompleted(URI location, long chunkSize);
+}
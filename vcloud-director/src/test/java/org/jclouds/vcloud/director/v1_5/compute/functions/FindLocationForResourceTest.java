@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vcloud.director.v1_5.compute.functions;
+
+import static org.testng.Assert.assertEquals;
+
+import java.net.URI;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+import org.jclouds.vcloud.director.v1_5.domain.Reference;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableSet;
+
+@Test(groups = "unit", testName = "FindLocationForResourceTest")
+public class FindLocationForResourceTest {
+
+   private static final Location PROVIDER = new LocationBuilder().scope(LocationScope.PROVIDER).id("vcloud-director")
+         .description("vcloud-director").build();
+   private static final Location ORG = new LocationBuilder().scope(LocationScope.REGION)
+         .id("https://vcloud/api/org/1").description("org").parent(PROVIDER).build();
+   private static final Location VDC1 = vdc("https://vcloud/api/vdc/1");
+   private static final Location VDC2 = vdc("https://vcloud/api/vdc/2");
+
+   public void testFindsLocationsAndTheirParents() {
+      FindLocationForResource find = new FindLocationForResource(supplier(
+            new AtomicReference<Set<? extends Location>>(ImmutableSet.of(VDC1, VDC2))));
+
+      assertEquals(find.apply(reference("https://vcloud/api/vdc/2")), VDC2);
+      assertEquals(find.apply(reference("https://vcloud/api/org/1")), ORG);
+   }
+
+   @Test(expectedExceptions = NoSuchElementException.class)
+   public void testFailsOnUnknownResource() {
+      new FindLocationForResource(supplier(new AtomicReference<Set<? extends Location>>(ImmutableSet.of(VDC1))))
+            .apply(reference("https://vcloud/api/vdc/2"));
+   }
+
+   public void testRebuildsTheIndexWhenTheLocationsAreRefreshed() {
+      AtomicReference<Set<? extends Location>> locations = new AtomicReference<Set<? extends Location>>(
+            ImmutableSet.of(VDC1));
+      FindLocationForResource find = new FindLocationForResource(supplier(locations));
+      assertEquals(find.apply(reference("https://vcloud/api/vdc/1")), VDC1);
+
+      locations.set(ImmutableSet.of(VDC1, VDC2));
+
+      assertEquals(find.apply(reference("https://vcloud/api/vdc/2")), VDC2);
+   }
+
+   private static Location vdc(String href) {
+      return new LocationBuilder().scope(LocationScope.ZONE).id(href).description("vdc").parent(ORG).build();
+   }
+
+   private static Reference reference(String href) {
+      return Reference.builder().href(URI.create(href)).build();
+   }
+
+   private static Supplier<Set<? extends Location>> supplier(final AtomicReference<Set<? extends Location>> locations) {
+      return new Supplier<Set<? extends Location>>() {
+         @Override
+         public Set<? extends Location> get() {
+            return locations.get();
+         }
+      };
+   }
+}
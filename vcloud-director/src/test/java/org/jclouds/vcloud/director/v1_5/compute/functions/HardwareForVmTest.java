@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vcloud.director.v1_5.compute.functions;
+
+import static org.testng.Assert.assertEquals;
+
+import java.math.BigInteger;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.compute.domain.Hardware;
+import org.jclouds.compute.domain.HardwareBuilder;
+import org.jclouds.dmtf.cim.ResourceAllocationSettingData;
+import org.jclouds.dmtf.cim.ResourceAllocationSettingData.ResourceType;
+import org.jclouds.domain.Location;
+import org.jclouds.vcloud.director.v1_5.VCloudDirectorMediaType;
+import org.jclouds.vcloud.director.v1_5.domain.Link;
+import org.jclouds.vcloud.director.v1_5.domain.Reference;
+import org.jclouds.vcloud.director.v1_5.domain.Vm;
+import org.jclouds.vcloud.director.v1_5.domain.section.VirtualHardwareSection;
+import org.jclouds.vcloud.director.v1_5.functions.SectionForVApp;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Functions;
+import com.google.common.collect.ImmutableMap;
+
+@Test(groups = "unit", testName = "HardwareForVmTest")
+public class HardwareForVmTest {
+
+   public void testVmsWithDifferentMacsShareTheProfile() {
+      final AtomicInteger built = new AtomicInteger();
+      HardwareForVm hardwareForVm = new HardwareForVm(Functions.forMap(ImmutableMap.<Reference, Location> of(), null),
+            new VCloudHardwareBuilderFromResourceAllocations() {
+               @Override
+               public HardwareBuilder apply(Iterable<? extends ResourceAllocationSettingData> from) {
+                  built.incrementAndGet();
+                  return super.apply(from);
+               }
+            }, new SectionForVApp<VirtualHardwareSection>(VirtualHardwareSection.class));
+
+      Hardware first = hardwareForVm.apply(vm("vm-1", 2, "00:50:56:01:01:01"));
+      Hardware second = hardwareForVm.apply(vm("vm-2", 2, "00:50:56:01:01:02"));
+      hardwareForVm.apply(vm("vm-3", 4, "00:50:56:01:01:03"));
+
+      assertEquals(built.get(), 2);
+      assertEquals(first.getId(), "https://vcloud/api/vApp/vm-1");
+      assertEquals(second.getId(), "https://vcloud/api/vApp/vm-2");
+      assertEquals(second.getProcessors(), first.getProcessors());
+      assertEquals(second.getRam(), 2048);
+      assertEquals(second.getVolumes().size(), 1);
+   }
+
+   private static Vm vm(String id, int cpus, String mac) {
+      VirtualHardwareSection hardware = VirtualHardwareSection.builder().info("Virtual hardware requirements")
+            .item(item(ResourceType.PROCESSOR, cpus, null).instanceID("1").build())
+            .item(item(ResourceType.MEMORY, 2048, null).instanceID("2").build())
+            .item(item(ResourceType.DISK_DRIVE, 16 * 1024 * 1024, "0").instanceID("3").build())
+            .item(ResourceAllocationSettingData.builder().resourceType(ResourceType.ETHERNET_ADAPTER)
+                  .elementName("Network adapter 0").instanceID("4").addressOnParent("0").address(mac).build())
+            .build();
+      return Vm.builder().id("urn:vcloud:vm:" + id).name(id).href(URI.create("https://vcloud/api/vApp/" + id))
+            .link(Link.builder().rel(Link.Rel.UP).type(VCloudDirectorMediaType.VDC)
+                  .href(URI.create("https://vcloud/api/vdc/1")).build())
+            .section(hardware).build();
+   }
+
+   private static ResourceAllocationSettingData.Builder<?> item(ResourceType type, long quantity,
+         String addressOnParent) {
+      return ResourceAllocationSettingData.builder().resourceType(type).elementName(type.name())
+            .virtualQuantity(BigInteger.valueOf(quantity)).addressOnParent(addressOnParent);
+   }
+}
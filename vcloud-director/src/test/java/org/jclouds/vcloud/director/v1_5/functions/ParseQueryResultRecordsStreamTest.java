@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vcloud.director.v1_5.functions;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import javax.xml.bind.JAXBContext;
+
+import org.jclouds.http.HttpResponse;
+import org.jclouds.io.Payloads;
+import org.jclouds.vcloud.director.v1_5.domain.query.QueryResultRecordType;
+import org.jclouds.vcloud.director.v1_5.domain.query.QueryResultRecords;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+
+@Test(groups = "unit", testName = "ParseQueryResultRecordsStreamTest")
+public class ParseQueryResultRecordsStreamTest {
+
+   public void testStreamedRecordsMatchUnmarshalledPage() throws Exception {
+      QueryResultRecords page = (QueryResultRecords) JAXBContext.newInstance(QueryResultRecords.class)
+            .createUnmarshaller().unmarshal(getClass().getResourceAsStream("/query/allCatalogs.xml"));
+
+      QueryResultRecordsStream stream = new ParseQueryResultRecordsStream().apply(response("/query/allCatalogs.xml"));
+
+      assertEquals(stream.getName(), "catalog");
+      assertEquals(stream.getPage(), Integer.valueOf(1));
+      assertEquals(stream.getPageSize(), Integer.valueOf(25));
+      assertEquals(stream.getTotal(), Long.valueOf(3));
+      assertEquals(ImmutableList.copyOf(stream), ImmutableList.copyOf(page.getRecords()));
+   }
+
+   public void testStopsAfterClose() throws Exception {
+      QueryResultRecordsStream stream = new ParseQueryResultRecordsStream().apply(response("/query/allCatalogs.xml"));
+
+      QueryResultRecordType first = stream.next();
+      assertEquals(first.getHref().toString(),
+            "https://vcloudbeta.bluelock.com/api/catalog/7212e451-76e1-4631-b2de-ba1dfd8080e4");
+      stream.close();
+
+      assertFalse(stream.hasNext());
+   }
+
+   private HttpResponse response(String resource) {
+      return HttpResponse.builder().statusCode(200)
+            .payload(Payloads.newInputStreamPayload(getClass().getResourceAsStream(resource))).build();
+   }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vcloud.director.v1_5.functions;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.List;
+
+import org.jclouds.vcloud.director.v1_5.VCloudDirectorMediaType;
+import org.jclouds.vcloud.director.v1_5.domain.Link;
+import org.jclouds.vcloud.director.v1_5.domain.query.QueryResultRecordType;
+import org.jclouds.vcloud.director.v1_5.domain.query.QueryResultRecords;
+import org.jclouds.vcloud.director.v1_5.functions.QueryPages.RecordIterator;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+@Test(groups = "unit", testName = "QueryPagesTest")
+public class QueryPagesTest {
+
+   /**
+    * Serves {@code total} records in pages of {@code pageSize}, remembering the requested pages.
+    */
+   private static class FakePages implements Function<Integer, ListenableFuture<QueryResultRecords>> {
+      private final int total;
+      private final int pageSize;
+      private final boolean withTotal;
+      private final boolean withPageSize;
+      private final List<Integer> requested = Lists.newArrayList();
+
+      FakePages(int total, int pageSize, boolean withTotal) {
+         this(total, pageSize, withTotal, true);
+      }
+
+      FakePages(int total, int pageSize, boolean withTotal, boolean withPageSize) {
+         this.total = total;
+         this.pageSize = pageSize;
+         this.withTotal = withTotal;
+         this.withPageSize = withPageSize;
+      }
+
+      @Override
+      public ListenableFuture<QueryResultRecords> apply(Integer page) {
+         requested.add(page);
+         QueryResultRecords.Builder<?> builder = QueryResultRecords.builder().page(page);
+         if (withPageSize)
+            builder.pageSize(pageSize);
+         if (withTotal)
+            builder.total((long) total);
+         if (page * pageSize < total)
+            builder.link(Link.builder().rel(Link.Rel.NEXT_PAGE).type(VCloudDirectorMediaType.QUERY_RESULT_RECORDS)
+                  .href(URI.create("https://vcloud/api/query?page=" + (page + 1))).build());
+         for (int i = (page - 1) * pageSize; i < Math.min(total, page * pageSize); i++) {
+            builder.record(QueryResultRecordType.builder().id("record-" + i)
+                  .href(URI.create("https://vcloud/api/vm/" + i)).build());
+         }
+         return Futures.immediateFuture(builder.build());
+      }
+   }
+
+   /**
+    * Serves the first page, and leaves the following ones pending.
+    */
+   private static class PendingPages implements Function<Integer, ListenableFuture<QueryResultRecords>> {
+      private final FakePages first;
+      private final List<SettableFuture<QueryResultRecords>> ahead = Lists.newArrayList();
+
+      PendingPages(FakePages first) {
+         this.first = first;
+      }
+
+      @Override
+      public ListenableFuture<QueryResultRecords> apply(Integer page) {
+         if (page == 1)
+            return first.apply(page);
+         SettableFuture<QueryResultRecords> pending = SettableFuture.create();
+         ahead.add(pending);
+         return pending;
+      }
+   }
+
+   public void testIteratesAllRecordsInOrder() {
+      FakePages pages = new FakePages(25, 10, true);
+
+      List<QueryResultRecordType> records = QueryPages.records(pages, 2).toList();
+
+      assertEquals(records.size(), 25);
+      assertEquals(records.get(0).getId(), "record-0");
+      assertEquals(records.get(24).getId(), "record-24");
+      assertEquals(pages.requested, ImmutableList.of(1, 2, 3));
+   }
+
+   public void testStopsRequestingPagesWhenIterationStops() {
+      FakePages pages = new FakePages(100, 10, true);
+
+      List<QueryResultRecordType> records = QueryPages.records(pages, 2).limit(5).toList();
+
+      assertEquals(records.size(), 5);
+      assertEquals(pages.requested, ImmutableList.of(1, 2, 3));
+   }
+
+   public void testRequestsPagesOneAtATimeWithoutTotal() {
+      FakePages pages = new FakePages(20, 10, false);
+
+      List<QueryResultRecordType> records = QueryPages.records(pages, 4).toList();
+
+      assertEquals(records.size(), 20);
+      assertEquals(pages.requested, ImmutableList.of(1, 2, 3));
+   }
+
+   public void testFollowsTheNextLinkWithoutPageSize() {
+      FakePages pages = new FakePages(25, 10, false, false);
+
+      List<QueryResultRecordType> records = QueryPages.records(pages, 4).toList();
+
+      assertEquals(records.size(), 25);
+      assertEquals(pages.requested, ImmutableList.of(1, 2, 3));
+   }
+
+   public void testClosingCancelsThePagesRequestedAhead() {
+      PendingPages pages = new PendingPages(new FakePages(100, 10, true));
+
+      RecordIterator records = QueryPages.records(pages, 2).iterator();
+      assertEquals(records.next().getId(), "record-0");
+      records.close();
+
+      assertEquals(pages.ahead.size(), 2);
+      for (SettableFuture<QueryResultRecords> page : pages.ahead) {
+         assertTrue(page.isCancelled());
+      }
+   }
+
+   public void testEmptyResult() {
+      FakePages pages = new FakePages(0, 10, true);
+
+      assertEquals(QueryPages.records(pages, 2).size(), 0);
+      assertEquals(pages.requested, ImmutableList.of(1));
+   }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vcloud.director.v1_5.http;
+
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static org.jclouds.vcloud.director.v1_5.VCloudDirectorConstants.PROPERTY_VCLOUD_DIRECTOR_RESPONSE_CACHE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Properties;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.concurrent.config.ExecutorServiceModule;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.util.Strings2;
+import org.jclouds.vcloud.director.v1_5.VCloudDirectorMediaType;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.net.HttpHeaders;
+import com.google.inject.Module;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+
+@Test(groups = "unit", testName = "CachingJavaUrlHttpCommandExecutorServiceTest", singleThreaded = true)
+public class CachingJavaUrlHttpCommandExecutorServiceTest {
+
+   public void testNotModifiedEntityIsServedFromTheCache() throws Exception {
+      MockWebServer server = new MockWebServer();
+      server.enqueue(new MockResponse().setBody("<VApp/>")
+            .addHeader(HttpHeaders.CONTENT_TYPE, VCloudDirectorMediaType.VAPP).addHeader(HttpHeaders.ETAG, "\"1\""));
+      server.enqueue(new MockResponse().setResponseCode(304).addHeader(HttpHeaders.ETAG, "\"1\""));
+      server.play();
+
+      try {
+         CachingJavaUrlHttpCommandExecutorService executor = executor(server);
+         URL vApp = server.getUrl("/api/vApp/vapp-1");
+
+         HttpResponse first = executor.invoke(connection("GET", vApp));
+         HttpResponse second = executor.invoke(connection("GET", vApp));
+
+         assertNull(server.takeRequest().getHeader(HttpHeaders.IF_NONE_MATCH));
+         assertEquals(server.takeRequest().getHeader(HttpHeaders.IF_NONE_MATCH), "\"1\"");
+         assertEquals(Strings2.toStringAndClose(first.getPayload().openStream()), "<VApp/>");
+         assertEquals(second.getStatusCode(), 200);
+         assertEquals(second.getPayload().getContentMetadata().getContentType(), VCloudDirectorMediaType.VAPP);
+         assertEquals(Strings2.toStringAndClose(second.getPayload().openStream()), "<VApp/>");
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   public void testWriteDropsTheCachedEntity() throws Exception {
+      MockWebServer server = new MockWebServer();
+      server.enqueue(new MockResponse().setBody("<VApp/>")
+            .addHeader(HttpHeaders.CONTENT_TYPE, VCloudDirectorMediaType.VAPP).addHeader(HttpHeaders.ETAG, "\"1\""));
+      server.enqueue(new MockResponse().setResponseCode(202));
+      server.enqueue(new MockResponse().setBody("<VApp name=\"renamed\"/>")
+            .addHeader(HttpHeaders.CONTENT_TYPE, VCloudDirectorMediaType.VAPP).addHeader(HttpHeaders.ETAG, "\"2\""));
+      server.play();
+
+      try {
+         CachingJavaUrlHttpCommandExecutorService executor = executor(server);
+         URL vApp = server.getUrl("/api/vApp/vapp-1");
+
+         executor.invoke(connection("GET", vApp));
+         executor.invoke(connection("PUT", vApp));
+         HttpResponse read = executor.invoke(connection("GET", vApp));
+
+         server.takeRequest();
+         server.takeRequest();
+         assertNull(server.takeRequest().getHeader(HttpHeaders.IF_NONE_MATCH));
+         assertEquals(Strings2.toStringAndClose(read.getPayload().openStream()), "<VApp name=\"renamed\"/>");
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   private static CachingJavaUrlHttpCommandExecutorService executor(MockWebServer server) {
+      Properties overrides = new Properties();
+      overrides.setProperty(PROPERTY_VCLOUD_DIRECTOR_RESPONSE_CACHE, "true");
+      return ContextBuilder.newBuilder("vcloud-director")
+            .credentials("user@org", "password")
+            .endpoint(server.getUrl("/api").toString())
+            .modules(ImmutableSet.<Module> of(new ExecutorServiceModule(newDirectExecutorService(),
+                  newDirectExecutorService())))
+            .overrides(overrides)
+            .buildInjector().getInstance(CachingJavaUrlHttpCommandExecutorService.class);
+   }
+
+   private static HttpURLConnection connection(String method, URL url) throws IOException {
+      HttpURLConnection connection = HttpURLConnection.class.cast(url.openConnection());
+      connection.setRequestMethod(method);
+      connection.setRequestProperty(HttpHeaders.ACCEPT, VCloudDirectorMediaType.VAPP);
+      if (!"GET".equals(method)) {
+         connection.setDoOutput(true);
+         connection.getOutputStream().close();
+      }
+      return connection;
+   }
+}
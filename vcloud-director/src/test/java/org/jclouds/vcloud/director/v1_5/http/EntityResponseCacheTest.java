@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vcloud.director.v1_5.http;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.net.URI;
+
+import org.jclouds.http.HttpResponse;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+import org.jclouds.util.Strings2;
+import org.jclouds.vcloud.director.v1_5.VCloudDirectorMediaType;
+import org.jclouds.vcloud.director.v1_5.http.EntityResponseCache.CachedEntity;
+import org.testng.annotations.Test;
+
+import com.google.common.net.HttpHeaders;
+
+@Test(groups = "unit", testName = "EntityResponseCacheTest")
+public class EntityResponseCacheTest {
+
+   private static final URI VAPP = URI.create("https://vcloud/api/vApp/vapp-1");
+   private static final URI SECTION = URI.create("https://vcloud/api/vApp/vapp-1/leaseSettingsSection");
+   private static final URI OTHER = URI.create("https://vcloud/api/vApp/vapp-2");
+   private static final URI PREFIXED = URI.create("https://vcloud/api/vApp/vapp-10");
+
+   public void testEntityPath() {
+      assertEquals(EntityResponseCache.entityPathOf(SECTION), "/api/vApp/vapp-1");
+      assertEquals(EntityResponseCache.entityPathOf(VAPP), "/api/vApp/vapp-1");
+   }
+
+   public void testCachedEntityIsReplayed() throws Exception {
+      EntityResponseCache cache = new EntityResponseCache(true, 5000, 1024);
+      cache.put(VAPP, VCloudDirectorMediaType.VAPP, cache.newEntity("<VApp/>".getBytes(), response("\"1\"")),
+            cache.generation(VAPP));
+
+      CachedEntity cached = cache.get(VAPP, VCloudDirectorMediaType.VAPP);
+
+      assertTrue(cached.isRevalidatable());
+      HttpResponse replayed = cached.toResponse();
+      assertEquals(replayed.getFirstHeaderOrNull(HttpHeaders.ETAG), "\"1\"");
+      assertEquals(Strings2.toStringAndClose(replayed.getPayload().openStream()), "<VApp/>");
+      assertNull(cache.get(VAPP, VCloudDirectorMediaType.VM));
+   }
+
+   public void testInvalidateDropsTheEntriesOfTheEntity() {
+      EntityResponseCache cache = new EntityResponseCache(true, 5000, 1024);
+      cache.put(VAPP, VCloudDirectorMediaType.VAPP, cache.newEntity(new byte[0], response(null)),
+            cache.generation(VAPP));
+      cache.put(SECTION, VCloudDirectorMediaType.LEASE_SETTINGS_SECTION, cache.newEntity(new byte[0], response(null)),
+            cache.generation(SECTION));
+      cache.put(OTHER, VCloudDirectorMediaType.VAPP, cache.newEntity(new byte[0], response(null)),
+            cache.generation(OTHER));
+
+      cache.invalidate(URI.create("https://vcloud/api/vApp/vapp-1/power/action/powerOn"));
+
+      assertNull(cache.get(VAPP, VCloudDirectorMediaType.VAPP));
+      assertNull(cache.get(SECTION, VCloudDirectorMediaType.LEASE_SETTINGS_SECTION));
+      assertNotNull(cache.get(OTHER, VCloudDirectorMediaType.VAPP));
+   }
+
+   public void testInvalidateDoesNotDropAnEntityWhoseIdStartsWithTheSameDigits() {
+      EntityResponseCache cache = new EntityResponseCache(true, 5000, 1024);
+      cache.put(PREFIXED, VCloudDirectorMediaType.VAPP, cache.newEntity(new byte[0], response(null)),
+            cache.generation(PREFIXED));
+
+      cache.invalidate(VAPP);
+
+      assertNotNull(cache.get(PREFIXED, VCloudDirectorMediaType.VAPP));
+   }
+
+   public void testBodyReadBeforeAnInvalidationIsNotCached() {
+      EntityResponseCache cache = new EntityResponseCache(true, 5000, 1024);
+      long generation = cache.generation(SECTION);
+
+      cache.invalidate(VAPP);
+      cache.put(SECTION, VCloudDirectorMediaType.LEASE_SETTINGS_SECTION, cache.newEntity(new byte[0], response(null)),
+            generation);
+
+      assertNull(cache.get(SECTION, VCloudDirectorMediaType.LEASE_SETTINGS_SECTION));
+   }
+
+   public void testBodiesLargerThanTheCacheAreNotKept() {
+      EntityResponseCache cache = new EntityResponseCache(true, 5000, 1024);
+      cache.put(VAPP, VCloudDirectorMediaType.VAPP, cache.newEntity(new byte[2048], response(null)),
+            cache.generation(VAPP));
+      cache.put(OTHER, VCloudDirectorMediaType.VAPP, cache.newEntity(new byte[16], response(null)),
+            cache.generation(OTHER));
+
+      assertNull(cache.get(VAPP, VCloudDirectorMediaType.VAPP));
+      assertNotNull(cache.get(OTHER, VCloudDirectorMediaType.VAPP));
+   }
+
+   public void testTasksAndDisabledCacheAreNotCached() {
+      assertFalse(new EntityResponseCache(true, 5000, 1024).isCacheable(VCloudDirectorMediaType.TASK));
+      assertTrue(new EntityResponseCache(true, 5000, 1024).isCacheable(VCloudDirectorMediaType.VAPP));
+      assertFalse(new EntityResponseCache(false, 5000, 1024).isCacheable(VCloudDirectorMediaType.VAPP));
+   }
+
+   public void testQueryResultsAreNotCached() {
+      EntityResponseCache cache = new EntityResponseCache(true, 5000, 1024);
+      assertFalse(cache.isCacheable(VCloudDirectorMediaType.QUERY_RESULT_RECORDS));
+      assertFalse(cache.isCacheable(VCloudDirectorMediaType.QUERY_RESULT_REFERENCES));
+      assertFalse(cache.isCacheable(VCloudDirectorMediaType.QUERY_RESULT_ID_RECORDS));
+   }
+
+   private static HttpResponse response(String eTag) {
+      Payload payload = Payloads.newByteArrayPayload(new byte[0]);
+      payload.getContentMetadata().setContentType(VCloudDirectorMediaType.VAPP);
+      HttpResponse.Builder<?> response = HttpResponse.builder().statusCode(200).payload(payload);
+      if (eTag != null)
+         response.addHeader(HttpHeaders.ETAG, eTag);
+      return response.build();
+   }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vcloud.director.v1_5.loaders;
+
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.net.URI;
+import java.util.Map;
+
+import org.jclouds.vcloud.director.v1_5.domain.Entity;
+import org.jclouds.vcloud.director.v1_5.domain.Link;
+import org.jclouds.vcloud.director.v1_5.user.VCloudDirectorApi;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+
+@Test(groups = "unit", testName = "ResolveEntityTest")
+public class ResolveEntityTest {
+
+   private static final String VM1 = "urn:vcloud:vm:1";
+   private static final String VM2 = "urn:vcloud:vm:2";
+   private static final String ORG = "urn:vcloud:org:3";
+
+   public void testLoadAllReturnsTheResolvedEntities() throws Exception {
+      VCloudDirectorApi api = createMock(VCloudDirectorApi.class);
+      Entity org = entity(ORG, "https://vcloud/api/org/3");
+      Entity vm1 = entity(VM1, "https://vcloud/api/vApp/vm-1");
+      Entity vm2 = entity(VM2, "https://vcloud/api/vApp/vm-2");
+
+      expect(api.resolveEntity(VM1)).andReturn(vm1);
+      expect(api.resolveEntity(ORG)).andReturn(org);
+      expect(api.resolveEntity(VM2)).andReturn(vm2);
+      replay(api);
+
+      Map<String, Entity> entities = new ResolveEntity(api, newDirectExecutorService()).loadAll(ImmutableList.of(VM1,
+            ORG, VM2));
+
+      assertEquals(entities.get(VM1), vm1);
+      assertEquals(entities.get(VM2), vm2);
+      assertEquals(entities.get(ORG), org);
+      verify(api);
+   }
+
+   public void testLoadAllLeavesOutTheUrnsThatAreNotFound() throws Exception {
+      VCloudDirectorApi api = createMock(VCloudDirectorApi.class);
+      Entity vm1 = entity(VM1, "https://vcloud/api/vApp/vm-1");
+
+      expect(api.resolveEntity(VM1)).andReturn(vm1);
+      expect(api.resolveEntity(VM2)).andReturn(null);
+      replay(api);
+
+      Map<String, Entity> entities = new ResolveEntity(api, newDirectExecutorService()).loadAll(ImmutableList.of(VM1,
+            VM2));
+
+      assertEquals(entities.get(VM1), vm1);
+      assertFalse(entities.containsKey(VM2));
+      verify(api);
+   }
+
+   private static Entity entity(String urn, String href) {
+      return Entity.builder().id(urn).name(urn)
+            .link(Link.builder().rel(Link.Rel.ALTERNATE).href(URI.create(href)).build()).build();
+   }
+}
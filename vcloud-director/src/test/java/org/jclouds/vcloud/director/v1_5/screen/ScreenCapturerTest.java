@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vcloud.director.v1_5.screen;
+
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+
+import org.jclouds.io.ByteStreams2;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+import org.jclouds.vcloud.director.v1_5.features.VAppApi;
+import org.jclouds.vcloud.director.v1_5.features.VmApi;
+import org.jclouds.vcloud.director.v1_5.screen.ScreenCapturer.ScreenListener;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+@Test(groups = "unit", testName = "ScreenCapturerTest")
+public class ScreenCapturerTest {
+
+   private static final URI VM1 = URI.create("https://vcloud/api/vApp/vm-1");
+   private static final URI VM2 = URI.create("https://vcloud/api/vApp/vm-2");
+
+   public void testUsesConditionalRequestsWhenImagesAreTagged() throws Exception {
+      VmApi vmApi = createMock(VmApi.class);
+      expect(vmApi.getScreenImageStream(VM1)).andReturn(image("first", "\"1\""));
+      expect(vmApi.getScreenImageIfNoneMatch(VM1, "\"1\"")).andReturn(null);
+      replay(vmApi);
+
+      RecordingListener listener = new RecordingListener();
+      ScreenCapturer capturer = capturer(vmApi);
+
+      assertEquals(capturer.captureChanged(ImmutableList.of(VM1), listener).get(), ImmutableSet.of(VM1));
+      assertTrue(capturer.captureChanged(ImmutableList.of(VM1), listener).get().isEmpty());
+      assertEquals(listener.screens, ImmutableList.of("first"));
+      verify(vmApi);
+   }
+
+   public void testSkipsUnchangedScreensWithoutTags() throws Exception {
+      VmApi vmApi = createMock(VmApi.class);
+      expect(vmApi.getScreenImageStream(VM1)).andReturn(image("first", null));
+      expect(vmApi.getScreenImageStream(VM2)).andReturn(image("second", null));
+      expect(vmApi.getScreenImageStream(VM1)).andReturn(image("first", null));
+      expect(vmApi.getScreenImageStream(VM2)).andReturn(image("changed", null));
+      replay(vmApi);
+
+      RecordingListener listener = new RecordingListener();
+      ScreenCapturer capturer = capturer(vmApi);
+
+      assertEquals(capturer.captureChanged(ImmutableList.of(VM1, VM2), listener).get(), ImmutableSet.of(VM1, VM2));
+      assertEquals(capturer.captureChanged(ImmutableList.of(VM1, VM2), listener).get(), ImmutableSet.of(VM2));
+      assertEquals(listener.screens, ImmutableList.of("first", "second", "changed"));
+      verify(vmApi);
+   }
+
+   public void testFailedCaptureDoesNotFailTheBatch() throws Exception {
+      VmApi vmApi = createMock(VmApi.class);
+      expect(vmApi.getScreenImageStream(VM1)).andThrow(new IllegalStateException("vm is powered off"));
+      expect(vmApi.getScreenImageStream(VM2)).andReturn(image("second", null));
+      replay(vmApi);
+
+      RecordingListener listener = new RecordingListener();
+
+      assertEquals(capturer(vmApi).captureChanged(ImmutableList.of(VM1, VM2), listener).get(), ImmutableSet.of(VM2));
+      verify(vmApi);
+   }
+
+   private static ScreenCapturer capturer(VmApi vmApi) {
+      return new ScreenCapturer(vmApi, createMock(VAppApi.class), newDirectExecutorService(), 2);
+   }
+
+   private static ScreenImage image(String content, String eTag) {
+      Payload payload = Payloads.newStringPayload(content);
+      payload.getContentMetadata().setContentType("image/png");
+      return new ScreenImage(payload, eTag);
+   }
+
+   private static class RecordingListener implements ScreenListener {
+      private final List<String> screens = Lists.newArrayList();
+
+      @Override
+      public synchronized void screenChanged(URI vmHref, ScreenImage image) throws IOException {
+         screens.add(new String(ByteStreams2.toByteArrayAndClose(image.openStream()), "UTF-8"));
+      }
+   }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vcloud.director.v1_5.tasks;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.net.URI;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.jclouds.vcloud.director.v1_5.VCloudDirectorException;
+import org.jclouds.vcloud.director.v1_5.VCloudDirectorMediaType;
+import org.jclouds.vcloud.director.v1_5.domain.Link;
+import org.jclouds.vcloud.director.v1_5.domain.Reference;
+import org.jclouds.vcloud.director.v1_5.domain.Task;
+import org.jclouds.vcloud.director.v1_5.domain.TasksList;
+import org.jclouds.vcloud.director.v1_5.domain.org.Org;
+import org.jclouds.vcloud.director.v1_5.features.OrgApi;
+import org.jclouds.vcloud.director.v1_5.features.TaskApi;
+import org.jclouds.vcloud.director.v1_5.http.EntityResponseCache;
+import org.testng.annotations.Test;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+@Test(groups = "unit", testName = "TaskTrackerTest")
+public class TaskTrackerTest {
+
+   private static final URI ORG = URI.create("https://vcloud/api/org/1");
+   private static final URI TASKS_LIST = URI.create("https://vcloud/api/tasksList/1");
+
+   public void testRefreshesAllTasksOfAnOrgWithOneRequest() throws Exception {
+      TaskApi taskApi = createMock(TaskApi.class);
+      OrgApi orgApi = createMock(OrgApi.class);
+      ScheduledExecutorService scheduler = createNiceMock(ScheduledExecutorService.class);
+
+      expect(orgApi.get(ORG)).andReturn(org());
+      expect(taskApi.getTasksList(TASKS_LIST)).andReturn(TasksList.builder()
+            .task(task("1", Task.Status.SUCCESS))
+            .task(task("2", Task.Status.RUNNING))
+            .task(task("3", Task.Status.ERROR))
+            .build());
+      replay(taskApi, orgApi, scheduler);
+
+      TaskTracker tracker = new TaskTracker(taskApi, orgApi, new EntityResponseCache(false, 0, 0), scheduler, 1000, 60000);
+      ListenableFuture<Task> first = tracker.track(task("1", Task.Status.RUNNING));
+      ListenableFuture<Task> second = tracker.track(task("2", Task.Status.QUEUED));
+      ListenableFuture<Task> third = tracker.track(task("3", Task.Status.RUNNING));
+
+      tracker.refresh();
+
+      assertEquals(first.get().getStatus(), Task.Status.SUCCESS);
+      assertFalse(second.isDone());
+      assertEquals(tracker.getLastKnownState(href("2")).getStatus(), Task.Status.RUNNING);
+      try {
+         third.get();
+         fail("task 3 ended in error");
+      } catch (ExecutionException e) {
+         assertTrue(e.getCause() instanceof VCloudDirectorException);
+      }
+      assertEquals(tracker.getTrackedTasks().size(), 1);
+      verify(taskApi, orgApi);
+   }
+
+   public void testFetchesTasksMissingFromTheTasksList() throws Exception {
+      TaskApi taskApi = createMock(TaskApi.class);
+      OrgApi orgApi = createMock(OrgApi.class);
+      ScheduledExecutorService scheduler = createNiceMock(ScheduledExecutorService.class);
+
+      expect(orgApi.get(ORG)).andReturn(org());
+      expect(taskApi.getTasksList(TASKS_LIST)).andReturn(TasksList.builder().build());
+      expect(taskApi.get(href("1"))).andReturn(task("1", Task.Status.SUCCESS));
+      replay(taskApi, orgApi, scheduler);
+
+      TaskTracker tracker = new TaskTracker(taskApi, orgApi, new EntityResponseCache(false, 0, 0), scheduler, 1000, 60000);
+      ListenableFuture<Task> future = tracker.track(task("1", Task.Status.RUNNING));
+
+      tracker.refresh();
+
+      assertEquals(future.get().getStatus(), Task.Status.SUCCESS);
+      verify(taskApi, orgApi);
+   }
+
+   public void testCompletedTaskIsNotTracked() throws Exception {
+      TaskApi taskApi = createMock(TaskApi.class);
+      OrgApi orgApi = createMock(OrgApi.class);
+      ScheduledExecutorService scheduler = createMock(ScheduledExecutorService.class);
+      replay(taskApi, orgApi, scheduler);
+
+      TaskTracker tracker = new TaskTracker(taskApi, orgApi, new EntityResponseCache(false, 0, 0), scheduler, 1000, 60000);
+
+      assertTrue(tracker.track(task("1", Task.Status.SUCCESS)).isDone());
+      assertTrue(tracker.getTrackedTasks().isEmpty());
+      verify(taskApi, orgApi, scheduler);
+   }
+
+   private static Org org() {
+      return Org.builder().href(ORG).name("org")
+            .link(Link.builder().rel(Link.Rel.DOWN).type(VCloudDirectorMediaType.TASKS_LIST).href(TASKS_LIST).build())
+            .build();
+   }
+
+   private static Task task(String id, Task.Status status) {
+      return Task.builder().href(href(id)).name("task").status(status)
+            .org(Reference.builder().href(ORG).build())
+            .build();
+   }
+
+   private static URI href(String id) {
+      return URI.create("https://vcloud/api/task/" + id);
+   }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vcloud.director.v1_5.upload;
+
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.net.URI;
+import java.util.concurrent.ExecutionException;
+
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.io.Payload;
+import org.jclouds.vcloud.director.v1_5.features.UploadApi;
+import org.jclouds.vcloud.director.v1_5.upload.ChunkedUploader.ChunkedUpload;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+@Test(groups = "unit", testName = "ChunkedUploaderTest", singleThreaded = true)
+public class ChunkedUploaderTest {
+
+   private static final URI LOCATION = URI.create("https://vcloud/transfer/1/disk.vmdk");
+
+   private File directory;
+   private File file;
+   private UploadCheckpoints checkpoints;
+
+   @BeforeMethod
+   public void setUp() throws Exception {
+      directory = Files.createTempDir();
+      file = new File(directory, "disk.vmdk");
+      Files.write("0123456789", file, Charsets.US_ASCII);
+      checkpoints = new FileUploadCheckpoints(new File(directory, "checkpoints").getAbsolutePath());
+   }
+
+   @AfterMethod
+   public void tearDown() {
+      for (File child : Files.fileTreeTraverser().postOrderTraversal(directory))
+         child.delete();
+   }
+
+   public void testSendsEveryChunkWithItsRange() throws Exception {
+      UploadApi uploadApi = createMock(UploadApi.class);
+      uploadApi.uploadRange(eq(LOCATION), eq("bytes 0-3/10"), anyObject(Payload.class));
+      uploadApi.uploadRange(eq(LOCATION), eq("bytes 4-7/10"), anyObject(Payload.class));
+      uploadApi.uploadRange(eq(LOCATION), eq("bytes 8-9/10"), anyObject(Payload.class));
+      replay(uploadApi);
+
+      ChunkedUpload upload = uploader(uploadApi).upload(LOCATION, file);
+
+      upload.get();
+      assertEquals(upload.getBytesSent(), 10);
+      assertEquals(upload.getTotalBytes(), 10);
+      assertTrue(checkpoints.getCompletedChunks(LOCATION, 4).isEmpty());
+      verify(uploadApi);
+   }
+
+   public void testRetriesFailedChunks() throws Exception {
+      UploadApi uploadApi = createMock(UploadApi.class);
+      uploadApi.uploadRange(eq(LOCATION), eq("bytes 0-3/10"), anyObject(Payload.class));
+      expectLastCall().andThrow(new HttpResponseException("timeout", null, null));
+      uploadApi.uploadRange(eq(LOCATION), eq("bytes 0-3/10"), anyObject(Payload.class));
+      uploadApi.uploadRange(eq(LOCATION), eq("bytes 4-7/10"), anyObject(Payload.class));
+      uploadApi.uploadRange(eq(LOCATION), eq("bytes 8-9/10"), anyObject(Payload.class));
+      replay(uploadApi);
+
+      uploader(uploadApi).upload(LOCATION, file).get();
+
+      verify(uploadApi);
+   }
+
+   public void testResumesFromTheCompletedChunks() throws Exception {
+      UploadApi failing = createMock(UploadApi.class);
+      failing.uploadRange(eq(LOCATION), eq("bytes 0-3/10"), anyObject(Payload.class));
+      failing.uploadRange(eq(LOCATION), eq("bytes 4-7/10"), anyObject(Payload.class));
+      expectLastCall().andThrow(new HttpResponseException("connection reset", null, null)).times(2);
+      replay(failing);
+
+      try {
+         uploader(failing).upload(LOCATION, file).get();
+         fail("the second chunk could not be sent");
+      } catch (ExecutionException e) {
+         assertTrue(e.getCause() instanceof HttpResponseException);
+      }
+      verify(failing);
+
+      UploadApi resumed = createMock(UploadApi.class);
+      resumed.uploadRange(eq(LOCATION), eq("bytes 4-7/10"), anyObject(Payload.class));
+      resumed.uploadRange(eq(LOCATION), eq("bytes 8-9/10"), anyObject(Payload.class));
+      replay(resumed);
+
+      ChunkedUpload upload = uploader(resumed).upload(LOCATION, file);
+
+      upload.get();
+      assertEquals(upload.getBytesSent(), 10);
+      verify(resumed);
+   }
+
+   private ChunkedUploader uploader(UploadApi uploadApi) {
+      return new ChunkedUploader(uploadApi, checkpoints, newDirectExecutorService(), 4, 2, 1);
+   }
+}
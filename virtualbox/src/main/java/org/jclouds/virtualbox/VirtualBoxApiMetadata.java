@@ -17,6 +17,7 @@
 package org.jclouds.virtualbox;
 
 import static org.jclouds.compute.config.ComputeServiceProperties.TEMPLATE;
+import static org.jclouds.virtualbox.config.VirtualBoxConstants.VIRTUALBOX_CLONE_POOL_SIZE;
 import static org.jclouds.virtualbox.config.VirtualBoxConstants.VIRTUALBOX_DEFAULT_DIR;
 import static org.jclouds.virtualbox.config.VirtualBoxConstants.VIRTUALBOX_GUEST_MEMORY;
 import static org.jclouds.virtualbox.config.VirtualBoxConstants.VIRTUALBOX_IMAGES_DESCRIPTOR;
@@ -62,6 +63,9 @@ public class VirtualBoxApiMetadata extends BaseApiMetadata {
 
       String ram = System.getProperty(VIRTUALBOX_GUEST_MEMORY, "512");
       properties.put(VIRTUALBOX_GUEST_MEMORY, ram);
+
+      String clonePoolSize = System.getProperty(VIRTUALBOX_CLONE_POOL_SIZE, "0");
+      properties.put(VIRTUALBOX_CLONE_POOL_SIZE, clonePoolSize);
       
       String yamlDescriptor = System.getProperty("test.virtualbox.image.descriptor.yaml", VIRTUALBOX_WORKINGDIR
                + File.separator + "images.yaml");
@@ -29,6 +29,8 @@ public final class VirtualBoxConstants {
 
    public static final String VIRTUALBOX_NODE_PREFIX = "jclouds-node" + VIRTUALBOX_NODE_NAME_SEPARATOR;
 
+   public static final String VIRTUALBOX_POOL_PREFIX = "jclouds-pool" + VIRTUALBOX_NODE_NAME_SEPARATOR;
+
    public static final String VIRTUALBOX_PRECONFIGURATION_URL = "jclouds.virtualbox.preconfigurationurl";
 
    public static final String VIRTUALBOX_WORKINGDIR = "jclouds.virtualbox.workingdir";
@@ -45,6 +47,11 @@ public final class VirtualBoxConstants {
    
    public static final String VIRTUALBOX_GUEST_MEMORY = "jclouds.virtualbox.guest.memory";
 
+   /**
+    * Number of saved linked clones kept warm per master. 0 disables the pool.
+    */
+   public static final String VIRTUALBOX_CLONE_POOL_SIZE = "jclouds.virtualbox.clonepool.size";
+
    public static final String VIRTUALBOX_HOST_ID = "jclouds.virtualbox.hostid";
 
    public static final String VIRTUALBOX_WEBSERVER_IDENTITY = "jclouds.virtualbox.webserver.identity";
@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.virtualbox.functions;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static org.jclouds.virtualbox.config.VirtualBoxConstants.VIRTUALBOX_CLONE_POOL_SIZE;
+import static org.jclouds.virtualbox.config.VirtualBoxConstants.VIRTUALBOX_IMAGE_PREFIX;
+import static org.jclouds.virtualbox.config.VirtualBoxConstants.VIRTUALBOX_NODE_NAME_SEPARATOR;
+import static org.jclouds.virtualbox.config.VirtualBoxConstants.VIRTUALBOX_POOL_PREFIX;
+
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.logging.Logger;
+import org.jclouds.virtualbox.domain.CloneSpec;
+import org.jclouds.virtualbox.domain.VmSpec;
+import org.jclouds.virtualbox.util.MachineController;
+import org.jclouds.virtualbox.util.MachineUtils;
+import org.virtualbox_4_2.CleanupMode;
+import org.virtualbox_4_2.IMachine;
+import org.virtualbox_4_2.ISession;
+import org.virtualbox_4_2.MachineState;
+import org.virtualbox_4_2.VirtualBoxManager;
+
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Keeps, for each master, a warm pool of linked clones that have been booted once and then saved.
+ * <p/>
+ * All the clones of a master are linked to the same (golden) snapshot, so the master snapshot is
+ * never deleted while the pool is enabled. Taking a clone from the pool only renames it; the
+ * caller restores its saved state by launching it, which is much faster than a full boot.
+ * <p/>
+ * The pool is disabled when {@link org.jclouds.virtualbox.config.VirtualBoxConstants#VIRTUALBOX_CLONE_POOL_SIZE}
+ * is 0 (the default).
+ */
+@Singleton
+public class LinkedClonePool {
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final Supplier<VirtualBoxManager> manager;
+   private final Function<CloneSpec, IMachine> cloner;
+   private final MachineUtils machineUtils;
+   private final MachineController machineController;
+   private final ListeningExecutorService userExecutor;
+   private final int poolSize;
+
+   private final ConcurrentMap<String, Queue<String>> warmClones = Maps.newConcurrentMap();
+   private final ConcurrentMap<String, AtomicInteger> pendingClones = Maps.newConcurrentMap();
+
+   @Inject
+   public LinkedClonePool(Supplier<VirtualBoxManager> manager, Function<CloneSpec, IMachine> cloner,
+            MachineUtils machineUtils, MachineController machineController,
+            @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+            @Named(VIRTUALBOX_CLONE_POOL_SIZE) String poolSize) {
+      this.manager = checkNotNull(manager, "manager");
+      this.cloner = checkNotNull(cloner, "cloner");
+      this.machineUtils = checkNotNull(machineUtils, "machineUtils");
+      this.machineController = checkNotNull(machineController, "machineController");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+      this.poolSize = Integer.parseInt(checkNotNull(poolSize, "poolSize"));
+   }
+
+   public boolean isEnabled() {
+      return poolSize > 0;
+   }
+
+   /**
+    * Clones the master of the given spec from its current snapshot, taking it only if the master
+    * does not have one yet. Synchronized as snapshot creation must be serialized per master.
+    */
+   public synchronized IMachine cloneFromGoldenSnapshot(CloneSpec cloneSpec) {
+      return cloner.apply(cloneSpec);
+   }
+
+   /**
+    * Takes a saved clone of the master of the given spec out of the pool, renames it after the vm
+    * of the spec and schedules the pool to be refilled.
+    *
+    * @return the renamed clone, or absent if no warm clone was available
+    */
+   public Optional<IMachine> take(final CloneSpec cloneSpec) {
+      checkState(isEnabled(), "the linked clone pool is disabled");
+      String masterName = cloneSpec.getMaster().getName();
+      final String cloneName = cloneSpec.getVmSpec().getVmName();
+      try {
+         String pooledName = warmClonesOf(masterName).poll();
+         if (pooledName == null) {
+            logger.debug("<< no warm clone available for master(%s)", masterName);
+            return Optional.absent();
+         }
+         machineUtils.writeLockMachineAndApply(pooledName, new Function<IMachine, Void>() {
+            @Override
+            public Void apply(IMachine machine) {
+               machine.setName(cloneName);
+               machine.saveSettings();
+               return null;
+            }
+
+            @Override
+            public String toString() {
+               return "renameTo(" + cloneName + ")";
+            }
+         });
+         logger.debug("<< took warm clone(%s) from the pool of master(%s) as vm(%s)", pooledName, masterName,
+                  cloneName);
+         return Optional.of(manager.get().getVBox().findMachine(cloneName));
+      } finally {
+         replenish(cloneSpec);
+      }
+   }
+
+   /**
+    * Asynchronously creates as many warm clones as needed to bring the pool of the master of the
+    * given spec back to its configured size.
+    */
+   public void replenish(final CloneSpec template) {
+      if (!isEnabled())
+         return;
+      final String masterName = template.getMaster().getName();
+      final Queue<String> warm = warmClonesOf(masterName);
+      final AtomicInteger pending = pendingClonesOf(masterName);
+      while (true) {
+         int inFlight = pending.get();
+         if (warm.size() + inFlight >= poolSize || !pending.compareAndSet(inFlight, inFlight + 1))
+            break;
+         userExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+               try {
+                  warm.add(createWarmClone(template));
+               } catch (RuntimeException e) {
+                  logger.warn(e, "<< could not create a warm clone of master(%s)", masterName);
+               } finally {
+                  pending.decrementAndGet();
+               }
+            }
+         });
+      }
+   }
+
+   private String createWarmClone(CloneSpec template) {
+      String masterName = template.getMaster().getName();
+      String pooledName = poolPrefixOf(masterName) + UUID.randomUUID().toString().replace("-", "");
+      VmSpec vmSpec = template.getVmSpec();
+      VmSpec pooledVmSpec = VmSpec.builder()
+               .id(pooledName)
+               .name(pooledName)
+               .memoryMB((int) vmSpec.getMemory())
+               .osTypeId(vmSpec.getOsTypeId())
+               .cleanUpMode(CleanupMode.Full)
+               .forceOverwrite(true)
+               .build();
+      CloneSpec pooledSpec = CloneSpec.builder()
+               .linked(true)
+               .master(template.getMaster())
+               .network(template.getNetworkSpec())
+               .vm(pooledVmSpec).build();
+
+      cloneFromGoldenSnapshot(pooledSpec);
+      machineController.ensureMachineIsLaunched(pooledName);
+      machineUtils.sharedLockMachineAndApplyToSession(pooledName, new Function<ISession, Void>() {
+         @Override
+         public Void apply(ISession session) {
+            session.getConsole().saveState().waitForCompletion(-1);
+            return null;
+         }
+
+         @Override
+         public String toString() {
+            return "saveState()";
+         }
+      });
+      logger.debug("<< warm clone(%s) of master(%s) saved and added to the pool", pooledName, masterName);
+      return pooledName;
+   }
+
+   private Queue<String> warmClonesOf(String masterName) {
+      Queue<String> warm = warmClones.get(masterName);
+      if (warm == null) {
+         Queue<String> adopted = adoptSavedClones(masterName);
+         warm = warmClones.putIfAbsent(masterName, adopted);
+         if (warm == null)
+            warm = adopted;
+      }
+      return warm;
+   }
+
+   private AtomicInteger pendingClonesOf(String masterName) {
+      AtomicInteger pending = pendingClones.get(masterName);
+      if (pending == null) {
+         pendingClones.putIfAbsent(masterName, new AtomicInteger());
+         pending = pendingClones.get(masterName);
+      }
+      return pending;
+   }
+
+   /**
+    * Warm clones survive the jvm, so the saved ones left by a previous run are reused.
+    */
+   private Queue<String> adoptSavedClones(String masterName) {
+      Queue<String> adopted = new ConcurrentLinkedQueue<String>();
+      String prefix = poolPrefixOf(masterName);
+      for (IMachine machine : manager.get().getVBox().getMachines()) {
+         if (machine.getName().startsWith(prefix) && machine.getState() == MachineState.Saved) {
+            adopted.add(machine.getName());
+         }
+      }
+      if (!adopted.isEmpty())
+         logger.debug("<< adopted %d warm clones of master(%s)", adopted.size(), masterName);
+      return adopted;
+   }
+
+   private static String poolPrefixOf(String masterName) {
+      return VIRTUALBOX_POOL_PREFIX + masterName.replace(VIRTUALBOX_IMAGE_PREFIX, "")
+               + VIRTUALBOX_NODE_NAME_SEPARATOR;
+   }
+}
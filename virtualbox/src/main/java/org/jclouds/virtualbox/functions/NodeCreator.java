@@ -87,13 +87,14 @@ public class NodeCreator implements Function<NodeSpec, NodeAndInitialCredentials
    private final MachineUtils machineUtils;
    private final MachineController machineController;
    private final NetworkUtils networkUtils;
+   private final LinkedClonePool clonePool;
    private final int ram;
    private final String workingDir;
    
    @Inject
    public NodeCreator(Supplier<VirtualBoxManager> manager, Function<CloneSpec, IMachine> cloner,
             MachineUtils machineUtils, MachineController machineController,
-            NetworkUtils networkUtils,
+            NetworkUtils networkUtils, LinkedClonePool clonePool,
             @Named(VIRTUALBOX_GUEST_MEMORY) String ram,
             @Named(VIRTUALBOX_WORKINGDIR) String workingDir) {
       this.manager = checkNotNull(manager, "manager");
@@ -101,6 +102,7 @@ public class NodeCreator implements Function<NodeSpec, NodeAndInitialCredentials
       this.networkUtils = checkNotNull(networkUtils, "networkUtils");
       this.machineUtils = checkNotNull(machineUtils, "machineUtils");
       this.machineController = checkNotNull(machineController, "machineController");
+      this.clonePool = checkNotNull(clonePool, "clonePool");
       this.ram = checkNotNull(Integer.valueOf(ram), "ram");
       this.workingDir = checkNotNull(workingDir, "workingDir");
    }
@@ -113,11 +115,19 @@ public class NodeCreator implements Function<NodeSpec, NodeAndInitialCredentials
       String guestOsUser = masterMachine.getExtraData(GUEST_OS_USER);
       String guestOsPassword = masterMachine.getExtraData(GUEST_OS_PASSWORD);
 
-      cleanUpMaster(master);
       CloneSpec cloneSpec = configureCloneSpec(nodeSpec, guestOsUser, guestOsPassword);
-      IMachine clone = cloner.apply(cloneSpec);
       String cloneName =  cloneSpec.getVmSpec().getVmName();
+      IMachine clone;
+      if (clonePool.isEnabled()) {
+         // linked clones in the pool depend on the master snapshot, so it must be kept
+         Optional<IMachine> warmClone = clonePool.take(cloneSpec);
+         clone = warmClone.isPresent() ? warmClone.get() : clonePool.cloneFromGoldenSnapshot(cloneSpec);
+      } else {
+         cleanUpMaster(master);
+         clone = cloner.apply(cloneSpec);
+      }
       logger.debug("<< cloned a vm(%s) from master(%s)", cloneName, nodeSpec.getMaster().getMachine().getName());
+      // restores the saved state of warm clones
       machineController.ensureMachineIsLaunched(cloneName);
       logger.debug("<< cloned vm(%s) is up and running", cloneName);
 
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.virtualbox.functions;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.isA;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.jclouds.virtualbox.config.VirtualBoxConstants.VIRTUALBOX_IMAGE_PREFIX;
+import static org.jclouds.virtualbox.config.VirtualBoxConstants.VIRTUALBOX_NODE_NAME_SEPARATOR;
+import static org.jclouds.virtualbox.config.VirtualBoxConstants.VIRTUALBOX_POOL_PREFIX;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import org.jclouds.virtualbox.domain.CloneSpec;
+import org.jclouds.virtualbox.domain.NetworkSpec;
+import org.jclouds.virtualbox.domain.VmSpec;
+import org.jclouds.virtualbox.util.MachineController;
+import org.jclouds.virtualbox.util.MachineUtils;
+import org.testng.annotations.Test;
+import org.virtualbox_4_2.CleanupMode;
+import org.virtualbox_4_2.IMachine;
+import org.virtualbox_4_2.IVirtualBox;
+import org.virtualbox_4_2.MachineState;
+import org.virtualbox_4_2.VirtualBoxManager;
+
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+@Test(groups = "unit", testName = "LinkedClonePoolTest")
+public class LinkedClonePoolTest {
+
+   private static final String MASTER_NAME = VIRTUALBOX_IMAGE_PREFIX + "ubuntu";
+   private static final String POOLED_NAME = VIRTUALBOX_POOL_PREFIX + "ubuntu" + VIRTUALBOX_NODE_NAME_SEPARATOR + "0a1b";
+   private static final String CLONE_NAME = "jclouds-node-0x0-ubuntu-0x0-tag-0x0-node";
+
+   @SuppressWarnings("unchecked")
+   public void testDisabledPoolDoesNotCreateWarmClones() throws Exception {
+      VirtualBoxManager manager = createMock(VirtualBoxManager.class);
+      ListeningExecutorService userExecutor = createMock(ListeningExecutorService.class);
+      IMachine master = createNiceMock(IMachine.class);
+      replay(manager, userExecutor, master);
+
+      LinkedClonePool pool = new LinkedClonePool(Suppliers.ofInstance(manager), createMock(Function.class),
+               createMock(MachineUtils.class), createMock(MachineController.class), userExecutor, "0");
+      assertFalse(pool.isEnabled());
+      pool.replenish(cloneSpec(master));
+
+      verify(manager, userExecutor);
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testTakeReturnsAbsentAndReplenishesWhenPoolIsEmpty() throws Exception {
+      VirtualBoxManager manager = createMock(VirtualBoxManager.class);
+      IVirtualBox vBox = createMock(IVirtualBox.class);
+      ListeningExecutorService userExecutor = createMock(ListeningExecutorService.class);
+      IMachine master = createNiceMock(IMachine.class);
+
+      expect(master.getName()).andReturn(MASTER_NAME).anyTimes();
+      expect(manager.getVBox()).andReturn(vBox).anyTimes();
+      expect(vBox.getMachines()).andReturn(ImmutableList.<IMachine> of());
+      expect(userExecutor.submit(isA(Runnable.class))).andReturn(null);
+      replay(manager, vBox, userExecutor, master);
+
+      LinkedClonePool pool = new LinkedClonePool(Suppliers.ofInstance(manager), createMock(Function.class),
+               createMock(MachineUtils.class), createMock(MachineController.class), userExecutor, "1");
+
+      assertFalse(pool.take(cloneSpec(master)).isPresent());
+
+      verify(manager, vBox, userExecutor);
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testTakeRenamesSavedCloneLeftByPreviousRun() throws Exception {
+      VirtualBoxManager manager = createMock(VirtualBoxManager.class);
+      IVirtualBox vBox = createMock(IVirtualBox.class);
+      MachineUtils machineUtils = createMock(MachineUtils.class);
+      ListeningExecutorService userExecutor = createMock(ListeningExecutorService.class);
+      IMachine master = createNiceMock(IMachine.class);
+      IMachine pooled = createNiceMock(IMachine.class);
+      IMachine renamed = createNiceMock(IMachine.class);
+
+      expect(master.getName()).andReturn(MASTER_NAME).anyTimes();
+      expect(pooled.getName()).andReturn(POOLED_NAME).anyTimes();
+      expect(pooled.getState()).andReturn(MachineState.Saved).anyTimes();
+      expect(manager.getVBox()).andReturn(vBox).anyTimes();
+      expect(vBox.getMachines()).andReturn(ImmutableList.of(master, pooled));
+      expect(machineUtils.writeLockMachineAndApply(eq(POOLED_NAME), anyObject(Function.class))).andReturn(null);
+      expect(vBox.findMachine(CLONE_NAME)).andReturn(renamed);
+      expect(userExecutor.submit(isA(Runnable.class))).andReturn(null);
+      replay(manager, vBox, machineUtils, userExecutor, master, pooled, renamed);
+
+      LinkedClonePool pool = new LinkedClonePool(Suppliers.ofInstance(manager), createMock(Function.class),
+               machineUtils, createMock(MachineController.class), userExecutor, "1");
+
+      Optional<IMachine> clone = pool.take(cloneSpec(master));
+      assertEquals(clone.get(), renamed);
+
+      verify(manager, vBox, machineUtils, userExecutor);
+   }
+
+   private static CloneSpec cloneSpec(IMachine master) {
+      VmSpec vmSpec = VmSpec.builder().id(CLONE_NAME).name(CLONE_NAME).memoryMB(512).osTypeId("Ubuntu")
+               .cleanUpMode(CleanupMode.Full).build();
+      return CloneSpec.builder().linked(true).master(master).network(NetworkSpec.builder().build()).vm(vmSpec)
+               .build();
+   }
+}